@@ -2,11 +2,13 @@ package br.com.ukbank;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 /**
  * Main Spring Boot application class for UK Banking System
  */
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class UKBankingApplication {
 
     public static void main(String[] args) {
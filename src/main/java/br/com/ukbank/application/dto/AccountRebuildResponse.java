@@ -0,0 +1,31 @@
+package br.com.ukbank.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An account's balance rebuilt from its snapshot and later postings, next to the stored one
+ * A chain break is a posting whose balance after does not follow from the one before it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountRebuildResponse {
+
+    private Long accountId;
+    private BigDecimal snapshotBalance;
+    private LocalDateTime snapshotThrough;
+    private long postingsReplayed;
+    private BigDecimal rebuiltBalance;
+    private BigDecimal storedBalance;
+    private String currency;
+    private long chainBreaks;
+    private Long firstBreakTransactionId;
+    private boolean consistent;
+}
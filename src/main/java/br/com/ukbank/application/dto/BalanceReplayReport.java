@@ -0,0 +1,36 @@
+package br.com.ukbank.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a replay of the whole book from its snapshots
+ * Accounts with neither a snapshot nor postings have nothing to replay and are not counted.
+ * Chain breaks count postings whose balance after does not follow from the one before; balance
+ * mismatches count accounts whose rebuilt balance still differed from the stored one when
+ * checked again under the account's ledger lock. Inconsistent accounts have either.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceReplayReport {
+
+    private boolean checkpoint;
+    private int chunksProcessed;
+    private int chunksFailed;
+    private long accountsReplayed;
+    private long postingsReplayed;
+    private long chainBreaks;
+    private long balanceMismatches;
+    private List<Long> inconsistentAccountIds;
+    private long snapshotsWritten;
+    private long durationMillis;
+    private int workerThreads;
+    private long postingsPerSecond;
+    private long postingsPerSecondPerCore;
+}
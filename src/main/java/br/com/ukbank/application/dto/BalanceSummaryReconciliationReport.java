@@ -0,0 +1,22 @@
+package br.com.ukbank.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a customer balance summary reconciliation
+ * Suspected mismatches that resolved themselves within the settle window are not repaired
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceSummaryReconciliationReport {
+
+    private long customersChecked;
+    private long mismatchesSuspected;
+    private long summariesRepaired;
+    private long durationMillis;
+}
@@ -1,6 +1,7 @@
 package br.com.ukbank.application.dto;
 
 import br.com.ukbank.domain.model.BankAccount;
+import br.com.ukbank.infrastructure.repositories.BankAccountView;
 import lombok.Data;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
@@ -46,4 +47,21 @@ public class BankAccountResponse {
             .customerId(account.getCustomer().getCustomerId())
             .build();
     }
+
+    public static BankAccountResponse from(BankAccountView view) {
+        return BankAccountResponse.builder()
+            .accountId(view.getAccountId())
+            .accountNumber(view.getAccountNumber())
+            .sortCode(view.getSortCode())
+            .accountType(view.getAccountType().getDisplayName())
+            .balance(view.getBalance())
+            .currency(view.getCurrency())
+            .overdraftLimit(view.getOverdraftLimit())
+            .interestRate(view.getInterestRate())
+            .status(view.getStatus().name())
+            .openedAt(view.getOpenedAt())
+            .customerName(view.getCustomerFirstName() + " " + view.getCustomerLastName())
+            .customerId(view.getCustomerId())
+            .build();
+    }
 }
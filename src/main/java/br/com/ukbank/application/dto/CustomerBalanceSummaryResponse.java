@@ -0,0 +1,34 @@
+package br.com.ukbank.application.dto;
+
+import br.com.ukbank.domain.model.CustomerBalanceSummary;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for a customer's position across their active accounts
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerBalanceSummaryResponse {
+
+    private Long customerId;
+    private BigDecimal totalActiveBalance;
+    private long activeAccountCount;
+    private LocalDateTime lastActivityAt;
+
+    public static CustomerBalanceSummaryResponse from(CustomerBalanceSummary summary) {
+        return CustomerBalanceSummaryResponse.builder()
+            .customerId(summary.getCustomerId())
+            .totalActiveBalance(summary.getTotalActiveBalance())
+            .activeAccountCount(summary.getActiveAccountCount())
+            .lastActivityAt(summary.getLastActivityAt())
+            .build();
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.ukbank.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk customer import
+ * Rejected rows are listed with their line number up to the configured limit; errorsTruncated
+ * tells whether more were rejected than listed
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerImportReport {
+
+    private long totalRows;
+    private long imported;
+    private long rejected;
+    private long durationMillis;
+    private long rowsPerSecond;
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.ukbank.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of customers
+ * Pass nextCursor back as the after parameter to fetch the following page; it is null on the last one
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerPage {
+
+    private List<CustomerResponse> items;
+    private Long nextCursor;
+}
@@ -1,6 +1,7 @@
 package br.com.ukbank.application.dto;
 
 import br.com.ukbank.domain.model.Customer;
+import br.com.ukbank.infrastructure.repositories.CustomerView;
 import lombok.Data;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
@@ -49,4 +50,22 @@ public class CustomerResponse {
             .lastUpdatedAt(customer.getLastUpdatedAt())
             .build();
     }
+
+    public static CustomerResponse from(CustomerView view) {
+        return CustomerResponse.builder()
+            .customerId(view.getCustomerId())
+            .firstName(view.getFirstName())
+            .lastName(view.getLastName())
+            .fullName(view.getFirstName() + " " + view.getLastName())
+            .email(view.getEmail())
+            .phoneNumber(view.getPhoneNumber())
+            .dateOfBirth(view.getDateOfBirth())
+            .addressLine(view.getAddressLine())
+            .postcode(view.getPostcode())
+            .nationalInsuranceNumber(view.getNationalInsuranceNumber())
+            .status(view.getStatus().name())
+            .registeredAt(view.getRegisteredAt())
+            .lastUpdatedAt(view.getLastUpdatedAt())
+            .build();
+    }
 }
@@ -0,0 +1,30 @@
+package br.com.ukbank.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Outcome of an interest accrual run
+ * Counts cover the chunks processed by this run only; failed chunks stay pending for the next one
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterestAccrualReport {
+
+    private LocalDate businessDate;
+    private int chunksProcessed;
+    private int chunksFailed;
+    private long accountsCredited;
+    private BigDecimal interestCredited;
+    private long durationMillis;
+    private int workerThreads;
+    private long accountsPerSecond;
+    private long accountsPerSecondPerCore;
+}
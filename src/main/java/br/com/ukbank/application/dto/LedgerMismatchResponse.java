@@ -0,0 +1,27 @@
+package br.com.ukbank.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a mismatch found by a ledger reconciliation run
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerMismatchResponse {
+
+    private Long runId;
+    private Long accountId;
+    private String kind;
+    private Long transactionId;
+    private BigDecimal expectedBalance;
+    private BigDecimal actualBalance;
+    private LocalDateTime detectedAt;
+}
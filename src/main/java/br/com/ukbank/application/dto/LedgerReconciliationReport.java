@@ -0,0 +1,29 @@
+package br.com.ukbank.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a ledger reconciliation run
+ * The mismatches themselves are in the report table under the run ID
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerReconciliationReport {
+
+    private Long runId;
+    private int chunksProcessed;
+    private int chunksFailed;
+    private long accountsChecked;
+    private long postingsChecked;
+    private long chainBreaks;
+    private long balanceMismatches;
+    private long mismatchesRecorded;
+    private long durationMillis;
+    private int workerThreads;
+    private long postingsPerSecond;
+}
@@ -20,6 +20,7 @@ public class TransferResponse {
     private String transactionReference;
     private String status;
     private Long fromAccountId;
+    private Long toAccountId;
     private BigDecimal amount;
     private String payeeName;
     private String reference;
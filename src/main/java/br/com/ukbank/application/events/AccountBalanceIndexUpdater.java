@@ -0,0 +1,37 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.application.services.AccountBalanceIndex;
+import br.com.ukbank.domain.events.AccountOpenedEvent;
+import br.com.ukbank.domain.events.AccountStatusChangedEvent;
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.domain.events.TransactionProcessedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Marks accounts for the balance index to re-read after postings, openings and status changes
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountBalanceIndexUpdater implements DomainEventHandler {
+
+    private final AccountBalanceIndex index;
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return event instanceof TransactionProcessedEvent
+            || event instanceof AccountOpenedEvent
+            || event instanceof AccountStatusChangedEvent;
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        if (event instanceof TransactionProcessedEvent) {
+            index.markDirty(((TransactionProcessedEvent) event).getAccountId());
+        } else if (event instanceof AccountOpenedEvent) {
+            index.markDirty(((AccountOpenedEvent) event).getAccountId());
+        } else {
+            index.markDirty(((AccountStatusChangedEvent) event).getAccountId());
+        }
+    }
+}
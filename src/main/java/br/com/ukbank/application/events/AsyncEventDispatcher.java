@@ -0,0 +1,318 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.domain.identity.IdGenerators;
+import br.com.ukbank.infrastructure.config.EventPublishingProperties;
+import br.com.ukbank.infrastructure.events.DomainEventCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Asynchronous, batching delivery of committed domain events
+ * Committing threads only enqueue into a bounded ring buffer; dedicated consumer threads
+ * drain it in batches and run the handlers. When the buffer is full the configured overflow
+ * policy applies: BLOCK waits for space, DROP discards and counts, SPILL appends the event
+ * to a file that consumers replay once they are idle again. Spilled events are therefore
+ * delivered out of order relative to the ones that stayed in memory. A spilled line that
+ * cannot be decoded is counted and set aside in a .rejected file next to the spill, and
+ * replay carries on with the next line.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ukbank.events", name = "mode", havingValue = "async")
+@Slf4j
+public class AsyncEventDispatcher {
+
+    private static final String SPILL_FILE = "current.spill";
+    private static final String REPLAY_SUFFIX = ".replay";
+    private static final String REJECTED_SUFFIX = ".rejected";
+
+    private final DomainEventHandlers handlers;
+    private final DomainEventCodec codec;
+    private final EventPublishingProperties.Async config;
+    private final BlockingQueue<Envelope> queue;
+    private final List<Thread> consumers = new ArrayList<>();
+
+    private final Object spillLock = new Object();
+    private final AtomicLong spillPending = new AtomicLong();
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    private BufferedWriter spillWriter;
+
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Counter rejected;
+    private final Timer publishLag;
+
+    private volatile boolean running;
+
+    public AsyncEventDispatcher(DomainEventHandlers handlers,
+                                DomainEventCodec codec,
+                                EventPublishingProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.handlers = handlers;
+        this.codec = codec;
+        this.config = properties.getAsync();
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+
+        Gauge.builder("events.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("events.spill.pending", spillPending, AtomicLong::get).register(meterRegistry);
+        this.dropped = Counter.builder("events.dropped").register(meterRegistry);
+        this.spilled = Counter.builder("events.spilled").register(meterRegistry);
+        this.rejected = Counter.builder("events.spill.rejected")
+            .description("Spilled lines that could not be decoded on replay")
+            .register(meterRegistry);
+        this.publishLag = Timer.builder("events.publish.lag")
+            .description("Time from commit to handler dispatch")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(config.getSpillDirectory());
+        // Anything spilled before the last shutdown is replayed by the first idle consumer
+        rotateSpillFile();
+        spillPending.set(countReplayLines());
+
+        running = true;
+        for (int i = 0; i < config.getConsumerThreads(); i++) {
+            Thread consumer = new Thread(this::consume, "domain-events-" + i);
+            consumer.setDaemon(true);
+            consumer.start();
+            consumers.add(consumer);
+        }
+        log.info("Started {} asynchronous event consumers with capacity {} and {} overflow policy",
+            config.getConsumerThreads(), config.getQueueCapacity(), config.getOverflowPolicy());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread consumer : consumers) {
+            consumer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        synchronized (spillLock) {
+            closeSpillWriter();
+        }
+    }
+
+    /**
+     * Hands a committed event to the consumers, applying the overflow policy when full
+     */
+    public void submit(DomainEvent event) {
+        Envelope envelope = new Envelope(event, System.nanoTime());
+        if (queue.offer(envelope)) {
+            return;
+        }
+
+        switch (config.getOverflowPolicy()) {
+            case BLOCK:
+                try {
+                    queue.put(envelope);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    spill(event);
+                }
+                break;
+            case DROP:
+                dropped.increment();
+                log.warn("Event queue full, dropped {}", event);
+                break;
+            case SPILL:
+                spill(event);
+                break;
+            default:
+                throw new IllegalStateException("Unknown overflow policy " + config.getOverflowPolicy());
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void consume() {
+        List<Envelope> batch = new ArrayList<>(config.getBatchSize());
+        long pollNanos = config.getPollTimeout().toNanos();
+
+        while (running || !queue.isEmpty()) {
+            Envelope first;
+            try {
+                first = queue.poll(pollNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                replaySpilled();
+                continue;
+            }
+
+            batch.add(first);
+            queue.drainTo(batch, config.getBatchSize() - 1);
+            for (Envelope envelope : batch) {
+                handlers.dispatch(envelope.event);
+                publishLag.record(System.nanoTime() - envelope.enqueuedAt, TimeUnit.NANOSECONDS);
+            }
+            batch.clear();
+        }
+    }
+
+    private void spill(DomainEvent event) {
+        String line = codec.encode(event);
+        synchronized (spillLock) {
+            try {
+                if (spillWriter == null) {
+                    spillWriter = Files.newBufferedWriter(config.getSpillDirectory().resolve(SPILL_FILE),
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                spillWriter.write(line);
+                spillWriter.newLine();
+                spillWriter.flush();
+            } catch (IOException e) {
+                dropped.increment();
+                log.error("Could not spill event {}, dropping it", event, e);
+                return;
+            }
+            spillPending.incrementAndGet();
+            spilled.increment();
+        }
+    }
+
+    private void replaySpilled() {
+        if (spillPending.get() == 0 || !replaying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            synchronized (spillLock) {
+                rotateSpillFile();
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(config.getSpillDirectory(), "*" + REPLAY_SUFFIX)) {
+                List<Path> ordered = new ArrayList<>();
+                files.forEach(ordered::add);
+                ordered.sort(null);
+                for (Path file : ordered) {
+                    replay(file);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not replay spilled events", e);
+        } finally {
+            replaying.set(false);
+        }
+    }
+
+    private long countReplayLines() throws IOException {
+        long lines = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(config.getSpillDirectory(), "*" + REPLAY_SUFFIX)) {
+            for (Path file : files) {
+                try (Stream<String> fileLines = Files.lines(file, StandardCharsets.UTF_8)) {
+                    lines += fileLines.filter(line -> !line.isEmpty()).count();
+                }
+            }
+        }
+        return lines;
+    }
+
+    private void replay(Path file) throws IOException {
+        long count = 0;
+        long bad = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                DomainEvent event;
+                try {
+                    event = codec.decode(line);
+                } catch (RuntimeException e) {
+                    bad++;
+                    reject(file, line, e);
+                    continue;
+                }
+                handlers.dispatch(event);
+                count++;
+            }
+        }
+        Files.delete(file);
+        long replayed = count + bad;
+        spillPending.updateAndGet(pending -> Math.max(0, pending - replayed));
+        if (bad > 0) {
+            log.warn("Replayed {} spilled events from {}, rejected {} undecodable lines",
+                count, file.getFileName(), bad);
+        } else {
+            log.info("Replayed {} spilled events from {}", count, file.getFileName());
+        }
+    }
+
+    // Kept verbatim for inspection; a line that cannot be set aside is still only logged and counted
+    private void reject(Path file, String line, RuntimeException cause) {
+        rejected.increment();
+        log.error("Could not decode spilled event in {}, setting it aside", file.getFileName(), cause);
+        String name = file.getFileName().toString();
+        Path rejectedFile = file.resolveSibling(name.substring(0, name.length() - REPLAY_SUFFIX.length()) + REJECTED_SUFFIX);
+        try (BufferedWriter writer = Files.newBufferedWriter(rejectedFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(line);
+            writer.newLine();
+        } catch (IOException e) {
+            log.error("Could not write rejected line to {}", rejectedFile.getFileName(), e);
+        }
+    }
+
+    // Caller holds spillLock
+    private void rotateSpillFile() throws IOException {
+        closeSpillWriter();
+        Path current = config.getSpillDirectory().resolve(SPILL_FILE);
+        if (Files.exists(current)) {
+            // Time-sortable names keep replay in spill order
+            Files.move(current, config.getSpillDirectory().resolve(IdGenerators.current().nextHexId() + REPLAY_SUFFIX));
+        }
+    }
+
+    private void closeSpillWriter() {
+        if (spillWriter == null) {
+            return;
+        }
+        try {
+            spillWriter.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            spillWriter = null;
+        }
+    }
+
+    private static final class Envelope {
+        private final DomainEvent event;
+        private final long enqueuedAt;
+
+        private Envelope(DomainEvent event, long enqueuedAt) {
+            this.event = event;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.application.services.CustomerBalanceSummaryService;
+import br.com.ukbank.domain.events.AccountOpenedEvent;
+import br.com.ukbank.domain.events.AccountStatusChangedEvent;
+import br.com.ukbank.domain.events.CustomerRegisteredEvent;
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.domain.events.TransactionProcessedEvent;
+import br.com.ukbank.domain.model.BankAccount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns account and posting events into changes to the customer balance summaries
+ * Postings are only accepted on active accounts, so each one moves the active balance by its
+ * amount. Events recorded before they carried the customer or the previous status cannot be
+ * applied as deltas and are left to reconciliation. Deltas are not idempotent: the outbox relay
+ * only redelivers an event to the handlers that failed it, and the rare repeat after a crash
+ * between dispatch and publish is corrected by reconciliation like any other drift.
+ */
+@Component
+@RequiredArgsConstructor
+public class CustomerBalanceSummaryUpdater implements DomainEventHandler {
+
+    private static final String ACTIVE = BankAccount.AccountStatus.ACTIVE.name();
+
+    private final CustomerBalanceSummaryService summaryService;
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return event instanceof TransactionProcessedEvent
+            || event instanceof AccountOpenedEvent
+            || event instanceof AccountStatusChangedEvent
+            || event instanceof CustomerRegisteredEvent;
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        if (event instanceof TransactionProcessedEvent) {
+            TransactionProcessedEvent posting = (TransactionProcessedEvent) event;
+            if (posting.getCustomerId() != null) {
+                long amount = posting.getAmount().getMinorUnits();
+                summaryService.applyDelta(posting.getCustomerId(),
+                    "DEBIT".equals(posting.getTransactionType()) ? -amount : amount, 0, posting.getOccurredOn());
+            }
+        } else if (event instanceof AccountOpenedEvent) {
+            AccountOpenedEvent opened = (AccountOpenedEvent) event;
+            summaryService.applyDelta(opened.getCustomerId(), opened.getOpeningBalance().getMinorUnits(), 1,
+                opened.getOccurredOn());
+        } else if (event instanceof AccountStatusChangedEvent) {
+            AccountStatusChangedEvent changed = (AccountStatusChangedEvent) event;
+            if (changed.getPreviousStatus() == null || changed.getBalance() == null) {
+                return;
+            }
+            int accounts = (ACTIVE.equals(changed.getStatus()) ? 1 : 0) - (ACTIVE.equals(changed.getPreviousStatus()) ? 1 : 0);
+            if (accounts != 0) {
+                summaryService.applyDelta(changed.getCustomerId(), accounts * changed.getBalance().getMinorUnits(),
+                    accounts, changed.getOccurredOn());
+            }
+        } else if (event instanceof CustomerRegisteredEvent) {
+            summaryService.recordCustomer(((CustomerRegisteredEvent) event).getCustomerId());
+        }
+    }
+}
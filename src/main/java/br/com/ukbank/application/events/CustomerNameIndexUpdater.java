@@ -0,0 +1,34 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.application.services.CustomerNameIndex;
+import br.com.ukbank.domain.events.CustomerRegisteredEvent;
+import br.com.ukbank.domain.events.CustomerUpdatedEvent;
+import br.com.ukbank.domain.events.DomainEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the customer name index in step with registrations and name changes
+ */
+@Component
+@RequiredArgsConstructor
+public class CustomerNameIndexUpdater implements DomainEventHandler {
+
+    private final CustomerNameIndex index;
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return event instanceof CustomerRegisteredEvent || event instanceof CustomerUpdatedEvent;
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        if (event instanceof CustomerRegisteredEvent) {
+            CustomerRegisteredEvent registered = (CustomerRegisteredEvent) event;
+            index.index(registered.getCustomerId(), registered.getFirstName(), registered.getLastName());
+        } else {
+            CustomerUpdatedEvent updated = (CustomerUpdatedEvent) event;
+            index.index(updated.getCustomerId(), updated.getFirstName(), updated.getLastName());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.domain.events.DomainEvent;
+
+/**
+ * Receives domain events once the transaction that raised them has committed
+ * Implementations are discovered as Spring beans
+ */
+public interface DomainEventHandler {
+
+    boolean supports(DomainEvent event);
+
+    void handle(DomainEvent event);
+}
@@ -0,0 +1,81 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.domain.events.DomainEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fans a domain event out to every registered handler
+ * A failing handler is logged and counted without stopping the others
+ */
+@Component
+@Slf4j
+public class DomainEventHandlers {
+
+    private final ObjectProvider<DomainEventHandler> handlerProvider;
+    private final Counter dispatched;
+    private final Counter failures;
+    private volatile List<DomainEventHandler> handlers;
+
+    public DomainEventHandlers(ObjectProvider<DomainEventHandler> handlerProvider, MeterRegistry meterRegistry) {
+        this.handlerProvider = handlerProvider;
+        this.dispatched = Counter.builder("events.dispatched").register(meterRegistry);
+        this.failures = Counter.builder("events.handler.failures").register(meterRegistry);
+    }
+
+    /**
+     * Dispatches to every handler, returning false if any of them failed
+     */
+    public boolean dispatch(DomainEvent event) {
+        return dispatch(event, new HashSet<>());
+    }
+
+    /**
+     * Dispatches to every handler not named in delivered, adding the name of each that succeeds
+     * Lets a redelivery skip the handlers that already applied the event, so only the ones that
+     * failed see it twice. Returns false if any of them failed.
+     */
+    public boolean dispatch(DomainEvent event, Set<String> delivered) {
+        boolean all = true;
+        for (DomainEventHandler handler : handlers()) {
+            String name = name(handler);
+            if (!handler.supports(event) || delivered.contains(name)) {
+                continue;
+            }
+            try {
+                handler.handle(event);
+                delivered.add(name);
+            } catch (RuntimeException e) {
+                all = false;
+                failures.increment();
+                log.error("Handler {} failed for event {}", name, event, e);
+            }
+        }
+        dispatched.increment();
+        return all;
+    }
+
+    // Stable across restarts, so a name recorded with an outbox row still matches after one
+    private static String name(DomainEventHandler handler) {
+        return ClassUtils.getUserClass(handler).getName();
+    }
+
+    // Resolved lazily so handlers may depend on services that publish events
+    private List<DomainEventHandler> handlers() {
+        List<DomainEventHandler> resolved = handlers;
+        if (resolved == null) {
+            resolved = handlerProvider.orderedStream().collect(Collectors.toList());
+            handlers = resolved;
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,250 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.infrastructure.config.EventPublishingProperties;
+import br.com.ukbank.infrastructure.events.DomainEventCodec;
+import br.com.ukbank.infrastructure.outbox.OutboxEvent;
+import br.com.ukbank.infrastructure.outbox.OutboxEventRepository;
+import br.com.ukbank.infrastructure.outbox.OutboxOffset;
+import br.com.ukbank.infrastructure.outbox.OutboxOffsetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background relay delivering outbox events to the registered handlers
+ * Each sweep pages through pending rows by keyset on the outbox ID, starting from the
+ * consumer's stored offset, and marks every delivered batch as published. The offset is a
+ * low-water mark: it only moves past rows that are published or dead-lettered and older than
+ * the settle window. IDs are taken before commit, so a transaction that outlasts the window can
+ * still make a row visible below the offset; once per settle window a sweep therefore starts by
+ * scanning below the offset for rows still pending, and relays those out of order. A failed
+ * event is retried on the next sweep and holds back the events after it; once it reaches the
+ * attempt limit it is dead-lettered and skipped. The handlers that did accept it are recorded
+ * with the row and skipped on the retry, so a delta applied by one handler is not applied again
+ * because another failed. Delivery is still at-least-once across a crash between dispatch and
+ * marking the batch published, so handlers must tolerate that rare repeat.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ukbank.events", name = "mode", havingValue = "outbox")
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository eventRepository;
+    private final OutboxOffsetRepository offsetRepository;
+    private final DomainEventHandlers handlers;
+    private final DomainEventCodec codec;
+    private final EventPublishingProperties.Outbox config;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong offset = new AtomicLong();
+    private final Counter relayed;
+    private final Counter deadLettered;
+    private final Timer batchTimer;
+
+    private long nextLateScan = System.nanoTime();
+    private Thread relayThread;
+    private volatile boolean running;
+
+    public OutboxRelay(OutboxEventRepository eventRepository,
+                       OutboxOffsetRepository offsetRepository,
+                       DomainEventHandlers handlers,
+                       DomainEventCodec codec,
+                       EventPublishingProperties properties,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.offsetRepository = offsetRepository;
+        this.handlers = handlers;
+        this.codec = codec;
+        this.config = properties.getOutbox();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("outbox.relay.offset", offset, AtomicLong::get).register(meterRegistry);
+        this.relayed = Counter.builder("outbox.relay.relayed").register(meterRegistry);
+        this.deadLettered = Counter.builder("outbox.relay.dead.lettered").register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        relayThread = new Thread(this::run, "outbox-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        relayThread.interrupt();
+        relayThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        offset.set(loadOffset());
+        log.info("Outbox relay '{}' starting after event {}", config.getConsumer(), offset.get());
+
+        while (running) {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.error("Outbox relay sweep failed", e);
+            }
+            try {
+                Thread.sleep(config.getPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Relays pending events until caught up or held back by a failing one, then advances the offset
+     */
+    void sweep() {
+        relayLate();
+        long cursor = offset.get();
+        boolean more = true;
+        while (more && running) {
+            long start = System.nanoTime();
+            List<OutboxEvent> batch = eventRepository.findPendingAfter(cursor, PageRequest.of(0, config.getBatchSize()));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<Long> delivered = new ArrayList<>(batch.size());
+            more = batch.size() == config.getBatchSize();
+            for (OutboxEvent event : batch) {
+                if (deliver(event)) {
+                    delivered.add(event.getId());
+                } else if (event.getAttempts() + 1 < config.getMaxAttempts()) {
+                    // Keep order: nothing after a retryable failure is delivered this sweep
+                    more = false;
+                    break;
+                }
+                cursor = event.getId();
+            }
+
+            if (!delivered.isEmpty()) {
+                LocalDateTime now = LocalDateTime.now();
+                transactionTemplate.execute(status -> eventRepository.markPublished(delivered, now));
+                relayed.increment(delivered.size());
+            }
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        advanceOffset();
+    }
+
+    // Rows that committed after the offset moved past them; a full page is followed up on the next sweep
+    private void relayLate() {
+        long through = offset.get();
+        long now = System.nanoTime();
+        if (through == 0 || now - nextLateScan < 0) {
+            return;
+        }
+        List<OutboxEvent> late = eventRepository.findPendingThrough(through, PageRequest.of(0, config.getBatchSize()));
+        nextLateScan = late.size() == config.getBatchSize() ? now : now + config.getSettleWindow().toNanos();
+        if (late.isEmpty()) {
+            return;
+        }
+
+        List<Long> delivered = new ArrayList<>(late.size());
+        for (OutboxEvent event : late) {
+            if (deliver(event)) {
+                delivered.add(event.getId());
+            }
+        }
+        if (!delivered.isEmpty()) {
+            LocalDateTime publishedAt = LocalDateTime.now();
+            transactionTemplate.execute(status -> eventRepository.markPublished(delivered, publishedAt));
+            relayed.increment(delivered.size());
+        }
+        log.warn("Relayed {} of {} outbox events found pending below offset {}", delivered.size(), late.size(), through);
+    }
+
+    // Returns true only when every handler accepted the event, now or on an earlier attempt
+    private boolean deliver(OutboxEvent event) {
+        Set<String> delivered = new LinkedHashSet<>();
+        if (event.getDeliveredHandlers() != null && !event.getDeliveredHandlers().isEmpty()) {
+            delivered.addAll(Arrays.asList(event.getDeliveredHandlers().split(",")));
+        }
+        String error;
+        try {
+            DomainEvent domainEvent = codec.decode(event.getPayload());
+            if (handlers.dispatch(domainEvent, delivered)) {
+                return true;
+            }
+            error = "One or more handlers failed";
+        } catch (RuntimeException e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+
+        int attempts = event.getAttempts() + 1;
+        String lastError = error.length() > 1000 ? error.substring(0, 1000) : error;
+        String deliveredHandlers = delivered.isEmpty() ? null : String.join(",", delivered);
+        transactionTemplate.execute(status ->
+            eventRepository.recordFailure(event.getId(), lastError, deliveredHandlers, config.getMaxAttempts()));
+
+        if (attempts >= config.getMaxAttempts()) {
+            deadLettered.increment();
+            log.error("Dead-lettered outbox event {} ({}) after {} attempts: {}",
+                event.getId(), event.getEventType(), attempts, lastError);
+        } else {
+            log.warn("Delivery of outbox event {} failed (attempt {} of {}), retrying on next sweep",
+                event.getId(), attempts, config.getMaxAttempts());
+        }
+        return false;
+    }
+
+    private long loadOffset() {
+        return offsetRepository.findById(config.getConsumer())
+            .map(OutboxOffset::getLastEventId)
+            .orElse(0L);
+    }
+
+    private void advanceOffset() {
+        long from = offset.get();
+        LocalDateTime settledBefore = LocalDateTime.now().minus(config.getSettleWindow());
+        Optional<Long> lastSettled = eventRepository.findLastSettledIdAfter(from, settledBefore);
+        if (!lastSettled.isPresent()) {
+            return;
+        }
+        long next = eventRepository.findFirstPendingIdAfter(from)
+            .map(firstPending -> Math.min(firstPending - 1, lastSettled.get()))
+            .orElse(lastSettled.get());
+        if (next > from) {
+            saveOffset(next);
+            offset.set(next);
+        }
+    }
+
+    private void saveOffset(long eventId) {
+        transactionTemplate.execute(status -> {
+            OutboxOffset stored = offsetRepository.findById(config.getConsumer())
+                .orElseGet(() -> new OutboxOffset(config.getConsumer()));
+            stored.advanceTo(eventId);
+            return offsetRepository.save(stored);
+        });
+    }
+}
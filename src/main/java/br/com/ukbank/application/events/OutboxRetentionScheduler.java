@@ -0,0 +1,28 @@
+package br.com.ukbank.application.events;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Triggers the nightly outbox retention sweep
+ */
+@Component
+@ConditionalOnProperty(prefix = "ukbank.events", name = "mode", havingValue = "outbox")
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRetentionScheduler {
+
+    private final OutboxRetentionService retentionService;
+
+    @Scheduled(cron = "${ukbank.events.outbox.retention-cron:0 30 3 * * *}")
+    public void purge() {
+        try {
+            retentionService.purge();
+        } catch (RuntimeException e) {
+            log.error("Outbox retention sweep failed", e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.infrastructure.config.EventPublishingProperties;
+import br.com.ukbank.infrastructure.outbox.OutboxEventRepository;
+import br.com.ukbank.infrastructure.outbox.OutboxOffsetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Deletes outbox rows that every relay consumer has finished with
+ * A row goes once it is published or dead-lettered, older than the retention period and at or
+ * below the lowest stored consumer offset, so nothing a relay may still read is touched.
+ * Deletes walk the outbox ID range in fixed-width windows, one short transaction each.
+ */
+@Service
+@ConditionalOnProperty(prefix = "ukbank.events", name = "mode", havingValue = "outbox")
+@Slf4j
+public class OutboxRetentionService {
+
+    private final OutboxEventRepository eventRepository;
+    private final OutboxOffsetRepository offsetRepository;
+    private final EventPublishingProperties.Outbox config;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter purged;
+
+    public OutboxRetentionService(OutboxEventRepository eventRepository,
+                                  OutboxOffsetRepository offsetRepository,
+                                  EventPublishingProperties properties,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.offsetRepository = offsetRepository;
+        this.config = properties.getOutbox();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.purged = Counter.builder("outbox.retention.purged").register(meterRegistry);
+    }
+
+    /**
+     * Deletes finished rows recorded before the retention period, returning how many went
+     */
+    public long purge() {
+        LocalDateTime recordedBefore = LocalDateTime.now().minus(config.getRetention());
+        Optional<Long> lowestOffset = offsetRepository.findLowestOffset();
+        if (!lowestOffset.isPresent()) {
+            return 0;
+        }
+        Optional<Long> last = eventRepository.findLastIdRecordedBefore(lowestOffset.get(), recordedBefore);
+        Optional<Long> first = eventRepository.findFirstId();
+        if (!last.isPresent() || !first.isPresent()) {
+            return 0;
+        }
+
+        long started = System.currentTimeMillis();
+        long deleted = 0;
+        for (long from = first.get(); from <= last.get(); from += config.getRetentionBatchSize()) {
+            long windowFrom = from;
+            long windowThrough = Math.min(last.get(), from + config.getRetentionBatchSize() - 1);
+            Integer removed = transactionTemplate.execute(status ->
+                eventRepository.deleteFinishedBetween(windowFrom, windowThrough, recordedBefore));
+            deleted += removed;
+            purged.increment(removed);
+        }
+        log.info("Outbox retention deleted {} rows up to event {} recorded before {} in {} ms",
+            deleted, last.get(), recordedBefore, System.currentTimeMillis() - started);
+        return deleted;
+    }
+}
@@ -0,0 +1,48 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.application.services.ResponseCache;
+import br.com.ukbank.domain.events.AccountOpenedEvent;
+import br.com.ukbank.domain.events.AccountStatusChangedEvent;
+import br.com.ukbank.domain.events.CustomerStatusChangedEvent;
+import br.com.ukbank.domain.events.CustomerUpdatedEvent;
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.domain.events.TransactionProcessedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts exactly the cached responses a committed change has made stale
+ * A backstop: the service making the change has already evicted them after its commit, this
+ * catches a change made anywhere else once its event is delivered.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseCacheInvalidator implements DomainEventHandler {
+
+    private final ResponseCache cache;
+
+    @Override
+    public boolean supports(DomainEvent event) {
+        return event instanceof TransactionProcessedEvent
+            || event instanceof AccountOpenedEvent
+            || event instanceof AccountStatusChangedEvent
+            || event instanceof CustomerUpdatedEvent
+            || event instanceof CustomerStatusChangedEvent;
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        if (event instanceof TransactionProcessedEvent) {
+            cache.evictAccount(((TransactionProcessedEvent) event).getAccountId());
+        } else if (event instanceof AccountOpenedEvent) {
+            cache.evictCustomerAccounts(((AccountOpenedEvent) event).getCustomerId());
+        } else if (event instanceof AccountStatusChangedEvent) {
+            cache.evictAccount(((AccountStatusChangedEvent) event).getAccountId());
+        } else if (event instanceof CustomerUpdatedEvent) {
+            // Account responses carry the customer's name
+            cache.evictCustomerAndAccounts(((CustomerUpdatedEvent) event).getCustomerId());
+        } else if (event instanceof CustomerStatusChangedEvent) {
+            cache.evictCustomer(((CustomerStatusChangedEvent) event).getCustomerId());
+        }
+    }
+}
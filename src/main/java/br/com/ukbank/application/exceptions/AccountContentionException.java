@@ -0,0 +1,11 @@
+package br.com.ukbank.application.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class AccountContentionException extends RuntimeException {
+    public AccountContentionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.ukbank.application.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCustomerImportException extends RuntimeException {
+    public InvalidCustomerImportException(String message) {
+        super(message);
+    }
+}
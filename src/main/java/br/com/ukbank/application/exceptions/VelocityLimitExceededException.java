@@ -0,0 +1,12 @@
+package br.com.ukbank.application.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class VelocityLimitExceededException extends RuntimeException {
+    public VelocityLimitExceededException(String message) {
+        // Thrown at a throttled client's rate; capturing the stack would cost more than the check
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,357 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.domain.events.BalanceThresholdCrossedEvent;
+import br.com.ukbank.domain.model.BankAccount;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.config.BalanceIndexProperties;
+import br.com.ukbank.infrastructure.repositories.AccountBalanceView;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of account balances ordered by amount
+ * Every account that is not closed has one entry, kept in a concurrent skip list per account
+ * type ordered by balance and account ID, so "below X" and "type above Y" are range scans that
+ * stop at the limit. Posting and account events only mark the account dirty; a background
+ * refresher re-reads the committed balances of dirty accounts in batches, which keeps entries
+ * correct whatever order events arrive in and costs a busy account one read per refresh. Each
+ * refresh compares old and new balances with the alerting thresholds and publishes a crossing
+ * event for every account that moved across one. Callers should go to the database until it
+ * has warmed up.
+ */
+@Component
+@Slf4j
+public class AccountBalanceIndex {
+
+    private final BankAccountRepository accountRepository;
+    private final DomainEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceIndexProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<BankAccount.AccountType, NavigableSet<Entry>> byType = new EnumMap<>(BankAccount.AccountType.class);
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private Thread refreshThread;
+    private volatile boolean running;
+    private volatile boolean ready;
+
+    public AccountBalanceIndex(BankAccountRepository accountRepository,
+                               DomainEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               BalanceIndexProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        for (BankAccount.AccountType type : BankAccount.AccountType.values()) {
+            byType.put(type, new ConcurrentSkipListSet<>());
+        }
+
+        Gauge.builder("accounts.balance.index.size", entries, Map::size).register(meterRegistry);
+        Gauge.builder("accounts.balance.index.pending", dirty, Set::size)
+            .description("Accounts with postings whose balance has not been re-read yet")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isIndexEnabled()) {
+            return;
+        }
+        running = true;
+        refreshThread = new Thread(this::run, "account-balance-index-refresher");
+        refreshThread.setDaemon(true);
+        refreshThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (refreshThread == null) {
+            return;
+        }
+        running = false;
+        refreshThread.interrupt();
+        refreshThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Loads every open account in the background once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.isIndexEnabled()) {
+            return;
+        }
+        Thread warmer = new Thread(this::load, "account-balance-index-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Schedules the account's balance to be re-read on the next refresh
+     */
+    public void markDirty(Long accountId) {
+        if (properties.isIndexEnabled()) {
+            dirty.add(accountId);
+        }
+    }
+
+    /**
+     * Returns up to limit IDs of accounts with a balance below the amount, lowest first
+     */
+    public List<Long> accountsBelow(BigDecimal amount, int limit) {
+        // Strictly below a fractional penny bound means at or below the penny under it
+        Entry bound = probe(Long.MIN_VALUE, minorUnits(amount, RoundingMode.CEILING));
+        List<Entry> found = new ArrayList<>();
+        for (NavigableSet<Entry> accounts : byType.values()) {
+            Iterator<Entry> below = accounts.headSet(bound, false).iterator();
+            for (int i = 0; i < limit && below.hasNext(); i++) {
+                found.add(below.next());
+            }
+        }
+        found.sort(null);
+        List<Long> accountIds = new ArrayList<>(Math.min(limit, found.size()));
+        for (int i = 0; i < limit && i < found.size(); i++) {
+            accountIds.add(found.get(i).accountId);
+        }
+        return accountIds;
+    }
+
+    /**
+     * Returns up to limit IDs of accounts of the type with a balance above the amount, highest first
+     */
+    public List<Long> accountsAbove(BankAccount.AccountType type, BigDecimal amount, int limit) {
+        Entry bound = probe(Long.MAX_VALUE, minorUnits(amount, RoundingMode.FLOOR));
+        List<Long> accountIds = new ArrayList<>();
+        Iterator<Entry> above = byType.get(type).tailSet(bound, false).descendingIterator();
+        while (accountIds.size() < limit && above.hasNext()) {
+            accountIds.add(above.next().accountId);
+        }
+        return accountIds;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(properties.getRefreshInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.error("Balance index refresh failed, the accounts are re-read on the next one", e);
+            }
+        }
+    }
+
+    /**
+     * Re-reads the balances of every dirty account and publishes the thresholds they crossed
+     */
+    void refresh() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        // Taken off before reading, so a posting committed meanwhile marks the account again
+        List<Long> accountIds = new ArrayList<>();
+        for (Iterator<Long> marked = dirty.iterator(); marked.hasNext(); ) {
+            accountIds.add(marked.next());
+            marked.remove();
+        }
+
+        List<BalanceThresholdCrossedEvent> crossings = new ArrayList<>();
+        int batchSize = properties.getRefreshBatchSize();
+        for (int from = 0; from < accountIds.size(); from += batchSize) {
+            List<Long> batch = accountIds.subList(from, Math.min(from + batchSize, accountIds.size()));
+            List<AccountBalanceView> balances;
+            try {
+                balances = accountRepository.findBalancesByIdIn(batch);
+            } catch (RuntimeException e) {
+                dirty.addAll(accountIds.subList(from, accountIds.size()));
+                publish(crossings);
+                throw e;
+            }
+            Set<Long> open = new HashSet<>();
+            for (AccountBalanceView balance : balances) {
+                if (balance.getStatus() != BankAccount.AccountStatus.CLOSED) {
+                    open.add(balance.getAccountId());
+                    Entry current = entry(balance);
+                    Entry previous = put(current, true);
+                    if (previous != null) {
+                        detectCrossings(previous, current, crossings);
+                    }
+                }
+            }
+            for (Long accountId : batch) {
+                if (!open.contains(accountId)) {
+                    remove(accountId);
+                }
+            }
+        }
+        publish(crossings);
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        long afterId = 0;
+        try {
+            List<AccountBalanceView> page;
+            while (!(page = accountRepository.findBalancesAfter(afterId,
+                    PageRequest.of(0, properties.getWarmupPageSize()))).isEmpty()) {
+                // Balances re-read after a posting while loading are newer than this page
+                for (AccountBalanceView balance : page) {
+                    put(entry(balance), false);
+                }
+                afterId = page.get(page.size() - 1).getAccountId();
+            }
+            ready = true;
+            log.info("Account balance index warmed up with {} accounts in {} ms",
+                size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.error("Account balance index warm-up failed, balance queries stay on the database", e);
+        }
+    }
+
+    // Returns the entry replaced, or null when the account was new or kept its entry
+    private Entry put(Entry next, boolean replace) {
+        Entry[] replaced = new Entry[1];
+        entries.compute(next.accountId, (accountId, current) -> {
+            if (current != null && !replace) {
+                return current;
+            }
+            if (current != null) {
+                byType.get(current.type).remove(current);
+            }
+            byType.get(next.type).add(next);
+            replaced[0] = current;
+            return next;
+        });
+        return replaced[0];
+    }
+
+    private static Entry entry(AccountBalanceView balance) {
+        return new Entry(balance.getAccountId(), balance.getAccountType(),
+            Money.of(balance.getBalance(), balance.getCurrency()).getMinorUnits(), balance.getCurrency());
+    }
+
+    private void remove(Long accountId) {
+        entries.computeIfPresent(accountId, (id, current) -> {
+            byType.get(current.type).remove(current);
+            return null;
+        });
+    }
+
+    private void detectCrossings(Entry before, Entry after, List<BalanceThresholdCrossedEvent> crossings) {
+        long low = minorUnits(properties.getLowBalanceThreshold(), RoundingMode.CEILING);
+        if ((before.balance < low) != (after.balance < low)) {
+            crossings.add(crossing(BalanceThresholdCrossedEvent.LOW_BALANCE, properties.getLowBalanceThreshold(),
+                after.balance < low ? BalanceThresholdCrossedEvent.BELOW : BalanceThresholdCrossedEvent.ABOVE,
+                before, after));
+        }
+        if (properties.getHighValueAccountTypes().contains(after.type)) {
+            long high = minorUnits(properties.getHighValueThreshold(), RoundingMode.FLOOR);
+            if ((before.balance > high) != (after.balance > high)) {
+                crossings.add(crossing(BalanceThresholdCrossedEvent.HIGH_VALUE, properties.getHighValueThreshold(),
+                    after.balance > high ? BalanceThresholdCrossedEvent.ABOVE : BalanceThresholdCrossedEvent.BELOW,
+                    before, after));
+            }
+        }
+    }
+
+    private BalanceThresholdCrossedEvent crossing(String threshold, BigDecimal amount, String direction,
+                                                  Entry before, Entry after) {
+        Counter.builder("accounts.balance.threshold.crossings")
+            .tag("threshold", threshold)
+            .tag("direction", direction)
+            .register(meterRegistry)
+            .increment();
+        return new BalanceThresholdCrossedEvent(after.accountId, after.type.name(), threshold, direction,
+            Money.of(amount, after.currency), Money.ofMinor(before.balance, before.currency),
+            Money.ofMinor(after.balance, after.currency));
+    }
+
+    // The refresher holds no transaction of its own; one is opened so outbox mode can record them
+    private void publish(List<BalanceThresholdCrossedEvent> crossings) {
+        if (crossings.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                crossings.forEach(eventPublisher::publish);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Publishing {} balance threshold crossings failed, they are lost", crossings.size(), e);
+        }
+    }
+
+    private static long minorUnits(BigDecimal amount, RoundingMode rounding) {
+        return amount.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+
+    // Sorts after every real entry with the same balance when accountId is MAX_VALUE, before when MIN_VALUE
+    private static Entry probe(long accountId, long balance) {
+        return new Entry(accountId, null, balance, null);
+    }
+
+    /**
+     * An account's place in the index; replaced, never changed, when the balance moves
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final long accountId;
+        private final BankAccount.AccountType type;
+        private final long balance;
+        private final String currency;
+
+        private Entry(long accountId, BankAccount.AccountType type, long balance, String currency) {
+            this.accountId = accountId;
+            this.type = type;
+            this.balance = balance;
+            this.currency = currency;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byBalance = Long.compare(balance, other.balance);
+            return byBalance != 0 ? byBalance : Long.compare(accountId, other.accountId);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.domain.model.AccountNumberRange;
+import br.com.ukbank.infrastructure.config.AccountNumberProperties;
+import br.com.ukbank.infrastructure.repositories.AccountNumberRangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collision-free account number allocator
+ * Leases blocks of numbers per sort code from a persisted high-water mark and hands
+ * them out from an in-memory cursor, so concurrent openers only meet the database
+ * once per block. Call it outside a surrounding transaction: a refill needs its own.
+ */
+@Component
+@Slf4j
+public class AccountNumberAllocator {
+
+    private final AccountNumberRangeRepository rangeRepository;
+    private final TransactionTemplate leaseTransaction;
+    private final AccountNumberProperties properties;
+
+    private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> refillLocks = new ConcurrentHashMap<>();
+
+    public AccountNumberAllocator(AccountNumberRangeRepository rangeRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  AccountNumberProperties properties) {
+        this.rangeRepository = rangeRepository;
+        this.properties = properties;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Allocates the next unused 8 digit account number for the sort code
+     */
+    public String allocate(String sortCode) {
+        while (true) {
+            Lease lease = leases.get(sortCode);
+            if (lease != null) {
+                long number = lease.cursor.getAndIncrement();
+                if (number < lease.end) {
+                    return Long.toString(number);
+                }
+            }
+            refill(sortCode, lease);
+        }
+    }
+
+    private void refill(String sortCode, Lease exhausted) {
+        synchronized (refillLocks.computeIfAbsent(sortCode, key -> new Object())) {
+            // Another opener may already have replaced the exhausted lease
+            if (leases.get(sortCode) != exhausted) {
+                return;
+            }
+            int blockSize = properties.getBlockSize();
+            long start = leaseBlock(sortCode, blockSize);
+            long end = Math.min(start + blockSize, AccountNumberRange.LAST_ACCOUNT_NUMBER + 1);
+            leases.put(sortCode, new Lease(start, end));
+            log.debug("Leased account numbers {}-{} for sort code {}", start, end - 1, sortCode);
+        }
+    }
+
+    private long leaseBlock(String sortCode, int blockSize) {
+        try {
+            return leaseTransaction.execute(status -> {
+                AccountNumberRange range = rangeRepository.findForUpdate(sortCode)
+                    .orElseGet(() -> rangeRepository.saveAndFlush(new AccountNumberRange(sortCode)));
+                return range.leaseBlock(blockSize);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the range first; lease from its row instead
+            return leaseTransaction.execute(status -> rangeRepository.findForUpdate(sortCode)
+                .orElseThrow(() -> e)
+                .leaseBlock(blockSize));
+        }
+    }
+
+    private static final class Lease {
+        private final AtomicLong cursor;
+        private final long end;
+
+        private Lease(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.infrastructure.config.LedgerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer shards for account postings
+ * Every account hashes to one shard, a thread with its own mailbox, and only that thread
+ * runs work on the account, so postings need no account locks. Work on accounts of several
+ * shards is put in each of their mailboxes; the shards that reach it first wait there until
+ * the last one does, which then runs it alone. Such postings are enqueued under one monitor,
+ * so every mailbox sees them in the same order and no two shards wait on each other.
+ */
+@Slf4j
+class AccountShards {
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Shard[] shards;
+    private final Object crossShardOrder = new Object();
+    private final Counter singleShardPostings;
+    private final Counter crossShardPostings;
+    private volatile boolean running;
+
+    AccountShards(LedgerProperties.Shards properties, MeterRegistry meterRegistry) {
+        int count = properties.getCount() > 0 ? properties.getCount() : Runtime.getRuntime().availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new Shard(i, properties.getMailboxCapacity(), meterRegistry);
+        }
+        this.singleShardPostings = Counter.builder("ledger.shard.postings")
+            .tag("span", "single").register(meterRegistry);
+        this.crossShardPostings = Counter.builder("ledger.shard.postings")
+            .tag("span", "cross").register(meterRegistry);
+    }
+
+    void start() {
+        running = true;
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+        log.info("Started {} ledger shards", shards.length);
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        for (Shard shard : shards) {
+            shard.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Queues the work on the shards owning the accounts
+     * Blocks while a mailbox is full; the future completes on the shard thread that ran the work.
+     */
+    <T> CompletableFuture<T> submit(Collection<Long> accountIds, Supplier<T> work) {
+        if (!running) {
+            throw new IllegalStateException("Ledger shards are not running");
+        }
+        if (isShardThread()) {
+            throw new IllegalStateException("Ledger shard work cannot wait on another posting");
+        }
+
+        int[] owners = shardsFor(accountIds);
+        if (owners.length == 0) {
+            throw new IllegalArgumentException("A posting needs at least one account");
+        }
+        Task<T> task = new Task<>(owners.length, work);
+        if (owners.length == 1) {
+            singleShardPostings.increment();
+            shards[owners[0]].enqueue(task);
+        } else {
+            crossShardPostings.increment();
+            synchronized (crossShardOrder) {
+                for (int owner : owners) {
+                    shards[owner].enqueue(task);
+                }
+            }
+        }
+        return task.result;
+    }
+
+    int shardOf(Long accountId) {
+        return Math.floorMod(LedgerEngine.spread(accountId), shards.length);
+    }
+
+    private int[] shardsFor(Collection<Long> accountIds) {
+        return accountIds.stream().mapToInt(this::shardOf).distinct().sorted().toArray();
+    }
+
+    private boolean isShardThread() {
+        Thread current = Thread.currentThread();
+        return Arrays.stream(shards).anyMatch(shard -> shard.thread == current);
+    }
+
+    private final class Shard {
+        private final BlockingQueue<Task<?>> mailbox;
+        private final Thread thread;
+        private final Timer queueWait;
+
+        private Shard(int index, int mailboxCapacity, MeterRegistry meterRegistry) {
+            this.mailbox = new ArrayBlockingQueue<>(mailboxCapacity);
+            this.thread = new Thread(this::run, "ledger-shard-" + index);
+            this.thread.setDaemon(true);
+
+            String shard = String.valueOf(index);
+            Gauge.builder("ledger.shard.mailbox.depth", mailbox, BlockingQueue::size)
+                .description("Postings waiting in the shard's mailbox")
+                .tag("shard", shard)
+                .register(meterRegistry);
+            this.queueWait = Timer.builder("ledger.shard.queue.wait")
+                .description("Time from a posting being queued to its shard starting on it")
+                .tag("shard", shard)
+                .register(meterRegistry);
+        }
+
+        // A cross-shard posting half enqueued would stall the shards holding it, so interrupts wait
+        private void enqueue(Task<?> task) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    mailbox.put(task);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void run() {
+            while (running || !mailbox.isEmpty()) {
+                try {
+                    Task<?> task = mailbox.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                    if (task != null) {
+                        queueWait.record(System.nanoTime() - task.queuedAt, TimeUnit.NANOSECONDS);
+                        task.arrive();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * One posting and the shards still to reach it
+     */
+    private static final class Task<T> {
+        private final AtomicInteger pending;
+        private final Supplier<T> work;
+        private final long queuedAt = System.nanoTime();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Task(int shards, Supplier<T> work) {
+            this.pending = new AtomicInteger(shards);
+            this.work = work;
+        }
+
+        // The last owning shard to arrive runs the work; the others hold still until it is done
+        private void arrive() throws InterruptedException {
+            if (pending.decrementAndGet() > 0) {
+                finished.await();
+                return;
+            }
+            T value = null;
+            Throwable failure = null;
+            try {
+                value = work.get();
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            } finally {
+                finished.countDown();
+            }
+            // Completed after releasing the other shards, as the caller's stages run right here
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+}
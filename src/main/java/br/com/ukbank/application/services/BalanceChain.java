@@ -0,0 +1,82 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.domain.model.Transaction;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.repositories.ReplayPostingView;
+
+import java.time.LocalDateTime;
+
+/**
+ * One account's running balance folded over its postings in posting order, in minor units
+ * Each posting's balance after is checked against the balance before it plus or minus its
+ * amount. Without a known starting balance the fold starts from the one implied by the first
+ * posting, as the opening deposit is not journaled. On a break the fold carries on from the
+ * recorded balance, so one bad posting does not make every later one look wrong.
+ */
+final class BalanceChain {
+
+    private final long accountId;
+    private boolean started;
+    private long balance;
+    private long expected;
+    private long postings;
+    private long breaks;
+    private Long firstBreakTransactionId;
+    private LocalDateTime lastProcessedAt;
+    private Long lastTransactionId;
+
+    BalanceChain(long accountId) {
+        this.accountId = accountId;
+    }
+
+    BalanceChain(long accountId, long startingBalance) {
+        this.accountId = accountId;
+        this.started = true;
+        this.balance = startingBalance;
+    }
+
+    /**
+     * Folds in the next posting; returns false when its balance after does not follow
+     */
+    boolean apply(ReplayPostingView posting) {
+        long amount = Money.of(posting.getAmount()).getMinorUnits();
+        long signed = posting.getType() == Transaction.TransactionType.CREDIT ? amount : -amount;
+        long balanceAfter = Money.of(posting.getBalanceAfter()).getMinorUnits();
+        if (!started) {
+            balance = balanceAfter - signed;
+            started = true;
+        }
+        expected = balance + signed;
+        balance = balanceAfter;
+        postings++;
+        lastProcessedAt = posting.getProcessedAt();
+        lastTransactionId = posting.getTransactionId();
+        if (expected == balanceAfter) {
+            return true;
+        }
+        if (breaks++ == 0) {
+            firstBreakTransactionId = posting.getTransactionId();
+        }
+        return false;
+    }
+
+    long getAccountId() { return accountId; }
+
+    /**
+     * Whether a balance is known, from a starting balance or a posting
+     */
+    boolean isStarted() { return started; }
+
+    long getBalance() { return balance; }
+
+    /**
+     * The balance the last posting should have recorded
+     */
+    long getExpectedBalance() { return expected; }
+
+    long getPostings() { return postings; }
+    long getBreaks() { return breaks; }
+    Long getFirstBreakTransactionId() { return firstBreakTransactionId; }
+    LocalDateTime getLastProcessedAt() { return lastProcessedAt; }
+    Long getLastTransactionId() { return lastTransactionId; }
+}
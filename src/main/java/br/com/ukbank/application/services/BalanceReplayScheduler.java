@@ -0,0 +1,28 @@
+package br.com.ukbank.application.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically replays the book and checkpoints the account balance snapshots
+ */
+@Component
+@ConditionalOnProperty(prefix = "ukbank.replay", name = "checkpoint-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceReplayScheduler {
+
+    private final BalanceReplayService replayService;
+
+    @Scheduled(cron = "${ukbank.replay.checkpoint-cron:0 0 2 * * *}")
+    public void checkpoint() {
+        try {
+            replayService.replayBook(true);
+        } catch (RuntimeException e) {
+            log.error("Balance snapshot checkpoint failed", e);
+        }
+    }
+}
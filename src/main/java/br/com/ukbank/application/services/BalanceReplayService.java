@@ -0,0 +1,404 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.dto.AccountRebuildResponse;
+import br.com.ukbank.application.dto.BalanceReplayReport;
+import br.com.ukbank.application.exceptions.BankAccountNotFoundException;
+import br.com.ukbank.domain.model.AccountBalanceSnapshot;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.config.BalanceReplayProperties;
+import br.com.ukbank.infrastructure.repositories.AccountBalanceSnapshotRepository;
+import br.com.ukbank.infrastructure.repositories.AccountBalanceView;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import br.com.ukbank.infrastructure.repositories.ReplayPostingView;
+import br.com.ukbank.infrastructure.repositories.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds account balances from the posting journal, starting at checkpointed snapshots
+ * Every posting carries the balance after it, so folding an account's postings in order from
+ * its snapshot both rebuilds the balance and checks each step of the chain; without a snapshot
+ * the fold starts from the balance implied by the first posting. A book replay splits the
+ * account IDs into fixed-width ranges handed to a worker pool, each streaming its range's
+ * postings since their snapshots through one forward-only cursor. Accounts whose rebuilt
+ * balance differs from the stored one are checked again under their ledger lock, so postings
+ * committing during the replay are not reported as mismatches. A checkpointing replay then
+ * moves each consistent account's snapshot on to its last settled posting. Rebuilt balances
+ * are reported, never written back to the accounts.
+ */
+@Service
+@Slf4j
+public class BalanceReplayService {
+
+    private final BankAccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountBalanceSnapshotRepository snapshotRepository;
+    private final LedgerEngine ledgerEngine;
+    private final PostingJournal postingJournal;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final BalanceReplayProperties properties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong postingsPerSecond = new AtomicLong();
+    private final Counter postingsReplayed;
+    private final Counter chainBreaks;
+    private final Counter mismatches;
+    private final Timer chunkTimer;
+
+    public BalanceReplayService(BankAccountRepository accountRepository,
+                                TransactionRepository transactionRepository,
+                                AccountBalanceSnapshotRepository snapshotRepository,
+                                LedgerEngine ledgerEngine,
+                                PostingJournal postingJournal,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                BalanceReplayProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.ledgerEngine = ledgerEngine;
+        this.postingJournal = postingJournal;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.properties = properties;
+
+        Gauge.builder("balance.replay.rate", postingsPerSecond, AtomicLong::get)
+            .description("Postings replayed per second by the last book replay")
+            .register(meterRegistry);
+        this.postingsReplayed = Counter.builder("balance.replay.postings").register(meterRegistry);
+        this.chainBreaks = Counter.builder("balance.replay.chain.breaks").register(meterRegistry);
+        this.mismatches = Counter.builder("balance.replay.mismatches").register(meterRegistry);
+        this.chunkTimer = Timer.builder("balance.replay.chunk").register(meterRegistry);
+    }
+
+    /**
+     * Rebuilds one account's balance from its snapshot and compares it with the stored balance
+     * Holds the account's ledger lock throughout, so no posting can land while it replays.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AccountRebuildResponse rebuildAccount(Long accountId) {
+        return ledgerEngine.execute(Collections.singletonList(accountId), () -> {
+            postingJournal.awaitProjection();
+            List<AccountBalanceView> accounts = accountRepository.findBalancesByIdIn(Collections.singletonList(accountId));
+            if (accounts.isEmpty()) {
+                throw new BankAccountNotFoundException("Account not found: " + accountId);
+            }
+            AccountBalanceView account = accounts.get(0);
+            AccountBalanceSnapshot snapshot = snapshotRepository.findById(accountId).orElse(null);
+            AccountReplay replay = new AccountReplay(accountId, snapshot);
+            try (Stream<ReplayPostingView> postings = snapshot == null
+                    ? transactionRepository.streamReplay(accountId)
+                    : transactionRepository.streamReplayAfter(accountId, snapshot.getThroughProcessedAt(),
+                        snapshot.getThroughTransactionId())) {
+                postings.forEach(posting -> replay.apply(posting, null));
+            }
+            postingsReplayed.increment(replay.chain.getPostings());
+            return replay.toResponse(account);
+        });
+    }
+
+    /**
+     * Replays every account from its snapshot, checking the rebuilt balances against the stored ones
+     * With checkpoint set, snapshots of consistent accounts move on to their last posting older
+     * than the settle window, so the next replay starts from there.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BalanceReplayReport replayBook(boolean checkpoint) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A book replay is already in progress");
+        }
+        try {
+            return run(checkpoint);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private BalanceReplayReport run(boolean checkpoint) {
+        long start = System.nanoTime();
+        LocalDateTime settledBefore = checkpoint ? LocalDateTime.now().minus(properties.getSettleWindow()) : null;
+        if (checkpoint) {
+            // Journaled postings keep their original time, so none may still be waiting behind a new snapshot
+            postingJournal.awaitProjection();
+        }
+        List<long[]> chunks = PartitionedRunner.plan(accountRepository.findIdRange().get(0), properties.getChunkSize());
+
+        PartitionedRunner runner = new PartitionedRunner("balance-replay", "replaying the book",
+            properties.getWorkerThreads());
+        log.info("Replaying the book{}: {} chunks on {} workers", checkpoint ? " with checkpoint" : "",
+            chunks.size(), runner.workers());
+
+        ChunkTotals totals = new ChunkTotals();
+        int failed = runner.run(chunks,
+            chunk -> totals.add(replayChunk(chunk[0], chunk[1], settledBefore)),
+            (chunk, e) -> log.error("Balance replay of accounts {}-{} failed", chunk[0], chunk[1], e));
+
+        long durationNanos = System.nanoTime() - start;
+        long rate = PartitionedRunner.perSecond(totals.postings, durationNanos);
+        postingsPerSecond.set(rate);
+
+        BalanceReplayReport report = BalanceReplayReport.builder()
+            .checkpoint(checkpoint)
+            .chunksProcessed(chunks.size() - failed)
+            .chunksFailed(failed)
+            .accountsReplayed(totals.accounts)
+            .postingsReplayed(totals.postings)
+            .chainBreaks(totals.chainBreaks)
+            .balanceMismatches(totals.balanceMismatches)
+            .inconsistentAccountIds(totals.inconsistentIds(properties.getMaxReportedInconsistencies()))
+            .snapshotsWritten(totals.snapshots)
+            .durationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+            .workerThreads(runner.workers())
+            .postingsPerSecond(rate)
+            .postingsPerSecondPerCore(runner.perCore(rate))
+            .build();
+        log.info("Book replay finished: {} postings over {} accounts in {} ms, {} postings/s ({} per core), "
+                + "{} chain breaks, {} mismatches, {} snapshots written, {} chunks failed",
+            report.getPostingsReplayed(), report.getAccountsReplayed(), report.getDurationMillis(), rate,
+            report.getPostingsPerSecondPerCore(), report.getChainBreaks(), report.getBalanceMismatches(),
+            report.getSnapshotsWritten(), failed);
+        return report;
+    }
+
+    private ChunkTotals replayChunk(long firstId, long lastId, LocalDateTime settledBefore) {
+        long start = System.nanoTime();
+        ChunkTotals totals = new ChunkTotals();
+        Map<Long, AccountBalanceView> accounts = new HashMap<>();
+        Map<Long, AccountReplay> replays = new HashMap<>();
+
+        readOnlyTemplate.execute(status -> {
+            for (AccountBalanceView account : accountRepository.findBalancesByIdRange(firstId, lastId)) {
+                accounts.put(account.getAccountId(), account);
+            }
+            for (AccountBalanceSnapshot snapshot : snapshotRepository.findByAccountIdRange(firstId, lastId)) {
+                replays.put(snapshot.getAccountId(), new AccountReplay(snapshot.getAccountId(), snapshot));
+            }
+            if (replays.isEmpty()) {
+                fold(transactionRepository.streamReplay(firstId, lastId), replays, settledBefore);
+                return null;
+            }
+            // Accounts with no snapshot yet, typically new ones, are read from their first posting
+            List<Long> unsnapshotted = new ArrayList<>();
+            for (Long accountId : accounts.keySet()) {
+                if (!replays.containsKey(accountId)) {
+                    unsnapshotted.add(accountId);
+                }
+            }
+            fold(transactionRepository.streamReplayAfterSnapshots(firstId, lastId), replays, settledBefore);
+            for (Long accountId : unsnapshotted) {
+                fold(transactionRepository.streamReplay(accountId), replays, settledBefore);
+            }
+            return null;
+        });
+
+        List<AccountReplay> consistent = new ArrayList<>(replays.size());
+        for (AccountReplay replay : replays.values()) {
+            AccountBalanceView account = accounts.get(replay.accountId);
+            if (account == null) {
+                continue;
+            }
+            totals.accounts++;
+            totals.postings += replay.chain.getPostings();
+            totals.chainBreaks += replay.chain.getBreaks();
+            boolean matches = replay.chain.getBalance() == Money.of(account.getBalance()).getMinorUnits()
+                || recheck(replay.accountId);
+            if (matches) {
+                consistent.add(replay);
+            } else {
+                totals.balanceMismatches++;
+            }
+            if (!matches || replay.chain.getBreaks() > 0) {
+                totals.inconsistent(replay.accountId, properties.getMaxReportedInconsistencies());
+            }
+        }
+        postingsReplayed.increment(totals.postings);
+        chainBreaks.increment(totals.chainBreaks);
+        mismatches.increment(totals.balanceMismatches);
+
+        if (settledBefore != null) {
+            totals.snapshots = checkpoint(consistent, accounts);
+        }
+        chunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return totals;
+    }
+
+    // Postings arrive grouped by account
+    private static void fold(Stream<ReplayPostingView> postings, Map<Long, AccountReplay> replays,
+                             LocalDateTime settledBefore) {
+        try (Stream<ReplayPostingView> stream = postings) {
+            AccountReplay current = null;
+            for (ReplayPostingView posting : (Iterable<ReplayPostingView>) stream::iterator) {
+                if (current == null || current.accountId != posting.getAccountId()) {
+                    current = replays.computeIfAbsent(posting.getAccountId(), id -> new AccountReplay(id, null));
+                }
+                current.apply(posting, settledBefore);
+            }
+        }
+    }
+
+    // The stored balance may have moved on while the chunk was read; look again under the lock
+    private boolean recheck(Long accountId) {
+        try {
+            AccountRebuildResponse rebuilt = rebuildAccount(accountId);
+            if (rebuilt.getRebuiltBalance().compareTo(rebuilt.getStoredBalance()) == 0) {
+                return true;
+            }
+            log.warn("Account ID {} rebuilt to {} from its postings but holds {}", accountId,
+                rebuilt.getRebuiltBalance(), rebuilt.getStoredBalance());
+            return false;
+        } catch (BankAccountNotFoundException e) {
+            return true;
+        }
+    }
+
+    // Moves snapshots forward over settled postings; returns how many were written
+    private long checkpoint(List<AccountReplay> consistent, Map<Long, AccountBalanceView> accounts) {
+        List<AccountReplay> advancing = new ArrayList<>();
+        for (AccountReplay replay : consistent) {
+            if (replay.settledTransactionId != null) {
+                advancing.add(replay);
+            }
+        }
+        if (advancing.isEmpty()) {
+            return 0;
+        }
+        List<Long> accountIds = new ArrayList<>(advancing.size());
+        advancing.forEach(replay -> accountIds.add(replay.accountId));
+        try {
+            transactionTemplate.execute(status -> {
+                Map<Long, AccountBalanceSnapshot> stored = new HashMap<>();
+                snapshotRepository.findAllById(accountIds).forEach(snapshot -> stored.put(snapshot.getAccountId(), snapshot));
+                for (AccountReplay replay : advancing) {
+                    BigDecimal balance = BigDecimal.valueOf(replay.settledBalance, 2);
+                    AccountBalanceSnapshot snapshot = stored.get(replay.accountId);
+                    if (snapshot == null) {
+                        entityManager.persist(new AccountBalanceSnapshot(replay.accountId, balance,
+                            accounts.get(replay.accountId).getCurrency(), replay.settledAt,
+                            replay.settledTransactionId, replay.settledPostings));
+                    } else if (snapshot.getThroughTransactionId().equals(replay.snapshotTransactionId)) {
+                        snapshot.advance(balance, replay.settledAt, replay.settledTransactionId, replay.settledPostings);
+                    }
+                }
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent checkpoint created one of them first; the next run moves them on
+            log.warn("Snapshots for {} accounts were written concurrently, leaving them to the next run",
+                advancing.size());
+            return 0;
+        }
+        return advancing.size();
+    }
+
+    /**
+     * One account's fold over its postings since its snapshot, tracking how far a new snapshot may go
+     */
+    private static final class AccountReplay {
+        private final long accountId;
+        private final AccountBalanceSnapshot snapshot;
+        private final Long snapshotTransactionId;
+        private final BalanceChain chain;
+
+        // The last posting a snapshot may cover: settled, with no break up to it
+        private long settledBalance;
+        private LocalDateTime settledAt;
+        private Long settledTransactionId;
+        private long settledPostings;
+
+        private AccountReplay(long accountId, AccountBalanceSnapshot snapshot) {
+            this.accountId = accountId;
+            this.snapshot = snapshot;
+            this.snapshotTransactionId = snapshot != null ? snapshot.getThroughTransactionId() : null;
+            this.chain = snapshot != null
+                ? new BalanceChain(accountId, Money.of(snapshot.getBalance()).getMinorUnits())
+                : new BalanceChain(accountId);
+        }
+
+        private void apply(ReplayPostingView posting, LocalDateTime settledBefore) {
+            chain.apply(posting);
+            if (chain.getBreaks() == 0 && settledBefore != null && posting.getProcessedAt().isBefore(settledBefore)) {
+                settledBalance = chain.getBalance();
+                settledAt = posting.getProcessedAt();
+                settledTransactionId = posting.getTransactionId();
+                settledPostings = chain.getPostings();
+            }
+        }
+
+        private AccountRebuildResponse toResponse(AccountBalanceView account) {
+            long stored = Money.of(account.getBalance()).getMinorUnits();
+            long rebuilt = chain.isStarted() ? chain.getBalance() : stored;
+            return AccountRebuildResponse.builder()
+                .accountId(accountId)
+                .snapshotBalance(snapshot != null ? snapshot.getBalance() : null)
+                .snapshotThrough(snapshot != null ? snapshot.getThroughProcessedAt() : null)
+                .postingsReplayed(chain.getPostings())
+                .rebuiltBalance(BigDecimal.valueOf(rebuilt, 2))
+                .storedBalance(account.getBalance())
+                .currency(account.getCurrency())
+                .chainBreaks(chain.getBreaks())
+                .firstBreakTransactionId(chain.getFirstBreakTransactionId())
+                .consistent(rebuilt == stored && chain.getBreaks() == 0)
+                .build();
+        }
+    }
+
+    /**
+     * Counts from one chunk, or summed over a run
+     */
+    private static final class ChunkTotals {
+        private long accounts;
+        private long postings;
+        private long chainBreaks;
+        private long balanceMismatches;
+        private long snapshots;
+        private final List<Long> inconsistent = new ArrayList<>();
+
+        private void inconsistent(Long accountId, int maxReported) {
+            if (inconsistent.size() < maxReported) {
+                inconsistent.add(accountId);
+            }
+        }
+
+        private synchronized void add(ChunkTotals chunk) {
+            accounts += chunk.accounts;
+            postings += chunk.postings;
+            chainBreaks += chunk.chainBreaks;
+            balanceMismatches += chunk.balanceMismatches;
+            snapshots += chunk.snapshots;
+            inconsistent.addAll(chunk.inconsistent);
+        }
+
+        private synchronized List<Long> inconsistentIds(int maxReported) {
+            List<Long> ids = new ArrayList<>(inconsistent);
+            Collections.sort(ids);
+            return ids.subList(0, Math.min(ids.size(), maxReported));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package br.com.ukbank.application.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Triggers the nightly reconciliation of customer balance summaries against the accounts
+ */
+@Component
+@ConditionalOnProperty(prefix = "ukbank.balance-summary", name = "reconcile-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceSummaryReconciliationScheduler {
+
+    private final CustomerBalanceSummaryService summaryService;
+
+    @Scheduled(cron = "${ukbank.balance-summary.reconcile-cron:0 0 3 * * *}")
+    public void reconcile() {
+        try {
+            summaryService.reconcile();
+        } catch (RuntimeException e) {
+            log.error("Balance summary reconciliation failed", e);
+        }
+    }
+}
@@ -2,16 +2,34 @@ package br.com.ukbank.application.services;
 
 import br.com.ukbank.application.dto.*;
 import br.com.ukbank.application.exceptions.*;
+import br.com.ukbank.domain.events.AccountOpenedEvent;
+import br.com.ukbank.domain.events.AccountStatusChangedEvent;
 import br.com.ukbank.domain.model.*;
+import br.com.ukbank.domain.valueobjects.AccountIdentifier;
 import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.config.BalanceIndexProperties;
 import br.com.ukbank.infrastructure.repositories.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Application service for banking account operations
@@ -25,102 +43,353 @@ public class BankingAccountService {
 
     private final BankAccountRepository accountRepository;
     private final CustomerRepository customerRepository;
+    private final TransactionRepository transactionRepository;
     private final DomainEventPublisher eventPublisher;
+    private final LedgerEngine ledgerEngine;
+    private final GroupCommitter groupCommitter;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final TransactionTemplate transactionTemplate;
+    private final ResponseCache responseCache;
+    private final AccountBalanceIndex balanceIndex;
+    private final BalanceIndexProperties balanceIndexProperties;
+    private final VelocityLimiter velocityLimiter;
+    private final PostingJournal postingJournal;
 
     /**
      * Opens a new bank account
+     * The account number is allocated before the transaction starts, so a block refill
+     * never waits for a second connection while holding the first, and only once the
+     * customer is known to exist
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BankAccountResponse openAccount(AccountOpeningRequest request) {
         log.info("Opening {} account for customer ID: {}", request.getAccountType(), request.getCustomerId());
 
-        Customer customer = customerRepository.findById(request.getCustomerId())
-            .orElseThrow(() -> new CustomerNotFoundException("Customer not found: " + request.getCustomerId()));
+        // Checked before allocating, so a request for an unknown customer burns no account number
+        if (!customerRepository.existsById(request.getCustomerId())) {
+            throw new CustomerNotFoundException("Customer not found: " + request.getCustomerId());
+        }
+
+        AccountIdentifier identifier = AccountIdentifier.ukBankAccount(
+            accountNumberAllocator.allocate(AccountIdentifier.DEFAULT_SORT_CODE));
 
         Money initialDeposit = request.getInitialDeposit() != null
             ? Money.of(request.getInitialDeposit()) : null;
         Money overdraftLimit = request.getOverdraftLimit() != null
             ? Money.of(request.getOverdraftLimit()) : null;
 
-        // Use domain factory method
-        BankAccount account = BankAccount.openAccount(
-            customer,
-            request.getAccountType(),
-            initialDeposit,
-            overdraftLimit
-        );
+        return transactionTemplate.execute(status -> {
+            Customer customer = customerRepository.findById(request.getCustomerId())
+                .orElseThrow(() -> new CustomerNotFoundException("Customer not found: " + request.getCustomerId()));
+
+            // Use domain factory method
+            BankAccount account = BankAccount.openAccount(
+                customer,
+                BankAccount.AccountType.valueOf(request.getAccountType().name()),
+                identifier,
+                initialDeposit,
+                overdraftLimit
+            );
 
-        BankAccount savedAccount = accountRepository.save(account);
+            BankAccount savedAccount = accountRepository.save(account);
+            responseCache.evictCustomerAccountsAfterCommit(customer.getCustomerId());
+            eventPublisher.publish(new AccountOpenedEvent(savedAccount.getAccountId(), customer.getCustomerId(),
+                savedAccount.getAccountType().name(), savedAccount.getBalance()));
 
-        log.info("Successfully opened account with ID: {}", savedAccount.getAccountId());
-        return BankAccountResponse.from(savedAccount);
+            log.info("Successfully opened account with ID: {}", savedAccount.getAccountId());
+            return BankAccountResponse.from(savedAccount);
+        });
     }
 
     /**
      * Processes money transfer between accounts
+     * Destinations held at this bank are credited in the same transaction as the debit;
+     * anything else is treated as an outbound payment and only debits the source.
+     * The ledger engine owns the transaction so the account locks, or shards, outlive the commit; with
+     * group commit on, that transaction is shared with other transfers arriving at the same time.
+     * Velocity limits come first: the account's before any lookup, the customer's once the
+     * source account is loaded, both ahead of the debit.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TransferResponse transferMoney(MoneyTransferRequest request) {
+        return LedgerEngine.await(transferMoneyAsync(request));
+    }
+
+    /**
+     * Processes money transfer between accounts without waiting for the posting
+     * Checks made before the posting, the account's velocity limit and the destination lookup,
+     * throw straight away; everything after completes the future, on a ledger shard when
+     * sharding is on.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<TransferResponse> transferMoneyAsync(MoneyTransferRequest request) {
         log.info("Processing transfer from account ID {} to {}-{}",
             request.getFromAccountId(), request.getToSortCode(), request.getToAccountNumber());
 
-        BankAccount fromAccount = accountRepository.findById(request.getFromAccountId())
-            .orElseThrow(() -> new BankAccountNotFoundException("From account not found"));
-
+        Long fromAccountId = request.getFromAccountId();
         Money transferAmount = Money.of(request.getAmount());
+        // Refused here, a throttled account costs no database work at all
+        VelocityLimiter.Reservation velocity = velocityLimiter.reserve(fromAccountId, transferAmount);
+        CompletableFuture<TransferResponse> transfer;
+        try {
+            transfer = transfer(request, fromAccountId, transferAmount, velocity);
+        } catch (RuntimeException e) {
+            velocityLimiter.refundAmount(velocity);
+            throw e;
+        }
+        return transfer.whenComplete((response, failure) -> {
+            if (failure != null) {
+                velocityLimiter.refundAmount(velocity);
+            }
+        });
+    }
 
-        // Process debit on source account
-        String description = "Transfer to " + request.getPayeeName();
-        String reference = request.getReference();
-
-        TransactionResult debitResult = fromAccount.processDebit(transferAmount, description, reference);
+    private CompletableFuture<TransferResponse> transfer(MoneyTransferRequest request, Long fromAccountId,
+                                                         Money transferAmount, VelocityLimiter.Reservation velocity) {
+        Long toAccountId = accountRepository
+            .findAccountIdByAccountNumberAndSortCode(request.getToAccountNumber(), request.getToSortCode())
+            .orElse(null);
 
-        if (!debitResult.isSuccess()) {
-            throw new InsufficientFundsException(debitResult.getErrorMessage());
+        if (fromAccountId.equals(toAccountId)) {
+            throw new AccountOperationException("Cannot transfer to the same account");
         }
 
-        // Save the account state
-        accountRepository.save(fromAccount);
+        List<Long> lockedAccounts = toAccountId != null
+            ? Arrays.asList(fromAccountId, toAccountId)
+            : Collections.singletonList(fromAccountId);
 
-        // Publish domain event
-        if (debitResult.getDomainEvent() != null) {
-            eventPublisher.publish(debitResult.getDomainEvent());
-        }
+        return groupCommitter.submit(lockedAccounts, () -> {
+            BankAccount fromAccount = accountRepository.findById(fromAccountId)
+                .orElseThrow(() -> new BankAccountNotFoundException("From account not found"));
+            velocityLimiter.reserveForCustomer(velocity, fromAccount.getCustomer().getCustomerId());
+
+            // Both legs are checked before either is applied, so a refused transfer changes nothing
+            BankAccount toAccount = null;
+            if (toAccountId != null) {
+                toAccount = accountRepository.findById(toAccountId)
+                    .orElseThrow(() -> new BankAccountNotFoundException("To account not found"));
+                toAccount.validateAccountActive();
+            }
+
+            // Process debit on source account
+            String description = "Transfer to " + request.getPayeeName();
+            String reference = request.getReference();
+
+            TransactionResult result = fromAccount.processDebit(transferAmount, description, reference);
 
-        log.info("Successfully processed transfer with reference: {}", debitResult.getTransactionReference());
+            if (!result.isSuccess()) {
+                throw new InsufficientFundsException(result.getErrorMessage());
+            }
 
-        return TransferResponse.builder()
-            .transactionReference(debitResult.getTransactionReference())
-            .status("COMPLETED")
-            .fromAccountId(request.getFromAccountId())
-            .amount(request.getAmount())
-            .payeeName(request.getPayeeName())
-            .reference(request.getReference())
-            .build();
+            // Credit the destination leg when it is one of our accounts
+            TransactionResult creditResult = null;
+            if (toAccount != null) {
+                creditResult = toAccount.processCredit(transferAmount,
+                    "Transfer from " + fromAccount.getIdentifier(), reference);
+                accountRepository.save(toAccount);
+                responseCache.evictAccountAfterCommit(toAccountId);
+            }
+
+            // Save the account state
+            accountRepository.save(fromAccount);
+            responseCache.evictAccountAfterCommit(fromAccountId);
+
+            // Journal both legs and publish domain events
+            recordPosting(result);
+            recordPosting(creditResult);
+            return result;
+        }).thenApply(debitResult -> {
+            log.info("Successfully processed transfer with reference: {}", debitResult.getTransactionReference());
+
+            return TransferResponse.builder()
+                .transactionReference(debitResult.getTransactionReference())
+                .status("COMPLETED")
+                .fromAccountId(fromAccountId)
+                .toAccountId(toAccountId)
+                .amount(request.getAmount())
+                .payeeName(request.getPayeeName())
+                .reference(request.getReference())
+                .processedAt(LocalDateTime.now())
+                .build();
+        });
     }
 
     /**
      * Retrieves account details by ID
+     * Cache hits are served without opening a transaction; a miss loads in the repository's own
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BankAccountResponse getAccountById(Long accountId) {
         log.info("Retrieving account details for ID: {}", accountId);
 
-        BankAccount account = accountRepository.findById(accountId)
-            .orElseThrow(() -> new BankAccountNotFoundException("Account not found: " + accountId));
-
-        return BankAccountResponse.from(account);
+        return responseCache.account(accountId, this::loadAccount);
     }
 
     /**
      * Gets all accounts for a customer
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<BankAccountResponse> getAccountsByCustomerId(Long customerId) {
         log.info("Retrieving accounts for customer ID: {}", customerId);
 
-        List<BankAccount> accounts = accountRepository.findByCustomerId(customerId);
+        List<Long> accountIds = responseCache.customerAccountIds(customerId, accountRepository::findAccountIdsByCustomerId);
+
+        return responseCache.accounts(accountIds, this::loadAccounts);
+    }
+
+    /**
+     * Gets open accounts with a balance below the amount, lowest first
+     * Served from the balance index once it has warmed up, from the database until then
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<BankAccountResponse> getAccountsWithBalanceBelow(BigDecimal amount, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, balanceIndexProperties.getMaxResults()));
+
+        List<Long> accountIds = balanceIndex.isReady()
+            ? balanceIndex.accountsBelow(amount, pageSize)
+            : accountRepository.findIdsWithBalanceBelow(amount, PageRequest.of(0, pageSize));
+
+        return responseCache.accounts(accountIds, this::loadAccounts);
+    }
+
+    /**
+     * Gets open accounts of a type with a balance above the amount, highest first
+     * Served from the balance index once it has warmed up, from the database until then
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<BankAccountResponse> getAccountsWithBalanceAbove(AccountType accountType, BigDecimal amount, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, balanceIndexProperties.getMaxResults()));
+        BankAccount.AccountType type = BankAccount.AccountType.valueOf(accountType.name());
+
+        List<Long> accountIds = balanceIndex.isReady()
+            ? balanceIndex.accountsAbove(type, amount, pageSize)
+            : accountRepository.findIdsByTypeWithBalanceAbove(type, amount, PageRequest.of(0, pageSize));
+
+        return responseCache.accounts(accountIds, this::loadAccounts);
+    }
+
+    /**
+     * Checks a statement request before any of it is written
+     * The statement itself streams after the response is committed, so an unknown account or
+     * a bad period has to be reported here to get an error status
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public BankAccountResponse prepareStatement(Long accountId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new InvalidStatementPeriodException("Statement period ends before it starts: " + from + " to " + to);
+        }
+        return getAccountById(accountId);
+    }
+
+    /**
+     * Writes an account's postings from one date to another, both inclusive, in posting order
+     * Rows are read through a forward-only database cursor as projections, which never enter
+     * the persistence context, so memory stays flat however long the statement is
+     */
+    @Transactional(readOnly = true)
+    public long writeStatement(Long accountId, LocalDate from, LocalDate to, StatementWriter writer) throws IOException {
+        long start = System.nanoTime();
+        long lines = 0;
+        try (Stream<StatementLineView> statement = transactionRepository.streamStatement(
+                accountId, from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            for (StatementLineView line : (Iterable<StatementLineView>) statement::iterator) {
+                writer.write(line);
+                lines++;
+            }
+        }
+        log.info("Wrote statement for account ID {} from {} to {}: {} lines in {} ms", accountId, from, to, lines,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return lines;
+    }
+
+    /**
+     * Freezes an account, blocking further postings
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void freezeAccount(Long accountId, String reason) {
+        LedgerEngine.await(freezeAccountAsync(accountId, reason));
+    }
+
+    /**
+     * Freezes an account without waiting for the change
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Void> freezeAccountAsync(Long accountId, String reason) {
+        log.info("Freezing account ID {}: {}", accountId, reason);
+        return changeStatus(accountId, account -> account.freeze(reason));
+    }
+
+    /**
+     * Returns a frozen account to active
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void unfreezeAccount(Long accountId) {
+        LedgerEngine.await(unfreezeAccountAsync(accountId));
+    }
+
+    /**
+     * Returns a frozen account to active without waiting for the change
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Void> unfreezeAccountAsync(Long accountId) {
+        log.info("Unfreezing account ID {}", accountId);
+        return changeStatus(accountId, BankAccount::unfreeze);
+    }
+
+    /**
+     * Closes an account with a zero balance
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void closeAccount(Long accountId) {
+        LedgerEngine.await(closeAccountAsync(accountId));
+    }
+
+    /**
+     * Closes an account without waiting for the change
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Void> closeAccountAsync(Long accountId) {
+        log.info("Closing account ID {}", accountId);
+        return changeStatus(accountId, BankAccount::close);
+    }
+
+    // Status changes take the account lock, or go to its shard, so they serialise with postings
+    private CompletableFuture<Void> changeStatus(Long accountId, Consumer<BankAccount> change) {
+        return ledgerEngine.submit(Collections.singletonList(accountId), () -> {
+            BankAccount account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new BankAccountNotFoundException("Account not found: " + accountId));
+            BankAccount.AccountStatus previousStatus = account.getStatus();
+            try {
+                change.accept(account);
+            } catch (IllegalStateException e) {
+                throw new AccountOperationException(e.getMessage());
+            }
+            accountRepository.save(account);
+            responseCache.evictAccountAfterCommit(accountId);
+            eventPublisher.publish(new AccountStatusChangedEvent(accountId, account.getCustomer().getCustomerId(),
+                previousStatus.name(), account.getStatus().name(), account.getBalance()));
+            return null;
+        });
+    }
 
-        return accounts.stream()
+    private BankAccountResponse loadAccount(Long accountId) {
+        return accountRepository.findViewById(accountId)
             .map(BankAccountResponse::from)
-            .collect(Collectors.toList());
+            .orElseThrow(() -> new BankAccountNotFoundException("Account not found: " + accountId));
+    }
+
+    private Map<Long, BankAccountResponse> loadAccounts(List<Long> accountIds) {
+        return accountRepository.findViewsByIdIn(accountIds).stream()
+            .collect(Collectors.toMap(BankAccountView::getAccountId, BankAccountResponse::from));
+    }
+
+    private void recordPosting(TransactionResult result) {
+        if (result == null) {
+            return;
+        }
+        postingJournal.record(result.getTransaction());
+        if (result.getDomainEvent() != null) {
+            eventPublisher.publish(result.getDomainEvent());
+        }
     }
 }
@@ -3,15 +3,27 @@ package br.com.ukbank.application.services;
 import br.com.ukbank.application.dto.*;
 import br.com.ukbank.application.exceptions.*;
 import br.com.ukbank.domain.events.CustomerRegisteredEvent;
+import br.com.ukbank.domain.events.CustomerStatusChangedEvent;
+import br.com.ukbank.domain.events.CustomerUpdatedEvent;
 import br.com.ukbank.domain.model.Customer;
+import br.com.ukbank.infrastructure.config.CustomerSearchProperties;
 import br.com.ukbank.infrastructure.repositories.CustomerRepository;
+import br.com.ukbank.infrastructure.repositories.CustomerView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Application service for customer operations
@@ -23,8 +35,14 @@ import java.util.stream.Collectors;
 @Transactional
 public class CustomerApplicationService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final CustomerRepository customerRepository;
     private final DomainEventPublisher eventPublisher;
+    private final ResponseCache responseCache;
+    private final CustomerNameIndex customerNameIndex;
+    private final CustomerIdentityFilter identityFilter;
+    private final CustomerSearchProperties searchProperties;
 
     /**
      * Registers a new customer
@@ -32,15 +50,6 @@ public class CustomerApplicationService {
     public CustomerResponse registerCustomer(CustomerRegistrationRequest request) {
         log.info("Registering new customer with email: {}", request.getEmail());
 
-        // Check if customer already exists
-        if (customerRepository.findByEmail(request.getEmail()).isPresent()) {
-            throw new DuplicateCustomerException("Customer with email " + request.getEmail() + " already exists");
-        }
-
-        if (customerRepository.findByNationalInsuranceNumber(request.getNationalInsuranceNumber()).isPresent()) {
-            throw new DuplicateCustomerException("Customer with NI number already exists");
-        }
-
         // Create domain object using factory method
         Customer customer = Customer.registerNewCustomer(
             request.getFirstName(),
@@ -53,8 +62,25 @@ public class CustomerApplicationService {
             request.getNationalInsuranceNumber()
         );
 
-        // Persist and publish event
-        Customer savedCustomer = customerRepository.save(customer);
+        // Check against the normalised values that will be stored
+        String email = customer.getEmail();
+        String nationalInsuranceNumber = customer.getNationalInsuranceNumber().getValue();
+        if (emailTaken(email)) {
+            throw new DuplicateCustomerException("Customer with email " + request.getEmail() + " already exists");
+        }
+
+        if (nationalInsuranceNumberTaken(nationalInsuranceNumber)) {
+            throw new DuplicateCustomerException("Customer with NI number already exists");
+        }
+
+        // Persist and publish event; the unique constraints catch a duplicate that raced the checks
+        Customer savedCustomer;
+        try {
+            savedCustomer = customerRepository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateCustomerException("Customer with this email or NI number already exists");
+        }
+        identityFilter.add(email, nationalInsuranceNumber);
 
         CustomerRegisteredEvent event = new CustomerRegisteredEvent(
             savedCustomer.getCustomerId(),
@@ -69,15 +95,37 @@ public class CustomerApplicationService {
         return CustomerResponse.from(savedCustomer);
     }
 
+    private boolean emailTaken(String email) {
+        if (!identityFilter.mightHaveEmail(email)) {
+            return false;
+        }
+        boolean taken = customerRepository.existsByEmail(email);
+        if (!taken) {
+            identityFilter.recordFalsePositive();
+        }
+        return taken;
+    }
+
+    private boolean nationalInsuranceNumberTaken(String nationalInsuranceNumber) {
+        if (!identityFilter.mightHaveNationalInsuranceNumber(nationalInsuranceNumber)) {
+            return false;
+        }
+        boolean taken = customerRepository.existsByNationalInsuranceNumber(nationalInsuranceNumber);
+        if (!taken) {
+            identityFilter.recordFalsePositive();
+        }
+        return taken;
+    }
+
     /**
      * Retrieve customer by ID
+     * Cache hits are served without opening a transaction; a miss loads in the repository's own
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public CustomerResponse getCustomerById(Long customerId) {
-        Customer customer = customerRepository.findById(customerId)
-            .orElseThrow(() -> new CustomerNotFoundException("Customer not found: " + customerId));
-
-        return CustomerResponse.from(customer);
+        return responseCache.customer(customerId, id -> customerRepository.findViewById(id)
+            .map(CustomerResponse::from)
+            .orElseThrow(() -> new CustomerNotFoundException("Customer not found: " + id)));
     }
 
     /**
@@ -99,7 +147,16 @@ public class CustomerApplicationService {
             request.getPostcode()
         );
 
-        Customer updatedCustomer = customerRepository.save(customer);
+        Customer updatedCustomer = customerRepository.saveAndFlush(customer);
+        identityFilter.add(updatedCustomer.getEmail(), null);
+        // Account responses carry the customer's name
+        responseCache.evictCustomerAndAccountsAfterCommit(customerId);
+        eventPublisher.publish(new CustomerUpdatedEvent(
+            customerId,
+            updatedCustomer.getPersonalName().getFirstName(),
+            updatedCustomer.getPersonalName().getLastName(),
+            updatedCustomer.getEmail()
+        ));
 
         log.info("Successfully updated customer with ID: {}", customerId);
         return CustomerResponse.from(updatedCustomer);
@@ -116,6 +173,8 @@ public class CustomerApplicationService {
 
         customer.suspend();
         customerRepository.save(customer);
+        responseCache.evictCustomerAfterCommit(customerId);
+        eventPublisher.publish(new CustomerStatusChangedEvent(customerId, customer.getStatus().name()));
 
         log.info("Successfully suspended customer with ID: {}", customerId);
     }
@@ -131,16 +190,34 @@ public class CustomerApplicationService {
 
         customer.activate();
         customerRepository.save(customer);
+        responseCache.evictCustomerAfterCommit(customerId);
+        eventPublisher.publish(new CustomerStatusChangedEvent(customerId, customer.getStatus().name()));
 
         log.info("Successfully activated customer with ID: {}", customerId);
     }
 
     /**
      * Search customers by name
+     * Served from the in-memory name index once it is warm; short queries and searches made
+     * while it is still loading go to the database
      */
     @Transactional(readOnly = true)
-    public List<CustomerResponse> searchCustomersByName(String name) {
-        List<Customer> customers = customerRepository.findByNameContaining(name);
+    public List<CustomerResponse> searchCustomersByName(String name, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, searchProperties.getMaxResults()));
+
+        if (customerNameIndex.isReady() && name.trim().length() >= CustomerNameIndex.GRAM_LENGTH) {
+            List<Long> customerIds = customerNameIndex.search(name, pageSize);
+            Map<Long, CustomerView> customers = customerRepository.findViewsByIdIn(customerIds).stream()
+                .collect(Collectors.toMap(CustomerView::getCustomerId, Function.identity()));
+
+            return customerIds.stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .map(CustomerResponse::from)
+                .collect(Collectors.toList());
+        }
+
+        List<CustomerView> customers = customerRepository.findViewsByNameContaining(name, PageRequest.of(0, pageSize));
 
         return customers.stream()
             .map(CustomerResponse::from)
@@ -148,14 +225,37 @@ public class CustomerApplicationService {
     }
 
     /**
-     * Get all active customers
+     * Gets one keyset page of active customers, ordered by ID
      */
     @Transactional(readOnly = true)
-    public List<CustomerResponse> getAllActiveCustomers() {
-        List<Customer> customers = customerRepository.findByStatus(Customer.CustomerStatus.ACTIVE);
+    public CustomerPage getActiveCustomers(Long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
 
-        return customers.stream()
+        // One extra row tells whether another page follows
+        List<CustomerView> customers = customerRepository.findViewsByStatusAfter(Customer.CustomerStatus.ACTIVE,
+            after != null ? after : 0L, PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = customers.size() > pageSize;
+        List<CustomerResponse> items = customers.stream()
+            .limit(pageSize)
             .map(CustomerResponse::from)
             .collect(Collectors.toList());
+
+        return CustomerPage.builder()
+            .items(items)
+            .nextCursor(hasMore ? items.get(items.size() - 1).getCustomerId() : null)
+            .build();
+    }
+
+    /**
+     * Streams every active customer to the sink in ID order
+     * Rows are read through a database cursor as projections, which never enter the
+     * persistence context, so memory stays flat whatever the number of customers
+     */
+    @Transactional(readOnly = true)
+    public void streamActiveCustomers(Consumer<CustomerResponse> sink) {
+        try (Stream<CustomerView> customers = customerRepository.streamViewsByStatus(Customer.CustomerStatus.ACTIVE)) {
+            customers.map(CustomerResponse::from).forEach(sink);
+        }
     }
 }
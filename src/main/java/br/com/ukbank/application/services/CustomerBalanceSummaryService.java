@@ -0,0 +1,378 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.dto.BalanceSummaryReconciliationReport;
+import br.com.ukbank.application.dto.CustomerBalanceSummaryResponse;
+import br.com.ukbank.application.exceptions.CustomerNotFoundException;
+import br.com.ukbank.domain.model.CustomerBalanceSummary;
+import br.com.ukbank.infrastructure.config.BalanceSummaryProperties;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import br.com.ukbank.infrastructure.repositories.CustomerBalanceSummaryRepository;
+import br.com.ukbank.infrastructure.repositories.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Materialised per-customer totals of active balance and accounts
+ * Account and posting events are turned into deltas, coalesced per customer in memory and
+ * written by a background flusher as in-place increments, so the committing thread never
+ * needs a second connection and a busy customer costs one update per flush. A customer's
+ * summary starts empty at registration and is only ever moved by deltas. Deltas still
+ * pending when the process dies are lost, and customers that predate the summaries have
+ * none; reconciliation compares every summary with the accounts and repairs mismatches that
+ * outlive the settle window, which must exceed the usual event delivery delay.
+ */
+@Service
+@Slf4j
+public class CustomerBalanceSummaryService {
+
+    private final CustomerBalanceSummaryRepository summaryRepository;
+    private final BankAccountRepository accountRepository;
+    private final CustomerRepository customerRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceSummaryProperties properties;
+
+    private final ConcurrentHashMap<Long, Delta> pending = new ConcurrentHashMap<>();
+    // Held while deltas are drained but not yet written, so reconciliation never misses them
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private final Counter flushed;
+    private final Counter repaired;
+
+    private Thread flushThread;
+    private volatile boolean running;
+
+    public CustomerBalanceSummaryService(CustomerBalanceSummaryRepository summaryRepository,
+                                         BankAccountRepository accountRepository,
+                                         CustomerRepository customerRepository,
+                                         EntityManager entityManager,
+                                         PlatformTransactionManager transactionManager,
+                                         BalanceSummaryProperties properties,
+                                         MeterRegistry meterRegistry) {
+        this.summaryRepository = summaryRepository;
+        this.accountRepository = accountRepository;
+        this.customerRepository = customerRepository;
+        this.entityManager = entityManager;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("customers.balance.summary.pending", pending, Map::size)
+            .description("Customers with summary updates waiting to be flushed")
+            .register(meterRegistry);
+        this.flushed = Counter.builder("customers.balance.summary.flushed").register(meterRegistry);
+        this.repaired = Counter.builder("customers.balance.summary.repaired").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flushThread = new Thread(this::run, "customer-balance-summary-flusher");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flushThread.interrupt();
+        flushThread.join(TimeUnit.SECONDS.toMillis(10));
+        flush();
+    }
+
+    /**
+     * Returns a customer's totals with one primary-key lookup
+     * Falls back to aggregating the accounts for a customer whose summary is not built yet
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CustomerBalanceSummaryResponse getSummary(Long customerId) {
+        return summaryRepository.findById(customerId)
+            .map(CustomerBalanceSummaryResponse::from)
+            .orElseGet(() -> aggregateSummary(customerId));
+    }
+
+    /**
+     * Creates an empty summary for a newly registered customer on the next flush
+     */
+    public void recordCustomer(Long customerId) {
+        pending.merge(customerId, new Delta(0, 0, null), Delta::plus);
+    }
+
+    /**
+     * Records a change in a customer's active balance and account count
+     */
+    public void applyDelta(Long customerId, long balanceMinorUnits, int accounts, LocalDateTime activityAt) {
+        pending.merge(customerId, new Delta(balanceMinorUnits, accounts, activityAt), Delta::plus);
+    }
+
+    /**
+     * Compares every customer's summary with their accounts and repairs lasting mismatches
+     * Mismatches found in the first pass are checked again after the settle window, with the
+     * summaries locked and no flush in progress, and only those still wrong are repaired.
+     * Deltas not yet flushed count as part of the summary in both passes.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BalanceSummaryReconciliationReport reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            throw new IllegalStateException("A balance summary reconciliation is already in progress");
+        }
+        try {
+            long start = System.nanoTime();
+            int pageSize = properties.getReconcilePageSize();
+            long checked = 0;
+            Set<Long> suspects = new LinkedHashSet<>();
+            long after = 0;
+            List<Long> customerIds;
+            while (!(customerIds = customerRepository.findIdsAfter(after, PageRequest.of(0, pageSize))).isEmpty()) {
+                suspects.addAll(findMismatches(customerIds));
+                checked += customerIds.size();
+                after = customerIds.get(customerIds.size() - 1);
+            }
+
+            long fixed = 0;
+            if (!suspects.isEmpty()) {
+                log.info("Balance summary reconciliation suspects {} of {} customers, rechecking in {}",
+                    suspects.size(), checked, properties.getSettleWindow());
+                Thread.sleep(properties.getSettleWindow().toMillis());
+                List<Long> remaining = new ArrayList<>(suspects);
+                for (int from = 0; from < remaining.size(); from += pageSize) {
+                    fixed += repair(remaining.subList(from, Math.min(from + pageSize, remaining.size())));
+                }
+                repaired.increment(fixed);
+            }
+
+            BalanceSummaryReconciliationReport report = BalanceSummaryReconciliationReport.builder()
+                .customersChecked(checked)
+                .mismatchesSuspected(suspects.size())
+                .summariesRepaired(fixed)
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .build();
+            log.info("Balance summary reconciliation finished: {} customers checked, {} suspected, {} repaired in {} ms",
+                checked, suspects.size(), fixed, report.getDurationMillis());
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reconciling balance summaries", e);
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(properties.getFlushInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Balance summary flush failed, pending updates are kept for the next one", e);
+            }
+        }
+    }
+
+    /**
+     * Writes every pending delta, creating the summaries that do not exist yet
+     * Deltas that could not be written are put back for the next flush.
+     */
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Map<Long, Delta> drained = new HashMap<>();
+            for (Long customerId : pending.keySet()) {
+                Delta delta = pending.remove(customerId);
+                if (delta != null) {
+                    drained.put(customerId, delta);
+                }
+            }
+
+            Map<Long, Delta> missing = new HashMap<>();
+            try {
+                transactionTemplate.execute(status -> {
+                    drained.forEach((customerId, delta) -> {
+                        if (summaryRepository.applyDelta(customerId, BigDecimal.valueOf(delta.balanceMinorUnits, 2),
+                                delta.accounts, delta.activityAt) == 0) {
+                            missing.put(customerId, delta);
+                        }
+                    });
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                requeue(drained);
+                throw e;
+            }
+
+            if (!missing.isEmpty()) {
+                try {
+                    transactionTemplate.execute(status -> {
+                        missing.forEach((customerId, delta) -> entityManager.persist(new CustomerBalanceSummary(
+                            customerId, BigDecimal.valueOf(delta.balanceMinorUnits, 2), delta.accounts, delta.activityAt)));
+                        return null;
+                    });
+                } catch (RuntimeException e) {
+                    // Typically reconciliation created one of them first; the retry updates it instead
+                    requeue(missing);
+                    throw e;
+                }
+            }
+            flushed.increment(drained.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void requeue(Map<Long, Delta> deltas) {
+        deltas.forEach((customerId, delta) -> pending.merge(customerId, delta, Delta::plus));
+    }
+
+    // Returns the customers whose summary, counting pending deltas, did not match their accounts
+    private List<Long> findMismatches(List<Long> customerIds) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, Totals> actual = totals(customerIds);
+            Map<Long, CustomerBalanceSummary> stored = summaryRepository.findAllById(customerIds).stream()
+                .collect(Collectors.toMap(CustomerBalanceSummary::getCustomerId, Function.identity()));
+            List<Long> mismatches = new ArrayList<>();
+            for (Long customerId : customerIds) {
+                Totals expected = expectedSummary(customerId, actual);
+                CustomerBalanceSummary summary = stored.get(customerId);
+                if (summary == null || !summary.matches(expected.balance, expected.accounts)) {
+                    mismatches.add(customerId);
+                }
+            }
+            return mismatches;
+        });
+    }
+
+    /**
+     * Sets the customers' summaries from their accounts, creating missing ones
+     * Runs between flushes with the summaries locked; returns how many changed
+     */
+    private long repair(List<Long> customerIds) {
+        flushLock.lock();
+        try {
+            return transactionTemplate.execute(status -> {
+                Map<Long, CustomerBalanceSummary> locked = summaryRepository.findAllForUpdate(customerIds).stream()
+                    .collect(Collectors.toMap(CustomerBalanceSummary::getCustomerId, Function.identity()));
+                Map<Long, Totals> actual = totals(customerIds);
+                long changed = 0;
+                for (Long customerId : customerIds) {
+                    Totals expected = expectedSummary(customerId, actual);
+                    CustomerBalanceSummary summary = locked.get(customerId);
+                    if (summary == null) {
+                        entityManager.persist(new CustomerBalanceSummary(customerId, expected.balance,
+                            expected.accounts, null));
+                        changed++;
+                    } else if (!summary.matches(expected.balance, expected.accounts)) {
+                        log.warn("Repairing balance summary of customer {}: stored {} over {} accounts, expected {} over {}",
+                            customerId, summary.getTotalActiveBalance(), summary.getActiveAccountCount(),
+                            expected.balance, expected.accounts);
+                        summary.repair(expected.balance, expected.accounts);
+                        changed++;
+                    }
+                }
+                return changed;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A customer's first delta created the summary meanwhile; the next run checks it again
+            log.warn("Balance summaries for {} customers were created concurrently, leaving them to the next run",
+                customerIds.size());
+            return 0;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // What the stored summary should hold: the accounts' totals less the deltas still to be flushed
+    private Totals expectedSummary(Long customerId, Map<Long, Totals> actual) {
+        Totals totals = actual.getOrDefault(customerId, Totals.NONE);
+        Delta unflushed = pending.get(customerId);
+        if (unflushed == null) {
+            return totals;
+        }
+        return new Totals(totals.balance.subtract(BigDecimal.valueOf(unflushed.balanceMinorUnits, 2)),
+            totals.accounts - unflushed.accounts);
+    }
+
+    private Map<Long, Totals> totals(Collection<Long> customerIds) {
+        Map<Long, Totals> totals = new HashMap<>();
+        for (Object[] row : accountRepository.summariseActiveAccounts(customerIds)) {
+            totals.put((Long) row[0], new Totals((BigDecimal) row[1], (Long) row[2]));
+        }
+        return totals;
+    }
+
+    private CustomerBalanceSummaryResponse aggregateSummary(Long customerId) {
+        if (!customerRepository.existsById(customerId)) {
+            throw new CustomerNotFoundException("Customer not found: " + customerId);
+        }
+        BigDecimal balance = accountRepository.getTotalBalanceByCustomer(customerId);
+        return CustomerBalanceSummaryResponse.builder()
+            .customerId(customerId)
+            .totalActiveBalance(balance != null ? balance : Totals.NONE.balance)
+            .activeAccountCount(accountRepository.countActiveAccountsByCustomer(customerId))
+            .build();
+    }
+
+    private static final class Delta {
+        private final long balanceMinorUnits;
+        private final int accounts;
+        private final LocalDateTime activityAt;
+
+        private Delta(long balanceMinorUnits, int accounts, LocalDateTime activityAt) {
+            this.balanceMinorUnits = balanceMinorUnits;
+            this.accounts = accounts;
+            this.activityAt = activityAt;
+        }
+
+        private Delta plus(Delta other) {
+            LocalDateTime latest = activityAt == null ? other.activityAt
+                : other.activityAt == null || other.activityAt.isBefore(activityAt) ? activityAt : other.activityAt;
+            return new Delta(balanceMinorUnits + other.balanceMinorUnits, accounts + other.accounts, latest);
+        }
+    }
+
+    private static final class Totals {
+        private static final Totals NONE = new Totals(BigDecimal.ZERO.setScale(2), 0);
+
+        private final BigDecimal balance;
+        private final long accounts;
+
+        private Totals(BigDecimal balance, long accounts) {
+            this.balance = balance;
+            this.accounts = accounts;
+        }
+    }
+}
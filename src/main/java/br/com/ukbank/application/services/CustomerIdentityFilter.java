@@ -0,0 +1,159 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.infrastructure.config.DuplicateCheckProperties;
+import br.com.ukbank.infrastructure.repositories.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/**
+ * Bloom filters over every customer's email and NI number
+ * Lets registration skip the duplicate lookups when a value is definitely new; only possible
+ * hits go to the database. Values are added once the database has accepted the insert, so a
+ * refused registration leaves nothing behind. A concurrent registration checking just before
+ * the add, or one made on another node, sees "absent" and is stopped by the unique
+ * constraints, which stay the final arbiter. Until the warm-up has loaded every existing customer all checks report
+ * possibly present.
+ */
+@Component
+@Slf4j
+public class CustomerIdentityFilter {
+
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate readTransaction;
+    private final DuplicateCheckProperties properties;
+    private final BloomFilter emails;
+    private final BloomFilter nationalInsuranceNumbers;
+
+    private final Counter skippedLookups;
+    private final Counter lookups;
+    private final Counter falsePositives;
+
+    private volatile boolean ready;
+
+    public CustomerIdentityFilter(CustomerRepository customerRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  DuplicateCheckProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.properties = properties;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.emails = new BloomFilter(properties.getExpectedCustomers(), properties.getFalsePositiveRate());
+        this.nationalInsuranceNumbers = new BloomFilter(properties.getExpectedCustomers(), properties.getFalsePositiveRate());
+
+        register(meterRegistry, "email", emails);
+        register(meterRegistry, "ni", nationalInsuranceNumbers);
+        this.skippedLookups = Counter.builder("customers.duplicate.checks").tag("result", "absent").register(meterRegistry);
+        this.lookups = Counter.builder("customers.duplicate.checks").tag("result", "possible").register(meterRegistry);
+        this.falsePositives = Counter.builder("customers.duplicate.false.positives").register(meterRegistry);
+    }
+
+    /**
+     * Loads every existing customer in the background once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.isFilterEnabled()) {
+            return;
+        }
+        Thread warmer = new Thread(this::load, "customer-identity-filter-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Records a customer's email and NI number; either may be null to record only the other
+     */
+    public void add(String email, String nationalInsuranceNumber) {
+        if (email != null) {
+            emails.add(email);
+        }
+        if (nationalInsuranceNumber != null) {
+            nationalInsuranceNumbers.add(nationalInsuranceNumber);
+        }
+    }
+
+    /**
+     * False when no customer can have this email; true means the database must be asked
+     */
+    public boolean mightHaveEmail(String email) {
+        return check(emails, email);
+    }
+
+    /**
+     * False when no customer can have this NI number; true means the database must be asked
+     */
+    public boolean mightHaveNationalInsuranceNumber(String nationalInsuranceNumber) {
+        return check(nationalInsuranceNumbers, nationalInsuranceNumber);
+    }
+
+    /**
+     * Counts a possible hit the database then found to be absent
+     */
+    public void recordFalsePositive() {
+        if (ready) {
+            falsePositives.increment();
+        }
+    }
+
+    private boolean check(BloomFilter filter, String value) {
+        if (!ready) {
+            return true;
+        }
+        if (filter.mightContain(value)) {
+            lookups.increment();
+            return true;
+        }
+        skippedLookups.increment();
+        return false;
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        try {
+            long loaded = readTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<Object[]> keys = customerRepository.streamIdentityKeys()) {
+                    for (Object[] key : (Iterable<Object[]>) keys::iterator) {
+                        add((String) key[0], (String) key[1]);
+                        count++;
+                    }
+                }
+                return count;
+            });
+            ready = true;
+            log.info("Customer identity filters warmed up with {} customers in {} ms ({} KB each, {} hashes, "
+                    + "target false-positive rate {})", loaded, (System.nanoTime() - start) / 1_000_000,
+                emails.sizeInBytes() / 1024, emails.getHashCount(), properties.getFalsePositiveRate());
+            if (loaded > properties.getExpectedCustomers()) {
+                log.warn("Customer identity filters hold {} customers but are sized for {}; raise "
+                    + "ukbank.duplicate-check.expected-customers", loaded, properties.getExpectedCustomers());
+            }
+        } catch (RuntimeException e) {
+            log.error("Customer identity filter warm-up failed, duplicate checks stay on the database", e);
+        }
+    }
+
+    private static void register(MeterRegistry meterRegistry, String filterName, BloomFilter filter) {
+        Gauge.builder("customers.duplicate.filter.bytes", filter, BloomFilter::sizeInBytes)
+            .tag("filter", filterName)
+            .register(meterRegistry);
+        Gauge.builder("customers.duplicate.filter.fpp", filter, BloomFilter::expectedFalsePositiveRate)
+            .description("False-positive rate implied by the bits set so far")
+            .tag("filter", filterName)
+            .register(meterRegistry);
+    }
+}
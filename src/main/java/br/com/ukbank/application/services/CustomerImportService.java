@@ -0,0 +1,308 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.dto.CustomerImportReport;
+import br.com.ukbank.application.dto.CustomerRegistrationRequest;
+import br.com.ukbank.application.exceptions.CustomerImportInProgressException;
+import br.com.ukbank.domain.events.CustomerRegisteredEvent;
+import br.com.ukbank.domain.model.Customer;
+import br.com.ukbank.infrastructure.config.CustomerImportProperties;
+import br.com.ukbank.infrastructure.repositories.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk customer onboarding from a streamed file
+ * Rows go through the same bean validation and value objects as a single registration. Existing
+ * emails and NI numbers are loaded once per import and the set grows as rows are accepted, so
+ * duplicates inside the file are caught too. Accepted rows are persisted in batches, each in its
+ * own transaction; a batch the database refuses is retried row by row to isolate the culprit.
+ * One import runs at a time, which keeps the duplicate sets authoritative for its duration.
+ */
+@Service
+@Slf4j
+public class CustomerImportService {
+
+    private final CustomerRepository customerRepository;
+    private final DomainEventPublisher eventPublisher;
+    private final CustomerIdentityFilter identityFilter;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final CustomerImportProperties properties;
+
+    private final ReentrantLock importLock = new ReentrantLock();
+    private final AtomicLong rowsPerSecond = new AtomicLong();
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+    private final Timer batchTimer;
+
+    public CustomerImportService(CustomerRepository customerRepository,
+                                 DomainEventPublisher eventPublisher,
+                                 CustomerIdentityFilter identityFilter,
+                                 Validator validator,
+                                 TransactionTemplate transactionTemplate,
+                                 EntityManager entityManager,
+                                 CustomerImportProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.eventPublisher = eventPublisher;
+        this.identityFilter = identityFilter;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.properties = properties;
+
+        Gauge.builder("customers.import.rate", rowsPerSecond, AtomicLong::get)
+            .description("Rows per second of the running or last import")
+            .register(meterRegistry);
+        this.importedRows = Counter.builder("customers.import.rows").tag("outcome", "imported").register(meterRegistry);
+        this.rejectedRows = Counter.builder("customers.import.rows").tag("outcome", "rejected").register(meterRegistry);
+        this.batchTimer = Timer.builder("customers.import.batch").register(meterRegistry);
+    }
+
+    /**
+     * Opens a CSV reader limited to the configured record length
+     */
+    public CustomerRecordReader csvReader(Reader reader) throws IOException {
+        return CustomerRecordReader.csv(reader, properties.getMaxRecordLength());
+    }
+
+    /**
+     * Imports every row the reader yields and reports what was rejected
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CustomerImportReport importCustomers(CustomerRecordReader reader) throws IOException {
+        if (!importLock.tryLock()) {
+            throw new CustomerImportInProgressException("Another customer import is already running");
+        }
+        try {
+            return new ImportRun().execute(reader);
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    private class ImportRun {
+        private final Set<String> emails = new HashSet<>();
+        private final Set<String> nationalInsuranceNumbers = new HashSet<>();
+        private final List<PendingRow> batch = new ArrayList<>(properties.getBatchSize());
+        private final List<CustomerImportReport.RowError> errors = new ArrayList<>();
+        private final long startNanos = System.nanoTime();
+        private long totalRows;
+        private long imported;
+        private long rejected;
+
+        CustomerImportReport execute(CustomerRecordReader reader) throws IOException {
+            loadIdentityKeys();
+            rowsPerSecond.set(0);
+
+            CustomerRecordReader.Row row;
+            while ((row = reader.next()) != null) {
+                totalRows++;
+                accept(row);
+                if (batch.size() >= properties.getBatchSize()) {
+                    persistBatch();
+                }
+                if (totalRows % properties.getProgressInterval() == 0) {
+                    long rate = updateRate();
+                    log.info("Customer import progress: {} rows read, {} imported, {} rejected, {} rows/s",
+                        totalRows, imported, rejected, rate);
+                }
+            }
+            persistBatch();
+
+            long rate = updateRate();
+            long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            log.info("Customer import finished: {} rows in {} ms, {} imported, {} rejected, {} rows/s",
+                totalRows, durationMillis, imported, rejected, rate);
+
+            return CustomerImportReport.builder()
+                .totalRows(totalRows)
+                .imported(imported)
+                .rejected(rejected)
+                .durationMillis(durationMillis)
+                .rowsPerSecond(rate)
+                .errors(errors)
+                .errorsTruncated(rejected > errors.size())
+                .build();
+        }
+
+        private void loadIdentityKeys() {
+            transactionTemplate.execute(status -> {
+                try (Stream<Object[]> keys = customerRepository.streamIdentityKeys()) {
+                    keys.forEach(key -> {
+                        emails.add((String) key[0]);
+                        nationalInsuranceNumbers.add((String) key[1]);
+                    });
+                }
+                return null;
+            });
+        }
+
+        private void accept(CustomerRecordReader.Row row) {
+            if (row.getError() != null) {
+                reject(row.getLine(), row.getError());
+                return;
+            }
+
+            CustomerRegistrationRequest request = row.getRequest();
+            Set<ConstraintViolation<CustomerRegistrationRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                reject(row.getLine(), violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+                return;
+            }
+
+            Customer customer;
+            try {
+                customer = newCustomer(request);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                reject(row.getLine(), e.getMessage());
+                return;
+            }
+
+            // Compare the normalised values the entity will store
+            String email = customer.getEmail();
+            String nationalInsuranceNumber = customer.getNationalInsuranceNumber().getValue();
+            if (emails.contains(email)) {
+                reject(row.getLine(), "Customer with email " + email + " already exists");
+                return;
+            }
+            if (nationalInsuranceNumbers.contains(nationalInsuranceNumber)) {
+                reject(row.getLine(), "Customer with NI number already exists");
+                return;
+            }
+            emails.add(email);
+            nationalInsuranceNumbers.add(nationalInsuranceNumber);
+            batch.add(new PendingRow(row.getLine(), request, customer));
+        }
+
+        private void persistBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.execute(status -> {
+                    for (PendingRow pending : batch) {
+                        save(pending.customer);
+                    }
+                    // Flushed through the repository so a refused batch surfaces as a translated exception;
+                    // a web request keeps one persistence context open across batches, so empty it too
+                    customerRepository.flush();
+                    entityManager.clear();
+                    return null;
+                });
+                batch.forEach(pending -> remember(pending.customer));
+                imported += batch.size();
+                importedRows.increment(batch.size());
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Customer import batch of {} rows was refused, retrying row by row", batch.size());
+                for (PendingRow pending : batch) {
+                    persistAlone(pending);
+                }
+            }
+            batch.clear();
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        private void persistAlone(PendingRow pending) {
+            try {
+                // The failed batch left the original entity with a discarded ID
+                Customer customer = newCustomer(pending.request);
+                transactionTemplate.execute(status -> {
+                    save(customer);
+                    customerRepository.flush();
+                    entityManager.clear();
+                    return null;
+                });
+                remember(customer);
+                imported++;
+                importedRows.increment();
+            } catch (DataIntegrityViolationException e) {
+                reject(pending.line, "Customer already exists");
+            }
+        }
+
+        private Customer save(Customer customer) {
+            Customer saved = customerRepository.save(customer);
+            eventPublisher.publish(new CustomerRegisteredEvent(
+                saved.getCustomerId(),
+                saved.getPersonalName().getFirstName(),
+                saved.getPersonalName().getLastName(),
+                saved.getEmail()
+            ));
+            return saved;
+        }
+
+        // Only customers the database accepted go into the shared duplicate filter
+        private void remember(Customer customer) {
+            identityFilter.add(customer.getEmail(), customer.getNationalInsuranceNumber().getValue());
+        }
+
+        private void reject(long line, String message) {
+            rejected++;
+            rejectedRows.increment();
+            if (errors.size() < properties.getMaxReportedErrors()) {
+                errors.add(new CustomerImportReport.RowError(line, message));
+            }
+        }
+
+        private long updateRate() {
+            long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+            long rate = totalRows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+            rowsPerSecond.set(rate);
+            return rate;
+        }
+    }
+
+    private static Customer newCustomer(CustomerRegistrationRequest request) {
+        return Customer.registerNewCustomer(
+            request.getFirstName(),
+            request.getLastName(),
+            request.getEmail(),
+            request.getPhoneNumber(),
+            request.getDateOfBirth(),
+            request.getAddressLine(),
+            request.getPostcode(),
+            request.getNationalInsuranceNumber()
+        );
+    }
+
+    private static final class PendingRow {
+        private final long line;
+        private final CustomerRegistrationRequest request;
+        private final Customer customer;
+
+        private PendingRow(long line, CustomerRegistrationRequest request, Customer customer) {
+            this.line = line;
+            this.request = request;
+            this.customer = customer;
+        }
+    }
+}
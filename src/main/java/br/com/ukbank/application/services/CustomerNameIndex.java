@@ -0,0 +1,419 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.infrastructure.config.CustomerSearchProperties;
+import br.com.ukbank.infrastructure.repositories.CustomerNameView;
+import br.com.ukbank.infrastructure.repositories.CustomerRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over customer names
+ * Every customer gets a dense slot; each trigram of the lower-cased first and last name maps
+ * to a sorted posting list of slots. A search intersects the posting lists of the query's
+ * trigrams and verifies the survivors by substring match, so results are exactly those of
+ * the LIKE query it replaces. Results are ranked in tiers: exact names first, then names
+ * starting with the query, then other matches, each tier in slot order, which for a warm
+ * index is registration order. Tiers are walked in order and the search stops once it has
+ * enough results, so common substrings cost no more than rare ones. Queries shorter than a
+ * trigram cannot use it and callers should go to the database for those and until it is ready.
+ */
+@Component
+@Slf4j
+public class CustomerNameIndex {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int SUBSTRING = 2;
+
+    private final CustomerRepository customerRepository;
+    private final CustomerSearchProperties properties;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> slotsByCustomer = new HashMap<>();
+    private final Map<Long, Postings> grams = new HashMap<>();
+    private final Map<Long, Postings> leadingGrams = new HashMap<>();
+    private final Map<String, Postings> exactNames = new HashMap<>();
+    private long[] customerIds = new long[1024];
+    private String[] firstNames = new String[1024];
+    private String[] lastNames = new String[1024];
+    private int size;
+
+    private volatile boolean ready;
+
+    public CustomerNameIndex(CustomerRepository customerRepository,
+                             CustomerSearchProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.properties = properties;
+
+        Gauge.builder("customers.name.index.size", this, CustomerNameIndex::size).register(meterRegistry);
+        Gauge.builder("customers.name.index.trigrams", this, CustomerNameIndex::trigramCount).register(meterRegistry);
+    }
+
+    /**
+     * Loads every existing customer in the background once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.isIndexEnabled()) {
+            return;
+        }
+        Thread warmer = new Thread(this::load, "customer-name-index-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Indexes a new customer or replaces the name of an existing one
+     */
+    public void index(Long customerId, String firstName, String lastName) {
+        if (!properties.isIndexEnabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            put(customerId, normalise(firstName), normalise(lastName), true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to limit customer IDs whose first or last name contains the query, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        String needle = normalise(query);
+        long[] needleGrams = distinctTrigrams(needle);
+        if (needleGrams.length == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[needleGrams.length];
+            for (int i = 0; i < needleGrams.length; i++) {
+                lists[i] = grams.get(needleGrams[i]);
+                if (lists[i] == null) {
+                    return Collections.emptyList();
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt((Postings list) -> list.size));
+
+            List<Long> result = new ArrayList<>(Math.min(limit, 64));
+            Postings exact = exactNames.get(needle);
+            if (exact != null) {
+                collect(exact, new Postings[0], needle, EXACT, limit, result);
+            }
+            Postings leading = leadingGrams.get(trigramAt(needle, 0));
+            if (leading != null) {
+                collect(leading, lists, needle, PREFIX, limit, result);
+            }
+            collect(lists[0], Arrays.copyOfRange(lists, 1, lists.length), needle, SUBSTRING, limit, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int trigramCount() {
+        lock.readLock().lock();
+        try {
+            return grams.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks the driving list in slot order, keeping slots present in every filter list whose
+     * names match the needle at exactly the given tier
+     */
+    private void collect(Postings driver, Postings[] filters, String needle, int tier, int limit, List<Long> result) {
+        Cursor[] cursors = new Cursor[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            cursors[i] = new Cursor(filters[i]);
+        }
+
+        candidates:
+        for (int i = 0; i < driver.size && result.size() < limit; i++) {
+            int slot = driver.slots[i];
+            for (Cursor cursor : cursors) {
+                if (!cursor.advanceTo(slot)) {
+                    continue candidates;
+                }
+            }
+            if (tierOf(needle, firstNames[slot], lastNames[slot]) == tier) {
+                result.add(customerIds[slot]);
+            }
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        long afterId = 0;
+        try {
+            while (true) {
+                List<CustomerNameView> page = customerRepository.findNamesAfter(afterId,
+                    PageRequest.of(0, properties.getWarmupPageSize()));
+                if (page.isEmpty()) {
+                    break;
+                }
+                lock.writeLock().lock();
+                try {
+                    // Names indexed from events while loading are newer than this page
+                    for (CustomerNameView view : page) {
+                        put(view.getCustomerId(), normalise(view.getFirstName()), normalise(view.getLastName()), false);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                afterId = page.get(page.size() - 1).getCustomerId();
+            }
+            ready = true;
+            log.info("Customer name index warmed up with {} customers and {} trigrams in {} ms",
+                size(), trigramCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Customer name index warm-up failed, searches stay on the database", e);
+        }
+    }
+
+    // Caller holds the write lock
+    private void put(Long customerId, String firstName, String lastName, boolean replace) {
+        Integer existing = slotsByCustomer.get(customerId);
+        if (existing != null && !replace) {
+            return;
+        }
+
+        int slot;
+        long[] oldGrams;
+        long[] oldLeading;
+        String[] oldNames;
+        if (existing == null) {
+            slot = append(customerId);
+            oldGrams = new long[0];
+            oldLeading = new long[0];
+            oldNames = new String[0];
+        } else {
+            slot = existing;
+            oldGrams = distinctTrigrams(firstNames[slot], lastNames[slot]);
+            oldLeading = leadingTrigrams(firstNames[slot], lastNames[slot]);
+            oldNames = distinctNames(firstNames[slot], lastNames[slot]);
+        }
+
+        reindex(grams, oldGrams, distinctTrigrams(firstName, lastName), slot);
+        reindex(leadingGrams, oldLeading, leadingTrigrams(firstName, lastName), slot);
+        String[] newNames = distinctNames(firstName, lastName);
+        for (String name : oldNames) {
+            if (!Arrays.asList(newNames).contains(name)) {
+                removeSlot(exactNames, name, slot);
+            }
+        }
+        for (String name : newNames) {
+            exactNames.computeIfAbsent(name, key -> new Postings()).add(slot);
+        }
+        firstNames[slot] = firstName;
+        lastNames[slot] = lastName;
+    }
+
+    private int append(Long customerId) {
+        if (size == customerIds.length) {
+            int capacity = size * 2;
+            customerIds = Arrays.copyOf(customerIds, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+        }
+        int slot = size++;
+        customerIds[slot] = customerId;
+        slotsByCustomer.put(customerId, slot);
+        return slot;
+    }
+
+    // Both key arrays are sorted
+    private static void reindex(Map<Long, Postings> index, long[] before, long[] after, int slot) {
+        for (long key : before) {
+            if (Arrays.binarySearch(after, key) < 0) {
+                removeSlot(index, key, slot);
+            }
+        }
+        for (long key : after) {
+            if (Arrays.binarySearch(before, key) < 0) {
+                index.computeIfAbsent(key, k -> new Postings()).add(slot);
+            }
+        }
+    }
+
+    private static <K> void removeSlot(Map<K, Postings> index, K key, int slot) {
+        Postings list = index.get(key);
+        list.remove(slot);
+        if (list.size == 0) {
+            index.remove(key);
+        }
+    }
+
+    // EXACT, PREFIX or SUBSTRING for the best of the two names; -1 when neither contains the needle
+    private static int tierOf(String needle, String firstName, String lastName) {
+        if (firstName.equals(needle) || lastName.equals(needle)) {
+            return EXACT;
+        }
+        if (firstName.startsWith(needle) || lastName.startsWith(needle)) {
+            return PREFIX;
+        }
+        if (firstName.contains(needle) || lastName.contains(needle)) {
+            return SUBSTRING;
+        }
+        return -1;
+    }
+
+    private static String normalise(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String[] distinctNames(String firstName, String lastName) {
+        if (firstName.equals(lastName)) {
+            return new String[] {firstName};
+        }
+        return new String[] {firstName, lastName};
+    }
+
+    private static long[] leadingTrigrams(String firstName, String lastName) {
+        List<Long> leading = new ArrayList<>(2);
+        for (String name : new String[] {firstName, lastName}) {
+            if (name.length() >= GRAM_LENGTH && !leading.contains(trigramAt(name, 0))) {
+                leading.add(trigramAt(name, 0));
+            }
+        }
+        long[] keys = new long[leading.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = leading.get(i);
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    // Packs three chars into one key
+    private static long trigramAt(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    /**
+     * Sorted, de-duplicated trigram keys of the given texts
+     */
+    static long[] distinctTrigrams(String... texts) {
+        int total = 0;
+        for (String text : texts) {
+            total += Math.max(0, text.length() - GRAM_LENGTH + 1);
+        }
+        long[] keys = new long[total];
+        int count = 0;
+        for (String text : texts) {
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                keys[count++] = trigramAt(text, i);
+            }
+        }
+        Arrays.sort(keys);
+
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || keys[unique - 1] != keys[i]) {
+                keys[unique++] = keys[i];
+            }
+        }
+        return unique == keys.length ? keys : Arrays.copyOf(keys, unique);
+    }
+
+    /**
+     * Sorted slot list of one key
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        private void add(int slot) {
+            // New customers take the highest slot, so this is an append in all but renames
+            int index = size;
+            if (size > 0 && slots[size - 1] >= slot) {
+                index = Arrays.binarySearch(slots, 0, size, slot);
+                if (index >= 0) {
+                    return;
+                }
+                index = -index - 1;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+            slots[index] = slot;
+            size++;
+        }
+
+        private void remove(int slot) {
+            int index = Arrays.binarySearch(slots, 0, size, slot);
+            if (index >= 0) {
+                System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Forward-only position in a posting list, probed with ascending slots
+     */
+    private static final class Cursor {
+        private final Postings list;
+        private int position;
+
+        private Cursor(Postings list) {
+            this.list = list;
+        }
+
+        // Gallops ahead to the first entry not below the slot and reports whether it is the slot
+        private boolean advanceTo(int slot) {
+            int[] slots = list.slots;
+            int size = list.size;
+            int low = position;
+            if (low >= size || slots[low] >= slot) {
+                return low < size && slots[low] == slot;
+            }
+            int step = 1;
+            int high = low + 1;
+            while (high < size && slots[high] < slot) {
+                low = high;
+                step <<= 1;
+                high = low + step;
+            }
+            int index = Arrays.binarySearch(slots, low + 1, Math.min(high + 1, size), slot);
+            position = index >= 0 ? index : -index - 1;
+            return index >= 0;
+        }
+    }
+}
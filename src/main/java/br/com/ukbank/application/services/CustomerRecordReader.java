@@ -0,0 +1,263 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.dto.CustomerRegistrationRequest;
+import br.com.ukbank.application.exceptions.InvalidCustomerImportException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader of customer registration rows from CSV or NDJSON
+ * Holds only the current row in memory. A row that cannot be parsed is returned with an error
+ * instead of a request so the import can report it and carry on. CSV records are capped in
+ * length, so an unclosed quote cannot buffer the rest of the input as one field.
+ */
+public abstract class CustomerRecordReader implements Closeable {
+
+    static final String[] CSV_COLUMNS = {
+        "firstName", "lastName", "email", "phoneNumber", "dateOfBirth",
+        "addressLine", "postcode", "nationalInsuranceNumber"
+    };
+
+    protected final BufferedReader reader;
+    protected long line;
+
+    protected CustomerRecordReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 64 * 1024);
+    }
+
+    /**
+     * Reads a header row naming the columns in any order, then one customer per record
+     * A record longer than maxRecordLength characters is rejected and reading resumes on the
+     * next physical line.
+     */
+    public static CustomerRecordReader csv(Reader reader, int maxRecordLength) throws IOException {
+        return new Csv(reader, maxRecordLength);
+    }
+
+    /**
+     * Reads one JSON registration request per line
+     */
+    public static CustomerRecordReader ndjson(Reader reader, ObjectMapper objectMapper) {
+        return new Ndjson(reader, objectMapper);
+    }
+
+    /**
+     * Returns the next row, or null at the end of the input
+     */
+    public abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    public static final class Row {
+        private final long line;
+        private final CustomerRegistrationRequest request;
+        private final String error;
+
+        private Row(long line, CustomerRegistrationRequest request, String error) {
+            this.line = line;
+            this.request = request;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public CustomerRegistrationRequest getRequest() {
+            return request;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    private static final class Ndjson extends CustomerRecordReader {
+        private final ObjectMapper objectMapper;
+
+        private Ndjson(Reader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+            } while (text.trim().isEmpty());
+
+            try {
+                return new Row(line, objectMapper.readValue(text, CustomerRegistrationRequest.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(line, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static final class Csv extends CustomerRecordReader {
+        private final int[] columnIndexes = new int[CSV_COLUMNS.length];
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private final int maxRecordLength;
+        private int width;
+        private boolean unterminated;
+        private boolean oversized;
+
+        private Csv(Reader reader, int maxRecordLength) throws IOException {
+            super(reader);
+            this.maxRecordLength = maxRecordLength;
+            if (!readRecord() || unterminated) {
+                throw new InvalidCustomerImportException("CSV input has no header row");
+            }
+            if (oversized) {
+                throw new InvalidCustomerImportException("CSV header row is longer than " + maxRecordLength + " characters");
+            }
+            mapHeader();
+        }
+
+        @Override
+        public Row next() throws IOException {
+            long start;
+            do {
+                start = line + 1;
+                if (!readRecord()) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).trim().isEmpty());
+
+            if (oversized) {
+                return new Row(start, null, "Record longer than " + maxRecordLength + " characters");
+            }
+            if (unterminated) {
+                return new Row(start, null, "Unterminated quoted field");
+            }
+            if (fields.size() != width) {
+                return new Row(start, null, "Expected " + width + " columns but found " + fields.size());
+            }
+            try {
+                return new Row(start, CustomerRegistrationRequest.builder()
+                    .firstName(column(0))
+                    .lastName(column(1))
+                    .email(column(2))
+                    .phoneNumber(column(3))
+                    .dateOfBirth(column(4).isEmpty() ? null : LocalDate.parse(column(4)))
+                    .addressLine(column(5))
+                    .postcode(column(6))
+                    .nationalInsuranceNumber(column(7))
+                    .build(), null);
+            } catch (DateTimeParseException e) {
+                return new Row(start, null, "Invalid date of birth, expected yyyy-MM-dd: " + column(4));
+            }
+        }
+
+        private String column(int index) {
+            return fields.get(columnIndexes[index]).trim();
+        }
+
+        private void mapHeader() {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                // Spreadsheet exports often start with a byte order mark
+                positions.put(fields.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (int i = 0; i < CSV_COLUMNS.length; i++) {
+                Integer position = positions.get(CSV_COLUMNS[i].toLowerCase(Locale.ROOT));
+                if (position == null) {
+                    throw new InvalidCustomerImportException("CSV header is missing column " + CSV_COLUMNS[i]);
+                }
+                columnIndexes[i] = position;
+            }
+            width = fields.size();
+        }
+
+        // RFC 4180: quoted fields may hold commas, doubled quotes and line breaks
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            unterminated = false;
+            oversized = false;
+            boolean quoted = false;
+            int c = reader.read();
+            if (c == -1) {
+                return false;
+            }
+            line++;
+            int length = 0;
+            while (true) {
+                boolean terminator = c == -1 || !quoted && (c == '\n' || c == '\r');
+                if (!terminator && ++length > maxRecordLength) {
+                    skipLine(c);
+                    oversized = true;
+                    fields.clear();
+                    return true;
+                }
+                if (quoted) {
+                    if (c == -1) {
+                        unterminated = true;
+                        break;
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return true;
+        }
+
+        // Drops what is left of the physical line, quotes included, so the next record starts afresh
+        private void skipLine(int c) throws IOException {
+            field.setLength(0);
+            while (c != '\n' && c != -1) {
+                c = reader.read();
+            }
+        }
+    }
+}
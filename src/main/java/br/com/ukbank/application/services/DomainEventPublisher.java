@@ -1,28 +1,79 @@
 package br.com.ukbank.application.services;
 
+import br.com.ukbank.application.events.AsyncEventDispatcher;
+import br.com.ukbank.application.events.DomainEventHandlers;
 import br.com.ukbank.domain.events.DomainEvent;
-import lombok.RequiredArgsConstructor;
+import br.com.ukbank.infrastructure.config.EventPublishingProperties;
+import br.com.ukbank.infrastructure.events.DomainEventCodec;
+import br.com.ukbank.infrastructure.outbox.OutboxEvent;
+import br.com.ukbank.infrastructure.outbox.OutboxEventRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Service for publishing domain events
  * Coordinates event handling across the application
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class DomainEventPublisher {
 
-    // In a real application, this would integrate with Spring ApplicationEventPublisher
-    // or a message broker like RabbitMQ/Kafka
+    private final DomainEventHandlers handlers;
+    private final AsyncEventDispatcher asyncDispatcher;
+    private final OutboxEventRepository outboxRepository;
+    private final DomainEventCodec codec;
+    private final boolean outbox;
+
+    public DomainEventPublisher(DomainEventHandlers handlers,
+                                ObjectProvider<AsyncEventDispatcher> asyncDispatcher,
+                                OutboxEventRepository outboxRepository,
+                                DomainEventCodec codec,
+                                EventPublishingProperties properties) {
+        this.handlers = handlers;
+        this.asyncDispatcher = asyncDispatcher.getIfAvailable();
+        this.outboxRepository = outboxRepository;
+        this.codec = codec;
+        this.outbox = properties.getMode() == EventPublishingProperties.Mode.OUTBOX;
+    }
 
     /**
      * Publishes domain events for async processing
+     * Events raised inside a transaction are held back until it commits and discarded on rollback.
+     * In outbox mode the event is instead written in that same transaction and delivered by the relay.
      */
     public void publish(DomainEvent event) {
         log.info("Publishing domain event: {}", event.getClass().getSimpleName());
-        // Implementation would publish to event bus/message broker
         log.debug("Event details: {}", event);
+
+        if (outbox) {
+            record(event);
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(event);
+                }
+            });
+        } else {
+            release(event);
+        }
+    }
+
+    private void record(DomainEvent event) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox events must be published inside the transaction that raised them");
+        }
+        outboxRepository.save(new OutboxEvent(event.getEventId(), event.getEventType(), codec.encode(event)));
+    }
+
+    private void release(DomainEvent event) {
+        if (asyncDispatcher != null) {
+            asyncDispatcher.submit(event);
+        } else {
+            handlers.dispatch(event);
+        }
     }
 }
@@ -0,0 +1,264 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.infrastructure.config.LedgerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Group commit for ledger postings
+ * When enabled, a posting is queued instead of committed on its own, and committer threads
+ * gather what arrives within a short delay of a batch's first posting, up to a maximum, into
+ * one ledger transaction holding the locks of every account involved. Postings apply in
+ * arrival order, so two on the same account see each other, and an account touched several
+ * times is written once; each caller then gets its own result or exception. A posting that
+ * fails, even halfway through its work, rolls back the whole attempt, its events and journaled
+ * postings with it; the failure goes to its caller and the postings left run again as a batch,
+ * so each failed posting costs the batch one more transaction. A failure of the transaction
+ * itself is not pinned on anyone: the batch is split and each posting committed alone. A full
+ * queue hands the posting straight to the ledger engine.
+ */
+@Component
+@Slf4j
+public class GroupCommitter {
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LedgerEngine ledgerEngine;
+    private final LedgerProperties.GroupCommit properties;
+    private final boolean enabled;
+    private final BlockingQueue<Posting<?>> queue;
+
+    private final DistributionSummary batchSize;
+    private final Timer batchTimer;
+    private final Counter splits;
+    private final Counter reruns;
+    private final Counter overflows;
+
+    private final List<Thread> committers = new ArrayList<>();
+    private volatile boolean running;
+
+    public GroupCommitter(LedgerEngine ledgerEngine, LedgerProperties properties, MeterRegistry meterRegistry) {
+        this.ledgerEngine = ledgerEngine;
+        this.properties = properties.getGroupCommit();
+        this.enabled = this.properties.isEnabled();
+        this.queue = enabled ? new ArrayBlockingQueue<>(this.properties.getQueueCapacity()) : null;
+
+        this.batchSize = DistributionSummary.builder("ledger.group.commit.size")
+            .description("Postings committed per group commit")
+            .register(meterRegistry);
+        this.batchTimer = Timer.builder("ledger.group.commit.batch").register(meterRegistry);
+        this.splits = Counter.builder("ledger.group.commit.splits").register(meterRegistry);
+        this.reruns = Counter.builder("ledger.group.commit.reruns")
+            .description("Batches run again without a posting that failed")
+            .register(meterRegistry);
+        this.overflows = Counter.builder("ledger.group.commit.overflows").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < Math.max(1, properties.getCommitterThreads()); i++) {
+            Thread thread = new Thread(this::run, "ledger-group-commit-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            committers.add(thread);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : committers) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Runs the work under the accounts' ledger locks and returns once it has committed
+     * Shares the transaction with concurrent postings when group commit is on; otherwise this
+     * is the ledger engine's own execute.
+     */
+    public <T> T execute(Collection<Long> accountIds, Supplier<T> work) {
+        return LedgerEngine.await(submit(accountIds, work));
+    }
+
+    /**
+     * Queues the work for the next group commit and returns the outcome to come
+     * Off, or with the queue full, this is the ledger engine's own submit.
+     */
+    public <T> CompletableFuture<T> submit(Collection<Long> accountIds, Supplier<T> work) {
+        if (!enabled) {
+            return ledgerEngine.submit(accountIds, work);
+        }
+        Posting<T> posting = new Posting<>(accountIds, work);
+        if (!running || !queue.offer(posting)) {
+            overflows.increment();
+            return ledgerEngine.submit(accountIds, work);
+        }
+        return posting.result;
+    }
+
+    private void run() {
+        List<Posting<?>> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                Posting<?> first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch, first.queuedAt + properties.getMaxDelay().toNanos());
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Group commit of {} postings failed", batch.size(), e);
+                batch.forEach(posting -> posting.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Fills the batch with what is queued, waiting for more until the deadline
+    private void collect(List<Posting<?>> batch, long deadline) throws InterruptedException {
+        int max = properties.getMaxBatchSize();
+        queue.drainTo(batch, max - batch.size());
+        while (batch.size() < max) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Posting<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, max - batch.size());
+        }
+    }
+
+    private void commit(List<Posting<?>> batch) {
+        long start = System.nanoTime();
+        List<Posting<?>> pending = new ArrayList<>(batch);
+        boolean committed = false;
+        while (!pending.isEmpty()) {
+            Set<Long> accountIds = new LinkedHashSet<>();
+            for (Posting<?> posting : pending) {
+                accountIds.addAll(posting.accountIds);
+            }
+            try {
+                // Outcomes are reset on every attempt, as the ledger engine retries version conflicts
+                committed = ledgerEngine.execute(accountIds, () -> {
+                    pending.forEach(Posting::apply);
+                    return true;
+                });
+                break;
+            } catch (PostingFailure e) {
+                pending.remove(e.posting);
+                e.posting.fail(e.getCause());
+                if (!pending.isEmpty()) {
+                    reruns.increment();
+                }
+            } catch (RuntimeException e) {
+                if (pending.size() > 1) {
+                    log.warn("Group commit of {} postings failed, committing them one by one", pending.size(), e);
+                } else {
+                    pending.get(0).fail(e);
+                }
+                break;
+            }
+        }
+
+        if (committed) {
+            batchSize.record(pending.size());
+            pending.forEach(Posting::complete);
+        } else if (pending.size() > 1) {
+            splits.increment();
+            for (Posting<?> posting : pending) {
+                posting.executeAlone(ledgerEngine);
+            }
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * One caller's unit of work and the outcome it is waiting for
+     */
+    private static final class Posting<T> {
+        private final Collection<Long> accountIds;
+        private final Supplier<T> work;
+        private final long queuedAt = System.nanoTime();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private T value;
+
+        private Posting(Collection<Long> accountIds, Supplier<T> work) {
+            this.accountIds = accountIds;
+            this.work = work;
+        }
+
+        // Runs inside the batch transaction; a failure of the database itself aborts the batch as it is
+        private void apply() {
+            value = null;
+            try {
+                value = work.get();
+            } catch (DataAccessException | PersistenceException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new PostingFailure(this, e);
+            }
+        }
+
+        private void complete() {
+            result.complete(value);
+        }
+
+        private void fail(Throwable e) {
+            result.completeExceptionally(e);
+        }
+
+        private void executeAlone(LedgerEngine ledgerEngine) {
+            try {
+                result.complete(ledgerEngine.execute(accountIds, work));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * A posting's own failure, rolling back the batch attempt it happened in
+     */
+    private static final class PostingFailure extends RuntimeException {
+        private final Posting<?> posting;
+
+        private PostingFailure(Posting<?> posting, RuntimeException cause) {
+            super(null, cause, false, false);
+            this.posting = posting;
+        }
+    }
+}
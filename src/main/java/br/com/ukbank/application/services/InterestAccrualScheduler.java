@@ -0,0 +1,30 @@
+package br.com.ukbank.application.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Triggers the nightly interest accrual for the day that has just ended
+ */
+@Component
+@ConditionalOnProperty(prefix = "ukbank.interest", name = "schedule-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class InterestAccrualScheduler {
+
+    private final InterestAccrualService accrualService;
+
+    @Scheduled(cron = "${ukbank.interest.cron:0 30 0 * * *}")
+    public void accruePreviousDay() {
+        try {
+            accrualService.accrue(LocalDate.now().minusDays(1));
+        } catch (RuntimeException e) {
+            log.error("Nightly interest accrual failed", e);
+        }
+    }
+}
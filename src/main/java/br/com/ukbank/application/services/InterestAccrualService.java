@@ -0,0 +1,218 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.dto.InterestAccrualReport;
+import br.com.ukbank.domain.model.BankAccount;
+import br.com.ukbank.domain.model.InterestAccrualChunk;
+import br.com.ukbank.domain.model.TransactionResult;
+import br.com.ukbank.infrastructure.config.InterestAccrualProperties;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import br.com.ukbank.infrastructure.repositories.InterestAccrualChunkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel daily interest accrual
+ * A run splits the interest-earning account IDs into fixed-width ranges, persisted as chunks for
+ * the business date, and hands the pending ones to a worker pool. Each chunk reads the IDs still
+ * due, then credits them in ledger transactions of a few dozen accounts: the accounts are locked
+ * through the ledger engine, loaded in one query, credited with processCredit and journaled, so
+ * writes go out as JDBC batches. The account's accrued-through date is written with its balance,
+ * which makes a repeated or overlapping run harmless; a chunk is marked complete once all of its
+ * accounts are, and a restarted run skips completed chunks.
+ */
+@Service
+@Slf4j
+public class InterestAccrualService {
+
+    private final BankAccountRepository accountRepository;
+    private final PostingJournal postingJournal;
+    private final InterestAccrualChunkRepository chunkRepository;
+    private final DomainEventPublisher eventPublisher;
+    private final ResponseCache responseCache;
+    private final LedgerEngine ledgerEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final InterestAccrualProperties properties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong accountsPerSecond = new AtomicLong();
+    private final Counter accountsCredited;
+    private final Counter chunksFailed;
+    private final Timer chunkTimer;
+
+    public InterestAccrualService(BankAccountRepository accountRepository,
+                                  PostingJournal postingJournal,
+                                  InterestAccrualChunkRepository chunkRepository,
+                                  DomainEventPublisher eventPublisher,
+                                  ResponseCache responseCache,
+                                  LedgerEngine ledgerEngine,
+                                  TransactionTemplate transactionTemplate,
+                                  InterestAccrualProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.postingJournal = postingJournal;
+        this.chunkRepository = chunkRepository;
+        this.eventPublisher = eventPublisher;
+        this.responseCache = responseCache;
+        this.ledgerEngine = ledgerEngine;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+
+        Gauge.builder("interest.accrual.rate", accountsPerSecond, AtomicLong::get)
+            .description("Accounts credited per second by the last run")
+            .register(meterRegistry);
+        this.accountsCredited = Counter.builder("interest.accrual.accounts").register(meterRegistry);
+        this.chunksFailed = Counter.builder("interest.accrual.chunks.failed").register(meterRegistry);
+        this.chunkTimer = Timer.builder("interest.accrual.chunk").register(meterRegistry);
+    }
+
+    /**
+     * Credits one day of interest to every eligible account for the business date
+     * Safe to call again for the same date: only pending chunks are processed and accounts
+     * already credited for the date are skipped.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public InterestAccrualReport accrue(LocalDate businessDate) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An interest accrual run is already in progress");
+        }
+        try {
+            return run(businessDate);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private InterestAccrualReport run(LocalDate businessDate) {
+        long start = System.nanoTime();
+        List<InterestAccrualChunk> pending = new ArrayList<>();
+        for (InterestAccrualChunk chunk : planChunks(businessDate)) {
+            if (chunk.getStatus() == InterestAccrualChunk.Status.PENDING) {
+                pending.add(chunk);
+            }
+        }
+
+        PartitionedRunner runner = new PartitionedRunner("interest-accrual", "accruing interest",
+            properties.getWorkerThreads());
+        log.info("Accruing interest for {}: {} pending chunks on {} workers", businessDate, pending.size(),
+            runner.workers());
+
+        AtomicLong credited = new AtomicLong();
+        AtomicLong interestMinorUnits = new AtomicLong();
+        int failed = runner.run(pending, chunk -> {
+            long[] totals = processChunk(chunk, businessDate);
+            credited.addAndGet(totals[0]);
+            interestMinorUnits.addAndGet(totals[1]);
+        }, (chunk, e) -> {
+            chunksFailed.increment();
+            log.error("Interest accrual chunk {}-{} for {} failed, it stays pending",
+                chunk.getFirstAccountId(), chunk.getLastAccountId(), businessDate, e);
+        });
+
+        long durationNanos = System.nanoTime() - start;
+        long rate = PartitionedRunner.perSecond(credited.get(), durationNanos);
+        accountsPerSecond.set(rate);
+
+        InterestAccrualReport report = InterestAccrualReport.builder()
+            .businessDate(businessDate)
+            .chunksProcessed(pending.size() - failed)
+            .chunksFailed(failed)
+            .accountsCredited(credited.get())
+            .interestCredited(BigDecimal.valueOf(interestMinorUnits.get(), 2))
+            .durationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+            .workerThreads(runner.workers())
+            .accountsPerSecond(rate)
+            .accountsPerSecondPerCore(runner.perCore(rate))
+            .build();
+        log.info("Interest accrual for {} finished: {} accounts credited {} in {} ms, {} accounts/s ({} per core), "
+                + "{} chunks failed", businessDate, report.getAccountsCredited(), report.getInterestCredited(),
+            report.getDurationMillis(), rate, report.getAccountsPerSecondPerCore(), failed);
+        return report;
+    }
+
+    /**
+     * Loads the chunk plan for the date, creating it on the first run
+     */
+    private List<InterestAccrualChunk> planChunks(LocalDate businessDate) {
+        List<InterestAccrualChunk> chunks = chunkRepository.findByBusinessDateOrderByFirstAccountId(businessDate);
+        if (!chunks.isEmpty()) {
+            return chunks;
+        }
+
+        List<InterestAccrualChunk> plan = new ArrayList<>();
+        for (long[] range : PartitionedRunner.plan(accountRepository.findInterestBearingIdRange().get(0),
+                properties.getChunkSize())) {
+            plan.add(new InterestAccrualChunk(businessDate, range[0], range[1]));
+        }
+        if (plan.isEmpty()) {
+            return plan;
+        }
+        try {
+            transactionTemplate.execute(status -> chunkRepository.saveAll(plan));
+            return plan;
+        } catch (DataIntegrityViolationException e) {
+            // Another run planned the same date first; work from its plan
+            return chunkRepository.findByBusinessDateOrderByFirstAccountId(businessDate);
+        }
+    }
+
+    // Returns the accounts credited and the interest paid in minor units
+    private long[] processChunk(InterestAccrualChunk chunk, LocalDate businessDate) {
+        long start = System.nanoTime();
+        List<Long> due = accountRepository.findIdsDueInterest(chunk.getFirstAccountId(), chunk.getLastAccountId(),
+            businessDate);
+
+        long[] totals = new long[2];
+        int batchSize = properties.getPostingBatchSize();
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> accountIds = due.subList(from, Math.min(from + batchSize, due.size()));
+            long[] batchTotals = ledgerEngine.execute(accountIds, () -> creditInterest(accountIds, businessDate));
+            totals[0] += batchTotals[0];
+            totals[1] += batchTotals[1];
+            accountsCredited.increment(batchTotals[0]);
+        }
+
+        transactionTemplate.execute(status -> {
+            InterestAccrualChunk stored = chunkRepository.findById(chunk.getId())
+                .orElseThrow(() -> new IllegalStateException("Interest accrual chunk disappeared: " + chunk.getId()));
+            stored.complete((int) totals[0], totals[1]);
+            return chunkRepository.save(stored);
+        });
+        chunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return totals;
+    }
+
+    // Runs inside the ledger transaction holding the accounts' locks
+    private long[] creditInterest(List<Long> accountIds, LocalDate businessDate) {
+        long credited = 0;
+        long interest = 0;
+        for (BankAccount account : accountRepository.findAllById(accountIds)) {
+            TransactionResult result = account.accrueDailyInterest(businessDate, properties.getDaysInYear());
+            if (result == null) {
+                continue;
+            }
+            accountRepository.save(account);
+            responseCache.evictAccountAfterCommit(account.getAccountId());
+            postingJournal.record(result.getTransaction());
+            eventPublisher.publish(result.getDomainEvent());
+            credited++;
+            interest += result.getTransaction().getAmount().getMinorUnits();
+        }
+        return new long[] {credited, interest};
+    }
+}
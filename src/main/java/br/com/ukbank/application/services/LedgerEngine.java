@@ -0,0 +1,223 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.exceptions.AccountContentionException;
+import br.com.ukbank.infrastructure.config.LedgerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Ledger engine serialising postings per account
+ * Holds striped, lock-ordered account locks around a dedicated transaction so that
+ * postings on unrelated accounts run in parallel while conflicting ones are applied
+ * one after another. The BankAccount version column backs this up across nodes:
+ * a stale write is retried a bounded number of times instead of losing a debit.
+ * With shards enabled the locks are not used: each account's postings run on the one
+ * shard thread that owns it, see AccountShards.
+ */
+@Component
+@Slf4j
+public class LedgerEngine {
+
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerProperties properties;
+    private final AccountShards shards;
+
+    private final Counter uncontendedAcquisitions;
+    private final Counter contendedAcquisitions;
+    private final Timer lockWait;
+    private final Counter optimisticRetries;
+    private final Counter retriesExhausted;
+
+    public LedgerEngine(PlatformTransactionManager transactionManager,
+                        LedgerProperties properties,
+                        MeterRegistry meterRegistry) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, properties.getLockStripes() - 1)) << 1;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.stripeMask = stripeCount - 1;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.shards = properties.getShards().isEnabled()
+            ? new AccountShards(properties.getShards(), meterRegistry) : null;
+
+        this.uncontendedAcquisitions = Counter.builder("ledger.lock.acquisitions")
+            .tag("contended", "false").register(meterRegistry);
+        this.contendedAcquisitions = Counter.builder("ledger.lock.acquisitions")
+            .tag("contended", "true").register(meterRegistry);
+        this.lockWait = Timer.builder("ledger.lock.wait")
+            .description("Time spent waiting for contended account stripes")
+            .register(meterRegistry);
+        this.optimisticRetries = Counter.builder("ledger.optimistic.retries").register(meterRegistry);
+        this.retriesExhausted = Counter.builder("ledger.optimistic.exhausted").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (shards != null) {
+            shards.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (shards != null) {
+            shards.stop();
+        }
+    }
+
+    /**
+     * Runs the unit of work in its own transaction while holding the locks of every given account
+     * The transaction commits before the locks are released, so the next posting on the same
+     * account always reads the committed balance. Sharded, the caller waits for the shards instead.
+     */
+    public <T> T execute(Collection<Long> accountIds, Supplier<T> work) {
+        if (shards != null) {
+            return await(submit(accountIds, work));
+        }
+        int[] lockOrder = stripesFor(accountIds);
+        acquire(lockOrder);
+        try {
+            return executeWithRetry(work);
+        } finally {
+            release(lockOrder);
+        }
+    }
+
+    /**
+     * Hands the unit of work to the shards owning the accounts and returns without waiting
+     * Without shards the work runs on the calling thread, as execute, and the future is
+     * already complete when it is returned.
+     */
+    public <T> CompletableFuture<T> submit(Collection<Long> accountIds, Supplier<T> work) {
+        if (shards != null) {
+            return shards.submit(accountIds, () -> executeWithRetry(work));
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            result.complete(execute(accountIds, work));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Waits for a posting's outcome, rethrowing its failure as it was thrown
+     */
+    static <T> T await(CompletableFuture<T> posting) {
+        try {
+            return posting.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a ledger posting", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Ledger posting failed", cause);
+        }
+    }
+
+    private <T> T executeWithRetry(Supplier<T> work) {
+        int attempt = 0;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= properties.getMaxRetries()) {
+                    retriesExhausted.increment();
+                    throw new AccountContentionException("Account was modified concurrently, please retry", e);
+                }
+                attempt++;
+                optimisticRetries.increment();
+                log.debug("Optimistic conflict on ledger posting, retry {} of {}", attempt, properties.getMaxRetries());
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Maps account IDs to a sorted, de-duplicated stripe order
+     * Taking stripes in ascending index order is what makes multi-account postings deadlock free.
+     */
+    int[] stripesFor(Collection<Long> accountIds) {
+        int[] indexes = new int[accountIds.size()];
+        int count = 0;
+        for (Long accountId : accountIds) {
+            indexes[count++] = stripeOf(accountId);
+        }
+        Arrays.sort(indexes, 0, count);
+
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || indexes[unique - 1] != indexes[i]) {
+                indexes[unique++] = indexes[i];
+            }
+        }
+        return unique == indexes.length ? indexes : Arrays.copyOf(indexes, unique);
+    }
+
+    private int stripeOf(Long accountId) {
+        return spread(accountId) & stripeMask;
+    }
+
+    // Mixes the ID so that sequentially allocated accounts land on different stripes and shards
+    static int spread(Long accountId) {
+        int hash = Long.hashCode(accountId);
+        hash ^= (hash >>> 16);
+        return (hash * 0x9E3779B9) >>> 16;
+    }
+
+    private void acquire(int[] lockOrder) {
+        for (int index : lockOrder) {
+            ReentrantLock lock = stripes[index];
+            if (lock.tryLock()) {
+                uncontendedAcquisitions.increment();
+                continue;
+            }
+            contendedAcquisitions.increment();
+            long start = System.nanoTime();
+            lock.lock();
+            lockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void release(int[] lockOrder) {
+        for (int i = lockOrder.length - 1; i >= 0; i--) {
+            stripes[lockOrder[i]].unlock();
+        }
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(properties.getRetryBackoff().toMillis() * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountContentionException("Interrupted while retrying ledger posting", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package br.com.ukbank.application.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically reconciles account balances against their postings
+ */
+@Component
+@ConditionalOnProperty(prefix = "ukbank.reconciliation", name = "schedule-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerReconciliationScheduler {
+
+    private final LedgerReconciliationService reconciliationService;
+
+    @Scheduled(cron = "${ukbank.reconciliation.cron:0 0 4 * * *}")
+    public void reconcile() {
+        try {
+            reconciliationService.reconcile();
+        } catch (RuntimeException e) {
+            log.error("Ledger reconciliation failed", e);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.dto.LedgerMismatchResponse;
+import br.com.ukbank.application.dto.LedgerReconciliationReport;
+import br.com.ukbank.domain.model.LedgerMismatch;
+import br.com.ukbank.domain.model.LedgerReconciliationRun;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.config.LedgerReconciliationProperties;
+import br.com.ukbank.infrastructure.repositories.AccountBalanceView;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import br.com.ukbank.infrastructure.repositories.LedgerMismatchRepository;
+import br.com.ukbank.infrastructure.repositories.LedgerReconciliationRunRepository;
+import br.com.ukbank.infrastructure.repositories.ReplayPostingView;
+import br.com.ukbank.infrastructure.repositories.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reconciles every account's stored balance and balance-after chain against its postings
+ * The account IDs are split into fixed-width partitions handed to a worker pool. A partition
+ * is read in one read-only transaction as two forward-only cursors, the accounts in ID order
+ * and their postings by account in posting order, merged as they go, so a worker holds one
+ * account's running balance at a time however long the history. Every posting's balance after
+ * is checked against the running balance, and each account's last one against its stored
+ * balance; as the opening deposit is not journaled, the running balance starts from the one
+ * implied by the first posting. Reading takes no locks. An account whose stored balance looks
+ * wrong is checked again under its ledger lock, replaying only the postings made since its
+ * cursor passed, so a posting landing mid-run is not reported and the lock is held briefly.
+ * Beyond that a partition only keeps the mismatches it found, written to the report table in
+ * batches once its cursors are closed.
+ */
+@Service
+@Slf4j
+public class LedgerReconciliationService {
+
+    private final BankAccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerReconciliationRunRepository runRepository;
+    private final LedgerMismatchRepository mismatchRepository;
+    private final LedgerEngine ledgerEngine;
+    private final PostingJournal postingJournal;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final LedgerReconciliationProperties properties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong postingsPerSecond = new AtomicLong();
+    private final Counter postingsChecked;
+    private final Counter chainBreaks;
+    private final Counter balanceMismatches;
+    private final Timer chunkTimer;
+
+    public LedgerReconciliationService(BankAccountRepository accountRepository,
+                                       TransactionRepository transactionRepository,
+                                       LedgerReconciliationRunRepository runRepository,
+                                       LedgerMismatchRepository mismatchRepository,
+                                       LedgerEngine ledgerEngine,
+                                       PostingJournal postingJournal,
+                                       PlatformTransactionManager transactionManager,
+                                       LedgerReconciliationProperties properties,
+                                       MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.runRepository = runRepository;
+        this.mismatchRepository = mismatchRepository;
+        this.ledgerEngine = ledgerEngine;
+        this.postingJournal = postingJournal;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.properties = properties;
+
+        Gauge.builder("ledger.reconciliation.rate", postingsPerSecond, AtomicLong::get)
+            .description("Postings checked per second by the last reconciliation run")
+            .register(meterRegistry);
+        this.postingsChecked = Counter.builder("ledger.reconciliation.postings").register(meterRegistry);
+        this.chainBreaks = Counter.builder("ledger.reconciliation.mismatches")
+            .tag("kind", LedgerMismatch.Kind.CHAIN_BREAK.name()).register(meterRegistry);
+        this.balanceMismatches = Counter.builder("ledger.reconciliation.mismatches")
+            .tag("kind", LedgerMismatch.Kind.BALANCE_MISMATCH.name()).register(meterRegistry);
+        this.chunkTimer = Timer.builder("ledger.reconciliation.chunk").register(meterRegistry);
+    }
+
+    /**
+     * Checks every account against its postings, recording mismatches under a new run
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public LedgerReconciliationReport reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A ledger reconciliation is already in progress");
+        }
+        try {
+            LedgerReconciliationRun run = transactionTemplate.execute(status ->
+                runRepository.save(LedgerReconciliationRun.start()));
+            try {
+                return run(run.getId());
+            } catch (RuntimeException e) {
+                transactionTemplate.execute(status -> {
+                    runRepository.findById(run.getId()).ifPresent(LedgerReconciliationRun::fail);
+                    return null;
+                });
+                throw e;
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * A page of the mismatches recorded by a run, by account
+     */
+    @Transactional(readOnly = true)
+    public List<LedgerMismatchResponse> getMismatches(Long runId, int page, int size) {
+        return mismatchRepository.findByRunIdOrderByAccountIdAscIdAsc(runId, PageRequest.of(page, size)).stream()
+            .map(mismatch -> LedgerMismatchResponse.builder()
+                .runId(mismatch.getRunId())
+                .accountId(mismatch.getAccountId())
+                .kind(mismatch.getKind().name())
+                .transactionId(mismatch.getTransactionId())
+                .expectedBalance(mismatch.getExpectedBalance())
+                .actualBalance(mismatch.getActualBalance())
+                .detectedAt(mismatch.getDetectedAt())
+                .build())
+            .collect(Collectors.toList());
+    }
+
+    private LedgerReconciliationReport run(Long runId) {
+        long start = System.nanoTime();
+        List<long[]> chunks = PartitionedRunner.plan(accountRepository.findIdRange().get(0), properties.getChunkSize());
+
+        PartitionedRunner runner = new PartitionedRunner("ledger-reconciliation", "reconciling the ledger",
+            properties.getWorkerThreads());
+        log.info("Reconciling the ledger as run {}: {} partitions on {} workers", runId, chunks.size(),
+            runner.workers());
+
+        RunTotals totals = new RunTotals();
+        int failed = runner.run(chunks,
+            chunk -> reconcileChunk(runId, chunk[0], chunk[1], totals),
+            (chunk, e) -> log.error("Ledger reconciliation of accounts {}-{} in run {} failed", chunk[0], chunk[1],
+                runId, e));
+
+        transactionTemplate.execute(status -> {
+            runRepository.findById(runId).ifPresent(run -> run.complete(totals.accounts.get(), totals.postings.get(),
+                totals.chainBreaks.get(), totals.balanceMismatches.get(), failed));
+            return null;
+        });
+
+        long durationNanos = System.nanoTime() - start;
+        long rate = PartitionedRunner.perSecond(totals.postings.get(), durationNanos);
+        postingsPerSecond.set(rate);
+
+        LedgerReconciliationReport report = LedgerReconciliationReport.builder()
+            .runId(runId)
+            .chunksProcessed(chunks.size() - failed)
+            .chunksFailed(failed)
+            .accountsChecked(totals.accounts.get())
+            .postingsChecked(totals.postings.get())
+            .chainBreaks(totals.chainBreaks.get())
+            .balanceMismatches(totals.balanceMismatches.get())
+            .mismatchesRecorded(totals.recorded.get())
+            .durationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+            .workerThreads(runner.workers())
+            .postingsPerSecond(rate)
+            .build();
+        log.info("Ledger reconciliation run {} finished: {} postings over {} accounts in {} ms, {} postings/s, "
+                + "{} chain breaks, {} balance mismatches, {} partitions failed", runId, report.getPostingsChecked(),
+            report.getAccountsChecked(), report.getDurationMillis(), rate, report.getChainBreaks(),
+            report.getBalanceMismatches(), failed);
+        return report;
+    }
+
+    private void reconcileChunk(Long runId, long firstId, long lastId, RunTotals totals) {
+        long start = System.nanoTime();
+        MismatchRecorder recorder = new MismatchRecorder(runId, totals);
+        List<BalanceChain> suspects = new ArrayList<>();
+        long[] counts = new long[2];
+
+        readOnlyTemplate.execute(status -> {
+            try (Stream<AccountBalanceView> accounts = accountRepository.streamBalancesByIdRange(firstId, lastId);
+                 Stream<ReplayPostingView> postings = transactionRepository.streamReplay(firstId, lastId)) {
+                Iterator<ReplayPostingView> postingIterator = postings.iterator();
+                ReplayPostingView posting = postingIterator.hasNext() ? postingIterator.next() : null;
+                for (AccountBalanceView account : (Iterable<AccountBalanceView>) accounts::iterator) {
+                    long accountId = account.getAccountId();
+                    BalanceChain chain = new BalanceChain(accountId);
+                    for (; posting != null && posting.getAccountId() <= accountId;
+                         posting = postingIterator.hasNext() ? postingIterator.next() : null) {
+                        if (posting.getAccountId() == accountId && !chain.apply(posting)) {
+                            recorder.record(accountId, LedgerMismatch.Kind.CHAIN_BREAK, posting.getTransactionId(),
+                                chain.getExpectedBalance(), chain.getBalance());
+                        }
+                    }
+                    counts[0]++;
+                    counts[1] += chain.getPostings();
+                    totals.chainBreaks.addAndGet(chain.getBreaks());
+                    chainBreaks.increment(chain.getBreaks());
+                    if (chain.isStarted() && chain.getBalance() != Money.of(account.getBalance()).getMinorUnits()) {
+                        suspects.add(chain);
+                    }
+                }
+            }
+            return null;
+        });
+
+        for (BalanceChain suspect : suspects) {
+            long[] mismatch = recheck(suspect);
+            if (mismatch != null) {
+                totals.balanceMismatches.incrementAndGet();
+                balanceMismatches.increment();
+                recorder.record(suspect.getAccountId(), LedgerMismatch.Kind.BALANCE_MISMATCH,
+                    suspect.getLastTransactionId(), mismatch[0], mismatch[1]);
+            }
+        }
+        recorder.flush();
+
+        totals.accounts.addAndGet(counts[0]);
+        totals.postings.addAndGet(counts[1]);
+        postingsChecked.increment(counts[1]);
+        chunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Compares the account's stored balance with its postings again, under its ledger lock
+     * Only the postings after the last one the partition's cursor saw are read. Returns the
+     * expected and stored balances when they still differ.
+     */
+    private long[] recheck(BalanceChain suspect) {
+        Long accountId = suspect.getAccountId();
+        return ledgerEngine.execute(Collections.singletonList(accountId), () -> {
+            // Journaled postings reach the table after the balance does
+            postingJournal.awaitProjection();
+            List<AccountBalanceView> accounts = accountRepository.findBalancesByIdIn(Collections.singletonList(accountId));
+            if (accounts.isEmpty()) {
+                return null;
+            }
+            BalanceChain chain = new BalanceChain(accountId, suspect.getBalance());
+            try (Stream<ReplayPostingView> postings = transactionRepository.streamReplayAfter(accountId,
+                    suspect.getLastProcessedAt(), suspect.getLastTransactionId())) {
+                postings.forEach(chain::apply);
+            }
+            long stored = Money.of(accounts.get(0).getBalance()).getMinorUnits();
+            if (stored == chain.getBalance()) {
+                return null;
+            }
+            log.warn("Account ID {} holds {} but its postings end at {}", accountId, BigDecimal.valueOf(stored, 2),
+                BigDecimal.valueOf(chain.getBalance(), 2));
+            return new long[] {chain.getBalance(), stored};
+        });
+    }
+
+    /**
+     * Collects one partition's mismatches, up to the run's limit, and writes them in batches
+     */
+    private final class MismatchRecorder {
+        private final Long runId;
+        private final RunTotals totals;
+        private final List<LedgerMismatch> pending = new ArrayList<>();
+
+        private MismatchRecorder(Long runId, RunTotals totals) {
+            this.runId = runId;
+            this.totals = totals;
+        }
+
+        private void record(Long accountId, LedgerMismatch.Kind kind, Long transactionId, long expected, long actual) {
+            if (totals.recorded.incrementAndGet() > properties.getMaxRecordedMismatches()) {
+                totals.recorded.decrementAndGet();
+                return;
+            }
+            pending.add(new LedgerMismatch(runId, accountId, kind, transactionId, BigDecimal.valueOf(expected, 2),
+                BigDecimal.valueOf(actual, 2)));
+        }
+
+        private void flush() {
+            for (int from = 0; from < pending.size(); from += properties.getRecordBatchSize()) {
+                List<LedgerMismatch> batch = pending.subList(from, Math.min(from + properties.getRecordBatchSize(),
+                    pending.size()));
+                transactionTemplate.execute(status -> mismatchRepository.saveAll(batch));
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * Counts summed over the partitions of a run
+     */
+    private static final class RunTotals {
+        private final AtomicLong accounts = new AtomicLong();
+        private final AtomicLong postings = new AtomicLong();
+        private final AtomicLong chainBreaks = new AtomicLong();
+        private final AtomicLong balanceMismatches = new AtomicLong();
+        private final AtomicLong recorded = new AtomicLong();
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.ukbank.application.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Runs a batch job's chunks of account IDs on a pool of daemon workers
+ * The ID range is split into fixed-width chunks, each handed to the pool, and a run waits for
+ * all of them. A chunk that throws goes to the failure callback and is counted without stopping
+ * the others; only an interrupt or an error escaping the callbacks ends a run early.
+ */
+final class PartitionedRunner {
+
+    private final String threadPrefix;
+    private final String activity;
+    private final int workers;
+
+    /**
+     * Runner with the configured number of workers, or one per core when that is not positive
+     */
+    PartitionedRunner(String threadPrefix, String activity, int workerThreads) {
+        this.threadPrefix = threadPrefix;
+        this.activity = activity;
+        this.workers = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * First and last IDs of chunks of at most chunkSize covering a lowest and highest ID row
+     * Empty when the row holds no IDs, as from a MIN/MAX query over no rows.
+     */
+    static List<long[]> plan(Object[] idRange, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        List<long[]> chunks = new ArrayList<>();
+        if (idRange[0] == null) {
+            return chunks;
+        }
+        long first = (Long) idRange[0];
+        long last = (Long) idRange[1];
+        // Stops on reaching the last ID rather than stepping past it, which would overflow near Long.MAX_VALUE
+        for (long from = first; from <= last; from += chunkSize) {
+            long to = last - from < chunkSize ? last : from + chunkSize - 1;
+            chunks.add(new long[] {from, to});
+            if (to == last) {
+                break;
+            }
+        }
+        return chunks;
+    }
+
+    int workers() {
+        return workers;
+    }
+
+    /**
+     * Runs the task for every chunk and returns how many failed
+     */
+    <T> int run(List<T> chunks, Consumer<T> task, BiConsumer<T, RuntimeException> onFailure) {
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, threadPrefix + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> results = new ArrayList<>(chunks.size());
+            for (T chunk : chunks) {
+                results.add(pool.submit(() -> {
+                    try {
+                        task.accept(chunk);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        onFailure.accept(chunk, e);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while " + activity, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Worker failed while " + activity, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return failed.get();
+    }
+
+    /**
+     * Items per second over the duration
+     */
+    static long perSecond(long items, long durationNanos) {
+        return items * TimeUnit.SECONDS.toNanos(1) / Math.max(1, durationNanos);
+    }
+
+    /**
+     * The rate divided over the cores the workers could use
+     */
+    long perCore(long rate) {
+        return rate / Math.min(workers, Runtime.getRuntime().availableProcessors());
+    }
+}
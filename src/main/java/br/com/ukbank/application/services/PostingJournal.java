@@ -0,0 +1,454 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.domain.model.Transaction;
+import br.com.ukbank.infrastructure.config.PostingJournalProperties;
+import br.com.ukbank.infrastructure.journal.JournalOffset;
+import br.com.ukbank.infrastructure.journal.JournalOffsetRepository;
+import br.com.ukbank.infrastructure.journal.MappedJournal;
+import br.com.ukbank.infrastructure.journal.PostingRecord;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import br.com.ukbank.infrastructure.repositories.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-ahead journal for postings, projected into the transactions table in the background
+ * When enabled, a posting is appended to a memory-mapped journal instead of being inserted, and
+ * the transaction that made it waits before committing until a sync covers it, sharing each sync
+ * with whoever commits meanwhile. Once that transaction commits, the projector inserts the
+ * posting in journal order, batched with others, and advances the stored offset in the same
+ * database transaction; a rollback appends an abort record instead. The account update still
+ * commits with the posting, so balances are never behind, but statements and replays read the
+ * table and can trail by the projection lag; readers that must see every posting wait for it.
+ * On startup, unprojected postings are read back and a posting counts as committed when its
+ * account's version has moved past the one it was made against. That holds while this node is
+ * the only writer of its accounts.
+ */
+@Component
+@Slf4j
+public class PostingJournal {
+
+    private static final String OFFSET = "postings";
+    private static final int VERSION_BATCH = 1000;
+
+    private static final int PENDING = 0;
+    private static final int COMMITTED = 1;
+    private static final int ABORTED = 2;
+
+    private final PostingJournalProperties properties;
+    private final boolean enabled;
+    private final TransactionRepository transactionRepository;
+    private final BankAccountRepository accountRepository;
+    private final JournalOffsetRepository offsetRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Journal order; only the projector removes entries
+    private final Queue<Entry> unprojected = new ConcurrentLinkedQueue<>();
+    private volatile long lastQueued;
+    private volatile long projected;
+    private final ReentrantLock projectionLock = new ReentrantLock();
+    private final Condition projectionAdvanced = projectionLock.newCondition();
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncRequested = syncLock.newCondition();
+    private final Condition syncCompleted = syncLock.newCondition();
+    private long syncWanted;
+    private volatile long synced;
+
+    private final Timer appendTimer;
+    private final Timer syncTimer;
+    private final Counter aborted;
+
+    private MappedJournal journal;
+    private Thread syncThread;
+    private Thread projectorThread;
+    private volatile boolean running;
+
+    public PostingJournal(PostingJournalProperties properties,
+                          TransactionRepository transactionRepository,
+                          BankAccountRepository accountRepository,
+                          JournalOffsetRepository offsetRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.enabled = properties.isEnabled();
+        if (enabled && properties.getSyncMode() != PostingJournalProperties.SyncMode.GROUP) {
+            throw new IllegalStateException("Posting journal sync mode " + properties.getSyncMode()
+                + " could lose committed postings; only GROUP is supported while the journal is enabled");
+        }
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.offsetRepository = offsetRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.appendTimer = Timer.builder("postings.journal.append")
+            .description("Time to append a posting to the journal")
+            .register(meterRegistry);
+        this.syncTimer = Timer.builder("postings.journal.sync")
+            .description("Time to force the journal to disk")
+            .register(meterRegistry);
+        this.aborted = Counter.builder("postings.journal.aborted").register(meterRegistry);
+        Gauge.builder("postings.journal.lag", this, self -> self.lastQueued - self.projected)
+            .description("Journaled postings not yet projected into the transactions table")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Recovers unprojected postings, then starts the sync and projection threads
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long began = System.nanoTime();
+        journal = new MappedJournal(properties.getDirectory(), (int) properties.getSegmentSize().toBytes());
+        long through = offsetRepository.findById(OFFSET).map(JournalOffset::getLastSequence).orElse(0L);
+        if (journal.getLastSequence() < through) {
+            throw new IllegalStateException("Posting journal in " + properties.getDirectory() + " ends at "
+                + journal.getLastSequence() + ", before the projected offset " + through);
+        }
+
+        Map<Long, PostingRecord> found = new LinkedHashMap<>();
+        journal.read(through, (sequence, kind, payload) -> {
+            if (kind == PostingRecord.POSTING) {
+                found.put(sequence, PostingRecord.decode(payload));
+            } else if (kind == PostingRecord.ABORT) {
+                found.remove(PostingRecord.decodeAbort(payload));
+            }
+        });
+        List<Entry> entries = new ArrayList<>(found.size());
+        found.forEach((sequence, record) -> entries.add(new Entry(sequence, record)));
+        int discarded = resolve(entries);
+
+        projected = through;
+        unprojected.addAll(entries);
+        lastQueued = entries.isEmpty() ? through : entries.get(entries.size() - 1).sequence;
+        synced = journal.force();
+        while (projectBatch() > 0) {
+            // Drain synchronously so the table is complete before the first request
+        }
+        log.info("Posting journal recovered {} postings after sequence {}, discarding {} uncommitted, in {} ms",
+            entries.size() - discarded, through, discarded,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - began));
+
+        running = true;
+        syncThread = new Thread(this::runSync, "posting-journal-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+        projectorThread = new Thread(this::runProjector, "posting-journal-projector");
+        projectorThread.setDaemon(true);
+        projectorThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (!enabled || !running) {
+            return;
+        }
+        running = false;
+        syncThread.interrupt();
+        projectorThread.interrupt();
+        syncThread.join(TimeUnit.SECONDS.toMillis(10));
+        projectorThread.join(TimeUnit.SECONDS.toMillis(10));
+        journal.close();
+    }
+
+    /**
+     * Records the posting as part of the current transaction
+     * With the journal off this is a plain insert; with it on, the posting is appended and
+     * inserted by the projector once the transaction commits.
+     */
+    public void record(Transaction transaction) {
+        if (!enabled) {
+            transactionRepository.save(transaction);
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Journaled postings must be recorded inside the transaction that made them");
+        }
+        PostingRecord record = PostingRecord.of(transaction);
+        byte[] payload = record.encode();
+
+        long start = System.nanoTime();
+        Entry entry;
+        // Queue order must be journal order, so the entry is queued under the journal's own lock
+        synchronized (journal) {
+            entry = new Entry(append(PostingRecord.POSTING, payload), record);
+            unprojected.add(entry);
+            lastQueued = entry.sequence;
+        }
+        appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        Commit commit = (Commit) TransactionSynchronizationManager.getResource(this);
+        if (commit == null) {
+            commit = new Commit();
+            TransactionSynchronizationManager.bindResource(this, commit);
+            TransactionSynchronizationManager.registerSynchronization(commit);
+        }
+        commit.entries.add(entry);
+    }
+
+    /**
+     * Waits until every posting recorded so far is in the transactions table or discarded
+     */
+    public void awaitProjection() {
+        if (!enabled) {
+            return;
+        }
+        long target = lastQueued;
+        if (projected >= target) {
+            return;
+        }
+        LockSupport.unpark(projectorThread);
+        long deadline = System.nanoTime() + properties.getProjectionTimeout().toNanos();
+        projectionLock.lock();
+        try {
+            while (projected < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Journaled postings were not projected within "
+                        + properties.getProjectionTimeout());
+                }
+                projectionAdvanced.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for journaled postings", e);
+        } finally {
+            projectionLock.unlock();
+        }
+    }
+
+    private long append(byte kind, byte[] payload) {
+        try {
+            return journal.append(kind, payload);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not append to the posting journal", e);
+        }
+    }
+
+    // Blocks until a sync has covered the sequence
+    private void awaitSync(long sequence) {
+        if (synced >= sequence) {
+            return;
+        }
+        long deadline = System.nanoTime() + properties.getSyncTimeout().toNanos();
+        syncLock.lock();
+        try {
+            if (syncWanted < sequence) {
+                syncWanted = sequence;
+                syncRequested.signal();
+            }
+            while (synced < sequence) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Posting journal was not synced within " + properties.getSyncTimeout());
+                }
+                syncCompleted.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the posting journal sync", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void runSync() {
+        while (running) {
+            try {
+                syncLock.lock();
+                try {
+                    while (syncWanted <= synced) {
+                        syncRequested.await();
+                    }
+                } finally {
+                    syncLock.unlock();
+                }
+                if (!properties.getGroupSyncDelay().isZero()) {
+                    TimeUnit.NANOSECONDS.sleep(properties.getGroupSyncDelay().toNanos());
+                }
+                long start = System.nanoTime();
+                long through = journal.force();
+                syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+                syncLock.lock();
+                try {
+                    synced = through;
+                    syncCompleted.signalAll();
+                } finally {
+                    syncLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Posting journal sync failed", e);
+            }
+        }
+    }
+
+    private void runProjector() {
+        while (running) {
+            try {
+                if (projectBatch() == 0) {
+                    LockSupport.parkNanos(properties.getProjectionInterval().toNanos());
+                }
+            } catch (RuntimeException e) {
+                // The batch stays queued and is retried as a whole
+                log.error("Posting projection failed", e);
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    /**
+     * Inserts the next run of settled postings and advances the offset past them, returning
+     * how many entries were settled; stops at the first posting whose transaction is still open
+     */
+    private int projectBatch() {
+        List<Entry> batch = new ArrayList<>();
+        int taken = 0;
+        long through = projected;
+        for (Entry entry : unprojected) {
+            if (entry.state == PENDING || taken >= properties.getProjectionBatchSize()) {
+                break;
+            }
+            taken++;
+            through = entry.sequence;
+            if (entry.state == COMMITTED) {
+                batch.add(entry);
+            }
+        }
+        if (taken == 0) {
+            return 0;
+        }
+
+        long offset = through;
+        transactionTemplate.execute(status -> {
+            for (Entry entry : batch) {
+                transactionRepository.save(entry.record.toTransaction(
+                    accountRepository.getById(entry.record.getAccountId())));
+            }
+            JournalOffset stored = offsetRepository.findById(OFFSET).orElseGet(() -> new JournalOffset(OFFSET));
+            stored.advanceTo(offset);
+            return offsetRepository.save(stored);
+        });
+        for (int i = 0; i < taken; i++) {
+            unprojected.poll();
+        }
+
+        projectionLock.lock();
+        try {
+            projected = through;
+            projectionAdvanced.signalAll();
+        } finally {
+            projectionLock.unlock();
+        }
+        journal.deleteThrough(through);
+        return taken;
+    }
+
+    /**
+     * Settles entries whose transaction outcome is unknown by their account's current version,
+     * aborting the ones that did not commit; returns how many were aborted
+     */
+    private int resolve(List<Entry> entries) {
+        Set<Long> accountIds = new LinkedHashSet<>();
+        entries.forEach(entry -> accountIds.add(entry.record.getAccountId()));
+        Map<Long, Long> versions = new HashMap<>(accountIds.size() * 2);
+        List<Long> ids = new ArrayList<>(accountIds);
+        for (int from = 0; from < ids.size(); from += VERSION_BATCH) {
+            for (Object[] row : accountRepository.findVersionsByIdIn(ids.subList(from, Math.min(ids.size(), from + VERSION_BATCH)))) {
+                versions.put((Long) row[0], (Long) row[1]);
+            }
+        }
+
+        List<Entry> uncommitted = new ArrayList<>();
+        for (Entry entry : entries) {
+            Long version = versions.get(entry.record.getAccountId());
+            if (version != null && version > entry.record.getAccountVersion()) {
+                entry.state = COMMITTED;
+            } else {
+                uncommitted.add(entry);
+            }
+        }
+        abort(uncommitted);
+        return uncommitted.size();
+    }
+
+    private void abort(List<Entry> entries) {
+        for (Entry entry : entries) {
+            try {
+                append(PostingRecord.ABORT, PostingRecord.encodeAbort(entry.sequence));
+            } catch (RuntimeException e) {
+                // Without the abort record, recovery still discards it by the account version
+                log.warn("Could not journal the abort of posting {}", entry.sequence, e);
+            }
+            entry.state = ABORTED;
+        }
+        aborted.increment(entries.size());
+    }
+
+    private static final class Entry {
+        private final long sequence;
+        private final PostingRecord record;
+        private volatile int state = PENDING;
+
+        private Entry(long sequence, PostingRecord record) {
+            this.sequence = sequence;
+            this.record = record;
+        }
+    }
+
+    /**
+     * The postings one database transaction has journaled, settled when it completes
+     */
+    private final class Commit implements TransactionSynchronization {
+        private final List<Entry> entries = new ArrayList<>(2);
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            awaitSync(entries.get(entries.size() - 1).sequence);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PostingJournal.this);
+            if (status == STATUS_COMMITTED) {
+                entries.forEach(entry -> entry.state = COMMITTED);
+            } else if (status == STATUS_ROLLED_BACK) {
+                abort(entries);
+            } else {
+                resolve(entries);
+            }
+            LockSupport.unpark(projectorThread);
+        }
+    }
+}
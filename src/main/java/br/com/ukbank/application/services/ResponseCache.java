@@ -0,0 +1,189 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.infrastructure.config.ResponseCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of account and customer responses
+ * Bounded W-TinyLFU caches with a time-to-live. The service making a change evicts what it made
+ * stale once its transaction has committed, so a value loaded concurrently from the old state is
+ * removed again and a caller reads its own write whatever the event delivery mode; the domain
+ * events evict again as a backstop. Cached responses are shared between callers and must not
+ * be modified.
+ */
+@Component
+public class ResponseCache {
+
+    private final boolean enabled;
+    private final Cache<Long, BankAccountResponse> accounts;
+    private final Cache<Long, List<Long>> customerAccounts;
+    private final Cache<Long, CustomerResponse> customers;
+    private final Timer accountLoads;
+    private final Timer customerAccountLoads;
+    private final Timer customerLoads;
+
+    // Bumped before every account eviction so bulk loads can tell they may have raced one
+    private final AtomicLong accountEvictions = new AtomicLong();
+
+    public ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.accounts = build(properties.getAccounts());
+        this.customerAccounts = build(properties.getCustomerAccounts());
+        this.customers = build(properties.getCustomers());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, "accounts");
+        CaffeineCacheMetrics.monitor(meterRegistry, customerAccounts, "customer-accounts");
+        CaffeineCacheMetrics.monitor(meterRegistry, customers, "customers");
+
+        // The binder only times loads for loading caches, so read-through loads are timed here
+        this.accountLoads = loadTimer(meterRegistry, "accounts");
+        this.customerAccountLoads = loadTimer(meterRegistry, "customer-accounts");
+        this.customerLoads = loadTimer(meterRegistry, "customers");
+    }
+
+    public BankAccountResponse account(Long accountId, Function<Long, BankAccountResponse> loader) {
+        return enabled ? accounts.get(accountId, timed(accountLoads, loader)) : loader.apply(accountId);
+    }
+
+    /**
+     * Account responses for the IDs, in the same order, loading every miss in one call
+     * A bulk load cannot hold off evictions the way a single-key load does, so entries are
+     * put first and taken out again if any account was evicted while they were loading.
+     */
+    public List<BankAccountResponse> accounts(List<Long> accountIds,
+                                              Function<List<Long>, Map<Long, BankAccountResponse>> loader) {
+        Map<Long, BankAccountResponse> found = enabled ? new HashMap<>(accounts.getAllPresent(accountIds)) : new HashMap<>();
+        List<Long> missing = accountIds.stream()
+            .filter(accountId -> !found.containsKey(accountId))
+            .collect(Collectors.toList());
+
+        if (!missing.isEmpty()) {
+            long evictionsBefore = accountEvictions.get();
+            long start = System.nanoTime();
+            Map<Long, BankAccountResponse> loaded = loader.apply(missing);
+            accountLoads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            found.putAll(loaded);
+
+            if (enabled) {
+                accounts.putAll(loaded);
+                if (accountEvictions.get() != evictionsBefore) {
+                    accounts.invalidateAll(loaded.keySet());
+                }
+            }
+        }
+
+        return accountIds.stream()
+            .map(found::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * IDs of the customer's accounts, in the order the loader returned them
+     */
+    public List<Long> customerAccountIds(Long customerId, Function<Long, List<Long>> loader) {
+        return enabled ? customerAccounts.get(customerId, timed(customerAccountLoads, loader)) : loader.apply(customerId);
+    }
+
+    public CustomerResponse customer(Long customerId, Function<Long, CustomerResponse> loader) {
+        return enabled ? customers.get(customerId, timed(customerLoads, loader)) : loader.apply(customerId);
+    }
+
+    public void evictAccount(Long accountId) {
+        accountEvictions.incrementAndGet();
+        accounts.invalidate(accountId);
+    }
+
+    public void evictCustomerAccounts(Long customerId) {
+        customerAccounts.invalidate(customerId);
+    }
+
+    public void evictCustomer(Long customerId) {
+        customers.invalidate(customerId);
+    }
+
+    /**
+     * Evicts the customer and every cached account response carrying their details
+     */
+    public void evictCustomerAndAccounts(Long customerId) {
+        customers.invalidate(customerId);
+        accountEvictions.incrementAndGet();
+        accounts.asMap().values().removeIf(response -> customerId.equals(response.getCustomerId()));
+    }
+
+    /**
+     * Evicts the account once the current transaction commits, straight away outside one
+     */
+    public void evictAccountAfterCommit(Long accountId) {
+        afterCommit(() -> evictAccount(accountId));
+    }
+
+    public void evictCustomerAccountsAfterCommit(Long customerId) {
+        afterCommit(() -> evictCustomerAccounts(customerId));
+    }
+
+    public void evictCustomerAfterCommit(Long customerId) {
+        afterCommit(() -> evictCustomer(customerId));
+    }
+
+    public void evictCustomerAndAccountsAfterCommit(Long customerId) {
+        afterCommit(() -> evictCustomerAndAccounts(customerId));
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    private static <V> Function<Long, V> timed(Timer timer, Function<Long, V> loader) {
+        return key -> {
+            long start = System.nanoTime();
+            try {
+                return loader.apply(key);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private static Timer loadTimer(MeterRegistry meterRegistry, String cache) {
+        return Timer.builder("cache.loads")
+            .description("Time spent loading entries on a cache miss")
+            .tag("cache", cache)
+            .register(meterRegistry);
+    }
+
+    private static <V> Cache<Long, V> build(ResponseCacheProperties.Region region) {
+        return Caffeine.newBuilder()
+            .maximumSize(region.getMaximumSize())
+            .expireAfterWrite(region.getTimeToLive())
+            .recordStats()
+            .build();
+    }
+}
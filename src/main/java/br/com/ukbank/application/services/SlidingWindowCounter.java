@@ -0,0 +1,302 @@
+package br.com.ukbank.application.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free sliding-window counts and amounts per key, for several windows at once
+ * Each key has one array of longs holding a ring of buckets per window, a bucket being a
+ * count slot next to an amount slot, so one lookup and a few adjacent cache lines serve every
+ * window. A slot packs its bucket's epoch in the top bits with the running value below, and a
+ * slot left over from an earlier turn of the ring is recognised and restarted by the same
+ * compare-and-set that adds to it. Epoch tags are short, so they are never left to come round
+ * again: a slot whose bucket has left the window is cleared by the next acquisition that passes
+ * over it, and a key idle for its longest window starts over with fresh slots. An acquisition
+ * adds first and checks the window totals afterwards, taking its additions back when over a
+ * limit, so concurrent callers can be refused spuriously but never let through past a limit.
+ * Keys idle for their longest window hold nothing and are dropped once more than the maximum
+ * are tracked; beyond that the least recently used go too.
+ */
+final class SlidingWindowCounter {
+
+    static final long NO_LIMIT = Long.MAX_VALUE;
+    static final int ACQUIRED = -1;
+
+    private static final int VALUE_BITS = 40;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    private static final int EPOCH_BITS = Long.SIZE - VALUE_BITS;
+    private static final long EPOCH_MASK = (1L << EPOCH_BITS) - 1;
+
+    // Most buckets of a window a key may span between uses, leaving tags plenty of room to tell old from new
+    static final long MAX_IDLE_BUCKETS = 1L << (EPOCH_BITS - 3);
+
+    /**
+     * Largest amount limit a window can hold
+     */
+    static final long MAX_AMOUNT = VALUE_MASK;
+
+    // Slot 0 of a key's array holds when it was last used, relative to the origin
+    private static final int LAST_USED = 0;
+
+    private final Window[] windows;
+    private final int slotsPerKey;
+    private final long idleNanos;
+    private final int maxKeys;
+    private final LongSupplier clock;
+    private final long origin;
+
+    private final ConcurrentHashMap<Long, AtomicLongArray> keys = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    SlidingWindowCounter(List<Limit> limits, int maxKeys) {
+        this(limits, maxKeys, System::nanoTime);
+    }
+
+    SlidingWindowCounter(List<Limit> limits, int maxKeys, LongSupplier clock) {
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+        this.windows = new Window[limits.size()];
+        int offset = 1;
+        long longest = 0;
+        for (int i = 0; i < windows.length; i++) {
+            Limit limit = limits.get(i);
+            windows[i] = new Window(limit, offset);
+            offset += 2 * limit.buckets;
+            longest = Math.max(longest, limit.windowNanos);
+        }
+        for (Window window : windows) {
+            if (longest / window.bucketNanos > MAX_IDLE_BUCKETS) {
+                throw new IllegalArgumentException("Buckets of " + window.bucketNanos
+                    + "ns are too short beside a window of " + longest + "ns");
+            }
+        }
+        this.slotsPerKey = offset;
+        this.idleNanos = longest;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Counts one event of the amount for the key in every window if that keeps it within all limits
+     * Records the epoch plus one per window from the offset, for a later refund, and returns
+     * ACQUIRED, or the index of the first limit that refused it with nothing counted anywhere.
+     */
+    int tryAcquire(long key, long amount, long[] epochs, int offset) {
+        if (windows.length == 0) {
+            return ACQUIRED;
+        }
+        long now = clock.getAsLong() - origin;
+        AtomicLongArray slots = slots(key, now);
+        slots.lazySet(LAST_USED, now);
+
+        for (int i = 0; i < windows.length; i++) {
+            Window window = windows[i];
+            long epoch = now / window.bucketNanos;
+            if (!window.acquire(slots, epoch, amount)) {
+                refund(slots, epochs, offset, i, 1, amount);
+                return i;
+            }
+            epochs[offset + i] = epoch + 1;
+        }
+        return ACQUIRED;
+    }
+
+    /**
+     * Takes back what an acquisition counted, in the windows whose buckets have not moved on since
+     */
+    void refund(long key, long[] epochs, int offset, long count, long amount) {
+        AtomicLongArray slots = keys.get(key);
+        if (slots != null) {
+            refund(slots, epochs, offset, windows.length, count, amount);
+        }
+    }
+
+    int trackedKeys() {
+        return keys.size();
+    }
+
+    private void refund(AtomicLongArray slots, long[] epochs, int offset, int windowCount, long count, long amount) {
+        for (int i = 0; i < windowCount; i++) {
+            if (epochs[offset + i] != 0) {
+                windows[i].release(slots, epochs[offset + i] - 1, count, amount);
+                epochs[offset + i] = 0;
+            }
+        }
+    }
+
+    // A key idle for its longest window holds nothing, so it is given fresh slots rather than old tags
+    private AtomicLongArray slots(long key, long now) {
+        AtomicLongArray slots = keys.get(key);
+        if (slots != null && slots.get(LAST_USED) < now - idleNanos) {
+            keys.remove(key, slots);
+            slots = null;
+        }
+        if (slots == null) {
+            slots = keys.computeIfAbsent(key, k -> {
+                AtomicLongArray fresh = new AtomicLongArray(slotsPerKey);
+                fresh.set(LAST_USED, now);
+                return fresh;
+            });
+            if (keys.size() > maxKeys) {
+                evict();
+            }
+        }
+        return slots;
+    }
+
+    // Drops idle keys, then the least recently used down to three quarters of the maximum
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long idleBefore = clock.getAsLong() - origin - idleNanos;
+            keys.values().removeIf(slots -> slots.get(LAST_USED) < idleBefore);
+            int excess = keys.size() - maxKeys * 3 / 4;
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<Long, AtomicLongArray>> byAge = new ArrayList<>(keys.entrySet());
+            byAge.sort((a, b) -> Long.compare(a.getValue().get(LAST_USED), b.getValue().get(LAST_USED)));
+            for (int i = 0; i < excess && i < byAge.size(); i++) {
+                keys.remove(byAge.get(i).getKey(), byAge.get(i).getValue());
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * One window's length, bucket count and limits; amount limits are in minor units
+     */
+    static final class Limit {
+        private final long windowNanos;
+        private final int buckets;
+        private final long maxCount;
+        private final long maxAmount;
+
+        Limit(long windowNanos, int buckets, long maxCount, long maxAmount) {
+            if (buckets < 1 || windowNanos < buckets) {
+                throw new IllegalArgumentException("A window needs at least one bucket of at least a nanosecond");
+            }
+            if (maxAmount != NO_LIMIT && (maxAmount < 0 || maxAmount > MAX_AMOUNT)) {
+                throw new IllegalArgumentException("Amount limit out of range: " + maxAmount);
+            }
+            this.windowNanos = windowNanos;
+            this.buckets = buckets;
+            this.maxCount = maxCount;
+            this.maxAmount = maxAmount;
+        }
+    }
+
+    private static final class Window {
+        private final long bucketNanos;
+        private final int buckets;
+        private final long maxCount;
+        private final long maxAmount;
+        private final boolean tracksAmount;
+        private final int offset;
+
+        private Window(Limit limit, int offset) {
+            this.bucketNanos = limit.windowNanos / limit.buckets;
+            this.buckets = limit.buckets;
+            this.maxCount = limit.maxCount;
+            this.maxAmount = limit.maxAmount;
+            this.tracksAmount = limit.maxAmount != NO_LIMIT;
+            this.offset = offset;
+        }
+
+        private boolean acquire(AtomicLongArray slots, long epoch, long amount) {
+            if (amount > maxAmount) {
+                return false;
+            }
+            int count = countSlot(epoch);
+            if (!add(slots, count, epoch, 1)) {
+                return false;
+            }
+            if (tracksAmount && !add(slots, count + 1, epoch, amount)) {
+                subtract(slots, count, epoch, 1);
+                return false;
+            }
+            if (sum(slots, epoch, 0) > maxCount || tracksAmount && sum(slots, epoch, 1) > maxAmount) {
+                release(slots, epoch, 1, amount);
+                return false;
+            }
+            return true;
+        }
+
+        private void release(AtomicLongArray slots, long epoch, long count, long amount) {
+            int slot = countSlot(epoch);
+            if (count > 0) {
+                subtract(slots, slot, epoch, count);
+            }
+            if (tracksAmount && amount > 0) {
+                subtract(slots, slot + 1, epoch, amount);
+            }
+        }
+
+        private int countSlot(long epoch) {
+            return offset + 2 * (int) (epoch % buckets);
+        }
+
+        // Total of the count or amount slots of the buckets still inside the window ending at the epoch,
+        // clearing any slot passed over that still holds a bucket from before the window
+        private long sum(AtomicLongArray slots, long epoch, int field) {
+            long total = 0;
+            for (int age = 0; age < buckets && age <= epoch; age++) {
+                long bucket = epoch - age;
+                int slot = countSlot(bucket) + field;
+                long current = slots.get(slot);
+                if ((current & ~VALUE_MASK) == tag(bucket)) {
+                    total += current & VALUE_MASK;
+                } else if ((current & VALUE_MASK) != 0 && isBefore(current, bucket)) {
+                    slots.compareAndSet(slot, current, 0);
+                }
+            }
+            return total;
+        }
+    }
+
+    // Adds to the slot for the epoch, restarting it when it still holds an older bucket
+    private static boolean add(AtomicLongArray slots, int slot, long epoch, long delta) {
+        long tag = tag(epoch);
+        while (true) {
+            long current = slots.get(slot);
+            long value = (current & ~VALUE_MASK) == tag ? current & VALUE_MASK : 0;
+            if (value + delta > VALUE_MASK) {
+                return false;
+            }
+            if (slots.compareAndSet(slot, current, tag | (value + delta))) {
+                return true;
+            }
+        }
+    }
+
+    private static void subtract(AtomicLongArray slots, int slot, long epoch, long delta) {
+        long tag = tag(epoch);
+        while (true) {
+            long current = slots.get(slot);
+            if ((current & ~VALUE_MASK) != tag) {
+                return;
+            }
+            long value = Math.max(0, (current & VALUE_MASK) - delta);
+            if (slots.compareAndSet(slot, current, tag | value)) {
+                return;
+            }
+        }
+    }
+
+    private static long tag(long epoch) {
+        return (epoch & EPOCH_MASK) << VALUE_BITS;
+    }
+
+    // Whether the slot's tag is behind the epoch, rather than ahead of it for a caller running late
+    private static boolean isBefore(long slot, long epoch) {
+        long behind = (epoch - (slot >>> VALUE_BITS)) & EPOCH_MASK;
+        return behind != 0 && behind < 1L << (EPOCH_BITS - 1);
+    }
+}
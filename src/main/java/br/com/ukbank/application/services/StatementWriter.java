@@ -0,0 +1,124 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.infrastructure.repositories.StatementLineView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streaming writer of statement lines as CSV or NDJSON
+ * Writes each line to a buffer over the response as it arrives, so nothing but the current
+ * line is held in memory. Closing flushes the buffer but leaves the underlying writer open.
+ */
+public abstract class StatementWriter implements Closeable {
+
+    static final String CSV_HEADER =
+        "processedAt,type,amount,currency,balanceAfter,description,reference,transactionReference";
+
+    protected final BufferedWriter writer;
+
+    protected StatementWriter(Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer, 64 * 1024);
+    }
+
+    /**
+     * Writes a header row, then one posting per record
+     */
+    public static StatementWriter csv(Writer writer) throws IOException {
+        return new Csv(writer);
+    }
+
+    /**
+     * Writes one JSON object per posting and line
+     */
+    public static StatementWriter ndjson(Writer writer, ObjectMapper objectMapper) throws IOException {
+        return new Ndjson(writer, objectMapper);
+    }
+
+    public abstract void write(StatementLineView line) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private static final class Csv extends StatementWriter {
+
+        private Csv(Writer writer) throws IOException {
+            super(writer);
+            this.writer.write(CSV_HEADER);
+            this.writer.write("\r\n");
+        }
+
+        @Override
+        public void write(StatementLineView line) throws IOException {
+            writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(line.getProcessedAt()));
+            writer.write(',');
+            writer.write(line.getType().name());
+            writer.write(',');
+            writer.write(line.getAmount().toPlainString());
+            writer.write(',');
+            writer.write(line.getCurrency());
+            writer.write(',');
+            writer.write(line.getBalanceAfter().toPlainString());
+            writer.write(',');
+            writeField(line.getDescription());
+            writer.write(',');
+            writeField(line.getReference());
+            writer.write(',');
+            writeField(line.getTransactionReference());
+            writer.write("\r\n");
+        }
+
+        // RFC 4180: quote fields holding a separator, quote or line break, doubling inner quotes
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static final class Ndjson extends StatementWriter {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter lineWriter;
+
+        private Ndjson(Writer writer, ObjectMapper objectMapper) throws IOException {
+            super(writer);
+            this.generator = objectMapper.getFactory().createGenerator(this.writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+            // Flushing per line would push every posting through to the socket on its own
+            this.lineWriter = objectMapper.writerFor(StatementLineView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(StatementLineView line) throws IOException {
+            lineWriter.writeValue(generator, line);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.exceptions.VelocityLimitExceededException;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.config.VelocityLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-account and per-customer limits on the count and amount of transfers in sliding windows
+ * A transfer reserves its place in every window of its account before anything else happens,
+ * and in its customer's windows once the account is loaded; both precede the debit. A transfer
+ * refused by a limit is taken back out of the windows it had already entered. A transfer that
+ * fails later keeps its count, so a client retrying a hopeless transfer is throttled too, but
+ * gives back its amount, which only counts money that actually moved.
+ */
+@Component
+public class VelocityLimiter {
+
+    private static final Reservation UNLIMITED = new Reservation(new long[0], 0, 0);
+
+    private final boolean enabled;
+    private final Scope accounts;
+    private final Scope customers;
+
+    public VelocityLimiter(VelocityLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.accounts = new Scope("account", properties.getAccountLimits(), properties.getMaxTrackedKeys(), meterRegistry);
+        this.customers = new Scope("customer", properties.getCustomerLimits(), properties.getMaxTrackedKeys(), meterRegistry);
+    }
+
+    /**
+     * Counts a transfer out of the account, refusing it when any account limit would be exceeded
+     */
+    public Reservation reserve(Long accountId, Money amount) {
+        if (!enabled) {
+            return UNLIMITED;
+        }
+        Reservation reservation = new Reservation(new long[accounts.size() + customers.size()],
+            accountId, amount.getMinorUnits());
+        int refused = accounts.counter.tryAcquire(accountId, reservation.amount, reservation.epochs, 0);
+        if (refused != SlidingWindowCounter.ACQUIRED) {
+            throw accounts.refused(refused, accountId);
+        }
+        return reservation;
+    }
+
+    /**
+     * Counts the reserved transfer against its customer, refusing it when a customer limit would
+     * be exceeded; calling it again for the same reservation does nothing
+     */
+    public void reserveForCustomer(Reservation reservation, Long customerId) {
+        if (reservation == UNLIMITED || reservation.customerId != null) {
+            return;
+        }
+        reservation.customerId = customerId;
+        int refused = customers.counter.tryAcquire(customerId, reservation.amount, reservation.epochs, accounts.size());
+        if (refused != SlidingWindowCounter.ACQUIRED) {
+            accounts.counter.refund(reservation.accountId, reservation.epochs, 0, 1, reservation.amount);
+            reservation.released = true;
+            throw customers.refused(refused, customerId);
+        }
+    }
+
+    /**
+     * Gives back the amount of a transfer that did not go through
+     */
+    public void refundAmount(Reservation reservation) {
+        if (reservation == UNLIMITED || reservation.released) {
+            return;
+        }
+        reservation.released = true;
+        accounts.counter.refund(reservation.accountId, reservation.epochs, 0, 0, reservation.amount);
+        if (reservation.customerId != null) {
+            customers.counter.refund(reservation.customerId, reservation.epochs, accounts.size(), 0, reservation.amount);
+        }
+    }
+
+    /**
+     * Where a transfer was counted, so it can be given back
+     */
+    public static final class Reservation {
+        // Epoch plus one per window, account windows first; zero where not counted
+        private final long[] epochs;
+        private final long accountId;
+        private final long amount;
+        private Long customerId;
+        private boolean released;
+
+        private Reservation(long[] epochs, long accountId, long amount) {
+            this.epochs = epochs;
+            this.accountId = accountId;
+            this.amount = amount;
+        }
+    }
+
+    /**
+     * The windows kept per account or per customer
+     */
+    private static final class Scope {
+        private final String name;
+        private final SlidingWindowCounter counter;
+        private final List<String> descriptions = new ArrayList<>();
+        private final List<Counter> rejections = new ArrayList<>();
+
+        private Scope(String name, List<VelocityLimitProperties.Limit> configured, int maxKeys,
+                      MeterRegistry meterRegistry) {
+            this.name = name;
+            List<SlidingWindowCounter.Limit> limits = new ArrayList<>(configured.size());
+            for (VelocityLimitProperties.Limit limit : configured) {
+                limits.add(new SlidingWindowCounter.Limit(limit.getWindow().toNanos(), limit.getBuckets(),
+                    limit.getMaxCount() > 0 ? limit.getMaxCount() : SlidingWindowCounter.NO_LIMIT,
+                    limit.getMaxAmount() != null
+                        ? Money.of(limit.getMaxAmount()).getMinorUnits() : SlidingWindowCounter.NO_LIMIT));
+                String window = format(limit.getWindow());
+                descriptions.add(describe(limit, window));
+                rejections.add(Counter.builder("transfers.velocity.rejections")
+                    .tag("scope", name)
+                    .tag("window", window)
+                    .register(meterRegistry));
+            }
+            this.counter = new SlidingWindowCounter(limits, maxKeys);
+            Gauge.builder("transfers.velocity.tracked", counter, SlidingWindowCounter::trackedKeys)
+                .tag("scope", name)
+                .register(meterRegistry);
+        }
+
+        private int size() {
+            return descriptions.size();
+        }
+
+        private VelocityLimitExceededException refused(int limit, long key) {
+            rejections.get(limit).increment();
+            return new VelocityLimitExceededException(
+                "Transfer limit of " + descriptions.get(limit) + " reached for " + name + " " + key);
+        }
+
+        private static String describe(VelocityLimitProperties.Limit limit, String window) {
+            String count = limit.getMaxCount() > 0 ? limit.getMaxCount() + " transfers" : null;
+            String amount = limit.getMaxAmount() != null ? limit.getMaxAmount().toPlainString() : null;
+            String bounds = count != null && amount != null ? count + " or " + amount : count != null ? count : amount;
+            return bounds + " per " + window;
+        }
+
+        private static String format(Duration window) {
+            return window.toString().substring(2).toLowerCase();
+        }
+    }
+}
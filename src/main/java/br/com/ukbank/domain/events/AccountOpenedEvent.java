@@ -0,0 +1,51 @@
+package br.com.ukbank.domain.events;
+
+import br.com.ukbank.domain.valueobjects.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain event fired when a bank account is opened for a customer
+ */
+public class AccountOpenedEvent extends DomainEvent {
+
+    public static final String TYPE = "ACCOUNT_OPENED";
+
+    private final Long accountId;
+    private final Long customerId;
+    private final String accountType;
+    private final Money openingBalance;
+
+    public AccountOpenedEvent(Long accountId, Long customerId, String accountType, Money openingBalance) {
+        super(TYPE);
+        this.accountId = accountId;
+        this.customerId = customerId;
+        this.accountType = accountType;
+        this.openingBalance = openingBalance;
+    }
+
+    public AccountOpenedEvent(String eventId, LocalDateTime occurredOn, Long accountId,
+                              Long customerId, String accountType, Money openingBalance) {
+        super(eventId, occurredOn, TYPE);
+        this.accountId = accountId;
+        this.customerId = customerId;
+        this.accountType = accountType;
+        this.openingBalance = openingBalance;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public String getAccountType() {
+        return accountType;
+    }
+
+    public Money getOpeningBalance() {
+        return openingBalance;
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.ukbank.domain.events;
+
+import br.com.ukbank.domain.valueobjects.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain event fired when an account is frozen, unfrozen or closed
+ */
+public class AccountStatusChangedEvent extends DomainEvent {
+
+    public static final String TYPE = "ACCOUNT_STATUS_CHANGED";
+
+    private final Long accountId;
+    private final Long customerId;
+    private final String previousStatus;
+    private final String status;
+    private final Money balance;
+
+    public AccountStatusChangedEvent(Long accountId, Long customerId, String previousStatus,
+                                     String status, Money balance) {
+        super(TYPE);
+        this.accountId = accountId;
+        this.customerId = customerId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.balance = balance;
+    }
+
+    public AccountStatusChangedEvent(String eventId, LocalDateTime occurredOn, Long accountId, Long customerId,
+                                     String previousStatus, String status, Money balance) {
+        super(eventId, occurredOn, TYPE);
+        this.accountId = accountId;
+        this.customerId = customerId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.balance = balance;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Status before the change; null on events recorded before it was carried
+     */
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Account balance when the status changed; null on events recorded before it was carried
+     */
+    public Money getBalance() {
+        return balance;
+    }
+}
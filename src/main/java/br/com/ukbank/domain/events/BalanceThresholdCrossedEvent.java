@@ -0,0 +1,85 @@
+package br.com.ukbank.domain.events;
+
+import br.com.ukbank.domain.valueobjects.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain event fired when an account's balance moves across an alerting threshold
+ */
+public class BalanceThresholdCrossedEvent extends DomainEvent {
+
+    public static final String TYPE = "BALANCE_THRESHOLD_CROSSED";
+
+    public static final String LOW_BALANCE = "LOW_BALANCE";
+    public static final String HIGH_VALUE = "HIGH_VALUE";
+    public static final String BELOW = "BELOW";
+    public static final String ABOVE = "ABOVE";
+
+    private final Long accountId;
+    private final String accountType;
+    private final String threshold;
+    private final String direction;
+    private final Money thresholdAmount;
+    private final Money previousBalance;
+    private final Money balance;
+
+    public BalanceThresholdCrossedEvent(Long accountId, String accountType, String threshold, String direction,
+                                        Money thresholdAmount, Money previousBalance, Money balance) {
+        super(TYPE);
+        this.accountId = accountId;
+        this.accountType = accountType;
+        this.threshold = threshold;
+        this.direction = direction;
+        this.thresholdAmount = thresholdAmount;
+        this.previousBalance = previousBalance;
+        this.balance = balance;
+    }
+
+    public BalanceThresholdCrossedEvent(String eventId, LocalDateTime occurredOn, Long accountId, String accountType,
+                                        String threshold, String direction, Money thresholdAmount,
+                                        Money previousBalance, Money balance) {
+        super(eventId, occurredOn, TYPE);
+        this.accountId = accountId;
+        this.accountType = accountType;
+        this.threshold = threshold;
+        this.direction = direction;
+        this.thresholdAmount = thresholdAmount;
+        this.previousBalance = previousBalance;
+        this.balance = balance;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getAccountType() {
+        return accountType;
+    }
+
+    /**
+     * LOW_BALANCE or HIGH_VALUE
+     */
+    public String getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * BELOW or ABOVE: the side of the threshold the balance is on now
+     */
+    public String getDirection() {
+        return direction;
+    }
+
+    public Money getThresholdAmount() {
+        return thresholdAmount;
+    }
+
+    public Money getPreviousBalance() {
+        return previousBalance;
+    }
+
+    public Money getBalance() {
+        return balance;
+    }
+}
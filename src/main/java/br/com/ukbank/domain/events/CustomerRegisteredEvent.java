@@ -1,18 +1,31 @@
 package br.com.ukbank.domain.events;
 
+import java.time.LocalDateTime;
+
 /**
  * Domain event fired when a customer is registered
  * Used for audit trails and event sourcing
  */
 public class CustomerRegisteredEvent extends DomainEvent {
 
+    public static final String TYPE = "CUSTOMER_REGISTERED";
+
     private final Long customerId;
     private final String firstName;
     private final String lastName;
     private final String email;
 
     public CustomerRegisteredEvent(Long customerId, String firstName, String lastName, String email) {
-        super("CUSTOMER_REGISTERED");
+        super(TYPE);
+        this.customerId = customerId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+    }
+
+    public CustomerRegisteredEvent(String eventId, LocalDateTime occurredOn,
+                                   Long customerId, String firstName, String lastName, String email) {
+        super(eventId, occurredOn, TYPE);
         this.customerId = customerId;
         this.firstName = firstName;
         this.lastName = lastName;
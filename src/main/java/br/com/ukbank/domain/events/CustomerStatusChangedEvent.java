@@ -0,0 +1,34 @@
+package br.com.ukbank.domain.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain event fired when a customer is suspended or reactivated
+ */
+public class CustomerStatusChangedEvent extends DomainEvent {
+
+    public static final String TYPE = "CUSTOMER_STATUS_CHANGED";
+
+    private final Long customerId;
+    private final String status;
+
+    public CustomerStatusChangedEvent(Long customerId, String status) {
+        super(TYPE);
+        this.customerId = customerId;
+        this.status = status;
+    }
+
+    public CustomerStatusChangedEvent(String eventId, LocalDateTime occurredOn, Long customerId, String status) {
+        super(eventId, occurredOn, TYPE);
+        this.customerId = customerId;
+        this.status = status;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,49 @@
+package br.com.ukbank.domain.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain event fired when a customer's personal information changes
+ */
+public class CustomerUpdatedEvent extends DomainEvent {
+
+    public static final String TYPE = "CUSTOMER_UPDATED";
+
+    private final Long customerId;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+
+    public CustomerUpdatedEvent(Long customerId, String firstName, String lastName, String email) {
+        super(TYPE);
+        this.customerId = customerId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+    }
+
+    public CustomerUpdatedEvent(String eventId, LocalDateTime occurredOn,
+                                Long customerId, String firstName, String lastName, String email) {
+        super(eventId, occurredOn, TYPE);
+        this.customerId = customerId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
@@ -1,5 +1,7 @@
 package br.com.ukbank.domain.events;
 
+import br.com.ukbank.domain.identity.IdGenerators;
+
 import java.time.LocalDateTime;
 
 /**
@@ -13,11 +15,18 @@ public abstract class DomainEvent {
     private final String eventType;
 
     protected DomainEvent(String eventType) {
-        this.eventId = java.util.UUID.randomUUID().toString();
+        this.eventId = IdGenerators.current().nextHexId();
         this.occurredOn = LocalDateTime.now();
         this.eventType = eventType;
     }
 
+    // Rehydrates an event that was recorded earlier
+    protected DomainEvent(String eventId, LocalDateTime occurredOn, String eventType) {
+        this.eventId = eventId;
+        this.occurredOn = occurredOn;
+        this.eventType = eventType;
+    }
+
     public String getEventId() {
         return eventId;
     }
@@ -2,22 +2,40 @@ package br.com.ukbank.domain.events;
 
 import br.com.ukbank.domain.valueobjects.Money;
 
+import java.time.LocalDateTime;
+
 /**
  * Domain event fired when a transaction is processed
  * Used for audit trails and event sourcing
  */
 public class TransactionProcessedEvent extends DomainEvent {
 
+    public static final String TYPE = "TRANSACTION_PROCESSED";
+
     private final Long accountId;
+    private final Long customerId;
     private final String transactionReference;
     private final String transactionType;
     private final Money amount;
     private final Money balanceAfter;
 
-    public TransactionProcessedEvent(Long accountId, String transactionReference,
+    public TransactionProcessedEvent(Long accountId, Long customerId, String transactionReference,
                                    String transactionType, Money amount, Money balanceAfter) {
-        super("TRANSACTION_PROCESSED");
+        super(TYPE);
         this.accountId = accountId;
+        this.customerId = customerId;
+        this.transactionReference = transactionReference;
+        this.transactionType = transactionType;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+    }
+
+    public TransactionProcessedEvent(String eventId, LocalDateTime occurredOn, Long accountId,
+                                   Long customerId, String transactionReference, String transactionType,
+                                   Money amount, Money balanceAfter) {
+        super(eventId, occurredOn, TYPE);
+        this.accountId = accountId;
+        this.customerId = customerId;
         this.transactionReference = transactionReference;
         this.transactionType = transactionType;
         this.amount = amount;
@@ -28,6 +46,13 @@ public class TransactionProcessedEvent extends DomainEvent {
         return accountId;
     }
 
+    /**
+     * Holder of the account; null on events recorded before it was carried
+     */
+    public Long getCustomerId() {
+        return customerId;
+    }
+
     public String getTransactionReference() {
         return transactionReference;
     }
@@ -0,0 +1,28 @@
+package br.com.ukbank.domain.identity;
+
+/**
+ * Source of unique, time-sortable identifiers for references and events
+ */
+public interface IdGenerator {
+
+    char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    long nextId();
+
+    /**
+     * Next identifier as 16 upper-case hex digits
+     * Fixed width keeps the textual form sortable in the same order as the numeric one
+     */
+    default String nextHexId() {
+        return toHex(nextId());
+    }
+
+    static String toHex(long id) {
+        char[] digits = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            digits[i] = HEX_DIGITS[(int) (id & 0xF)];
+            id >>>= 4;
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.ukbank.domain.identity;
+
+import java.util.Objects;
+
+/**
+ * Holder for the identifier generator used by domain objects
+ * Entities and events are not Spring beans, so the configured generator is installed here at startup
+ */
+public final class IdGenerators {
+
+    private static volatile IdGenerator current = new SnowflakeIdGenerator(0);
+
+    private IdGenerators() {}
+
+    public static IdGenerator current() {
+        return current;
+    }
+
+    public static void use(IdGenerator generator) {
+        current = Objects.requireNonNull(generator, "Generator is required");
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.ukbank.domain.identity;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style identifier generator
+ * Packs 41 bits of milliseconds since 2024-01-01, a 10 bit node ID and a 12 bit sequence.
+ * The clock and sequence live in a single AtomicLong advanced by CAS, so generation is
+ * lock-free. When a millisecond's sequence is exhausted, or the wall clock steps back,
+ * the logical clock simply runs ahead of it: identifiers stay unique and increasing.
+ * With a reservation, that logical clock also survives restarts: identifiers are only issued
+ * up to a durably reserved timestamp, extended a lease at a time before it is reached, and a
+ * new generator starts after the last reservation.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    static final long EPOCH_MILLIS = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    // (elapsed millis << SEQUENCE_BITS) | sequence of the last issued identifier
+    private final AtomicLong state = new AtomicLong();
+
+    private final Reservation reservation;
+    private final long leaseMillis;
+    private final ReentrantLock reserving = new ReentrantLock();
+
+    // Elapsed millis up to which identifiers may be issued
+    private volatile long reservedThrough;
+
+    /**
+     * Durable record of how far a node's identifiers may go
+     */
+    @FunctionalInterface
+    public interface Reservation {
+
+        /**
+         * Records that identifiers may be issued up to the epoch millis, returning the stored mark
+         */
+        long reserveThrough(long epochMillis);
+    }
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    /**
+     * Generator continuing after a previous run that reserved up to issuedThroughMillis
+     */
+    public SnowflakeIdGenerator(int nodeId, long issuedThroughMillis, long leaseMillis, Reservation reservation) {
+        this(nodeId, System::currentTimeMillis, issuedThroughMillis, leaseMillis, reservation);
+    }
+
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        this(nodeId, clock, 0, 0, null);
+    }
+
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock, long issuedThroughMillis, long leaseMillis,
+                         Reservation reservation) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+        this.reservation = reservation;
+        this.leaseMillis = leaseMillis;
+
+        long issuedThrough = Math.max(0, issuedThroughMillis - EPOCH_MILLIS);
+        if (issuedThrough > 0) {
+            this.state.set(issuedThrough << SEQUENCE_BITS | SEQUENCE_MASK);
+        }
+        this.reservedThrough = reservation != null ? issuedThrough : Long.MAX_VALUE;
+    }
+
+    @Override
+    public long nextId() {
+        long elapsed = clock.getAsLong() - EPOCH_MILLIS;
+        while (true) {
+            long current = state.get();
+            long next = elapsed > (current >>> SEQUENCE_BITS)
+                ? elapsed << SEQUENCE_BITS
+                : current + 1;
+            if (state.compareAndSet(current, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                if (millis > reservedThrough - leaseMillis / 2) {
+                    extendReservation(millis);
+                }
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    // Renewed by whichever caller passes half the lease first; only callers beyond the end wait for it
+    private void extendReservation(long millis) {
+        if (millis > reservedThrough) {
+            reserving.lock();
+        } else if (!reserving.tryLock()) {
+            return;
+        }
+        try {
+            if (millis > reservedThrough - leaseMillis / 2) {
+                long reserved = reservation.reserveThrough(EPOCH_MILLIS + millis + leaseMillis) - EPOCH_MILLIS;
+                if (reserved < millis) {
+                    throw new IllegalStateException("Identifier reservation did not reach " + (EPOCH_MILLIS + millis));
+                }
+                reservedThrough = reserved;
+            }
+        } finally {
+            reserving.unlock();
+        }
+    }
+}
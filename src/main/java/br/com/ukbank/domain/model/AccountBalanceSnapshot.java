@@ -0,0 +1,70 @@
+package br.com.ukbank.domain.model;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An account's balance as of a posting, checkpointed so replays can start from it
+ * Replaying the account's postings after the snapshot, in posting order, gives its balance
+ * now; the snapshot only moves forward and only over postings whose chain checked out
+ */
+@Entity
+@Table(name = "account_balance_snapshots")
+public class AccountBalanceSnapshot {
+
+    @Id
+    private Long accountId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    @Column(nullable = false)
+    private LocalDateTime throughProcessedAt;
+
+    @Column(nullable = false)
+    private Long throughTransactionId;
+
+    @Column(nullable = false)
+    private long postingCount;
+
+    @Column(nullable = false)
+    private LocalDateTime takenAt;
+
+    // Default constructor for JPA
+    protected AccountBalanceSnapshot() {}
+
+    public AccountBalanceSnapshot(Long accountId, BigDecimal balance, String currency, LocalDateTime throughProcessedAt,
+                                  Long throughTransactionId, long postingCount) {
+        this.accountId = accountId;
+        this.balance = balance;
+        this.currency = currency;
+        this.throughProcessedAt = throughProcessedAt;
+        this.throughTransactionId = throughTransactionId;
+        this.postingCount = postingCount;
+        this.takenAt = LocalDateTime.now();
+    }
+
+    /**
+     * Business method to move the snapshot on to a later posting
+     */
+    public void advance(BigDecimal balance, LocalDateTime throughProcessedAt, Long throughTransactionId,
+                        long postingsReplayed) {
+        this.balance = balance;
+        this.throughProcessedAt = throughProcessedAt;
+        this.throughTransactionId = throughTransactionId;
+        this.postingCount += postingsReplayed;
+        this.takenAt = LocalDateTime.now();
+    }
+
+    public Long getAccountId() { return accountId; }
+    public BigDecimal getBalance() { return balance; }
+    public String getCurrency() { return currency; }
+    public LocalDateTime getThroughProcessedAt() { return throughProcessedAt; }
+    public Long getThroughTransactionId() { return throughTransactionId; }
+    public long getPostingCount() { return postingCount; }
+    public LocalDateTime getTakenAt() { return takenAt; }
+}
@@ -0,0 +1,47 @@
+package br.com.ukbank.domain.model;
+
+import javax.persistence.*;
+
+/**
+ * High-water mark of account numbers handed out for a sort code
+ * Numbers are leased in blocks, so a number is never reused even if a lease is
+ * abandoned by a restart; the unused tail of that block is simply skipped
+ */
+@Entity
+@Table(name = "account_number_ranges")
+public class AccountNumberRange {
+
+    public static final long FIRST_ACCOUNT_NUMBER = 10000000L;
+    public static final long LAST_ACCOUNT_NUMBER = 99999999L;
+
+    @Id
+    @Column(length = 8)
+    private String sortCode;
+
+    @Column(nullable = false)
+    private long nextBlockStart;
+
+    // Default constructor for JPA
+    protected AccountNumberRange() {}
+
+    public AccountNumberRange(String sortCode) {
+        this.sortCode = sortCode;
+        this.nextBlockStart = FIRST_ACCOUNT_NUMBER;
+    }
+
+    /**
+     * Business method to lease the next block of account numbers
+     * Returns the first number of the block; the block may be shorter at the end of the range
+     */
+    public long leaseBlock(int blockSize) {
+        if (nextBlockStart > LAST_ACCOUNT_NUMBER) {
+            throw new IllegalStateException("Account numbers exhausted for sort code " + sortCode);
+        }
+        long start = nextBlockStart;
+        nextBlockStart = Math.min(start + blockSize, LAST_ACCOUNT_NUMBER + 1);
+        return start;
+    }
+
+    public String getSortCode() { return sortCode; }
+    public long getNextBlockStart() { return nextBlockStart; }
+}
@@ -2,25 +2,30 @@ package br.com.ukbank.domain.model;
 
 import br.com.ukbank.domain.valueobjects.*;
 import br.com.ukbank.domain.events.TransactionProcessedEvent;
+import br.com.ukbank.domain.identity.IdGenerators;
 
 import javax.persistence.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * BankAccount aggregate root following DDD principles
  * Encapsulates account business logic and transaction processing
  */
 @Entity
-@Table(name = "bank_accounts")
+@Table(name = "bank_accounts", uniqueConstraints =
+    @UniqueConstraint(name = "uk_bank_accounts_identifier", columnNames = {"sortCode", "accountNumber"}))
 public class BankAccount {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_accounts_seq")
+    @SequenceGenerator(name = "bank_accounts_seq", sequenceName = "bank_accounts_seq", allocationSize = 50)
     private Long accountId;
 
     @Embedded
@@ -35,7 +40,10 @@ public class BankAccount {
     private Money balance;
 
     @Embedded
-    @AttributeOverride(name = "amount", column = @Column(name = "overdraft_limit"))
+    @AttributeOverrides({
+        @AttributeOverride(name = "amount", column = @Column(name = "overdraft_limit")),
+        @AttributeOverride(name = "currency", column = @Column(name = "overdraft_currency"))
+    })
     private Money overdraftLimit;
 
     @Column(precision = 5, scale = 4)
@@ -50,21 +58,29 @@ public class BankAccount {
 
     private LocalDateTime closedAt;
 
+    // Last business date whose interest has been credited
+    private LocalDate interestAccruedThrough;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
 
-    @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    // Read-only view of the history; postings are appended through TransactionRepository
+    @OneToMany(mappedBy = "account", fetch = FetchType.LAZY)
     private List<Transaction> transactions = new ArrayList<>();
 
+    @Version
+    private Long version;
+
     // Default constructor for JPA
     protected BankAccount() {}
 
     // Private constructor - use factory methods
-    private BankAccount(Customer customer, AccountType accountType, Money initialDeposit, Money overdraftLimit) {
+    private BankAccount(Customer customer, AccountType accountType, AccountIdentifier identifier,
+                        Money initialDeposit, Money overdraftLimit) {
         this.customer = Objects.requireNonNull(customer, "Customer is required");
         this.accountType = Objects.requireNonNull(accountType, "Account type is required");
-        this.identifier = AccountIdentifier.ukBankAccount(generateAccountNumber());
+        this.identifier = Objects.requireNonNull(identifier, "Account identifier is required");
         this.balance = initialDeposit != null ? initialDeposit : Money.zero();
         this.overdraftLimit = overdraftLimit;
         this.interestRate = getDefaultInterestRate(accountType);
@@ -76,14 +92,15 @@ public class BankAccount {
 
     /**
      * Factory method for opening new bank accounts
+     * The identifier comes from the account number allocator so it is unique per sort code
      */
-    public static BankAccount openAccount(Customer customer, AccountType accountType,
+    public static BankAccount openAccount(Customer customer, AccountType accountType, AccountIdentifier identifier,
                                         Money initialDeposit, Money overdraftLimit) {
         if (customer.getStatus() != Customer.CustomerStatus.ACTIVE) {
             throw new IllegalStateException("Cannot open account for inactive customer");
         }
 
-        return new BankAccount(customer, accountType, initialDeposit, overdraftLimit);
+        return new BankAccount(customer, accountType, identifier, initialDeposit, overdraftLimit);
     }
 
     /**
@@ -100,14 +117,14 @@ public class BankAccount {
         this.balance = this.balance.subtract(amount);
         String transactionRef = generateTransactionReference();
 
+        // Journaled by the caller; the history collection is never loaded just to append
         Transaction transaction = Transaction.createDebit(this, amount, this.balance, description, reference, transactionRef);
-        this.transactions.add(transaction);
 
         // Domain event for audit trail
         TransactionProcessedEvent event = new TransactionProcessedEvent(
-            this.accountId, transactionRef, "DEBIT", amount, this.balance);
+            this.accountId, this.customer.getCustomerId(), transactionRef, "DEBIT", amount, this.balance);
 
-        return TransactionResult.success(transactionRef, event);
+        return TransactionResult.success(transaction, event);
     }
 
     /**
@@ -119,14 +136,40 @@ public class BankAccount {
         this.balance = this.balance.add(amount);
         String transactionRef = generateTransactionReference();
 
+        // Journaled by the caller; the history collection is never loaded just to append
         Transaction transaction = Transaction.createCredit(this, amount, this.balance, description, reference, transactionRef);
-        this.transactions.add(transaction);
 
         // Domain event for audit trail
         TransactionProcessedEvent event = new TransactionProcessedEvent(
-            this.accountId, transactionRef, "CREDIT", amount, this.balance);
+            this.accountId, this.customer.getCustomerId(), transactionRef, "CREDIT", amount, this.balance);
 
-        return TransactionResult.success(transactionRef, event);
+        return TransactionResult.success(transaction, event);
+    }
+
+    /**
+     * Business method to credit one day of interest for the business date
+     * Applies at most once per date. Returns null when nothing is due: the account is not active
+     * or earns no interest, the balance is not positive, or the day's interest is under a penny.
+     */
+    public TransactionResult accrueDailyInterest(LocalDate businessDate, int daysInYear) {
+        if (interestAccruedThrough != null && !interestAccruedThrough.isBefore(businessDate)) {
+            return null;
+        }
+        if (status != AccountStatus.ACTIVE || interestRate == null || interestRate.signum() <= 0
+                || !balance.isPositive()) {
+            return null;
+        }
+
+        BigDecimal interest = balance.getAmount()
+            .multiply(interestRate)
+            .divide(BigDecimal.valueOf(daysInYear), 2, RoundingMode.HALF_EVEN);
+        if (interest.signum() <= 0) {
+            return null;
+        }
+
+        this.interestAccruedThrough = businessDate;
+        return processCredit(Money.of(interest, balance.getCurrency()),
+            "Interest for " + businessDate, "INT" + businessDate.toString().replace("-", ""));
     }
 
     /**
@@ -169,7 +212,10 @@ public class BankAccount {
         return available;
     }
 
-    private void validateAccountActive() {
+    /**
+     * Business rule: only active accounts take postings
+     */
+    public void validateAccountActive() {
         if (this.status != AccountStatus.ACTIVE) {
             throw new IllegalStateException("Account is not active for transactions");
         }
@@ -181,12 +227,8 @@ public class BankAccount {
         }
     }
 
-    private String generateAccountNumber() {
-        return String.format("%08d", ThreadLocalRandom.current().nextInt(10000000, 99999999));
-    }
-
     private String generateTransactionReference() {
-        return "TXN" + java.util.UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
+        return "TXN" + IdGenerators.current().nextHexId();
     }
 
     private java.math.BigDecimal getDefaultInterestRate(AccountType accountType) {
@@ -210,8 +252,10 @@ public class BankAccount {
     public AccountStatus getStatus() { return status; }
     public LocalDateTime getOpenedAt() { return openedAt; }
     public LocalDateTime getClosedAt() { return closedAt; }
+    public LocalDate getInterestAccruedThrough() { return interestAccruedThrough; }
     public Customer getCustomer() { return customer; }
     public List<Transaction> getTransactions() { return Collections.unmodifiableList(transactions); }
+    public Long getVersion() { return version; }
 
     public enum AccountType {
         CURRENT("Current Account"),
@@ -31,7 +31,8 @@ public class Customer {
     // Getters
     @Getter
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customers_seq")
+    @SequenceGenerator(name = "customers_seq", sequenceName = "customers_seq", allocationSize = 50)
     private Long customerId;
 
     @Getter
@@ -65,7 +66,7 @@ public class Customer {
 
     @Getter
     @Embedded
-    @AttributeOverride(name = "value", column = @Column(name = "national_insurance_number"))
+    @AttributeOverride(name = "value", column = @Column(name = "national_insurance_number", unique = true))
     private NationalInsuranceNumber nationalInsuranceNumber;
 
     @Getter
@@ -0,0 +1,58 @@
+package br.com.ukbank.domain.model;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Materialised totals of a customer's active accounts
+ * Kept up to date from account and posting events, so reading a customer's position is one
+ * primary-key lookup instead of an aggregate over their accounts; reconciliation corrects
+ * any drift against the accounts themselves
+ */
+@Entity
+@Table(name = "customer_balance_summaries")
+public class CustomerBalanceSummary {
+
+    @Id
+    private Long customerId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalActiveBalance;
+
+    @Column(nullable = false)
+    private long activeAccountCount;
+
+    private LocalDateTime lastActivityAt;
+
+    // Default constructor for JPA
+    protected CustomerBalanceSummary() {}
+
+    public CustomerBalanceSummary(Long customerId, BigDecimal totalActiveBalance, long activeAccountCount,
+                                  LocalDateTime lastActivityAt) {
+        this.customerId = customerId;
+        this.totalActiveBalance = totalActiveBalance;
+        this.activeAccountCount = activeAccountCount;
+        this.lastActivityAt = lastActivityAt;
+    }
+
+    /**
+     * Business method to check the summary against totals computed from the accounts
+     */
+    public boolean matches(BigDecimal totalActiveBalance, long activeAccountCount) {
+        return this.totalActiveBalance.compareTo(totalActiveBalance) == 0 && this.activeAccountCount == activeAccountCount;
+    }
+
+    /**
+     * Business method to overwrite drifted totals with ones computed from the accounts
+     */
+    public void repair(BigDecimal totalActiveBalance, long activeAccountCount) {
+        this.totalActiveBalance = totalActiveBalance;
+        this.activeAccountCount = activeAccountCount;
+    }
+
+    public Long getCustomerId() { return customerId; }
+    public BigDecimal getTotalActiveBalance() { return totalActiveBalance; }
+    public long getActiveAccountCount() { return activeAccountCount; }
+    public LocalDateTime getLastActivityAt() { return lastActivityAt; }
+}
@@ -0,0 +1,38 @@
+package br.com.ukbank.domain.model;
+
+import javax.persistence.*;
+
+/**
+ * High-water mark of identifier timestamps a node may issue
+ * A node never issues an identifier past its reservation, and a restarted node starts after
+ * it, so identifiers issued before a crash or a backwards clock step are never issued again
+ */
+@Entity
+@Table(name = "id_generator_leases")
+public class IdGeneratorLease {
+
+    @Id
+    private Integer nodeId;
+
+    // Epoch milliseconds
+    @Column(nullable = false)
+    private long reservedThrough;
+
+    // Default constructor for JPA
+    protected IdGeneratorLease() {}
+
+    public IdGeneratorLease(int nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Business method to extend the reservation, which never moves back
+     */
+    public long reserveThrough(long epochMillis) {
+        reservedThrough = Math.max(reservedThrough, epochMillis);
+        return reservedThrough;
+    }
+
+    public Integer getNodeId() { return nodeId; }
+    public long getReservedThrough() { return reservedThrough; }
+}
@@ -0,0 +1,74 @@
+package br.com.ukbank.domain.model;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One account ID range of an interest accrual run
+ * A run plans every chunk for its business date up front; chunks are completed one by one,
+ * so a restarted run only goes through the ones still pending
+ */
+@Entity
+@Table(name = "interest_accrual_chunks", uniqueConstraints =
+    @UniqueConstraint(name = "uk_interest_accrual_chunks_range", columnNames = {"businessDate", "firstAccountId"}))
+public class InterestAccrualChunk {
+
+    public enum Status {
+        PENDING,
+        COMPLETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "interest_accrual_chunks_seq")
+    @SequenceGenerator(name = "interest_accrual_chunks_seq", sequenceName = "interest_accrual_chunks_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate businessDate;
+
+    @Column(nullable = false)
+    private long firstAccountId;
+
+    @Column(nullable = false)
+    private long lastAccountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    private int accountsCredited;
+
+    private long interestMinorUnits;
+
+    private LocalDateTime completedAt;
+
+    // Default constructor for JPA
+    protected InterestAccrualChunk() {}
+
+    public InterestAccrualChunk(LocalDate businessDate, long firstAccountId, long lastAccountId) {
+        this.businessDate = businessDate;
+        this.firstAccountId = firstAccountId;
+        this.lastAccountId = lastAccountId;
+        this.status = Status.PENDING;
+    }
+
+    /**
+     * Business method to record the chunk as done
+     */
+    public void complete(int accountsCredited, long interestMinorUnits) {
+        this.status = Status.COMPLETED;
+        this.accountsCredited = accountsCredited;
+        this.interestMinorUnits = interestMinorUnits;
+        this.completedAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public LocalDate getBusinessDate() { return businessDate; }
+    public long getFirstAccountId() { return firstAccountId; }
+    public long getLastAccountId() { return lastAccountId; }
+    public Status getStatus() { return status; }
+    public int getAccountsCredited() { return accountsCredited; }
+    public long getInterestMinorUnits() { return interestMinorUnits; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+}
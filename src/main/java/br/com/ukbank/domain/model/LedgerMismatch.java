@@ -0,0 +1,73 @@
+package br.com.ukbank.domain.model;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A discrepancy between an account's postings and its balances found by a reconciliation run
+ * A chain break is a posting whose balance after does not follow from the posting before it;
+ * a balance mismatch is an account whose stored balance differs from its last posting's
+ */
+@Entity
+@Table(name = "ledger_mismatches", indexes =
+    @Index(name = "idx_ledger_mismatches_run_account", columnList = "runId, accountId"))
+public class LedgerMismatch {
+
+    public enum Kind {
+        CHAIN_BREAK,
+        BALANCE_MISMATCH
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_mismatches_seq")
+    @SequenceGenerator(name = "ledger_mismatches_seq", sequenceName = "ledger_mismatches_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long runId;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+
+    /**
+     * The posting that broke the chain, or the account's last posting for a balance mismatch
+     */
+    private Long transactionId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal expectedBalance;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal actualBalance;
+
+    @Column(nullable = false)
+    private LocalDateTime detectedAt;
+
+    // Default constructor for JPA
+    protected LedgerMismatch() {}
+
+    public LedgerMismatch(Long runId, Long accountId, Kind kind, Long transactionId, BigDecimal expectedBalance,
+                          BigDecimal actualBalance) {
+        this.runId = runId;
+        this.accountId = accountId;
+        this.kind = kind;
+        this.transactionId = transactionId;
+        this.expectedBalance = expectedBalance;
+        this.actualBalance = actualBalance;
+        this.detectedAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public Long getRunId() { return runId; }
+    public Long getAccountId() { return accountId; }
+    public Kind getKind() { return kind; }
+    public Long getTransactionId() { return transactionId; }
+    public BigDecimal getExpectedBalance() { return expectedBalance; }
+    public BigDecimal getActualBalance() { return actualBalance; }
+    public LocalDateTime getDetectedAt() { return detectedAt; }
+}
@@ -0,0 +1,87 @@
+package br.com.ukbank.domain.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One run of the ledger reconciliation, the header of the mismatches it found
+ */
+@Entity
+@Table(name = "ledger_reconciliation_runs")
+public class LedgerReconciliationRun {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_reconciliation_runs_seq")
+    @SequenceGenerator(name = "ledger_reconciliation_runs_seq", sequenceName = "ledger_reconciliation_runs_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    private long accountsChecked;
+
+    private long postingsChecked;
+
+    private long chainBreaks;
+
+    private long balanceMismatches;
+
+    private int chunksFailed;
+
+    // Default constructor for JPA
+    protected LedgerReconciliationRun() {}
+
+    /**
+     * Factory method for a run starting now
+     */
+    public static LedgerReconciliationRun start() {
+        LedgerReconciliationRun run = new LedgerReconciliationRun();
+        run.status = Status.RUNNING;
+        run.startedAt = LocalDateTime.now();
+        return run;
+    }
+
+    /**
+     * Business method to record the totals of a finished run
+     */
+    public void complete(long accountsChecked, long postingsChecked, long chainBreaks, long balanceMismatches,
+                         int chunksFailed) {
+        this.status = Status.COMPLETED;
+        this.accountsChecked = accountsChecked;
+        this.postingsChecked = postingsChecked;
+        this.chainBreaks = chainBreaks;
+        this.balanceMismatches = balanceMismatches;
+        this.chunksFailed = chunksFailed;
+        this.completedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Business method to record a run that stopped before going through every chunk
+     */
+    public void fail() {
+        this.status = Status.FAILED;
+        this.completedAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public Status getStatus() { return status; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public long getAccountsChecked() { return accountsChecked; }
+    public long getPostingsChecked() { return postingsChecked; }
+    public long getChainBreaks() { return chainBreaks; }
+    public long getBalanceMismatches() { return balanceMismatches; }
+    public int getChunksFailed() { return chunksFailed; }
+}
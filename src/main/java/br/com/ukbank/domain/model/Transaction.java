@@ -12,12 +12,14 @@ import java.util.Objects;
  * Following DDD principles for transaction modeling
  */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes =
+    @Index(name = "idx_transactions_account_processed", columnList = "account_id, processedAt"))
 @Getter
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long transactionId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -33,7 +35,10 @@ public class Transaction {
     private Money amount;
 
     @Embedded
-    @AttributeOverride(name = "amount", column = @Column(name = "balance_after"))
+    @AttributeOverrides({
+        @AttributeOverride(name = "amount", column = @Column(name = "balance_after")),
+        @AttributeOverride(name = "currency", column = @Column(name = "balance_after_currency"))
+    })
     private Money balanceAfter;
 
     @Column(nullable = false)
@@ -79,6 +84,18 @@ public class Transaction {
                              description, reference, transactionRef);
     }
 
+    /**
+     * Factory method to rebuild a posting recorded elsewhere first, keeping its original time
+     */
+    public static Transaction restore(BankAccount account, TransactionType type, Money amount, Money balanceAfter,
+                                      String description, String reference, String transactionRef,
+                                      LocalDateTime processedAt) {
+        Transaction transaction = new Transaction(account, type, amount, balanceAfter,
+                                                  description, reference, transactionRef);
+        transaction.processedAt = Objects.requireNonNull(processedAt);
+        return transaction;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -5,7 +5,7 @@ import lombok.Getter;
 
 /**
  * Result object for transaction operations
- * Encapsulates success/failure state and domain events
+ * Encapsulates success/failure state, the posting to journal and domain events
  */
 @Getter
 public class TransactionResult {
@@ -13,21 +13,23 @@ public class TransactionResult {
     private final boolean success;
     private final String transactionReference;
     private final String errorMessage;
+    private final Transaction transaction;
     private final DomainEvent domainEvent;
 
-    private TransactionResult(boolean success, String transactionReference,
-                             String errorMessage, DomainEvent domainEvent) {
+    private TransactionResult(boolean success, String transactionReference, String errorMessage,
+                             Transaction transaction, DomainEvent domainEvent) {
         this.success = success;
         this.transactionReference = transactionReference;
         this.errorMessage = errorMessage;
+        this.transaction = transaction;
         this.domainEvent = domainEvent;
     }
 
-    public static TransactionResult success(String transactionReference, DomainEvent domainEvent) {
-        return new TransactionResult(true, transactionReference, null, domainEvent);
+    public static TransactionResult success(Transaction transaction, DomainEvent domainEvent) {
+        return new TransactionResult(true, transaction.getTransactionReference(), null, transaction, domainEvent);
     }
 
     public static TransactionResult failure(String errorMessage) {
-        return new TransactionResult(false, null, errorMessage, null);
+        return new TransactionResult(false, null, errorMessage, null, null);
     }
 }
@@ -15,6 +15,8 @@ import java.util.regex.Pattern;
 @EqualsAndHashCode
 public class AccountIdentifier {
 
+    public static final String DEFAULT_SORT_CODE = "12-34-56";
+
     private static final Pattern SORT_CODE_PATTERN = Pattern.compile("^[0-9]{2}-[0-9]{2}-[0-9]{2}$");
     private static final Pattern ACCOUNT_NUMBER_PATTERN = Pattern.compile("^[0-9]{8}$");
 
@@ -31,7 +33,7 @@ public class AccountIdentifier {
 
     public static AccountIdentifier ukBankAccount(String accountNumber) {
         // Generate standard UK bank sort code (for demo purposes)
-        return new AccountIdentifier("12-34-56", accountNumber);
+        return new AccountIdentifier(DEFAULT_SORT_CODE, accountNumber);
     }
 
     public static AccountIdentifier of(String sortCode, String accountNumber) {
@@ -1,83 +1,158 @@
 package br.com.ukbank.domain.valueobjects;
 
 import lombok.EqualsAndHashCode;
-import lombok.Getter;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
 import javax.persistence.Embeddable;
+import javax.persistence.Transient;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Value object representing monetary amounts with currency
  * Immutable and self-validating
+ * Held as a long count of minor units (pence) with an interned currency code so that
+ * arithmetic on the posting path never allocates a BigDecimal. Persistence goes through
+ * the amount/currency properties, which map losslessly onto the existing columns.
  */
 @Embeddable
-@Getter
+@Access(AccessType.PROPERTY)
 @EqualsAndHashCode
 public class Money {
 
     private static final String DEFAULT_CURRENCY = "GBP";
+    private static final int SCALE = 2;
+    private static final int CACHED_MINOR_UNITS = 1024;
 
-    private BigDecimal amount;
+    private static final ConcurrentMap<String, String> CURRENCY_CODES = new ConcurrentHashMap<>();
+    private static final Money[] DEFAULT_CURRENCY_CACHE = new Money[CACHED_MINOR_UNITS];
+
+    static {
+        CURRENCY_CODES.put(DEFAULT_CURRENCY, DEFAULT_CURRENCY);
+        for (int i = 0; i < CACHED_MINOR_UNITS; i++) {
+            DEFAULT_CURRENCY_CACHE[i] = new Money(i, DEFAULT_CURRENCY);
+        }
+    }
+
+    private long minorUnits;
     private String currency;
 
     // Default constructor for JPA
     protected Money() {}
 
-    private Money(BigDecimal amount, String currency) {
-        this.amount = amount.setScale(2, RoundingMode.HALF_UP);
-        this.currency = Objects.requireNonNull(currency, "Currency cannot be null");
+    private Money(long minorUnits, String currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
     }
 
     public static Money zero() {
-        return new Money(BigDecimal.ZERO, DEFAULT_CURRENCY);
+        return DEFAULT_CURRENCY_CACHE[0];
     }
 
     public static Money of(BigDecimal amount) {
-        return new Money(Objects.requireNonNull(amount), DEFAULT_CURRENCY);
+        return ofMinor(toMinorUnits(Objects.requireNonNull(amount)), DEFAULT_CURRENCY);
     }
 
     public static Money of(BigDecimal amount, String currency) {
-        return new Money(Objects.requireNonNull(amount), currency);
+        return ofMinor(toMinorUnits(Objects.requireNonNull(amount)), currency);
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return ofMinor(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    public static Money ofMinor(long minorUnits, String currency) {
+        return valueOf(minorUnits, intern(Objects.requireNonNull(currency, "Currency cannot be null")));
     }
 
     public Money add(Money other) {
         validateSameCurrency(other);
-        return new Money(this.amount.add(other.amount), this.currency);
+        return valueOf(Math.addExact(this.minorUnits, other.minorUnits), this.currency);
     }
 
     public Money subtract(Money other) {
         validateSameCurrency(other);
-        return new Money(this.amount.subtract(other.amount), this.currency);
+        return valueOf(Math.subtractExact(this.minorUnits, other.minorUnits), this.currency);
     }
 
     public boolean isGreaterThan(Money other) {
         validateSameCurrency(other);
-        return this.amount.compareTo(other.amount) > 0;
+        return this.minorUnits > other.minorUnits;
     }
 
     public boolean isGreaterThanOrEqual(Money other) {
         validateSameCurrency(other);
-        return this.amount.compareTo(other.amount) >= 0;
+        return this.minorUnits >= other.minorUnits;
     }
 
+    @Transient
     public boolean isZero() {
-        return this.amount.compareTo(BigDecimal.ZERO) == 0;
+        return this.minorUnits == 0;
     }
 
+    @Transient
     public boolean isPositive() {
-        return this.amount.compareTo(BigDecimal.ZERO) > 0;
+        return this.minorUnits > 0;
+    }
+
+    @Transient
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    // Property setters used by JPA only
+    private void setAmount(BigDecimal amount) {
+        this.minorUnits = toMinorUnits(amount);
+    }
+
+    private void setCurrency(String currency) {
+        this.currency = intern(currency);
     }
 
     private void validateSameCurrency(Money other) {
-        if (!this.currency.equals(other.currency)) {
+        if (this.currency != other.currency && !this.currency.equals(other.currency)) {
             throw new IllegalArgumentException("Cannot perform operation on different currencies");
         }
     }
 
+    // Expects an already interned currency code
+    private static Money valueOf(long minorUnits, String currency) {
+        if (currency == DEFAULT_CURRENCY && minorUnits >= 0 && minorUnits < CACHED_MINOR_UNITS) {
+            return DEFAULT_CURRENCY_CACHE[(int) minorUnits];
+        }
+        return new Money(minorUnits, currency);
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        try {
+            return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount out of range: " + amount, e);
+        }
+    }
+
+    private static String intern(String currency) {
+        if (currency == null) {
+            return null;
+        }
+        String existing = CURRENCY_CODES.putIfAbsent(currency, currency);
+        return existing != null ? existing : currency;
+    }
+
     @Override
     public String toString() {
-        return currency + " " + amount;
+        return currency + " " + getAmount();
     }
 }
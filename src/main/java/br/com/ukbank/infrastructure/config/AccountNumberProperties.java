@@ -0,0 +1,17 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for account number allocation
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.account-numbers")
+public class AccountNumberProperties {
+
+    /**
+     * Account numbers leased from the database per round trip
+     */
+    private int blockSize = 1000;
+}
@@ -0,0 +1,58 @@
+package br.com.ukbank.infrastructure.config;
+
+import br.com.ukbank.domain.model.BankAccount;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Configuration for the in-memory account balance index and its alerting thresholds
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.balance-index")
+public class BalanceIndexProperties {
+
+    /**
+     * When false every balance query runs against the database and no crossings are raised
+     */
+    private boolean indexEnabled = true;
+
+    /**
+     * Accounts read per query while the index warms up
+     */
+    private int warmupPageSize = 5000;
+
+    /**
+     * How often the balances of accounts with new postings are re-read
+     */
+    private Duration refreshInterval = Duration.ofMillis(100);
+
+    /**
+     * Accounts re-read per query on a refresh
+     */
+    private int refreshBatchSize = 1000;
+
+    /**
+     * Balance under which an account is reported as low
+     */
+    private BigDecimal lowBalanceThreshold = new BigDecimal("100.00");
+
+    /**
+     * Balance over which an account of the high-value types is reported
+     */
+    private BigDecimal highValueThreshold = new BigDecimal("100000.00");
+
+    /**
+     * Account types watched for the high-value threshold
+     */
+    private Set<BankAccount.AccountType> highValueAccountTypes = EnumSet.of(BankAccount.AccountType.SAVINGS);
+
+    /**
+     * Upper bound on the accounts a single balance query may ask for
+     */
+    private int maxResults = 1000;
+}
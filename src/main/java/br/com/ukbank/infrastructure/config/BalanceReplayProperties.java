@@ -0,0 +1,45 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for balance snapshots and replays of the posting journal
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.replay")
+public class BalanceReplayProperties {
+
+    /**
+     * When false snapshots are only checkpointed when a replay is triggered explicitly
+     */
+    private boolean checkpointEnabled = true;
+
+    /**
+     * When the whole book is replayed and its snapshots moved forward
+     */
+    private String checkpointCron = "0 0 2 * * *";
+
+    /**
+     * Width of the account ID range replayed as one unit of work
+     */
+    private int chunkSize = 10000;
+
+    /**
+     * Worker threads replaying chunks; 0 uses one per available processor
+     */
+    private int workerThreads = 0;
+
+    /**
+     * How old a posting must be before a snapshot covers it, so postings still committing
+     * with an earlier timestamp are never skipped by a later replay
+     */
+    private Duration settleWindow = Duration.ofMinutes(1);
+
+    /**
+     * Most inconsistent account IDs listed in a replay report
+     */
+    private int maxReportedInconsistencies = 100;
+}
@@ -0,0 +1,40 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the materialised customer balance summaries
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.balance-summary")
+public class BalanceSummaryProperties {
+
+    /**
+     * How often pending updates are written; they are coalesced per customer in between
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * When false reconciliation only happens when triggered explicitly
+     */
+    private boolean reconcileEnabled = true;
+
+    /**
+     * When the reconciliation against the accounts runs
+     */
+    private String reconcileCron = "0 0 3 * * *";
+
+    /**
+     * Customers compared per query during reconciliation
+     */
+    private int reconcilePageSize = 1000;
+
+    /**
+     * How long a mismatch must persist before it is repaired, so postings whose events are
+     * still being delivered or flushed are not mistaken for drift
+     */
+    private Duration settleWindow = Duration.ofSeconds(10);
+}
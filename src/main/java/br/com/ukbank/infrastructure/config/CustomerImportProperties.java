@@ -0,0 +1,33 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for bulk customer imports
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.customer-import")
+public class CustomerImportProperties {
+
+    /**
+     * Customers persisted per transaction; a multiple of the JDBC batch size keeps batches full
+     */
+    private int batchSize = 500;
+
+    /**
+     * Rejected rows listed individually in the report; the rest are only counted
+     */
+    private int maxReportedErrors = 1000;
+
+    /**
+     * Rows between progress log lines
+     */
+    private int progressInterval = 50000;
+
+    /**
+     * Longest CSV record accepted, in characters; a longer one, such as one opened by an
+     * unclosed quote, is rejected instead of being buffered to the end of the input
+     */
+    private int maxRecordLength = 8192;
+}
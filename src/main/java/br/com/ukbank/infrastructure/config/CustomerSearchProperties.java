@@ -0,0 +1,27 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for customer name search
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.customer-search")
+public class CustomerSearchProperties {
+
+    /**
+     * When false every search runs against the database
+     */
+    private boolean indexEnabled = true;
+
+    /**
+     * Customers read per query while the index warms up
+     */
+    private int warmupPageSize = 5000;
+
+    /**
+     * Upper bound on the results a single search may ask for
+     */
+    private int maxResults = 500;
+}
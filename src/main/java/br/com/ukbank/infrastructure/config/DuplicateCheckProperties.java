@@ -0,0 +1,27 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the registration duplicate check filters
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.duplicate-check")
+public class DuplicateCheckProperties {
+
+    /**
+     * When false every registration queries the database for duplicates
+     */
+    private boolean filterEnabled = true;
+
+    /**
+     * Customers each filter is sized for; beyond this the false-positive rate climbs
+     */
+    private long expectedCustomers = 1_000_000;
+
+    /**
+     * Target share of new emails or NI numbers reported as possibly present
+     */
+    private double falsePositiveRate = 0.01;
+}
@@ -0,0 +1,107 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Configuration for domain event delivery
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.events")
+public class EventPublishingProperties {
+
+    /**
+     * SYNC dispatches on the committing thread; ASYNC hands events to consumer threads;
+     * OUTBOX records them in the caller's transaction for the relay to deliver
+     */
+    private Mode mode = Mode.SYNC;
+
+    private Async async = new Async();
+
+    private Outbox outbox = new Outbox();
+
+    public enum Mode {
+        SYNC, ASYNC, OUTBOX
+    }
+
+    public enum OverflowPolicy {
+        BLOCK, DROP, SPILL
+    }
+
+    @Data
+    public static class Async {
+
+        /**
+         * Capacity of the ring buffer between committing threads and consumers
+         */
+        private int queueCapacity = 8192;
+
+        private int consumerThreads = 2;
+
+        /**
+         * Largest number of events a consumer drains per pass
+         */
+        private int batchSize = 256;
+
+        /**
+         * How long a consumer waits for the first event of a batch
+         */
+        private Duration pollTimeout = Duration.ofMillis(100);
+
+        /**
+         * What publishers do when the buffer is full
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+        /**
+         * Where overflowing events are written under the SPILL policy
+         */
+        private Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "ukbank-events");
+    }
+
+    @Data
+    public static class Outbox {
+
+        /**
+         * Name under which the relay records its offset
+         */
+        private String consumer = "default";
+
+        private int batchSize = 500;
+
+        /**
+         * Pause between polls once the relay has caught up
+         */
+        private Duration pollInterval = Duration.ofMillis(200);
+
+        /**
+         * Age after which a row is assumed committed or rolled back, letting the stored
+         * offset move past it; must exceed the longest transaction that publishes events
+         */
+        private Duration settleWindow = Duration.ofMinutes(1);
+
+        /**
+         * Deliveries attempted before an event is dead-lettered
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * How long published and dead-lettered rows are kept before the retention sweep deletes them
+         */
+        private Duration retention = Duration.ofDays(7);
+
+        /**
+         * When the retention sweep runs
+         */
+        private String retentionCron = "0 30 3 * * *";
+
+        /**
+         * Width of the outbox ID range deleted per transaction by the retention sweep
+         */
+        private int retentionBatchSize = 10000;
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.ukbank.infrastructure.config;
+
+import br.com.ukbank.domain.identity.IdGenerator;
+import br.com.ukbank.domain.identity.IdGenerators;
+import br.com.ukbank.domain.identity.SnowflakeIdGenerator;
+import br.com.ukbank.domain.model.IdGeneratorLease;
+import br.com.ukbank.infrastructure.repositories.IdGeneratorLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Installs the identifier generator used by domain objects
+ * The generator resumes after the node's stored reservation and extends it in its own
+ * transaction, so a restart or a clock stepping back never reissues an identifier.
+ */
+@Configuration
+@Slf4j
+public class IdGeneratorConfiguration {
+
+    @Bean
+    public IdGenerator idGenerator(IdGeneratorProperties properties, IdGeneratorLeaseRepository leaseRepository,
+                                   PlatformTransactionManager transactionManager) {
+        int nodeId = properties.getNodeId();
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        long issuedThrough = requiresNew.execute(status -> leaseRepository.findById(nodeId)
+            .map(IdGeneratorLease::getReservedThrough)
+            .orElse(0L));
+        if (issuedThrough > System.currentTimeMillis()) {
+            log.warn("Clock is {} ms behind identifiers reserved by node {}, continuing after them",
+                issuedThrough - System.currentTimeMillis(), nodeId);
+        }
+
+        log.info("Using Snowflake identifiers for node {}", nodeId);
+        return new SnowflakeIdGenerator(nodeId, issuedThrough, properties.getLease().toMillis(),
+            epochMillis -> requiresNew.execute(status -> {
+                IdGeneratorLease lease = leaseRepository.findForUpdate(nodeId)
+                    .orElseGet(() -> new IdGeneratorLease(nodeId));
+                long reserved = lease.reserveThrough(epochMillis);
+                leaseRepository.save(lease);
+                return reserved;
+            }));
+    }
+
+    @Bean
+    public SmartInitializingSingleton domainIdGeneratorInstaller(IdGenerator idGenerator) {
+        return () -> IdGenerators.use(idGenerator);
+    }
+}
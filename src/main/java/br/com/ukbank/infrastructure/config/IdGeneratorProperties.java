@@ -0,0 +1,25 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for transaction reference and event ID generation
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.ids")
+public class IdGeneratorProperties {
+
+    /**
+     * Node ID embedded in every identifier, unique per running instance (0-1023)
+     */
+    private int nodeId = 0;
+
+    /**
+     * How far ahead of the clock identifiers are reserved in the database, renewed halfway through
+     * A restarted node continues after the last reservation, so it never reissues an identifier
+     */
+    private Duration lease = Duration.ofSeconds(10);
+}
@@ -0,0 +1,42 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the nightly interest accrual run
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.interest")
+public class InterestAccrualProperties {
+
+    /**
+     * When false the run only happens when triggered explicitly
+     */
+    private boolean scheduleEnabled = true;
+
+    /**
+     * When the nightly run starts; it accrues the previous day
+     */
+    private String cron = "0 30 0 * * *";
+
+    /**
+     * Width of the account ID range handled as one restartable chunk
+     */
+    private int chunkSize = 10000;
+
+    /**
+     * Accounts credited per ledger transaction, ideally the JDBC batch size
+     */
+    private int postingBatchSize = 50;
+
+    /**
+     * Worker threads processing chunks; 0 uses one per available processor
+     */
+    private int workerThreads = 0;
+
+    /**
+     * Day count convention for the daily rate
+     */
+    private int daysInYear = 365;
+}
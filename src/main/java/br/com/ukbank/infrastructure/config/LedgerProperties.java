@@ -0,0 +1,81 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the ledger engine guarding account postings
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.ledger")
+public class LedgerProperties {
+
+    /**
+     * Number of lock stripes shared by all accounts, rounded up to a power of two
+     */
+    private int lockStripes = 1024;
+
+    /**
+     * Attempts made after an optimistic version conflict before giving up
+     */
+    private int maxRetries = 3;
+
+    /**
+     * Base pause between retries, multiplied by the attempt number
+     */
+    private Duration retryBackoff = Duration.ofMillis(5);
+
+    private GroupCommit groupCommit = new GroupCommit();
+
+    private Shards shards = new Shards();
+
+    @Data
+    public static class GroupCommit {
+
+        /**
+         * When on, concurrent postings are collected and committed together in one transaction
+         */
+        private boolean enabled = false;
+
+        /**
+         * Largest number of postings committed together
+         */
+        private int maxBatchSize = 64;
+
+        /**
+         * How long the first posting of a batch waits for others to join it
+         */
+        private Duration maxDelay = Duration.ofNanos(200_000);
+
+        /**
+         * Threads committing batches; batches sharing an account wait on each other's locks
+         */
+        private int committerThreads = 1;
+
+        /**
+         * Postings queued beyond this many are run on the caller's thread instead
+         */
+        private int queueCapacity = 10000;
+    }
+
+    @Data
+    public static class Shards {
+
+        /**
+         * When on, each account's postings run on the single thread of the shard owning it, without locks
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of shards; 0 means one per available processor
+         */
+        private int count = 0;
+
+        /**
+         * Postings a shard holds before submitters wait for room
+         */
+        private int mailboxCapacity = 10000;
+    }
+}
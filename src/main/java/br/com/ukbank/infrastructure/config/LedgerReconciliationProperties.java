@@ -0,0 +1,42 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for the reconciliation of account balances against their postings
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.reconciliation")
+public class LedgerReconciliationProperties {
+
+    /**
+     * When false the reconciliation only runs when triggered explicitly
+     */
+    private boolean scheduleEnabled = true;
+
+    /**
+     * When the scheduled reconciliation runs
+     */
+    private String cron = "0 0 4 * * *";
+
+    /**
+     * Width of the account ID range reconciled as one partition
+     */
+    private int chunkSize = 10000;
+
+    /**
+     * Worker threads reconciling partitions; 0 uses one per available processor
+     */
+    private int workerThreads = 0;
+
+    /**
+     * Mismatches written to the report table per transaction
+     */
+    private int recordBatchSize = 500;
+
+    /**
+     * Most mismatches written per run; later ones are still counted
+     */
+    private long maxRecordedMismatches = 100000;
+}
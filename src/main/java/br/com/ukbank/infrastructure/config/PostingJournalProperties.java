@@ -0,0 +1,66 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Configuration for the write-ahead journal of postings
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.journal")
+public class PostingJournalProperties {
+
+    /**
+     * When off, postings are inserted into the transactions table directly
+     */
+    private boolean enabled = false;
+
+    private Path directory = Paths.get(System.getProperty("java.io.tmpdir"), "ukbank-journal");
+
+    /**
+     * Size of each preallocated segment file
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * GROUP makes each commit wait for a sync covering its postings, shared with whoever
+     * commits meanwhile. INTERVAL, which synced on a timer and committed without waiting, is
+     * refused while the journal is enabled: the journal is then the only record of a posting
+     * until it is projected, so a crash could keep a balance change and lose its posting
+     */
+    private SyncMode syncMode = SyncMode.GROUP;
+
+    /**
+     * Pause before a group sync to let more commits join it; zero syncs at once
+     */
+    private Duration groupSyncDelay = Duration.ZERO;
+
+    /**
+     * How long a commit waits for its sync before failing
+     */
+    private Duration syncTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Largest number of postings inserted per projection transaction
+     */
+    private int projectionBatchSize = 500;
+
+    /**
+     * Pause between projection polls once the projector has caught up
+     */
+    private Duration projectionInterval = Duration.ofMillis(10);
+
+    /**
+     * How long readers that need every posting in the table wait for the projector
+     */
+    private Duration projectionTimeout = Duration.ofSeconds(30);
+
+    public enum SyncMode {
+        GROUP, INTERVAL
+    }
+}
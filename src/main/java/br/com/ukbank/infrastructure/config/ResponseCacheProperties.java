@@ -0,0 +1,42 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the in-process cache of account and customer reads
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.cache")
+public class ResponseCacheProperties {
+
+    /**
+     * When false every read goes straight to the database
+     */
+    private boolean enabled = true;
+
+    private Region accounts = new Region();
+
+    /**
+     * Account ID lists per customer, one entry per customer rather than per account
+     */
+    private Region customerAccounts = new Region();
+
+    private Region customers = new Region();
+
+    @Data
+    public static class Region {
+
+        /**
+         * Entries kept before the least valuable ones are evicted
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Upper bound on staleness should an invalidating event be lost
+         */
+        private Duration timeToLive = Duration.ofMinutes(10);
+    }
+}
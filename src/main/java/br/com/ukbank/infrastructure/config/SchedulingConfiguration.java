@@ -0,0 +1,12 @@
+package br.com.ukbank.infrastructure.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the scheduled batch jobs
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
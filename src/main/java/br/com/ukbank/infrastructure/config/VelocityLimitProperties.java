@@ -0,0 +1,69 @@
+package br.com.ukbank.infrastructure.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuration for the per-account and per-customer transfer velocity limits
+ */
+@Data
+@ConfigurationProperties(prefix = "ukbank.velocity")
+public class VelocityLimitProperties {
+
+    /**
+     * When false transfers are not counted or limited
+     */
+    private boolean enabled = true;
+
+    /**
+     * Accounts or customers tracked per limit; the least recently active are dropped beyond it
+     */
+    private int maxTrackedKeys = 100_000;
+
+    /**
+     * Limits on transfers out of one account
+     */
+    private List<Limit> accountLimits = new ArrayList<>(Arrays.asList(
+        new Limit(Duration.ofMinutes(1), 12, 120, null),
+        new Limit(Duration.ofDays(1), 24, 5000, new BigDecimal("1000000.00"))));
+
+    /**
+     * Limits on transfers out of all of one customer's accounts together
+     */
+    private List<Limit> customerLimits = new ArrayList<>(Arrays.asList(
+        new Limit(Duration.ofMinutes(1), 12, 300, null)));
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        /**
+         * Length of the sliding window
+         */
+        private Duration window = Duration.ofMinutes(1);
+
+        /**
+         * Buckets the window is counted in; it slides by one bucket at a time
+         */
+        private int buckets = 12;
+
+        /**
+         * Transfers allowed in the window, 0 for no limit on the count
+         */
+        private long maxCount;
+
+        /**
+         * Total amount allowed in the window, none when unset
+         */
+        private BigDecimal maxAmount;
+    }
+}
@@ -0,0 +1,172 @@
+package br.com.ukbank.infrastructure.events;
+
+import br.com.ukbank.domain.events.AccountOpenedEvent;
+import br.com.ukbank.domain.events.AccountStatusChangedEvent;
+import br.com.ukbank.domain.events.BalanceThresholdCrossedEvent;
+import br.com.ukbank.domain.events.CustomerRegisteredEvent;
+import br.com.ukbank.domain.events.CustomerStatusChangedEvent;
+import br.com.ukbank.domain.events.CustomerUpdatedEvent;
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.domain.events.TransactionProcessedEvent;
+import br.com.ukbank.domain.valueobjects.Money;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * JSON codec for domain events that leave the JVM heap
+ * Kept explicit per event type so the domain classes stay free of serialisation concerns
+ */
+@Component
+@RequiredArgsConstructor
+public class DomainEventCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public String encode(DomainEvent event) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("eventId", event.getEventId());
+        node.put("eventType", event.getEventType());
+        node.put("occurredOn", event.getOccurredOn().toString());
+
+        if (event instanceof TransactionProcessedEvent) {
+            TransactionProcessedEvent e = (TransactionProcessedEvent) event;
+            node.put("accountId", e.getAccountId());
+            node.put("customerId", e.getCustomerId());
+            node.put("transactionReference", e.getTransactionReference());
+            node.put("transactionType", e.getTransactionType());
+            putMoney(node, "amount", e.getAmount());
+            putMoney(node, "balanceAfter", e.getBalanceAfter());
+        } else if (event instanceof CustomerRegisteredEvent) {
+            CustomerRegisteredEvent e = (CustomerRegisteredEvent) event;
+            node.put("customerId", e.getCustomerId());
+            node.put("firstName", e.getFirstName());
+            node.put("lastName", e.getLastName());
+            node.put("email", e.getEmail());
+        } else if (event instanceof CustomerUpdatedEvent) {
+            CustomerUpdatedEvent e = (CustomerUpdatedEvent) event;
+            node.put("customerId", e.getCustomerId());
+            node.put("firstName", e.getFirstName());
+            node.put("lastName", e.getLastName());
+            node.put("email", e.getEmail());
+        } else if (event instanceof CustomerStatusChangedEvent) {
+            CustomerStatusChangedEvent e = (CustomerStatusChangedEvent) event;
+            node.put("customerId", e.getCustomerId());
+            node.put("status", e.getStatus());
+        } else if (event instanceof AccountOpenedEvent) {
+            AccountOpenedEvent e = (AccountOpenedEvent) event;
+            node.put("accountId", e.getAccountId());
+            node.put("customerId", e.getCustomerId());
+            node.put("accountType", e.getAccountType());
+            putMoney(node, "openingBalance", e.getOpeningBalance());
+        } else if (event instanceof AccountStatusChangedEvent) {
+            AccountStatusChangedEvent e = (AccountStatusChangedEvent) event;
+            node.put("accountId", e.getAccountId());
+            node.put("customerId", e.getCustomerId());
+            node.put("previousStatus", e.getPreviousStatus());
+            node.put("status", e.getStatus());
+            putMoney(node, "balance", e.getBalance());
+        } else if (event instanceof BalanceThresholdCrossedEvent) {
+            BalanceThresholdCrossedEvent e = (BalanceThresholdCrossedEvent) event;
+            node.put("accountId", e.getAccountId());
+            node.put("accountType", e.getAccountType());
+            node.put("threshold", e.getThreshold());
+            node.put("direction", e.getDirection());
+            putMoney(node, "thresholdAmount", e.getThresholdAmount());
+            putMoney(node, "previousBalance", e.getPreviousBalance());
+            putMoney(node, "balance", e.getBalance());
+        } else {
+            throw new IllegalArgumentException("Unsupported event type: " + event.getEventType());
+        }
+        return node.toString();
+    }
+
+    public DomainEvent decode(String json) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed event payload", e);
+        }
+
+        String eventId = node.path("eventId").asText();
+        LocalDateTime occurredOn = LocalDateTime.parse(node.path("occurredOn").asText());
+        String eventType = node.path("eventType").asText();
+
+        switch (eventType) {
+            case TransactionProcessedEvent.TYPE:
+                return new TransactionProcessedEvent(eventId, occurredOn,
+                    node.path("accountId").asLong(),
+                    readOptionalLong(node, "customerId"),
+                    node.path("transactionReference").asText(),
+                    node.path("transactionType").asText(),
+                    readMoney(node, "amount"),
+                    readMoney(node, "balanceAfter"));
+            case CustomerRegisteredEvent.TYPE:
+                return new CustomerRegisteredEvent(eventId, occurredOn,
+                    node.path("customerId").asLong(),
+                    node.path("firstName").asText(),
+                    node.path("lastName").asText(),
+                    node.path("email").asText());
+            case CustomerUpdatedEvent.TYPE:
+                return new CustomerUpdatedEvent(eventId, occurredOn,
+                    node.path("customerId").asLong(),
+                    node.path("firstName").asText(),
+                    node.path("lastName").asText(),
+                    node.path("email").asText());
+            case CustomerStatusChangedEvent.TYPE:
+                return new CustomerStatusChangedEvent(eventId, occurredOn,
+                    node.path("customerId").asLong(),
+                    node.path("status").asText());
+            case AccountOpenedEvent.TYPE:
+                return new AccountOpenedEvent(eventId, occurredOn,
+                    node.path("accountId").asLong(),
+                    node.path("customerId").asLong(),
+                    node.path("accountType").asText(),
+                    readMoney(node, "openingBalance"));
+            case AccountStatusChangedEvent.TYPE:
+                return new AccountStatusChangedEvent(eventId, occurredOn,
+                    node.path("accountId").asLong(),
+                    node.path("customerId").asLong(),
+                    node.path("previousStatus").asText(null),
+                    node.path("status").asText(),
+                    node.hasNonNull("balance") ? readMoney(node, "balance") : null);
+            case BalanceThresholdCrossedEvent.TYPE:
+                return new BalanceThresholdCrossedEvent(eventId, occurredOn,
+                    node.path("accountId").asLong(),
+                    node.path("accountType").asText(),
+                    node.path("threshold").asText(),
+                    node.path("direction").asText(),
+                    readMoney(node, "thresholdAmount"),
+                    readMoney(node, "previousBalance"),
+                    readMoney(node, "balance"));
+            default:
+                throw new IllegalArgumentException("Unsupported event type: " + eventType);
+        }
+    }
+
+    private void putMoney(ObjectNode node, String field, Money money) {
+        if (money == null) {
+            node.putNull(field);
+            return;
+        }
+        ObjectNode value = node.putObject(field);
+        value.put("minorUnits", money.getMinorUnits());
+        value.put("currency", money.getCurrency());
+    }
+
+    // Fields added after events were first stored are absent from older payloads
+    private Long readOptionalLong(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asLong() : null;
+    }
+
+    private Money readMoney(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        return Money.ofMinor(value.path("minorUnits").asLong(), value.path("currency").asText());
+    }
+}
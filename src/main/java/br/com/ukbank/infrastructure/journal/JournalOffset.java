@@ -0,0 +1,40 @@
+package br.com.ukbank.infrastructure.journal;
+
+import lombok.Getter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Last journal record whose effects have been projected into the database
+ */
+@Entity
+@Table(name = "journal_offsets")
+@Getter
+public class JournalOffset {
+
+    @Id
+    @Column(length = 64)
+    private String journal;
+
+    @Column(nullable = false)
+    private long lastSequence;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Default constructor for JPA
+    protected JournalOffset() {}
+
+    public JournalOffset(String journal) {
+        this.journal = journal;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void advanceTo(long sequence) {
+        if (sequence > lastSequence) {
+            this.lastSequence = sequence;
+            this.updatedAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.ukbank.infrastructure.journal;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for journal projection offsets
+ */
+@Repository
+public interface JournalOffsetRepository extends JpaRepository<JournalOffset, String> {
+}
@@ -0,0 +1,253 @@
+package br.com.ukbank.infrastructure.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of checksummed records in memory-mapped segment files
+ * A record is framed as its length and a CRC32 of the rest, then its sequence, its kind and
+ * the payload, and is copied straight into the mapped segment, so an append costs no system
+ * call; it only becomes durable when the journal is forced, which callers batch. Segments are
+ * preallocated files named after the sequence of their first record. When a record does not
+ * fit, the segment is forced and the next one started. Opening scans every segment and stops
+ * at the first zero length or bad checksum, which is where a write torn by a crash ends, and
+ * appending resumes from there.
+ */
+@Slf4j
+public class MappedJournal implements Closeable {
+
+    private static final String SUFFIX = ".journal";
+
+    // Length and checksum, then sequence and kind
+    private static final int FRAME_HEADER = 4 + 4;
+    private static final int RECORD_HEADER = 8 + 1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final CRC32 crc = new CRC32();
+    private final List<Segment> segments = new ArrayList<>();
+
+    private Segment current;
+    private long lastSequence;
+
+    public MappedJournal(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            Segment segment = map(file, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+            segments.add(segment);
+            segment.position = scan(segment, 0, null);
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(directory.resolve(fileName(1)), 1));
+        }
+        current = segments.get(segments.size() - 1);
+        clearTornTail(current);
+    }
+
+    /**
+     * Receives records read back from the journal; the payload is only valid during the call
+     */
+    @FunctionalInterface
+    public interface RecordReader {
+        void read(long sequence, byte kind, ByteBuffer payload);
+    }
+
+    /**
+     * Appends a record and returns its sequence; it is durable once a later force returns
+     */
+    public synchronized long append(byte kind, byte[] payload) throws IOException {
+        int length = RECORD_HEADER + payload.length;
+        if (FRAME_HEADER + length > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + payload.length + " bytes exceeds the segment size");
+        }
+        if (current.position + FRAME_HEADER + length > current.buffer.capacity()) {
+            roll();
+        }
+
+        long sequence = lastSequence + 1;
+        MappedByteBuffer buffer = current.buffer;
+        int start = current.position;
+        buffer.position(start + FRAME_HEADER);
+        buffer.putLong(sequence);
+        buffer.put(kind);
+        buffer.put(payload);
+
+        buffer.position(start + FRAME_HEADER);
+        buffer.limit(start + FRAME_HEADER + length);
+        crc.reset();
+        crc.update(buffer);
+        buffer.limit(buffer.capacity());
+        buffer.putInt(start + 4, (int) crc.getValue());
+        // Length last: until it is written the record reads as the end of the journal
+        buffer.putInt(start, length);
+
+        current.position = start + FRAME_HEADER + length;
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Forces every record appended so far to disk and returns the last one's sequence
+     * Earlier segments were forced when they filled, so only the current one is written.
+     */
+    public long force() {
+        Segment segment;
+        long through;
+        synchronized (this) {
+            segment = current;
+            through = lastSequence;
+        }
+        segment.buffer.force();
+        return through;
+    }
+
+    /**
+     * Reads back every record after the sequence, in order
+     */
+    public synchronized void read(long afterSequence, RecordReader reader) {
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            boolean later = i + 1 < segments.size() && segments.get(i + 1).firstSequence <= afterSequence + 1;
+            if (!later) {
+                scan(segment, afterSequence, reader);
+            }
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Deletes the segments whose records are all at or before the sequence, never the current one
+     */
+    public synchronized void deleteThrough(long sequence) {
+        Iterator<Segment> iterator = segments.iterator();
+        while (iterator.hasNext() && segments.size() > 1) {
+            Segment segment = iterator.next();
+            Segment next = segments.get(1);
+            if (segment == current || next.firstSequence > sequence + 1) {
+                return;
+            }
+            iterator.remove();
+            try {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                log.warn("Could not delete journal segment {}", segment.path, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        current.buffer.force();
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+        segments.clear();
+    }
+
+    private void roll() throws IOException {
+        current.buffer.force();
+        current = map(directory.resolve(fileName(lastSequence + 1)), lastSequence + 1);
+        segments.add(current);
+    }
+
+    private Segment map(Path path, long firstSequence) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            long size = Math.max(segmentSize, file.length());
+            file.setLength(size);
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            // The mapping outlives the file handle; reopen a channel only to close it with the segment
+            return new Segment(path, firstSequence, FileChannel.open(path), buffer);
+        }
+    }
+
+    // Walks the segment's valid records, handing those after the sequence to the reader; returns where they end
+    private int scan(Segment segment, long afterSequence, RecordReader reader) {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int capacity = buffer.capacity();
+        int position = 0;
+        CRC32 checksum = new CRC32();
+        while (position + FRAME_HEADER + RECORD_HEADER <= capacity) {
+            int length = buffer.getInt(position);
+            if (length < RECORD_HEADER || position + FRAME_HEADER + length > capacity) {
+                break;
+            }
+            buffer.limit(position + FRAME_HEADER + length);
+            buffer.position(position + FRAME_HEADER);
+            checksum.reset();
+            checksum.update(buffer);
+            buffer.limit(capacity);
+            if ((int) checksum.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            long sequence = buffer.getLong(position + FRAME_HEADER);
+            if (reader == null) {
+                lastSequence = sequence;
+            } else if (sequence > afterSequence) {
+                buffer.position(position + FRAME_HEADER + RECORD_HEADER);
+                buffer.limit(position + FRAME_HEADER + length);
+                reader.read(sequence, buffer.get(position + FRAME_HEADER + 8), buffer.slice());
+                buffer.limit(capacity);
+            }
+            position += FRAME_HEADER + length;
+        }
+        return position;
+    }
+
+    // Zeroes what a torn write left after the last valid record, so it cannot pass for one later
+    private void clearTornTail(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int end = buffer.capacity();
+        for (int i = segment.position; i < end && i + 8 <= end; i += 8) {
+            if (buffer.getLong(i) == 0 && (i + 16 > end || buffer.getLong(i + 8) == 0)) {
+                break;
+            }
+            buffer.putLong(i, 0);
+        }
+    }
+
+    private static String fileName(long firstSequence) {
+        return String.format("%020d%s", firstSequence, SUFFIX);
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final long firstSequence;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Segment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
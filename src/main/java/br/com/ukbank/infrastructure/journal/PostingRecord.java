@@ -0,0 +1,137 @@
+package br.com.ukbank.infrastructure.journal;
+
+import br.com.ukbank.domain.model.BankAccount;
+import br.com.ukbank.domain.model.Transaction;
+import br.com.ukbank.domain.valueobjects.Money;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A posting as written to the posting journal, with its binary codec
+ * Amounts travel as minor units and the time as UTC seconds and nanos. The account version is
+ * the one loaded before the posting, so after a crash a journaled posting whose account has
+ * since moved past it is known to have committed. An abort record names a posting whose
+ * transaction rolled back.
+ */
+@Getter
+public final class PostingRecord {
+
+    public static final byte POSTING = 1;
+    public static final byte ABORT = 2;
+
+    private final long accountId;
+    private final long accountVersion;
+    private final Transaction.TransactionType type;
+    private final long amount;
+    private final String amountCurrency;
+    private final long balanceAfter;
+    private final String balanceAfterCurrency;
+    private final String description;
+    private final String reference;
+    private final String transactionReference;
+    private final LocalDateTime processedAt;
+
+    private PostingRecord(long accountId, long accountVersion, Transaction.TransactionType type,
+                          long amount, String amountCurrency, long balanceAfter, String balanceAfterCurrency,
+                          String description, String reference, String transactionReference,
+                          LocalDateTime processedAt) {
+        this.accountId = accountId;
+        this.accountVersion = accountVersion;
+        this.type = type;
+        this.amount = amount;
+        this.amountCurrency = amountCurrency;
+        this.balanceAfter = balanceAfter;
+        this.balanceAfterCurrency = balanceAfterCurrency;
+        this.description = description;
+        this.reference = reference;
+        this.transactionReference = transactionReference;
+        this.processedAt = processedAt;
+    }
+
+    public static PostingRecord of(Transaction transaction) {
+        BankAccount account = transaction.getAccount();
+        return new PostingRecord(account.getAccountId(),
+            account.getVersion() != null ? account.getVersion() : -1,
+            transaction.getType(),
+            transaction.getAmount().getMinorUnits(), transaction.getAmount().getCurrency(),
+            transaction.getBalanceAfter().getMinorUnits(), transaction.getBalanceAfter().getCurrency(),
+            transaction.getDescription(), transaction.getReference(), transaction.getTransactionReference(),
+            transaction.getProcessedAt());
+    }
+
+    /**
+     * Rebuilds the posting against the account it belongs to
+     */
+    public Transaction toTransaction(BankAccount account) {
+        return Transaction.restore(account, type,
+            Money.ofMinor(amount, amountCurrency), Money.ofMinor(balanceAfter, balanceAfterCurrency),
+            description, reference, transactionReference, processedAt);
+    }
+
+    public byte[] encode() {
+        byte[] amountCurrencyBytes = utf8(amountCurrency);
+        byte[] balanceAfterCurrencyBytes = utf8(balanceAfterCurrency);
+        byte[] descriptionBytes = utf8(description);
+        byte[] referenceBytes = utf8(reference);
+        byte[] transactionReferenceBytes = utf8(transactionReference);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 8 + 1 + 8 + 8 + 8 + 4 + 5 * 2
+            + amountCurrencyBytes.length + balanceAfterCurrencyBytes.length + descriptionBytes.length
+            + referenceBytes.length + transactionReferenceBytes.length);
+        buffer.putLong(accountId);
+        buffer.putLong(accountVersion);
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(amount);
+        buffer.putLong(balanceAfter);
+        buffer.putLong(processedAt.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(processedAt.getNano());
+        putString(buffer, amountCurrencyBytes);
+        putString(buffer, balanceAfterCurrencyBytes);
+        putString(buffer, descriptionBytes);
+        putString(buffer, referenceBytes);
+        putString(buffer, transactionReferenceBytes);
+        return buffer.array();
+    }
+
+    public static PostingRecord decode(ByteBuffer payload) {
+        long accountId = payload.getLong();
+        long accountVersion = payload.getLong();
+        Transaction.TransactionType type = Transaction.TransactionType.values()[payload.get()];
+        long amount = payload.getLong();
+        long balanceAfter = payload.getLong();
+        LocalDateTime processedAt = LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC);
+        return new PostingRecord(accountId, accountVersion, type,
+            amount, getString(payload), balanceAfter, getString(payload),
+            getString(payload), getString(payload), getString(payload), processedAt);
+    }
+
+    public static byte[] encodeAbort(long sequence) {
+        return ByteBuffer.allocate(8).putLong(sequence).array();
+    }
+
+    public static long decodeAbort(ByteBuffer payload) {
+        return payload.getLong();
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Posting field too long to journal: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.ukbank.infrastructure.outbox;
+
+import lombok.Getter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Domain event recorded in the same transaction as the change that raised it
+ */
+@Entity
+@Table(name = "outbox_events")
+@Getter
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 32)
+    private String eventId;
+
+    @Column(nullable = false, length = 64)
+    private String eventType;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private boolean deadLettered;
+
+    // Comma-separated handlers that accepted the event on an earlier, partly failed delivery
+    @Column(length = 1000)
+    private String deliveredHandlers;
+
+    private LocalDateTime publishedAt;
+
+    // Default constructor for JPA
+    protected OutboxEvent() {}
+
+    public OutboxEvent(String eventId, String eventType, String payload) {
+        this.eventId = eventId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.recordedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.ukbank.infrastructure.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for outbox events, read by keyset on the primary key
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id > :afterId AND e.publishedAt IS NULL AND e.deadLettered = false ORDER BY e.id")
+    List<OutboxEvent> findPendingAfter(@Param("afterId") long afterId, Pageable page);
+
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id <= :throughId AND e.publishedAt IS NULL AND e.deadLettered = false ORDER BY e.id")
+    List<OutboxEvent> findPendingThrough(@Param("throughId") long throughId, Pageable page);
+
+    @Query("SELECT MIN(e.id) FROM OutboxEvent e WHERE e.id > :afterId AND e.publishedAt IS NULL AND e.deadLettered = false")
+    Optional<Long> findFirstPendingIdAfter(@Param("afterId") long afterId);
+
+    @Query("SELECT MAX(e.id) FROM OutboxEvent e WHERE e.id > :afterId AND e.recordedAt <= :settledBefore")
+    Optional<Long> findLastSettledIdAfter(@Param("afterId") long afterId,
+                                          @Param("settledBefore") LocalDateTime settledBefore);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error, " +
+           "e.deliveredHandlers = :deliveredHandlers, " +
+           "e.deadLettered = (CASE WHEN e.attempts + 1 >= :maxAttempts THEN true ELSE false END) WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("error") String error,
+                      @Param("deliveredHandlers") String deliveredHandlers, @Param("maxAttempts") int maxAttempts);
+
+    long countByDeadLetteredTrue();
+
+    @Query("SELECT MIN(e.id) FROM OutboxEvent e")
+    Optional<Long> findFirstId();
+
+    @Query("SELECT MAX(e.id) FROM OutboxEvent e WHERE e.id <= :throughId AND e.recordedAt < :recordedBefore")
+    Optional<Long> findLastIdRecordedBefore(@Param("throughId") long throughId,
+                                            @Param("recordedBefore") LocalDateTime recordedBefore);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id >= :fromId AND e.id <= :throughId AND e.recordedAt < :recordedBefore " +
+           "AND (e.publishedAt IS NOT NULL OR e.deadLettered = true)")
+    int deleteFinishedBetween(@Param("fromId") long fromId, @Param("throughId") long throughId,
+                              @Param("recordedBefore") LocalDateTime recordedBefore);
+}
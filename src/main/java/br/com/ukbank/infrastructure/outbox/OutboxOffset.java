@@ -0,0 +1,40 @@
+package br.com.ukbank.infrastructure.outbox;
+
+import lombok.Getter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Last outbox event a relay consumer has finished with
+ */
+@Entity
+@Table(name = "outbox_offsets")
+@Getter
+public class OutboxOffset {
+
+    @Id
+    @Column(length = 64)
+    private String consumer;
+
+    @Column(nullable = false)
+    private long lastEventId;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Default constructor for JPA
+    protected OutboxOffset() {}
+
+    public OutboxOffset(String consumer) {
+        this.consumer = consumer;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void advanceTo(long eventId) {
+        if (eventId > lastEventId) {
+            this.lastEventId = eventId;
+            this.updatedAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package br.com.ukbank.infrastructure.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for relay consumer offsets
+ */
+@Repository
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, String> {
+
+    @Query("SELECT MIN(o.lastEventId) FROM OutboxOffset o")
+    Optional<Long> findLowestOffset();
+}
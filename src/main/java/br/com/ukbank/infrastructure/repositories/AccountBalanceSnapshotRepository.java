@@ -0,0 +1,19 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.AccountBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for the checkpointed account balance snapshots
+ */
+@Repository
+public interface AccountBalanceSnapshotRepository extends JpaRepository<AccountBalanceSnapshot, Long> {
+
+    @Query("SELECT s FROM AccountBalanceSnapshot s WHERE s.accountId BETWEEN :firstId AND :lastId")
+    List<AccountBalanceSnapshot> findByAccountIdRange(@Param("firstId") long firstId, @Param("lastId") long lastId);
+}
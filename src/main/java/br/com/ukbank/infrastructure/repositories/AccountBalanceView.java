@@ -0,0 +1,21 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.BankAccount;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of an account's type, status and balance, used to build the balance index
+ */
+public interface AccountBalanceView {
+
+    Long getAccountId();
+
+    BankAccount.AccountType getAccountType();
+
+    BankAccount.AccountStatus getStatus();
+
+    BigDecimal getBalance();
+
+    String getCurrency();
+}
@@ -0,0 +1,22 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.AccountNumberRange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+/**
+ * Repository for account number high-water marks
+ */
+@Repository
+public interface AccountNumberRangeRepository extends JpaRepository<AccountNumberRange, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM AccountNumberRange r WHERE r.sortCode = :sortCode")
+    Optional<AccountNumberRange> findForUpdate(@Param("sortCode") String sortCode);
+}
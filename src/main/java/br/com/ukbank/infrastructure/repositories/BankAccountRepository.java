@@ -4,14 +4,23 @@ import br.com.ukbank.domain.model.BankAccount;
 import br.com.ukbank.domain.model.Customer;
 import br.com.ukbank.domain.valueobjects.AccountIdentifier;
 import br.com.ukbank.domain.valueobjects.Money;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * Repository interface for BankAccount aggregate following DDD principles
@@ -22,10 +31,121 @@ public interface BankAccountRepository extends JpaRepository<BankAccount, Long>
     @Query("SELECT a FROM BankAccount a WHERE a.identifier.accountNumber = :accountNumber AND a.identifier.sortCode = :sortCode")
     Optional<BankAccount> findByAccountNumberAndSortCode(@Param("accountNumber") String accountNumber, @Param("sortCode") String sortCode);
 
+    /**
+     * Resolves a destination account before any ledger lock is taken
+     * Runs in its own read-only transaction so the connection is returned straight away
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT a.accountId FROM BankAccount a WHERE a.identifier.accountNumber = :accountNumber AND a.identifier.sortCode = :sortCode")
+    Optional<Long> findAccountIdByAccountNumberAndSortCode(@Param("accountNumber") String accountNumber, @Param("sortCode") String sortCode);
+
     List<BankAccount> findByCustomer(Customer customer);
 
     List<BankAccount> findByCustomerCustomerId(Long customerId);
 
+    String VIEW_SELECT = "SELECT new br.com.ukbank.infrastructure.repositories.BankAccountView(a.accountId, " +
+        "a.identifier.accountNumber, a.identifier.sortCode, a.accountType, a.balance.amount, a.balance.currency, " +
+        "a.overdraftLimit.amount, a.interestRate, a.status, a.openedAt, c.customerId, " +
+        "c.personalName.firstName, c.personalName.lastName) " +
+        "FROM BankAccount a JOIN a.customer c ";
+
+    @Transactional(readOnly = true)
+    @Query(VIEW_SELECT + "WHERE a.accountId = :accountId")
+    Optional<BankAccountView> findViewById(@Param("accountId") Long accountId);
+
+    @Transactional(readOnly = true)
+    @Query(VIEW_SELECT + "WHERE a.accountId IN :accountIds")
+    List<BankAccountView> findViewsByIdIn(@Param("accountIds") Collection<Long> accountIds);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT a.accountId FROM BankAccount a WHERE a.customer.customerId = :customerId ORDER BY a.accountId")
+    List<Long> findAccountIdsByCustomerId(@Param("customerId") Long customerId);
+
+    String BALANCE_SELECT = "SELECT a.accountId AS accountId, a.accountType AS accountType, a.status AS status, " +
+        "a.balance.amount AS balance, a.balance.currency AS currency FROM BankAccount a ";
+
+    /**
+     * Pages through the balances of accounts that are not closed by keyset
+     */
+    @Transactional(readOnly = true)
+    @Query(BALANCE_SELECT + "WHERE a.accountId > :afterId AND a.status <> 'CLOSED' ORDER BY a.accountId")
+    List<AccountBalanceView> findBalancesAfter(@Param("afterId") long afterId, Pageable page);
+
+    @Transactional(readOnly = true)
+    @Query(BALANCE_SELECT + "WHERE a.accountId IN :accountIds")
+    List<AccountBalanceView> findBalancesByIdIn(@Param("accountIds") Collection<Long> accountIds);
+
+    /**
+     * Balances of every account in the ID range, closed ones included
+     */
+    @Transactional(readOnly = true)
+    @Query(BALANCE_SELECT + "WHERE a.accountId BETWEEN :firstId AND :lastId")
+    List<AccountBalanceView> findBalancesByIdRange(@Param("firstId") long firstId, @Param("lastId") long lastId);
+
+    /**
+     * Scrolls through the balances of every account in the ID range in ID order; must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(BALANCE_SELECT + "WHERE a.accountId BETWEEN :firstId AND :lastId ORDER BY a.accountId")
+    Stream<AccountBalanceView> streamBalancesByIdRange(@Param("firstId") long firstId, @Param("lastId") long lastId);
+
+    /**
+     * Accounts not closed with a balance below the threshold, lowest first
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT a.accountId FROM BankAccount a WHERE a.balance.amount < :threshold AND a.status <> 'CLOSED' " +
+           "ORDER BY a.balance.amount, a.accountId")
+    List<Long> findIdsWithBalanceBelow(@Param("threshold") BigDecimal threshold, Pageable page);
+
+    /**
+     * Accounts of the type not closed with a balance above the threshold, highest first
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT a.accountId FROM BankAccount a WHERE a.accountType = :accountType " +
+           "AND a.balance.amount > :threshold AND a.status <> 'CLOSED' ORDER BY a.balance.amount DESC, a.accountId DESC")
+    List<Long> findIdsByTypeWithBalanceAbove(@Param("accountType") BankAccount.AccountType accountType,
+                                             @Param("threshold") BigDecimal threshold, Pageable page);
+
+    /**
+     * Total balance and count of the active accounts of each listed customer that has any,
+     * as rows of customer ID, balance and count
+     */
+    @Query("SELECT a.customer.customerId, SUM(a.balance.amount), COUNT(a) FROM BankAccount a " +
+           "WHERE a.customer.customerId IN :customerIds AND a.status = 'ACTIVE' GROUP BY a.customer.customerId")
+    List<Object[]> summariseActiveAccounts(@Param("customerIds") Collection<Long> customerIds);
+
+    /**
+     * Bounds of the account IDs that earn interest, as a two-element row of nulls when there are none
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT MIN(a.accountId), MAX(a.accountId) FROM BankAccount a WHERE a.interestRate > 0")
+    List<Object[]> findInterestBearingIdRange();
+
+    /**
+     * Bounds of all account IDs, as a two-element row of nulls when there are none
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT MIN(a.accountId), MAX(a.accountId) FROM BankAccount a")
+    List<Object[]> findIdRange();
+
+    /**
+     * Current version of each account, as (accountId, version) pairs
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT a.accountId, a.version FROM BankAccount a WHERE a.accountId IN :accountIds")
+    List<Object[]> findVersionsByIdIn(@Param("accountIds") Collection<Long> accountIds);
+
+    /**
+     * Active interest-earning accounts in the ID range not yet accrued for the business date
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT a.accountId FROM BankAccount a WHERE a.accountId BETWEEN :firstId AND :lastId " +
+           "AND a.interestRate > 0 AND a.status = 'ACTIVE' " +
+           "AND (a.interestAccruedThrough IS NULL OR a.interestAccruedThrough < :businessDate) ORDER BY a.accountId")
+    List<Long> findIdsDueInterest(@Param("firstId") long firstId,
+                                  @Param("lastId") long lastId,
+                                  @Param("businessDate") LocalDate businessDate);
+
     List<BankAccount> findByAccountType(BankAccount.AccountType accountType);
 
     List<BankAccount> findByStatus(BankAccount.AccountStatus status);
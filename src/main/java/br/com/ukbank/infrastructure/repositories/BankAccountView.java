@@ -0,0 +1,42 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.BankAccount;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of an account and its holder's name, selected in a single query
+ */
+@Getter
+@AllArgsConstructor
+public class BankAccountView {
+
+    private final Long accountId;
+
+    private final String accountNumber;
+
+    private final String sortCode;
+
+    private final BankAccount.AccountType accountType;
+
+    private final BigDecimal balance;
+
+    private final String currency;
+
+    private final BigDecimal overdraftLimit;
+
+    private final BigDecimal interestRate;
+
+    private final BankAccount.AccountStatus status;
+
+    private final LocalDateTime openedAt;
+
+    private final Long customerId;
+
+    private final String customerFirstName;
+
+    private final String customerLastName;
+}
@@ -0,0 +1,40 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.CustomerBalanceSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the materialised customer balance summaries
+ */
+@Repository
+public interface CustomerBalanceSummaryRepository extends JpaRepository<CustomerBalanceSummary, Long> {
+
+    /**
+     * Adds to a summary in place, so concurrent updates for one customer never overwrite each other
+     * Returns 0 when the customer has no summary yet
+     */
+    @Modifying
+    @Query("UPDATE CustomerBalanceSummary s SET s.totalActiveBalance = s.totalActiveBalance + :balanceDelta, " +
+           "s.activeAccountCount = s.activeAccountCount + :countDelta, " +
+           "s.lastActivityAt = CASE WHEN s.lastActivityAt IS NULL OR s.lastActivityAt < :activityAt " +
+           "THEN :activityAt ELSE s.lastActivityAt END WHERE s.customerId = :customerId")
+    int applyDelta(@Param("customerId") Long customerId,
+                   @Param("balanceDelta") BigDecimal balanceDelta,
+                   @Param("countDelta") long countDelta,
+                   @Param("activityAt") LocalDateTime activityAt);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CustomerBalanceSummary s WHERE s.customerId IN :customerIds")
+    List<CustomerBalanceSummary> findAllForUpdate(@Param("customerIds") Collection<Long> customerIds);
+}
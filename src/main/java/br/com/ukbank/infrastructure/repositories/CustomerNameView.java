@@ -0,0 +1,13 @@
+package br.com.ukbank.infrastructure.repositories;
+
+/**
+ * Projection of a customer's name, used to build search indexes without loading aggregates
+ */
+public interface CustomerNameView {
+
+    Long getCustomerId();
+
+    String getFirstName();
+
+    String getLastName();
+}
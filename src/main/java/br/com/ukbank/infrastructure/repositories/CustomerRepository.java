@@ -2,13 +2,21 @@ package br.com.ukbank.infrastructure.repositories;
 
 import br.com.ukbank.domain.model.Customer;
 import br.com.ukbank.domain.valueobjects.NationalInsuranceNumber;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * Repository interface for Customer aggregate following DDD principles
@@ -17,6 +25,19 @@ import java.util.Optional;
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
+    String VIEW_SELECT = "SELECT new br.com.ukbank.infrastructure.repositories.CustomerView(c.customerId, " +
+        "c.personalName.firstName, c.personalName.lastName, c.email, c.phoneNumber.number, c.dateOfBirth, " +
+        "c.address.addressLine, c.address.postcode, c.nationalInsuranceNumber.value, c.status, " +
+        "c.registeredAt, c.lastUpdatedAt) FROM Customer c ";
+
+    @Transactional(readOnly = true)
+    @Query(VIEW_SELECT + "WHERE c.customerId = :customerId")
+    Optional<CustomerView> findViewById(@Param("customerId") Long customerId);
+
+    @Transactional(readOnly = true)
+    @Query(VIEW_SELECT + "WHERE c.customerId IN :customerIds")
+    List<CustomerView> findViewsByIdIn(@Param("customerIds") Collection<Long> customerIds);
+
     Optional<Customer> findByEmail(String email);
 
     @Query("SELECT c FROM Customer c WHERE c.nationalInsuranceNumber.value = :niNumber")
@@ -24,11 +45,51 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     List<Customer> findByStatus(Customer.CustomerStatus status);
 
+    @Query(VIEW_SELECT + "WHERE c.status = :status AND c.customerId > :afterId ORDER BY c.customerId")
+    List<CustomerView> findViewsByStatusAfter(@Param("status") Customer.CustomerStatus status,
+                                              @Param("afterId") long afterId,
+                                              Pageable page);
+
+    /**
+     * Scrolls through every customer with the status; must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(VIEW_SELECT + "WHERE c.status = :status ORDER BY c.customerId")
+    Stream<CustomerView> streamViewsByStatus(@Param("status") Customer.CustomerStatus status);
+
     @Query("SELECT c FROM Customer c WHERE " +
            "LOWER(c.personalName.firstName) LIKE LOWER(CONCAT('%', :name, '%')) OR " +
            "LOWER(c.personalName.lastName) LIKE LOWER(CONCAT('%', :name, '%'))")
     List<Customer> findByNameContaining(@Param("name") String name);
 
+    @Query(VIEW_SELECT + "WHERE " +
+           "LOWER(c.personalName.firstName) LIKE LOWER(CONCAT('%', :name, '%')) OR " +
+           "LOWER(c.personalName.lastName) LIKE LOWER(CONCAT('%', :name, '%')) " +
+           "ORDER BY c.personalName.lastName, c.personalName.firstName, c.customerId")
+    List<CustomerView> findViewsByNameContaining(@Param("name") String name, Pageable page);
+
+    /**
+     * Pages through customer names by keyset on the ID
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT c.customerId AS customerId, c.personalName.firstName AS firstName, " +
+           "c.personalName.lastName AS lastName FROM Customer c WHERE c.customerId > :afterId ORDER BY c.customerId")
+    List<CustomerNameView> findNamesAfter(@Param("afterId") long afterId, Pageable page);
+
+    /**
+     * Pages through customer IDs by keyset
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT c.customerId FROM Customer c WHERE c.customerId > :afterId ORDER BY c.customerId")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable page);
+
+    /**
+     * Scrolls through every customer's email and NI number; must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "5000"))
+    @Query("SELECT c.email, c.nationalInsuranceNumber.value FROM Customer c")
+    Stream<Object[]> streamIdentityKeys();
+
     boolean existsByEmail(String email);
 
     @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END FROM Customer c WHERE c.nationalInsuranceNumber.value = :niNumber")
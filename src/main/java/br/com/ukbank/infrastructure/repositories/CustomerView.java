@@ -0,0 +1,40 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.Customer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of the customer columns exposed by the API, built by constructor expression
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerView {
+
+    private final Long customerId;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final String email;
+
+    private final String phoneNumber;
+
+    private final LocalDate dateOfBirth;
+
+    private final String addressLine;
+
+    private final String postcode;
+
+    private final String nationalInsuranceNumber;
+
+    private final Customer.CustomerStatus status;
+
+    private final LocalDateTime registeredAt;
+
+    private final LocalDateTime lastUpdatedAt;
+}
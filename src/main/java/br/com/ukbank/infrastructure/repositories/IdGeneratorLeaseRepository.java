@@ -0,0 +1,22 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.IdGeneratorLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+/**
+ * Repository for identifier generator reservations
+ */
+@Repository
+public interface IdGeneratorLeaseRepository extends JpaRepository<IdGeneratorLease, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM IdGeneratorLease l WHERE l.nodeId = :nodeId")
+    Optional<IdGeneratorLease> findForUpdate(@Param("nodeId") int nodeId);
+}
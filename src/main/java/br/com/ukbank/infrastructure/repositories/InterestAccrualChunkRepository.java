@@ -0,0 +1,17 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.InterestAccrualChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository for the chunk plan of interest accrual runs
+ */
+@Repository
+public interface InterestAccrualChunkRepository extends JpaRepository<InterestAccrualChunk, Long> {
+
+    List<InterestAccrualChunk> findByBusinessDateOrderByFirstAccountId(LocalDate businessDate);
+}
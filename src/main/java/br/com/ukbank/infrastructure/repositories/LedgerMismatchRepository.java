@@ -0,0 +1,17 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.LedgerMismatch;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for the mismatches found by ledger reconciliation runs
+ */
+@Repository
+public interface LedgerMismatchRepository extends JpaRepository<LedgerMismatch, Long> {
+
+    List<LedgerMismatch> findByRunIdOrderByAccountIdAscIdAsc(Long runId, Pageable page);
+}
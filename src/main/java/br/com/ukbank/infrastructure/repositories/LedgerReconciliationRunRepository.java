@@ -0,0 +1,12 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.LedgerReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the ledger reconciliation run headers
+ */
+@Repository
+public interface LedgerReconciliationRunRepository extends JpaRepository<LedgerReconciliationRun, Long> {
+}
@@ -0,0 +1,28 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of the parts of a posting a balance replay needs
+ */
+@Getter
+@AllArgsConstructor
+public class ReplayPostingView {
+
+    private final Long accountId;
+
+    private final Long transactionId;
+
+    private final LocalDateTime processedAt;
+
+    private final Transaction.TransactionType type;
+
+    private final BigDecimal amount;
+
+    private final BigDecimal balanceAfter;
+}
@@ -0,0 +1,34 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of one posting as it appears on a statement
+ */
+@Getter
+@AllArgsConstructor
+public class StatementLineView {
+
+    private final Long transactionId;
+
+    private final LocalDateTime processedAt;
+
+    private final Transaction.TransactionType type;
+
+    private final BigDecimal amount;
+
+    private final String currency;
+
+    private final BigDecimal balanceAfter;
+
+    private final String description;
+
+    private final String reference;
+
+    private final String transactionReference;
+}
@@ -0,0 +1,85 @@
+package br.com.ukbank.infrastructure.repositories;
+
+import br.com.ukbank.domain.model.Transaction;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.RepositoryDefinition;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * Append-only journal of account postings
+ * Exposes inserts only, so writing a posting never touches the BankAccount
+ * transaction collection however long the account history is
+ */
+@Repository
+@RepositoryDefinition(domainClass = Transaction.class, idClass = Long.class)
+public interface TransactionRepository {
+
+    Transaction save(Transaction transaction);
+
+    /**
+     * Scrolls through an account's postings in [from, to) in posting order; must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new br.com.ukbank.infrastructure.repositories.StatementLineView(t.transactionId, t.processedAt, " +
+           "t.type, t.amount.amount, t.amount.currency, t.balanceAfter.amount, t.description, t.reference, " +
+           "t.transactionReference) FROM Transaction t WHERE t.account.accountId = :accountId " +
+           "AND t.processedAt >= :from AND t.processedAt < :to ORDER BY t.processedAt, t.transactionId")
+    Stream<StatementLineView> streamStatement(@Param("accountId") Long accountId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
+
+    String REPLAY_SELECT = "SELECT new br.com.ukbank.infrastructure.repositories.ReplayPostingView(" +
+        "t.account.accountId, t.transactionId, t.processedAt, t.type, t.amount.amount, t.balanceAfter.amount) ";
+
+    /**
+     * Scrolls through all postings of the accounts in the ID range, by account and in posting
+     * order; must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "5000"))
+    @Query(REPLAY_SELECT + "FROM Transaction t WHERE t.account.accountId BETWEEN :firstId AND :lastId " +
+           "ORDER BY t.account.accountId, t.processedAt, t.transactionId")
+    Stream<ReplayPostingView> streamReplay(@Param("firstId") long firstId, @Param("lastId") long lastId);
+
+    /**
+     * Scrolls through the postings made since their snapshots of the accounts in the ID range
+     * that have one, by account and in posting order; must be consumed inside a transaction
+     * Driven from the snapshots, so each account's postings are read from its snapshot onwards
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "5000"))
+    @Query(REPLAY_SELECT + "FROM AccountBalanceSnapshot s, Transaction t " +
+           "WHERE s.accountId BETWEEN :firstId AND :lastId AND t.account.accountId = s.accountId " +
+           "AND t.processedAt >= s.throughProcessedAt " +
+           "AND (t.processedAt > s.throughProcessedAt OR t.transactionId > s.throughTransactionId) " +
+           "ORDER BY t.account.accountId, t.processedAt, t.transactionId")
+    Stream<ReplayPostingView> streamReplayAfterSnapshots(@Param("firstId") long firstId,
+                                                         @Param("lastId") long lastId);
+
+    /**
+     * Scrolls through all of an account's postings in posting order; must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(REPLAY_SELECT + "FROM Transaction t WHERE t.account.accountId = :accountId " +
+           "ORDER BY t.processedAt, t.transactionId")
+    Stream<ReplayPostingView> streamReplay(@Param("accountId") Long accountId);
+
+    /**
+     * Scrolls through an account's postings after the given one in posting order; must be
+     * consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(REPLAY_SELECT + "FROM Transaction t WHERE t.account.accountId = :accountId " +
+           "AND t.processedAt >= :afterProcessedAt " +
+           "AND (t.processedAt > :afterProcessedAt OR t.transactionId > :afterTransactionId) " +
+           "ORDER BY t.processedAt, t.transactionId")
+    Stream<ReplayPostingView> streamReplayAfter(@Param("accountId") Long accountId,
+                                                @Param("afterProcessedAt") LocalDateTime afterProcessedAt,
+                                                @Param("afterTransactionId") Long afterTransactionId);
+}
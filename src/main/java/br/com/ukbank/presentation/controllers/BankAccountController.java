@@ -0,0 +1,163 @@
+package br.com.ukbank.presentation.controllers;
+
+import br.com.ukbank.application.dto.AccountRebuildResponse;
+import br.com.ukbank.application.dto.BalanceReplayReport;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.LedgerMismatchResponse;
+import br.com.ukbank.application.dto.LedgerReconciliationReport;
+import br.com.ukbank.application.services.BalanceReplayService;
+import br.com.ukbank.application.services.BankingAccountService;
+import br.com.ukbank.application.services.LedgerReconciliationService;
+import br.com.ukbank.application.services.StatementWriter;
+import br.com.ukbank.domain.model.AccountType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST Controller for bank account operations
+ */
+@RestController
+@RequestMapping("/api/accounts")
+@RequiredArgsConstructor
+@Slf4j
+public class BankAccountController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final BankingAccountService accountService;
+    private final BalanceReplayService replayService;
+    private final LedgerReconciliationService reconciliationService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Get open accounts with a balance below the amount, lowest first
+     */
+    @GetMapping(value = "/low-balance", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BankAccountResponse>> getLowBalanceAccounts(
+            @RequestParam BigDecimal below,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("Retrieving accounts with balance below {}", below);
+
+        return ResponseEntity.ok(accountService.getAccountsWithBalanceBelow(below, limit));
+    }
+
+    /**
+     * Get open accounts of a type with a balance above the amount, highest first
+     */
+    @GetMapping(value = "/high-value", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BankAccountResponse>> getHighValueAccounts(
+            @RequestParam(defaultValue = "SAVINGS") AccountType type,
+            @RequestParam BigDecimal above,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("Retrieving {} accounts with balance above {}", type, above);
+
+        return ResponseEntity.ok(accountService.getAccountsWithBalanceAbove(type, above, limit));
+    }
+
+    /**
+     * Rebuild an account's balance from its snapshot and later postings, checking it against the stored one
+     */
+    @GetMapping(value = "/{accountId}/rebuild", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AccountRebuildResponse> rebuildAccount(@PathVariable Long accountId) {
+        log.info("Rebuilding balance of account ID {}", accountId);
+
+        return ResponseEntity.ok(replayService.rebuildAccount(accountId));
+    }
+
+    /**
+     * Replay the whole book from its snapshots, optionally moving the snapshots forward
+     */
+    @PostMapping(value = "/replay", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BalanceReplayReport> replayBook(@RequestParam(defaultValue = "false") boolean checkpoint) {
+        log.info("Replaying the book, checkpoint {}", checkpoint);
+
+        return ResponseEntity.ok(replayService.replayBook(checkpoint));
+    }
+
+    /**
+     * Reconcile every account's balance and balance-after chain against its postings
+     */
+    @PostMapping(value = "/reconciliations", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<LedgerReconciliationReport> reconcileLedger() {
+        log.info("Reconciling the ledger");
+
+        return ResponseEntity.ok(reconciliationService.reconcile());
+    }
+
+    /**
+     * Get the mismatches a reconciliation run recorded, by account
+     */
+    @GetMapping(value = "/reconciliations/{runId}/mismatches", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<LedgerMismatchResponse>> getReconciliationMismatches(
+            @PathVariable Long runId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        log.info("Retrieving mismatches of reconciliation run {}", runId);
+
+        return ResponseEntity.ok(reconciliationService.getMismatches(runId, page, size));
+    }
+
+    /**
+     * Stream an account statement for a date range as CSV
+     */
+    @GetMapping(value = "/{accountId}/statement", produces = TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> getStatementCsv(
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Streaming CSV statement for account ID {} from {} to {}", accountId, from, to);
+
+        BankAccountResponse account = accountService.prepareStatement(accountId, from, to);
+        StreamingResponseBody body = out -> {
+            try (StatementWriter writer = StatementWriter.csv(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                accountService.writeStatement(accountId, from, to, writer);
+            }
+        };
+        return statement(account, from, to, "csv", MediaType.parseMediaType(TEXT_CSV_VALUE), body);
+    }
+
+    /**
+     * Stream an account statement for a date range as newline-delimited JSON
+     */
+    @GetMapping(value = "/{accountId}/statement", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getStatementNdjson(
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Streaming NDJSON statement for account ID {} from {} to {}", accountId, from, to);
+
+        BankAccountResponse account = accountService.prepareStatement(accountId, from, to);
+        StreamingResponseBody body = out -> {
+            try (StatementWriter writer = StatementWriter.ndjson(
+                    new OutputStreamWriter(out, StandardCharsets.UTF_8), objectMapper)) {
+                accountService.writeStatement(accountId, from, to, writer);
+            }
+        };
+        return statement(account, from, to, "ndjson", MediaType.APPLICATION_NDJSON, body);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> statement(BankAccountResponse account, LocalDate from,
+                                                                   LocalDate to, String extension,
+                                                                   MediaType mediaType, StreamingResponseBody body) {
+        String filename = "statement-" + account.getSortCode() + "-" + account.getAccountNumber()
+            + "-" + from + "-" + to + "." + extension;
+        return ResponseEntity.ok()
+            .contentType(mediaType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+            .body(body);
+    }
+}
@@ -2,13 +2,24 @@ package br.com.ukbank.presentation.controllers;
 
 import br.com.ukbank.application.dto.*;
 import br.com.ukbank.application.services.CustomerApplicationService;
+import br.com.ukbank.application.services.CustomerBalanceSummaryService;
+import br.com.ukbank.application.services.CustomerImportService;
+import br.com.ukbank.application.services.CustomerRecordReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -21,7 +32,12 @@ import java.util.List;
 @Slf4j
 public class CustomerController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final CustomerApplicationService customerService;
+    private final CustomerImportService importService;
+    private final CustomerBalanceSummaryService balanceSummaryService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Register a new customer
@@ -37,6 +53,31 @@ public class CustomerController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    /**
+     * Bulk register customers from a CSV file with a header row
+     */
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<CustomerImportReport> importCustomersCsv(InputStream body) throws IOException {
+        log.info("Received CSV customer import");
+
+        try (CustomerRecordReader reader = importService.csvReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            return ResponseEntity.ok(importService.importCustomers(reader));
+        }
+    }
+
+    /**
+     * Bulk register customers from newline-delimited JSON registration requests
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<CustomerImportReport> importCustomersNdjson(InputStream body) throws IOException {
+        log.info("Received NDJSON customer import");
+
+        try (CustomerRecordReader reader = CustomerRecordReader.ndjson(
+                new InputStreamReader(body, StandardCharsets.UTF_8), objectMapper)) {
+            return ResponseEntity.ok(importService.importCustomers(reader));
+        }
+    }
+
     /**
      * Get customer by ID
      */
@@ -48,6 +89,16 @@ public class CustomerController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get a customer's total active balance and active account count
+     */
+    @GetMapping("/{customerId}/balance-summary")
+    public ResponseEntity<CustomerBalanceSummaryResponse> getBalanceSummary(@PathVariable Long customerId) {
+        log.info("Retrieving balance summary for customer ID: {}", customerId);
+
+        return ResponseEntity.ok(balanceSummaryService.getSummary(customerId));
+    }
+
     /**
      * Update customer information
      */
@@ -88,21 +139,45 @@ public class CustomerController {
      * Search customers by name
      */
     @GetMapping("/search")
-    public ResponseEntity<List<CustomerResponse>> searchCustomers(@RequestParam String name) {
+    public ResponseEntity<List<CustomerResponse>> searchCustomers(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "50") int limit) {
         log.info("Searching customers by name: {}", name);
 
-        List<CustomerResponse> customers = customerService.searchCustomersByName(name);
+        List<CustomerResponse> customers = customerService.searchCustomersByName(name, limit);
         return ResponseEntity.ok(customers);
     }
 
     /**
-     * Get all active customers
+     * Get active customers one keyset page at a time
      */
-    @GetMapping
-    public ResponseEntity<List<CustomerResponse>> getAllActiveCustomers() {
-        log.info("Retrieving all active customers");
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CustomerPage> getActiveCustomers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("Retrieving active customers after ID: {}", after);
+
+        CustomerPage page = customerService.getActiveCustomers(after, limit);
+        return ResponseEntity.ok(page);
+    }
 
-        List<CustomerResponse> customers = customerService.getAllActiveCustomers();
-        return ResponseEntity.ok(customers);
+    /**
+     * Stream all active customers as newline-delimited JSON
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamActiveCustomers() {
+        log.info("Streaming all active customers");
+
+        StreamingResponseBody body = out -> customerService.streamActiveCustomers(customer -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(customer));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
     }
 }
@@ -0,0 +1,52 @@
+package br.com.ukbank;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+/**
+ * Reporting helpers for the benchmark-tagged tests, run with -Pbenchmark
+ * Results go to standard output on lines starting with [benchmark] so that they can be
+ * pulled out of the test log. Sizes are read from system properties where a run is long,
+ * e.g. -Dbenchmark.rows=100000 for a quicker pass.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {}
+
+    public static void report(String name, String format, Object... args) {
+        System.out.printf("[benchmark] %s: %s%n", name, String.format(format, args));
+    }
+
+    /**
+     * Starts the application without a web server, with the given properties over application.yml
+     * They are passed as command-line arguments, as builder defaults would lose to the file. Each
+     * context gets a database of its own, so a parameterised benchmark can compare configurations
+     * side by side; the caller closes it when the run is done.
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(UKBankingApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties("spring.datasource.generate-unique-name=true")
+            .run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    public static int size(String property, int defaultValue) {
+        return Integer.getInteger("benchmark." + property, defaultValue);
+    }
+
+    /**
+     * Sorts the samples in place and returns the percentile in milliseconds
+     */
+    public static double percentileMillis(long[] nanos, double percentile) {
+        Arrays.sort(nanos);
+        int index = (int) Math.min(nanos.length - 1, Math.floor(nanos.length * percentile / 100.0));
+        return nanos[index] / 1e6;
+    }
+
+    public static double perSecond(long operations, long elapsedNanos) {
+        return operations / (elapsedNanos / 1e9);
+    }
+}
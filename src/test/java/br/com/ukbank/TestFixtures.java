@@ -0,0 +1,78 @@
+package br.com.ukbank;
+
+import br.com.ukbank.application.dto.AccountOpeningRequest;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.CustomerRegistrationRequest;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.application.services.BankingAccountService;
+import br.com.ukbank.application.services.CustomerApplicationService;
+import br.com.ukbank.domain.model.AccountType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Customers and accounts for tests sharing one application context
+ * Every customer gets its own email, phone and NI number, so tests can register as many as they
+ * need without tripping the duplicate checks.
+ */
+public final class TestFixtures {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private TestFixtures() {}
+
+    public static CustomerResponse registerCustomer(CustomerApplicationService customers) {
+        int n = SEQUENCE.get() + 1;
+        return registerCustomer(customers, "Test", "Customer" + (char) ('A' + n % 26));
+    }
+
+    public static CustomerResponse registerCustomer(CustomerApplicationService customers,
+                                                    String firstName, String lastName) {
+        int n = SEQUENCE.incrementAndGet();
+        return customers.registerCustomer(CustomerRegistrationRequest.builder()
+            .firstName(firstName)
+            .lastName(lastName)
+            .email("customer" + n + "@example.com")
+            .phoneNumber(String.format("+4470%08d", n))
+            .dateOfBirth(LocalDate.of(1980, 1, 1))
+            .addressLine(n + " High Street")
+            .postcode("SW1A 1AA")
+            .nationalInsuranceNumber(String.format("AB%06dC", n))
+            .build());
+    }
+
+    public static BankAccountResponse openAccount(BankingAccountService accounts, Long customerId,
+                                                  String initialDeposit, String overdraftLimit) {
+        return openAccount(accounts, customerId, AccountType.CURRENT, initialDeposit, overdraftLimit);
+    }
+
+    public static BankAccountResponse openAccount(BankingAccountService accounts, Long customerId, AccountType type,
+                                                  String initialDeposit, String overdraftLimit) {
+        return accounts.openAccount(AccountOpeningRequest.builder()
+            .customerId(customerId)
+            .accountType(type)
+            .initialDeposit(new BigDecimal(initialDeposit))
+            .overdraftLimit(overdraftLimit != null ? new BigDecimal(overdraftLimit) : null)
+            .build());
+    }
+
+    /**
+     * Inserts a history of one-penny credits straight into the journal, one per second from 2020
+     * The account's stored balance is left alone, so the seeded rows are history only and do not
+     * form a balance chain with it.
+     */
+    public static void seedHistory(JdbcTemplate jdbcTemplate, Long accountId, int postings) {
+        int batch = 100_000;
+        for (int from = 1; from <= postings; from += batch) {
+            jdbcTemplate.update("INSERT INTO transactions (transaction_id, account_id, type, transaction_amount, currency, "
+                    + "balance_after, balance_after_currency, description, reference, transaction_reference, processed_at) "
+                    + "SELECT NEXT VALUE FOR transactions_seq, ?, 'CREDIT', 0.01, 'GBP', X / 100.0, 'GBP', 'Seeded', 'SEED', "
+                    + "CONCAT('SEED', ?, '-', X), DATEADD('SECOND', X, TIMESTAMP '2020-01-01 00:00:00') "
+                    + "FROM SYSTEM_RANGE(?, ?)",
+                accountId, accountId, from, Math.min(postings, from + batch - 1));
+        }
+    }
+}
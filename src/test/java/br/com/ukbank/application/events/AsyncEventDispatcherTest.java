@@ -0,0 +1,218 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.domain.events.AccountOpenedEvent;
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.config.EventPublishingProperties;
+import br.com.ukbank.infrastructure.events.DomainEventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncEventDispatcherTest {
+
+    private static final int CAPACITY = 2;
+
+    @TempDir
+    Path spillDirectory;
+
+    private final DomainEventCodec codec = new DomainEventCodec(new ObjectMapper());
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GatedHandler handler = new GatedHandler();
+    private AsyncEventDispatcher dispatcher;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        handler.open();
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void blockPolicyMakesThePublisherWaitForSpace() throws Exception {
+        start(EventPublishingProperties.OverflowPolicy.BLOCK);
+        fillQueueBehindAStuckHandler();
+
+        Thread publisher = new Thread(() -> dispatcher.submit(event(4)));
+        publisher.start();
+        publisher.join(200);
+        assertThat(publisher.isAlive()).as("publisher waits while the queue is full").isTrue();
+
+        handler.open();
+        publisher.join(TimeUnit.SECONDS.toMillis(5));
+        assertThat(publisher.isAlive()).isFalse();
+        awaitDelivered(4);
+        assertThat(handler.accountIds()).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void dropPolicyDiscardsAndCountsTheOverflow() throws Exception {
+        start(EventPublishingProperties.OverflowPolicy.DROP);
+        fillQueueBehindAStuckHandler();
+
+        dispatcher.submit(event(4));
+        assertThat(meterRegistry.counter("events.dropped").count()).isEqualTo(1);
+
+        handler.open();
+        awaitDelivered(3);
+        Thread.sleep(200);
+        assertThat(handler.accountIds()).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void spillPolicyWritesTheOverflowToDiskAndReplaysItOnceIdle() throws Exception {
+        start(EventPublishingProperties.OverflowPolicy.SPILL);
+        fillQueueBehindAStuckHandler();
+
+        dispatcher.submit(event(4));
+        dispatcher.submit(event(5));
+        assertThat(meterRegistry.counter("events.spilled").count()).isEqualTo(2);
+        assertThat(pendingSpill()).isEqualTo(2);
+        assertThat(spillDirectory.resolve("current.spill")).exists();
+
+        handler.open();
+        awaitDelivered(5);
+        assertThat(handler.accountIds()).containsExactly(1L, 2L, 3L, 4L, 5L);
+        await(() -> pendingSpill() == 0);
+        assertThat(filesIn(spillDirectory)).isEmpty();
+    }
+
+    @Test
+    void startCountsOnlyTheSpilledEventsItFinds() throws Exception {
+        start(EventPublishingProperties.OverflowPolicy.SPILL);
+
+        assertThat(pendingSpill()).isZero();
+        assertThat(filesIn(spillDirectory)).isEmpty();
+    }
+
+    @Test
+    void spillLeftByAnEarlierRunIsReplayedAndAnUndecodableLineSetAside() throws Exception {
+        Files.write(spillDirectory.resolve("current.spill"),
+            Arrays.asList(codec.encode(event(7)), "{not an event", "", codec.encode(event(8))), StandardCharsets.UTF_8);
+        handler.block();
+
+        start(EventPublishingProperties.OverflowPolicy.SPILL);
+        assertThat(pendingSpill()).isEqualTo(3);
+
+        handler.open();
+        awaitDelivered(2);
+        assertThat(handler.accountIds()).containsExactly(7L, 8L);
+        await(() -> pendingSpill() == 0);
+        assertThat(meterRegistry.counter("events.spill.rejected").count()).isEqualTo(1);
+
+        List<Path> left = filesIn(spillDirectory);
+        assertThat(left).hasSize(1);
+        assertThat(left.get(0).getFileName().toString()).endsWith(".rejected");
+        assertThat(Files.readAllLines(left.get(0), StandardCharsets.UTF_8)).containsExactly("{not an event");
+    }
+
+    private void start(EventPublishingProperties.OverflowPolicy policy) throws Exception {
+        EventPublishingProperties properties = new EventPublishingProperties();
+        EventPublishingProperties.Async async = properties.getAsync();
+        async.setQueueCapacity(CAPACITY);
+        async.setConsumerThreads(1);
+        async.setBatchSize(1);
+        async.setPollTimeout(Duration.ofMillis(10));
+        async.setOverflowPolicy(policy);
+        async.setSpillDirectory(spillDirectory);
+
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("gatedHandler", handler);
+        DomainEventHandlers handlers = new DomainEventHandlers(beans.getBeanProvider(DomainEventHandler.class), meterRegistry);
+        dispatcher = new AsyncEventDispatcher(handlers, codec, properties, meterRegistry);
+        dispatcher.start();
+    }
+
+    // The consumer takes event 1 and sticks in the handler, so events 2 and 3 fill the queue
+    private void fillQueueBehindAStuckHandler() throws InterruptedException {
+        handler.block();
+        dispatcher.submit(event(1));
+        assertThat(handler.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        LongStream.rangeClosed(2, 1 + CAPACITY).forEach(id -> dispatcher.submit(event(id)));
+        assertThat(dispatcher.getQueueDepth()).isEqualTo(CAPACITY);
+    }
+
+    private void awaitDelivered(int events) throws InterruptedException {
+        await(() -> handler.received.size() >= events);
+    }
+
+    private double pendingSpill() {
+        return meterRegistry.get("events.spill.pending").gauge().value();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<Path> filesIn(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static AccountOpenedEvent event(long accountId) {
+        return new AccountOpenedEvent(accountId, 1L, "CURRENT", Money.zero());
+    }
+
+    // Records what it receives; while blocked, the first event it is handed holds the consumer
+    private static final class GatedHandler implements DomainEventHandler {
+
+        private final List<DomainEvent> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void open() {
+            gate.countDown();
+        }
+
+        List<Long> accountIds() {
+            return received.stream().map(event -> ((AccountOpenedEvent) event).getAccountId())
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public boolean supports(DomainEvent event) {
+            return event instanceof AccountOpenedEvent;
+        }
+
+        @Override
+        public void handle(DomainEvent event) {
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.domain.events.CustomerStatusChangedEvent;
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.infrastructure.events.DomainEventCodec;
+import br.com.ukbank.infrastructure.outbox.OutboxEvent;
+import br.com.ukbank.infrastructure.outbox.OutboxEventRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * How fast the outbox relay drains a backlog, a page of 500 at a time against one row per page
+ * A page of one stands for a relay that reads and marks each row on its own. The backlog is
+ * written up front and the relay thread is slowed to an hour, so the reported time is sweeps
+ * alone. The first backlog warms the path up and is not reported.
+ */
+@Tag("benchmark")
+class OutboxRelayBenchmarkTest {
+
+    @ParameterizedTest(name = "batch size: {0}")
+    @ValueSource(ints = {500, 1})
+    void backlogDrain(int batchSize) {
+        int events = Benchmarks.size("events", 20_000);
+
+        try (ConfigurableApplicationContext context = Benchmarks.start("ukbank.velocity.enabled=false",
+                "ukbank.events.mode=outbox", "ukbank.events.outbox.poll-interval=1h",
+                "ukbank.events.outbox.batch-size=" + batchSize)) {
+            OutboxRelay relay = context.getBean(OutboxRelay.class);
+            OutboxEventRepository eventRepository = context.getBean(OutboxEventRepository.class);
+            DomainEventCodec codec = context.getBean(DomainEventCodec.class);
+
+            for (int pass = 0; pass < 2; pass++) {
+                List<OutboxEvent> backlog = new ArrayList<>(events);
+                for (int i = 0; i < events; i++) {
+                    DomainEvent event = new CustomerStatusChangedEvent((long) i, "ACTIVE");
+                    backlog.add(new OutboxEvent(event.getEventId(), event.getEventType(), codec.encode(event)));
+                }
+                eventRepository.saveAll(backlog);
+
+                long start = System.nanoTime();
+                relay.sweep();
+                long elapsed = System.nanoTime() - start;
+
+                assertEquals(0, eventRepository.findPendingAfter(0, PageRequest.of(0, 1)).size());
+                if (pass == 1) {
+                    Benchmarks.report("outbox relay", "batch size %d, %,d events: %.0f events/s",
+                        batchSize, events, Benchmarks.perSecond(events, elapsed));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package br.com.ukbank.application.events;
+
+import br.com.ukbank.domain.events.CustomerStatusChangedEvent;
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.infrastructure.events.DomainEventCodec;
+import br.com.ukbank.infrastructure.outbox.OutboxEvent;
+import br.com.ukbank.infrastructure.outbox.OutboxEventRepository;
+import br.com.ukbank.infrastructure.outbox.OutboxOffset;
+import br.com.ukbank.infrastructure.outbox.OutboxOffsetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Outbox relay sweeps against the database, driven directly rather than by the relay thread
+ * The poll interval is an hour, so the thread's own sweep at startup is its only one, and a
+ * zero settle window lets the offset move as soon as a sweep finishes. Events are customer
+ * status changes carrying a label in the status, seen by a recording handler.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.generate-unique-name=true",
+    "ukbank.velocity.enabled=false",
+    "ukbank.events.mode=outbox",
+    "ukbank.events.outbox.poll-interval=1h",
+    "ukbank.events.outbox.settle-window=0s",
+    "ukbank.events.outbox.max-attempts=3"
+})
+class OutboxRelayTest {
+
+    @Autowired
+    OutboxRelay relay;
+
+    @Autowired
+    OutboxEventRepository eventRepository;
+
+    @Autowired
+    OutboxOffsetRepository offsetRepository;
+
+    @Autowired
+    DomainEventCodec codec;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    RecordingHandler recordingHandler;
+
+    @Autowired
+    FlakyHandler flakyHandler;
+
+    @BeforeEach
+    void reset() {
+        recordingHandler.labels.clear();
+        flakyHandler.failOnce.clear();
+        flakyHandler.labels.clear();
+    }
+
+    @Test
+    void sweepPublishesPendingEventsAndAdvancesTheOffset() {
+        List<OutboxEvent> events = Arrays.asList(record("first"), record("second"), record("third"));
+
+        relay.sweep();
+
+        assertEquals(Arrays.asList("first", "second", "third"), recordingHandler.labels);
+        events.forEach(event -> assertNotNull(reload(event).getPublishedAt()));
+        assertEquals(events.get(2).getId(), storedOffset());
+
+        relay.sweep();
+        assertEquals(3, recordingHandler.labels.size(), "a published event is not relayed again");
+    }
+
+    @Test
+    void poisonEventHoldsBackTheRestUntilDeadLetteredAtMaxAttempts() {
+        OutboxEvent poison = eventRepository.save(new OutboxEvent(newEventId(), CustomerStatusChangedEvent.TYPE, "{not an event"));
+        OutboxEvent behind = record("behind");
+
+        relay.sweep();
+        relay.sweep();
+        assertEquals(2, reload(poison).getAttempts());
+        assertFalse(reload(poison).isDeadLettered());
+        assertTrue(recordingHandler.labels.isEmpty(), "events after a retryable failure wait for it");
+        assertTrue(storedOffset() < poison.getId());
+
+        relay.sweep();
+
+        OutboxEvent deadLettered = reload(poison);
+        assertEquals(3, deadLettered.getAttempts());
+        assertTrue(deadLettered.isDeadLettered());
+        assertNull(deadLettered.getPublishedAt());
+        assertNotNull(deadLettered.getLastError());
+        assertEquals(Arrays.asList("behind"), recordingHandler.labels);
+        assertNotNull(reload(behind).getPublishedAt());
+        assertEquals(behind.getId(), storedOffset());
+    }
+
+    @Test
+    void rowCommittedAfterTheOffsetPassedItIsStillRelayed() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        OutboxEvent[] late = new OutboxEvent[1];
+        Thread writer = new Thread(() -> transactionTemplate.execute(status -> {
+            late[0] = eventRepository.saveAndFlush(event("late"));
+            written.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        writer.start();
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+
+        // A later ID commits first and the sweep moves the offset past the uncommitted row
+        OutboxEvent early = record("early");
+        relay.sweep();
+        assertEquals(Arrays.asList("early"), recordingHandler.labels);
+        assertEquals(early.getId(), storedOffset());
+        assertTrue(late[0].getId() < early.getId());
+
+        commit.countDown();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        relay.sweep();
+
+        assertEquals(Arrays.asList("early", "late"), recordingHandler.labels);
+        assertNotNull(reload(late[0]).getPublishedAt());
+        assertEquals(early.getId(), storedOffset());
+    }
+
+    @Test
+    void handlerThatAcceptedTheEventIsSkippedWhenAnotherOneFailed() {
+        flakyHandler.failOnce.add("flaky");
+        OutboxEvent event = record("flaky");
+
+        relay.sweep();
+
+        OutboxEvent failed = reload(event);
+        assertEquals(1, failed.getAttempts());
+        assertNull(failed.getPublishedAt());
+        List<String> delivered = Arrays.asList(failed.getDeliveredHandlers().split(","));
+        assertTrue(delivered.contains(RecordingHandler.class.getName()));
+        assertFalse(delivered.contains(FlakyHandler.class.getName()));
+        assertEquals(Arrays.asList("flaky"), recordingHandler.labels);
+
+        relay.sweep();
+
+        assertNotNull(reload(event).getPublishedAt());
+        assertEquals(Arrays.asList("flaky"), recordingHandler.labels, "the recording handler is not given it again");
+        assertEquals(Arrays.asList("flaky"), flakyHandler.labels);
+    }
+
+    private OutboxEvent record(String label) {
+        return eventRepository.save(event(label));
+    }
+
+    private OutboxEvent event(String label) {
+        DomainEvent event = new CustomerStatusChangedEvent(-1L, label);
+        return new OutboxEvent(event.getEventId(), event.getEventType(), codec.encode(event));
+    }
+
+    private OutboxEvent reload(OutboxEvent event) {
+        return eventRepository.findById(event.getId()).orElseThrow(IllegalStateException::new);
+    }
+
+    private long storedOffset() {
+        return offsetRepository.findById("default").map(OutboxOffset::getLastEventId).orElse(0L);
+    }
+
+    private static String newEventId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @TestConfiguration
+    static class Handlers {
+
+        @Bean
+        RecordingHandler recordingHandler() {
+            return new RecordingHandler();
+        }
+
+        @Bean
+        FlakyHandler flakyHandler() {
+            return new FlakyHandler();
+        }
+    }
+
+    static class RecordingHandler implements DomainEventHandler {
+
+        final List<String> labels = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean supports(DomainEvent event) {
+            return event instanceof CustomerStatusChangedEvent;
+        }
+
+        @Override
+        public void handle(DomainEvent event) {
+            labels.add(((CustomerStatusChangedEvent) event).getStatus());
+        }
+    }
+
+    // Throws the first time it sees each label in failOnce, and records the labels it accepted
+    static class FlakyHandler implements DomainEventHandler {
+
+        final Set<String> failOnce = ConcurrentHashMap.newKeySet();
+        final List<String> labels = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean supports(DomainEvent event) {
+            return event instanceof CustomerStatusChangedEvent;
+        }
+
+        @Override
+        public void handle(DomainEvent event) {
+            String label = ((CustomerStatusChangedEvent) event).getStatus();
+            if (failOnce.remove(label)) {
+                throw new IllegalStateException("Handler unavailable");
+            }
+            labels.add(label);
+        }
+    }
+}
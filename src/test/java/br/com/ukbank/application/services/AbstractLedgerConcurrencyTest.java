@@ -0,0 +1,172 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.application.dto.MoneyTransferRequest;
+import br.com.ukbank.application.exceptions.InsufficientFundsException;
+import br.com.ukbank.domain.model.BankAccount;
+import br.com.ukbank.domain.model.TransactionResult;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Balance invariants of the ledger engine under concurrent postings
+ * Run once per execution mode by the subclasses: transfers over a small hot set of accounts
+ * must conserve the total, never take an account past its overdraft and never lose a debit.
+ */
+abstract class AbstractLedgerConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 150;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    LedgerEngine ledgerEngine;
+
+    @Autowired
+    BankAccountRepository accountRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentTransfersConserveBalancesAndLoseNoDebits() throws Exception {
+        CustomerResponse customer = TestFixtures.registerCustomer(customerService);
+        List<BankAccountResponse> hotSet = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            hotSet.add(TestFixtures.openAccount(accountService, customer.getCustomerId(),
+                "200.00", i % 2 == 0 ? "50.00" : null));
+        }
+        BigDecimal totalBefore = totalBalance(hotSet);
+
+        // Net movement per account, in pence, of every transfer that reported success
+        Map<Long, LongAdder> applied = new ConcurrentHashMap<>();
+        hotSet.forEach(account -> applied.put(account.getAccountId(), new LongAdder()));
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(hotSet.size());
+                    int to = random.nextInt(hotSet.size() - 1);
+                    if (to >= from) {
+                        to++;
+                    }
+                    long pence = 100 + random.nextInt(4000);
+                    BankAccountResponse source = hotSet.get(from);
+                    BankAccountResponse destination = hotSet.get(to);
+                    try {
+                        accountService.transferMoney(MoneyTransferRequest.builder()
+                            .fromAccountId(source.getAccountId())
+                            .toSortCode(destination.getSortCode())
+                            .toAccountNumber(destination.getAccountNumber())
+                            .amount(BigDecimal.valueOf(pence, 2))
+                            .payeeName("Hot set")
+                            .reference("STRESS")
+                            .build());
+                        applied.get(source.getAccountId()).add(-pence);
+                        applied.get(destination.getAccountId()).add(pence);
+                        completed.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        refused.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(5, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, completed.get() + refused.get());
+        assertEquals(0, totalBefore.compareTo(totalBalance(hotSet)), "total balance must be conserved");
+
+        for (BankAccountResponse opened : hotSet) {
+            BankAccount account = accountRepository.findById(opened.getAccountId()).orElseThrow(AssertionError::new);
+            BigDecimal expected = opened.getBalance().add(BigDecimal.valueOf(applied.get(opened.getAccountId()).sum(), 2));
+            assertEquals(0, expected.compareTo(account.getBalance().getAmount()),
+                "account " + opened.getAccountId() + " must reflect every completed transfer");
+
+            BigDecimal overdraft = opened.getOverdraftLimit() != null ? opened.getOverdraftLimit() : BigDecimal.ZERO;
+            assertTrue(account.getBalance().getAmount().compareTo(overdraft.negate()) >= 0,
+                "account " + opened.getAccountId() + " went past its overdraft");
+        }
+
+        String ids = hotSet.stream().map(a -> a.getAccountId().toString()).collect(Collectors.joining(","));
+        Long debits = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM transactions WHERE type = 'DEBIT' AND account_id IN (" + ids + ")", Long.class);
+        assertEquals(completed.get(), debits.intValue(), "every completed transfer journals exactly one debit");
+    }
+
+    @Test
+    void concurrentDebitsThroughTheEngineAreNeverLost() throws Exception {
+        CustomerResponse customer = TestFixtures.registerCustomer(customerService);
+        Long accountId = TestFixtures.openAccount(accountService, customer.getCustomerId(), "10000.00", null)
+            .getAccountId();
+        Money debit = Money.of(new BigDecimal("1.00"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    ledgerEngine.execute(Collections.singletonList(accountId), () -> {
+                        BankAccount account = accountRepository.findById(accountId).orElseThrow(AssertionError::new);
+                        TransactionResult result = account.processDebit(debit, "Engine debit", "ENGINE");
+                        assertTrue(result.isSuccess());
+                        return accountRepository.save(account);
+                    });
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(5, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        BankAccount account = accountRepository.findById(accountId).orElseThrow(AssertionError::new);
+        BigDecimal expected = new BigDecimal("10000.00").subtract(BigDecimal.valueOf(THREADS * TRANSFERS_PER_THREAD));
+        assertEquals(0, expected.compareTo(account.getBalance().getAmount()));
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, account.getVersion().intValue());
+    }
+
+    private BigDecimal totalBalance(List<BankAccountResponse> accounts) {
+        return accounts.stream()
+            .map(account -> accountRepository.findById(account.getAccountId()).orElseThrow(AssertionError::new))
+            .map(account -> account.getBalance().getAmount())
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
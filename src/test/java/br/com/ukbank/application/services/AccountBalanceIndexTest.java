@@ -0,0 +1,161 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.MoneyTransferRequest;
+import br.com.ukbank.application.events.DomainEventHandler;
+import br.com.ukbank.domain.events.BalanceThresholdCrossedEvent;
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.domain.model.AccountType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Balance threshold crossings published by the balance index, driven refresh by refresh
+ * The refresher thread is slowed to an hour and the test refreshes the index itself after
+ * each step, so every crossing seen belongs to a known set of postings. A funding account
+ * far above both thresholds supplies and takes back the money.
+ */
+@SpringBootTest(properties = {
+    "ukbank.velocity.enabled=false",
+    "ukbank.balance-index.refresh-interval=1h"
+})
+class AccountBalanceIndexTest {
+
+    @Autowired
+    AccountBalanceIndex index;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    CrossingRecorder crossings;
+
+    private BankAccountResponse funding;
+
+    @BeforeEach
+    void openFundingAccount() {
+        Long customerId = TestFixtures.registerCustomer(customerService).getCustomerId();
+        funding = TestFixtures.openAccount(accountService, customerId, "900000.00", null);
+        index.refresh();
+        crossings.events.clear();
+    }
+
+    @Test
+    void lowBalanceCrossingFiresOnceEachWay() {
+        BankAccountResponse account = openAccount(AccountType.CURRENT, "500.00");
+
+        transfer(account, funding, "200.00");
+        transfer(account, funding, "220.00");
+        index.refresh();
+        assertEquals(Arrays.asList("LOW_BALANCE BELOW 500.00 -> 80.00"), crossed(account));
+
+        // Further postings below the threshold, and a refresh with nothing new, cross nothing
+        transfer(account, funding, "30.00");
+        index.refresh();
+        index.markDirty(account.getAccountId());
+        index.refresh();
+        transfer(account, funding, "10.00");
+        index.refresh();
+        assertEquals(Arrays.asList("LOW_BALANCE BELOW 500.00 -> 80.00"), crossed(account));
+
+        transfer(funding, account, "100.00");
+        index.refresh();
+        transfer(funding, account, "5.00");
+        index.refresh();
+        assertEquals(Arrays.asList("LOW_BALANCE BELOW 500.00 -> 80.00", "LOW_BALANCE ABOVE 40.00 -> 140.00"),
+            crossed(account));
+    }
+
+    @Test
+    void crossingUndoneBeforeTheNextRefreshIsNotReported() {
+        BankAccountResponse account = openAccount(AccountType.CURRENT, "150.00");
+
+        transfer(account, funding, "100.00");
+        transfer(funding, account, "60.00");
+        index.refresh();
+
+        assertEquals(Collections.emptyList(), crossed(account));
+    }
+
+    @Test
+    void highValueCrossingFiresOnceForSavings() {
+        BankAccountResponse savings = openAccount(AccountType.SAVINGS, "99990.00");
+        BankAccountResponse current = openAccount(AccountType.CURRENT, "99990.00");
+
+        transfer(funding, savings, "20.00");
+        transfer(funding, current, "20.00");
+        index.refresh();
+        transfer(funding, savings, "1000.00");
+        index.refresh();
+
+        assertEquals(Arrays.asList("HIGH_VALUE ABOVE 99990.00 -> 100010.00"), crossed(savings));
+        assertEquals(Collections.emptyList(), crossed(current), "only the configured account types are watched");
+    }
+
+    private BankAccountResponse openAccount(AccountType type, String deposit) {
+        Long customerId = TestFixtures.registerCustomer(customerService).getCustomerId();
+        BankAccountResponse account = TestFixtures.openAccount(accountService, customerId, type, deposit, null);
+        index.refresh();
+        return account;
+    }
+
+    private void transfer(BankAccountResponse from, BankAccountResponse to, String amount) {
+        accountService.transferMoney(MoneyTransferRequest.builder()
+            .fromAccountId(from.getAccountId())
+            .toSortCode(to.getSortCode())
+            .toAccountNumber(to.getAccountNumber())
+            .amount(new BigDecimal(amount))
+            .payeeName("Threshold test")
+            .reference("THRESHOLD")
+            .build());
+    }
+
+    private List<String> crossed(BankAccountResponse account) {
+        return crossings.events.stream()
+            .filter(event -> event.getAccountId().equals(account.getAccountId()))
+            .map(event -> event.getThreshold() + " " + event.getDirection() + " "
+                + event.getPreviousBalance().getAmount() + " -> " + event.getBalance().getAmount())
+            .collect(Collectors.toList());
+    }
+
+    @TestConfiguration
+    static class Handlers {
+
+        @Bean
+        CrossingRecorder crossingRecorder() {
+            return new CrossingRecorder();
+        }
+    }
+
+    static class CrossingRecorder implements DomainEventHandler {
+
+        final List<BalanceThresholdCrossedEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean supports(DomainEvent event) {
+            return event instanceof BalanceThresholdCrossedEvent;
+        }
+
+        @Override
+        public void handle(DomainEvent event) {
+            events.add((BalanceThresholdCrossedEvent) event);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.domain.model.BankAccount;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.config.LedgerProperties;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * How postings scale with the number of ledger shards, from one up to one per core
+ * The shards alone run in-memory postings on accounts each shard owns, which shows what the
+ * executor does with the cores; through the ledger engine each posting is a two-account transfer
+ * in its own database transaction, with the striped locks as the baseline. One posting in twenty
+ * spans two shards in the in-memory run. Counts go up in powers of two to the core count, or to
+ * -Dbenchmark.maxShards.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "ukbank.velocity.enabled=false")
+class AccountShardsScalingBenchmarkTest {
+
+    private static final int IN_FLIGHT = 1024;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    BankAccountRepository accountRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void inMemoryPostings() throws Exception {
+        int accounts = Benchmarks.size("accounts", 10_000);
+        int postings = Benchmarks.size("postings", 2_000_000);
+        int spin = Benchmarks.size("spin", 200);
+
+        for (int count : shardCounts()) {
+            long[] balances = new long[accounts];
+            AccountShards shards = new AccountShards(shardProperties(count), new SimpleMeterRegistry());
+            shards.start();
+            try {
+                // The first pass warms the path up, the second is the one reported
+                for (int pass = 0; pass < 2; pass++) {
+                    Arrays.fill(balances, 0);
+                    AtomicInteger single = new AtomicInteger();
+                    long elapsed = submitAll(count, postings, i -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        long from = random.nextInt(accounts);
+                        if (i % 20 == 19) {
+                            long to = random.nextInt(accounts);
+                            return shards.submit(Arrays.asList(from, to), () -> {
+                                balances[(int) from] -= 1;
+                                balances[(int) to] += 1 + work(to, spin);
+                                return null;
+                            });
+                        }
+                        single.incrementAndGet();
+                        return shards.submit(Collections.singletonList(from), () -> {
+                            balances[(int) from] += 1 + work(from, spin);
+                            return null;
+                        });
+                    });
+                    assertEquals(single.get(), Arrays.stream(balances).sum(), "every posting applied exactly once");
+                    if (pass == 1) {
+                        report("shards in memory", count, postings, elapsed);
+                    }
+                }
+            } finally {
+                shards.stop();
+            }
+        }
+    }
+
+    @Test
+    void ledgerTransfers() throws Exception {
+        int accounts = Benchmarks.size("accounts", 1000);
+        int transfers = Benchmarks.size("transfers", 20_000);
+        CustomerResponse customer = TestFixtures.registerCustomer(customerService);
+        List<Long> accountIds = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            accountIds.add(TestFixtures.openAccount(accountService, customer.getCustomerId(), "1000000.00", null)
+                .getAccountId());
+        }
+        Money amount = Money.of(new BigDecimal("0.01"));
+
+        // Hibernate's paths keep getting faster well past one pass, so the sweep starts after a long warm-up
+        LedgerEngine warmUp = ledgerEngine(1);
+        try {
+            submitAll(1, Benchmarks.size("warmUpTransfers", 100_000), i -> transfer(warmUp, accountIds, amount));
+        } finally {
+            warmUp.stop();
+        }
+
+        // Zero shards is the striped lock engine, fed by as many threads as the most shards
+        List<Integer> counts = new ArrayList<>(shardCounts());
+        counts.add(0, 0);
+        for (int count : counts) {
+            LedgerEngine ledgerEngine = ledgerEngine(count);
+            try {
+                for (int pass = 0; pass < 2; pass++) {
+                    int producers = count > 0 ? count : counts.get(counts.size() - 1);
+                    long elapsed = submitAll(producers, transfers, i -> transfer(ledgerEngine, accountIds, amount));
+                    if (pass == 1 && count == 0) {
+                        Benchmarks.report("striped locks through the ledger", "%d threads: %.0f postings/s",
+                            producers, Benchmarks.perSecond(transfers, elapsed));
+                    } else if (pass == 1) {
+                        report("shards through the ledger", count, transfers, elapsed);
+                    }
+                }
+            } finally {
+                ledgerEngine.stop();
+            }
+        }
+
+        BigDecimal total = jdbcTemplate.queryForObject("SELECT SUM(balance) FROM bank_accounts WHERE customer_id = ?",
+            BigDecimal.class, customer.getCustomerId());
+        assertEquals(0, new BigDecimal("1000000.00").multiply(BigDecimal.valueOf(accounts)).compareTo(total));
+    }
+
+    private LedgerEngine ledgerEngine(int shards) {
+        LedgerProperties properties = new LedgerProperties();
+        properties.setShards(shardProperties(shards));
+        LedgerEngine ledgerEngine = new LedgerEngine(transactionManager, properties, new SimpleMeterRegistry());
+        ledgerEngine.start();
+        return ledgerEngine;
+    }
+
+    // Moves a penny between two different accounts picked at random
+    private CompletableFuture<?> transfer(LedgerEngine ledgerEngine, List<Long> accountIds, Money amount) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(accountIds.size());
+        int b = random.nextInt(accountIds.size() - 1);
+        Long from = accountIds.get(a);
+        Long to = accountIds.get(b >= a ? b + 1 : b);
+        return ledgerEngine.submit(Arrays.asList(from, to), () -> {
+            BankAccount source = accountRepository.findById(from).orElseThrow(IllegalStateException::new);
+            BankAccount target = accountRepository.findById(to).orElseThrow(IllegalStateException::new);
+            if (!source.processDebit(amount, "Scaling", "SCALING").isSuccess()) {
+                throw new IllegalStateException("Debit refused on account " + from);
+            }
+            target.processCredit(amount, "Scaling", "SCALING");
+            accountRepository.save(source);
+            accountRepository.save(target);
+            return null;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Submission {
+        CompletableFuture<?> submit(int index);
+    }
+
+    // Submits from one thread per shard, each keeping a bounded number of postings in flight
+    private static long submitAll(int producers, int postings, Submission submission) throws Exception {
+        CountDownLatch finished = new CountDownLatch(postings);
+        AtomicInteger next = new AtomicInteger();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>(producers);
+        long began = System.nanoTime();
+        for (int p = 0; p < producers; p++) {
+            Semaphore inFlight = new Semaphore(IN_FLIGHT);
+            Thread thread = new Thread(() -> {
+                for (int i = next.getAndIncrement(); i < postings; i = next.getAndIncrement()) {
+                    inFlight.acquireUninterruptibly();
+                    submission.submit(i).whenComplete((result, failure) -> {
+                        if (failure != null) {
+                            failures.add(failure);
+                        }
+                        inFlight.release();
+                        finished.countDown();
+                    });
+                }
+            }, "scaling-producer-" + p);
+            thread.start();
+            threads.add(thread);
+        }
+        assertTrue(finished.await(10, TimeUnit.MINUTES), "postings did not finish");
+        long elapsed = System.nanoTime() - began;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), () -> "postings failed: " + failures.stream().limit(3)
+            .map(Throwable::toString).collect(Collectors.joining("; ")));
+        return elapsed;
+    }
+
+    private static List<Integer> shardCounts() {
+        int max = Benchmarks.size("maxShards", Runtime.getRuntime().availableProcessors());
+        List<Integer> counts = new ArrayList<>();
+        for (int count = 1; count < max; count <<= 1) {
+            counts.add(count);
+        }
+        counts.add(max);
+        return counts;
+    }
+
+    private static LedgerProperties.Shards shardProperties(int count) {
+        LedgerProperties.Shards shards = new LedgerProperties.Shards();
+        shards.setEnabled(count > 0);
+        shards.setCount(count);
+        return shards;
+    }
+
+    // Stands in for the arithmetic of a posting; always zero, so the balances stay exact
+    private static long work(long seed, int rounds) {
+        long x = seed | 1;
+        for (int i = 0; i < rounds; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        return x == 0 ? 1 : 0;
+    }
+
+    private static void report(String name, int count, int postings, long elapsed) {
+        double rate = Benchmarks.perSecond(postings, elapsed);
+        Benchmarks.report(name, "%d shard(s), %d core(s): %.0f postings/s, %.0f per core in use", count,
+            Runtime.getRuntime().availableProcessors(), rate,
+            rate / Math.min(count, Runtime.getRuntime().availableProcessors()));
+    }
+}
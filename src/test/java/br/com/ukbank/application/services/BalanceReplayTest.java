@@ -0,0 +1,163 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.AccountRebuildResponse;
+import br.com.ukbank.application.dto.BalanceReplayReport;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.MoneyTransferRequest;
+import br.com.ukbank.domain.model.AccountBalanceSnapshot;
+import br.com.ukbank.infrastructure.repositories.AccountBalanceSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Balances rebuilt from snapshots and postings, compared with the live balances in the database
+ * A zero settle window lets a checkpoint cover every posting made before it, and chunks are
+ * four account ids wide so the book replay spans several of them. Transfers run one at a time
+ * from a seeded random, so a run can be repeated exactly.
+ */
+@SpringBootTest(properties = {
+    "ukbank.velocity.enabled=false",
+    "ukbank.replay.settle-window=0s",
+    "ukbank.replay.chunk-size=4"
+})
+class BalanceReplayTest {
+
+    @Autowired
+    BalanceReplayService replayService;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    AccountBalanceSnapshotRepository snapshotRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void replayFromSnapshotsEqualsTheLiveBalances() {
+        List<BankAccountResponse> accounts = openAccounts(6);
+        Random random = new Random(21);
+        transfers(accounts, random, 60);
+
+        BalanceReplayReport checkpoint = replayService.replayBook(true);
+        assertEquals(0, checkpoint.getChunksFailed());
+        assertEquals(0, checkpoint.getChainBreaks());
+        assertEquals(0, checkpoint.getBalanceMismatches());
+        for (BankAccountResponse account : accounts) {
+            AccountBalanceSnapshot snapshot = snapshotRepository.findById(account.getAccountId())
+                .orElseThrow(AssertionError::new);
+            assertEquals(liveBalance(account), snapshot.getBalance(), "snapshot of account " + account.getAccountId());
+            assertEquals(postings(account), snapshot.getPostingCount());
+        }
+
+        // Postings after the snapshots are folded on top of them
+        transfers(accounts, random, 40);
+        BalanceReplayReport replay = replayService.replayBook(false);
+        assertEquals(0, replay.getChainBreaks());
+        assertEquals(0, replay.getBalanceMismatches());
+        assertTrue(replay.getInconsistentAccountIds().isEmpty());
+
+        List<BigDecimal> fromSnapshots = new ArrayList<>();
+        for (BankAccountResponse account : accounts) {
+            AccountRebuildResponse rebuilt = replayService.rebuildAccount(account.getAccountId());
+            AccountBalanceSnapshot snapshot = snapshotRepository.findById(account.getAccountId())
+                .orElseThrow(AssertionError::new);
+            assertNotNull(rebuilt.getSnapshotBalance());
+            assertEquals(postings(account) - snapshot.getPostingCount(), rebuilt.getPostingsReplayed());
+            assertEquals(liveBalance(account), rebuilt.getRebuiltBalance(), "account " + account.getAccountId());
+            assertEquals(liveBalance(account), rebuilt.getStoredBalance());
+            assertTrue(rebuilt.isConsistent());
+            fromSnapshots.add(rebuilt.getRebuiltBalance());
+        }
+
+        // Without the snapshots every posting is replayed, to the same balances
+        jdbcTemplate.update("DELETE FROM account_balance_snapshots");
+        for (int i = 0; i < accounts.size(); i++) {
+            AccountRebuildResponse rebuilt = replayService.rebuildAccount(accounts.get(i).getAccountId());
+            assertEquals(postings(accounts.get(i)), rebuilt.getPostingsReplayed());
+            assertEquals(fromSnapshots.get(i), rebuilt.getRebuiltBalance());
+        }
+    }
+
+    @Test
+    void storedBalanceThatDriftedFromItsPostingsIsReportedAndNotCheckpointed() {
+        List<BankAccountResponse> accounts = openAccounts(5);
+        transfers(accounts, new Random(22), 30);
+        BankAccountResponse drifted = accounts.get(2);
+        BigDecimal live = liveBalance(drifted);
+
+        jdbcTemplate.update("UPDATE bank_accounts SET balance = balance + 0.01 WHERE account_id = ?",
+            drifted.getAccountId());
+        try {
+            BalanceReplayReport report = replayService.replayBook(true);
+
+            assertEquals(1, report.getBalanceMismatches());
+            assertEquals(0, report.getChainBreaks());
+            assertTrue(report.getInconsistentAccountIds().contains(drifted.getAccountId()));
+            assertFalse(snapshotRepository.findById(drifted.getAccountId()).isPresent(),
+                "an inconsistent account keeps its old snapshot");
+
+            AccountRebuildResponse rebuilt = replayService.rebuildAccount(drifted.getAccountId());
+            assertFalse(rebuilt.isConsistent());
+            assertEquals(live, rebuilt.getRebuiltBalance());
+            assertEquals(live.add(new BigDecimal("0.01")), rebuilt.getStoredBalance());
+        } finally {
+            jdbcTemplate.update("UPDATE bank_accounts SET balance = balance - 0.01 WHERE account_id = ?",
+                drifted.getAccountId());
+        }
+        assertTrue(replayService.rebuildAccount(drifted.getAccountId()).isConsistent());
+    }
+
+    private List<BankAccountResponse> openAccounts(int count) {
+        List<BankAccountResponse> accounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Long customerId = TestFixtures.registerCustomer(customerService).getCustomerId();
+            accounts.add(TestFixtures.openAccount(accountService, customerId, "1000.00", "200.00"));
+        }
+        return accounts;
+    }
+
+    // Amounts stay small beside the balances and overdrafts, so every transfer goes through
+    private void transfers(List<BankAccountResponse> accounts, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            int from = random.nextInt(accounts.size());
+            int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+            BankAccountResponse destination = accounts.get(to);
+            accountService.transferMoney(MoneyTransferRequest.builder()
+                .fromAccountId(accounts.get(from).getAccountId())
+                .toSortCode(destination.getSortCode())
+                .toAccountNumber(destination.getAccountNumber())
+                .amount(BigDecimal.valueOf(1 + random.nextInt(2500), 2))
+                .payeeName("Replay test")
+                .reference("REPLAY")
+                .build());
+        }
+    }
+
+    private BigDecimal liveBalance(BankAccountResponse account) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM bank_accounts WHERE account_id = ?",
+            BigDecimal.class, account.getAccountId());
+    }
+
+    private long postings(BankAccountResponse account) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE account_id = ?",
+            Long.class, account.getAccountId());
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.ukbank.application.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @Test
+    void sizeAndHashCountFollowTheStandardFormulas() {
+        // m = -n ln p / (ln 2)^2 rounded up to whole 64-bit words, k = m / n ln 2
+        BloomFilter million = new BloomFilter(1_000_000, 0.01);
+        assertThat(million.sizeInBytes()).isEqualTo(1_198_136);
+        assertThat(million.getHashCount()).isEqualTo(7);
+
+        BloomFilter strict = new BloomFilter(1_000_000, 0.0001);
+        assertThat(strict.sizeInBytes()).isEqualTo(2_396_272);
+        assertThat(strict.getHashCount()).isEqualTo(13);
+
+        BloomFilter tiny = new BloomFilter(1, 0.5);
+        assertThat(tiny.sizeInBytes()).isEqualTo(8);
+        assertThat(tiny.getHashCount()).isEqualTo(44);
+    }
+
+    @Test
+    void everyAddedKeyIsFound() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("customer" + i + "@example.com");
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(filter.mightContain("customer" + i + "@example.com")).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateAtCapacityIsCloseToTheTarget() {
+        for (double target : new double[] {0.01, 0.001}) {
+            int keys = 200_000;
+            BloomFilter filter = new BloomFilter(keys, target);
+            for (int i = 0; i < keys; i++) {
+                filter.add(String.format("AB%06dC", i) + "/" + i + "@example.com");
+            }
+
+            int probes = 1_000_000;
+            int falsePositives = 0;
+            for (int i = 0; i < probes; i++) {
+                if (filter.mightContain("absent" + i + "@example.org")) {
+                    falsePositives++;
+                }
+            }
+
+            double measured = (double) falsePositives / probes;
+            assertThat(measured).as("measured rate for target %s", target).isBetween(target * 0.7, target * 1.3);
+            assertThat(filter.expectedFalsePositiveRate()).isBetween(target * 0.7, target * 1.3);
+        }
+    }
+
+    @Test
+    void overfillingRaisesTheRateAndTheEstimateTracksIt() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 40_000; i++) {
+            filter.add("key" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+
+        double measured = falsePositives / 100_000.0;
+        assertThat(measured).isGreaterThan(0.3);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(measured * 0.8, measured * 1.2);
+    }
+
+    @Test
+    void sizingArgumentsAreChecked() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(1000, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(1000, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(1_000_000_000_000L, 0.01))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("too large");
+    }
+}
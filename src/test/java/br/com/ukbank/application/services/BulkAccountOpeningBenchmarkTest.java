@@ -0,0 +1,98 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.domain.valueobjects.AccountIdentifier;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent account opening, and the account number allocator on its own
+ * Numbers come from leased blocks, so openers share no lock outside a block refill and no
+ * opening ever retries on a duplicate number.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class BulkAccountOpeningBenchmarkTest {
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    AccountNumberAllocator allocator;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bulkOpening() throws Exception {
+        int threads = Benchmarks.size("threads", 32);
+        int openings = Benchmarks.size("openings", 10_000);
+        CustomerResponse customer = TestFixtures.registerCustomer(customerService);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> submitted = new ArrayList<>(openings);
+        long start = System.nanoTime();
+        for (int i = 0; i < openings; i++) {
+            submitted.add(pool.submit(() -> TestFixtures.openAccount(accountService, customer.getCustomerId(), "1.00", null)));
+        }
+        for (Future<?> opening : submitted) {
+            opening.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Integer distinct = jdbcTemplate.queryForObject(
+            "SELECT COUNT(DISTINCT account_number) FROM bank_accounts WHERE customer_id = ?",
+            Integer.class, customer.getCustomerId());
+        assertEquals(openings, distinct.intValue());
+
+        Benchmarks.report("bulk opening", "%,d accounts, %d threads: %.0f openings/s",
+            openings, threads, Benchmarks.perSecond(openings, elapsed));
+    }
+
+    @Test
+    void allocatorThroughput() throws Exception {
+        int threads = Benchmarks.size("threads", 8);
+        int perThread = Benchmarks.size("numbers", 2_000_000) / threads;
+
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> submitted = new ArrayList<>(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            submitted.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    assertTrue(seen.add(allocator.allocate(AccountIdentifier.DEFAULT_SORT_CODE)));
+                }
+            }));
+        }
+        for (Future<?> worker : submitted) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Benchmarks.report("account number allocation", "%,d numbers, %d threads: %.2f M/s, all distinct",
+            seen.size(), threads, Benchmarks.perSecond(seen.size(), elapsed) / 1e6);
+    }
+}
@@ -0,0 +1,118 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.domain.model.BankAccount;
+import br.com.ukbank.domain.model.Customer;
+import br.com.ukbank.domain.model.Transaction;
+import br.com.ukbank.domain.valueobjects.AccountIdentifier;
+import br.com.ukbank.domain.valueobjects.Money;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+
+/**
+ * Bulk inserts of customers and postings through Hibernate at 10k, 100k and 1M rows
+ * Run with JDBC batching on, as configured, and with one statement per row, which is what
+ * identity keys forced before IDs came from pooled sequences. The statement count is the figure
+ * to compare: in-memory H2 has no network round trip to save, so rows per second only shows what
+ * batching costs in process. Each setting runs in a context of its own, closed before the next
+ * starts so the two databases are never held at once.
+ */
+@Tag("benchmark")
+class BulkInsertBenchmarkTest {
+
+    private static final int ROWS_PER_TRANSACTION = 10_000;
+    private static final int FLUSH_EVERY = 50;
+    private static final String NI_LETTERS = "ABCEGHJKLMNPRSTWXYZ";
+
+    private int sequence;
+
+    @ParameterizedTest(name = "batched: {0}")
+    @ValueSource(booleans = {true, false})
+    void bulkInserts(boolean batched) {
+        int largest = Benchmarks.size("rows", 1_000_000);
+        String mode = batched ? "batched" : "unbatched";
+        String[] properties = batched
+            ? new String[] {"ukbank.customer-search.index-enabled=false"}
+            : new String[] {"ukbank.customer-search.index-enabled=false", "spring.jpa.properties.hibernate.jdbc.batch_size=1"};
+
+        try (ConfigurableApplicationContext context = Benchmarks.start(properties)) {
+            EntityManagerFactory entityManagerFactory = context.getBean(EntityManagerFactory.class);
+            EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            Long accountId = transactionTemplate.execute(status -> {
+                Customer holder = newCustomer();
+                entityManager.persist(holder);
+                BankAccount account = BankAccount.openAccount(holder, BankAccount.AccountType.CURRENT,
+                    AccountIdentifier.of("40-00-00", "99999999"), Money.zero(), Money.zero());
+                entityManager.persist(account);
+                return account.getAccountId();
+            });
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+            // The first pass warms the path up and is not reported
+            int[] passes = {largest / 10, largest / 100, largest / 10, largest};
+            for (int pass = 0; pass < passes.length; pass++) {
+                int rows = passes[pass];
+                statistics.clear();
+                long start = System.nanoTime();
+                insert(transactionTemplate, entityManager, rows, () -> entityManager.persist(newCustomer()));
+                long customerNanos = System.nanoTime() - start;
+                long customerStatements = statistics.getPrepareStatementCount();
+
+                statistics.clear();
+                start = System.nanoTime();
+                insert(transactionTemplate, entityManager, rows, () -> entityManager.persist(Transaction.createCredit(
+                    entityManager.getReference(BankAccount.class, accountId), Money.ofMinor(100), Money.ofMinor(100),
+                    "Bulk", "BENCH", "BULK" + sequence++)));
+                long postingNanos = System.nanoTime() - start;
+
+                if (pass == 0) {
+                    continue;
+                }
+                Benchmarks.report("bulk insert", "%s, %,d rows: customers %.0f rows/s (%,d statements), postings %.0f rows/s (%,d statements)",
+                    mode, rows, Benchmarks.perSecond(rows, customerNanos), customerStatements,
+                    Benchmarks.perSecond(rows, postingNanos), statistics.getPrepareStatementCount());
+            }
+        }
+    }
+
+    private static void insert(TransactionTemplate transactionTemplate, EntityManager entityManager, int rows,
+                               Runnable persistOne) {
+        for (int done = 0; done < rows; done += ROWS_PER_TRANSACTION) {
+            int count = Math.min(ROWS_PER_TRANSACTION, rows - done);
+            transactionTemplate.execute(status -> {
+                for (int i = 1; i <= count; i++) {
+                    persistOne.run();
+                    if (i % FLUSH_EVERY == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    // Every customer gets its own email and NI number, so the unique constraints never trip
+    private Customer newCustomer() {
+        int n = sequence++;
+        String nationalInsurance = "" + NI_LETTERS.charAt(n % NI_LETTERS.length())
+            + NI_LETTERS.charAt(n / NI_LETTERS.length() % NI_LETTERS.length())
+            + String.format("%06d", n / (NI_LETTERS.length() * NI_LETTERS.length()) % 1_000_000) + "A";
+        return Customer.registerNewCustomer("Bulk", "Customer" + n, "bulk" + n + "@example.com",
+            String.format("+4470%08d", n % 100_000_000), LocalDate.of(1980, 1, 1), n + " High Street", "SW1A 1AA",
+            nationalInsurance);
+    }
+}
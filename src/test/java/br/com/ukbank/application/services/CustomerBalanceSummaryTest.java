@@ -0,0 +1,153 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.CustomerBalanceSummaryResponse;
+import br.com.ukbank.application.dto.MoneyTransferRequest;
+import br.com.ukbank.application.exceptions.InsufficientFundsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Customer balance summaries after transfers, compared with the accounts they summarise
+ * The flusher is slowed to an hour and the test flushes itself, so every delta has been
+ * written when the customer_balance_summaries rows are read back and set against a
+ * SUM and COUNT over the customers' active accounts.
+ */
+@SpringBootTest(properties = {
+    "ukbank.velocity.enabled=false",
+    "ukbank.balance-summary.flush-interval=1h"
+})
+class CustomerBalanceSummaryTest {
+
+    @Autowired
+    CustomerBalanceSummaryService summaryService;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void summariesFollowTransfersBetweenAndWithinCustomers() {
+        Long alice = TestFixtures.registerCustomer(customerService).getCustomerId();
+        Long bob = TestFixtures.registerCustomer(customerService).getCustomerId();
+        BankAccountResponse aliceCurrent = TestFixtures.openAccount(accountService, alice, "500.00", "100.00");
+        BankAccountResponse aliceSecond = TestFixtures.openAccount(accountService, alice, "250.00", null);
+        BankAccountResponse bobCurrent = TestFixtures.openAccount(accountService, bob, "100.00", null);
+
+        transfer(aliceCurrent, bobCurrent, "120.00");
+        transfer(bobCurrent, aliceSecond, "20.00");
+        transfer(aliceSecond, aliceCurrent, "50.00");
+        // Takes Alice's current account into its overdraft, which the summary carries as a negative
+        transfer(aliceCurrent, bobCurrent, "480.00");
+        summaryService.flush();
+
+        assertSummary(alice, "170.00", 2);
+        assertSummary(bob, "680.00", 1);
+
+        // A frozen account leaves the summary with its balance
+        accountService.freezeAccount(aliceSecond.getAccountId(), "Suspected fraud");
+        summaryService.flush();
+
+        assertSummary(alice, "-50.00", 1);
+        assertSummary(bob, "680.00", 1);
+    }
+
+    @Test
+    void summariesMatchTheAccountsAfterConcurrentTransfers() throws Exception {
+        List<Long> customers = new ArrayList<>();
+        List<BankAccountResponse> accounts = new ArrayList<>();
+        for (int c = 0; c < 3; c++) {
+            Long customerId = TestFixtures.registerCustomer(customerService).getCustomerId();
+            customers.add(customerId);
+            accounts.add(TestFixtures.openAccount(accountService, customerId, "300.00", "50.00"));
+            accounts.add(TestFixtures.openAccount(accountService, customerId, "300.00", null));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < 6; t++) {
+            workers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 40; i++) {
+                    int from = random.nextInt(accounts.size());
+                    int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+                    try {
+                        transfer(accounts.get(from), accounts.get(to), BigDecimal.valueOf(100 + random.nextInt(9000), 2)
+                            .toPlainString());
+                    } catch (InsufficientFundsException e) {
+                        // Refused transfers move nothing
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        summaryService.flush();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Long customerId : customers) {
+            Map<String, Object> actual = jdbcTemplate.queryForMap("SELECT COALESCE(SUM(balance), 0) AS total, "
+                + "COUNT(*) AS accounts FROM bank_accounts WHERE customer_id = ? AND status = 'ACTIVE'", customerId);
+            assertSummary(customerId, ((BigDecimal) actual.get("TOTAL")).toPlainString(),
+                ((Number) actual.get("ACCOUNTS")).intValue());
+            total = total.add(summaryService.getSummary(customerId).getTotalActiveBalance());
+        }
+        assertEquals(new BigDecimal("1800.00"), total, "transfers between the customers conserve their total");
+    }
+
+    // Checks the stored row against the accounts, then against what the caller expects of them
+    private void assertSummary(Long customerId, String balance, int accounts) {
+        Map<String, Object> stored = jdbcTemplate.queryForMap("SELECT total_active_balance, active_account_count "
+            + "FROM customer_balance_summaries WHERE customer_id = ?", customerId);
+        Map<String, Object> actual = jdbcTemplate.queryForMap("SELECT COALESCE(SUM(balance), 0) AS total, "
+            + "COUNT(*) AS accounts FROM bank_accounts WHERE customer_id = ? AND status = 'ACTIVE'", customerId);
+
+        assertEquals(0, ((BigDecimal) actual.get("TOTAL")).compareTo((BigDecimal) stored.get("TOTAL_ACTIVE_BALANCE")),
+            "customer " + customerId + " summary against the accounts");
+        assertEquals(((Number) actual.get("ACCOUNTS")).longValue(), ((Number) stored.get("ACTIVE_ACCOUNT_COUNT")).longValue(),
+            "customer " + customerId + " account count against the accounts");
+        assertEquals(new BigDecimal(balance), stored.get("TOTAL_ACTIVE_BALANCE"), "customer " + customerId);
+        assertEquals(accounts, ((Number) stored.get("ACTIVE_ACCOUNT_COUNT")).intValue(), "customer " + customerId);
+
+        CustomerBalanceSummaryResponse summary = summaryService.getSummary(customerId);
+        assertEquals(Arrays.asList(new BigDecimal(balance), (long) accounts),
+            Arrays.asList(summary.getTotalActiveBalance(), summary.getActiveAccountCount()));
+        assertNotNull(summary.getLastActivityAt());
+    }
+
+    private void transfer(BankAccountResponse from, BankAccountResponse to, String amount) {
+        accountService.transferMoney(MoneyTransferRequest.builder()
+            .fromAccountId(from.getAccountId())
+            .toSortCode(to.getSortCode())
+            .toAccountNumber(to.getAccountNumber())
+            .amount(new BigDecimal(amount))
+            .payeeName("Summary test")
+            .reference("SUMMARY")
+            .build());
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.dto.CustomerImportReport;
+import br.com.ukbank.application.dto.CustomerRegistrationRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bulk customer import with a batch of three, so a short file crosses several batch boundaries
+ * Rows are checked against the customers table afterwards, by an email prefix unique to the run.
+ */
+@SpringBootTest(properties = {
+    "ukbank.velocity.enabled=false",
+    "ukbank.customer-import.batch-size=3"
+})
+class CustomerImportTest {
+
+    private static final AtomicInteger NATIONAL_INSURANCE = new AtomicInteger();
+
+    private static final String HEADER =
+        "firstName,lastName,email,phoneNumber,dateOfBirth,addressLine,postcode,nationalInsuranceNumber\n";
+
+    @Autowired
+    CustomerImportService importService;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rowsArePersistedAcrossBatchBoundariesAndARefusedBatchIsRetriedRowByRow() throws IOException {
+        String run = "import" + System.nanoTime() + "-";
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int row = 1; row <= 11; row++) {
+            // Row 4 repeats row 2's email after row 2's batch has been committed
+            csv.append(csvRow(run, row == 4 ? 2 : row, row));
+        }
+        CustomerRecordReader csvReader = importService.csvReader(new StringReader(csv.toString()));
+
+        // Registers row 10's email after the import loaded its keys, so the batch of rows 8-10 is refused
+        CustomerRecordReader reader = new CustomerRecordReader(new StringReader("")) {
+            @Override
+            public Row next() throws IOException {
+                Row row = csvReader.next();
+                if (row != null && row.getLine() == 11) {
+                    customerService.registerCustomer(request(run, 10, 99));
+                }
+                return row;
+            }
+        };
+
+        CustomerImportReport report = importService.importCustomers(reader);
+
+        assertEquals(11, report.getTotalRows());
+        assertEquals(9, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertEquals(Arrays.asList(5L, 11L), report.getErrors().stream()
+            .map(CustomerImportReport.RowError::getLine).collect(Collectors.toList()));
+        assertEquals("Customer with email " + email(run, 2) + " already exists", report.getErrors().get(0).getMessage());
+        assertEquals("Customer already exists", report.getErrors().get(1).getMessage());
+
+        List<String> stored = jdbcTemplate.queryForList(
+            "SELECT last_name FROM customers WHERE email LIKE ? ORDER BY customer_id", String.class, run + "%");
+        assertEquals(Arrays.asList("Row1", "Row2", "Row3", "Row5", "Row6", "Row7", "Row99", "Row8", "Row9", "Row11"), stored);
+    }
+
+    private static String csvRow(String run, int identity, int row) {
+        CustomerRegistrationRequest request = request(run, identity, row);
+        return String.join(",", request.getFirstName(), request.getLastName(), request.getEmail(),
+            request.getPhoneNumber(), request.getDateOfBirth().toString(), request.getAddressLine(),
+            request.getPostcode(), request.getNationalInsuranceNumber()) + "\n";
+    }
+
+    // The email comes from identity and the surname from row, so a duplicate is still told apart
+    private static CustomerRegistrationRequest request(String run, int identity, int row) {
+        return CustomerRegistrationRequest.builder()
+            .firstName("Import")
+            .lastName("Row" + row)
+            .email(email(run, identity))
+            .phoneNumber(String.format("+4471%08d", row))
+            .dateOfBirth(LocalDate.of(1980, 1, 1))
+            .addressLine(row + " Import Road")
+            .postcode("SW1A 1AA")
+            .nationalInsuranceNumber(String.format("CE%06dD", NATIONAL_INSURANCE.incrementAndGet()))
+            .build();
+    }
+
+    private static String email(String run, int identity) {
+        return run + identity + "@example.com";
+    }
+}
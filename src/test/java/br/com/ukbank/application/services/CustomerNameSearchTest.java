@@ -0,0 +1,104 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.application.dto.CustomerUpdateRequest;
+import br.com.ukbank.infrastructure.repositories.CustomerRepository;
+import br.com.ukbank.infrastructure.repositories.CustomerView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Customer name search served by the trigram index, checked against the LIKE query it replaced
+ * Each test registers its own customers under a surname stem no other test uses, so the results
+ * are exact whatever else the shared context holds.
+ */
+@SpringBootTest(properties = "ukbank.velocity.enabled=false")
+class CustomerNameSearchTest {
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    CustomerNameIndex customerNameIndex;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @BeforeEach
+    void awaitIndex() throws InterruptedException {
+        while (!customerNameIndex.isReady()) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void resultsMatchTheDatabaseRankedExactThenPrefixThenSubstring() {
+        CustomerResponse prefixFirst = TestFixtures.registerCustomer(customerService, "Hazel", "Quorrington");
+        CustomerResponse substring = TestFixtures.registerCustomer(customerService, "Marq", "Aquorra");
+        CustomerResponse prefixSecond = TestFixtures.registerCustomer(customerService, "Anna", "Quorrell");
+        CustomerResponse exact = TestFixtures.registerCustomer(customerService, "Quorr", "Smith");
+
+        List<Long> found = ids(customerService.searchCustomersByName("QuOrR", 50));
+
+        assertEquals(Arrays.asList(exact.getCustomerId(), prefixFirst.getCustomerId(),
+            prefixSecond.getCustomerId(), substring.getCustomerId()), found);
+        assertEquals(fromDatabase("quorr"), found.stream().collect(Collectors.toSet()));
+        assertEquals(Arrays.asList(prefixFirst.getCustomerId()), ids(customerService.searchCustomersByName("orringt", 50)));
+        assertEquals(fromDatabase("orringt"), ids(customerService.searchCustomersByName("orringt", 50)).stream()
+            .collect(Collectors.toSet()));
+        assertEquals(Arrays.asList(exact.getCustomerId(), prefixFirst.getCustomerId()),
+            ids(customerService.searchCustomersByName("quorr", 2)));
+    }
+
+    @Test
+    void candidateSharingEveryTrigramButNotTheSubstringIsLeftOut() {
+        CustomerResponse customer = TestFixtures.registerCustomer(customerService, "Ottoline", "Tarantar");
+
+        // Every trigram of the longer query occurs in "tarantar", but the query itself does not
+        assertEquals(Arrays.asList(customer.getCustomerId()), ids(customerService.searchCustomersByName("tarantar", 50)));
+        assertTrue(customerService.searchCustomersByName("tarantarant", 50).isEmpty());
+        assertTrue(fromDatabase("tarantarant").isEmpty());
+    }
+
+    @Test
+    void renameMovesTheCustomerBetweenResults() {
+        CustomerResponse staying = TestFixtures.registerCustomer(customerService, "Iris", "Wendlebury");
+        CustomerResponse renamed = TestFixtures.registerCustomer(customerService, "Iris", "Wendlecott");
+
+        customerService.updateCustomer(renamed.getCustomerId(), CustomerUpdateRequest.builder()
+            .firstName("Iris")
+            .lastName("Pargeter")
+            .email(renamed.getEmail())
+            .phoneNumber(renamed.getPhoneNumber())
+            .addressLine(renamed.getAddressLine())
+            .postcode(renamed.getPostcode())
+            .build());
+
+        assertEquals(Arrays.asList(staying.getCustomerId()), ids(customerService.searchCustomersByName("wendle", 50)));
+        assertEquals(Arrays.asList(renamed.getCustomerId()), ids(customerService.searchCustomersByName("pargete", 50)));
+        assertEquals(fromDatabase("wendle"), ids(customerService.searchCustomersByName("wendle", 50)).stream()
+            .collect(Collectors.toSet()));
+    }
+
+    private Set<Long> fromDatabase(String name) {
+        return customerRepository.findViewsByNameContaining(name, PageRequest.of(0, 500)).stream()
+            .map(CustomerView::getCustomerId)
+            .collect(Collectors.toSet());
+    }
+
+    private static List<Long> ids(List<CustomerResponse> customers) {
+        return customers.stream().map(CustomerResponse::getCustomerId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,168 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.application.exceptions.InvalidCustomerImportException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerRecordReaderTest {
+
+    private static final String HEADER =
+        "firstName,lastName,email,phoneNumber,dateOfBirth,addressLine,postcode,nationalInsuranceNumber\n";
+
+    @Test
+    void columnsAreMappedByHeaderNameWhateverTheirOrder() throws IOException {
+        CustomerRecordReader reader = csv("\uFEFFEmail,postcode,lastName,firstName,nationalInsuranceNumber,"
+            + "addressLine,dateOfBirth,phoneNumber\n"
+            + "ann@example.com,SW1A 1AA,Smith,Ann,AB123456C,1 High Street,1980-02-29,+447000000001\n");
+
+        CustomerRecordReader.Row row = reader.next();
+
+        assertThat(row.getError()).isNull();
+        assertThat(row.getLine()).isEqualTo(2);
+        assertThat(row.getRequest().getFirstName()).isEqualTo("Ann");
+        assertThat(row.getRequest().getLastName()).isEqualTo("Smith");
+        assertThat(row.getRequest().getEmail()).isEqualTo("ann@example.com");
+        assertThat(row.getRequest().getPhoneNumber()).isEqualTo("+447000000001");
+        assertThat(row.getRequest().getDateOfBirth()).isEqualTo(LocalDate.of(1980, 2, 29));
+        assertThat(row.getRequest().getAddressLine()).isEqualTo("1 High Street");
+        assertThat(row.getRequest().getPostcode()).isEqualTo("SW1A 1AA");
+        assertThat(row.getRequest().getNationalInsuranceNumber()).isEqualTo("AB123456C");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void quotedFieldsKeepCommasAndDoubledQuotes() throws IOException {
+        CustomerRecordReader reader = csv(HEADER
+            + "Ann,\"Smith, Jr\",ann@example.com,+447000000001,1980-01-01,\"Flat 2, \"\"The Old Mill\"\"\",SW1A 1AA,AB123456C\n"
+            + "\"\",Jones,bob@example.com,+447000000002,1980-01-01,\"\"\"\",SW1A 1AA,AB123457C\n");
+
+        CustomerRecordReader.Row first = reader.next();
+        assertThat(first.getError()).isNull();
+        assertThat(first.getRequest().getLastName()).isEqualTo("Smith, Jr");
+        assertThat(first.getRequest().getAddressLine()).isEqualTo("Flat 2, \"The Old Mill\"");
+        assertThat(first.getRequest().getPostcode()).isEqualTo("SW1A 1AA");
+
+        CustomerRecordReader.Row second = reader.next();
+        assertThat(second.getError()).isNull();
+        assertThat(second.getRequest().getFirstName()).isEmpty();
+        assertThat(second.getRequest().getAddressLine()).isEqualTo("\"");
+    }
+
+    @Test
+    void quotedLineBreaksStayInTheFieldAndLaterLineNumbersCountThem() throws IOException {
+        CustomerRecordReader reader = csv(HEADER
+            + "Ann,Smith,ann@example.com,+447000000001,1980-01-01,\"Flat 2\nMill Lane\r\nLeeds\",LS1 1AA,AB123456C\r\n"
+            + "Bob,Jones,bob@example.com,+447000000002,1980-01-01,3 Low Road,SW1A 1AA,AB123457C\r\n");
+
+        CustomerRecordReader.Row first = reader.next();
+        assertThat(first.getLine()).isEqualTo(2);
+        assertThat(first.getRequest().getAddressLine()).isEqualTo("Flat 2\nMill Lane\r\nLeeds");
+        assertThat(first.getRequest().getPostcode()).isEqualTo("LS1 1AA");
+
+        CustomerRecordReader.Row second = reader.next();
+        assertThat(second.getLine()).isEqualTo(5);
+        assertThat(second.getRequest().getFirstName()).isEqualTo("Bob");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void unclosedQuoteStopsAtTheRecordCapAndReadingResumesOnTheNextLine() throws IOException {
+        String valid = "Bob,Jones,bob@example.com,+447000000002,1980-01-01,3 Low Road,SW1A 1AA,AB123457C\n";
+        CustomerRecordReader reader = CustomerRecordReader.csv(new StringReader(HEADER
+            + "Ann,Smith,ann@example.com,+447000000001,1980-01-01,\"1 High Street,SW1A 1AA,AB123456C\n"
+            + "Cat,Brown,cat@example.com,+447000000003,1980-01-01,4 Mid Way,SW1A 1AA,AB123458C\n"
+            + valid), 120);
+
+        CustomerRecordReader.Row swallowed = reader.next();
+        assertThat(swallowed.getLine()).isEqualTo(2);
+        assertThat(swallowed.getRequest()).isNull();
+        assertThat(swallowed.getError()).isEqualTo("Record longer than 120 characters");
+
+        // The quote ran into line 3 before the cap; the rest of that line went with it
+        CustomerRecordReader.Row next = reader.next();
+        assertThat(next.getLine()).isEqualTo(4);
+        assertThat(next.getError()).isNull();
+        assertThat(next.getRequest().getEmail()).isEqualTo("bob@example.com");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void unclosedQuoteAtTheEndOfInputIsReported() throws IOException {
+        CustomerRecordReader reader = csv(HEADER
+            + "Ann,Smith,ann@example.com,+447000000001,1980-01-01,\"1 High Street,SW1A 1AA,AB123456C\n");
+
+        CustomerRecordReader.Row row = reader.next();
+
+        assertThat(row.getError()).isEqualTo("Unterminated quoted field");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void badRowsAreReportedWithTheirLineAndBlankLinesSkipped() throws IOException {
+        CustomerRecordReader reader = csv(HEADER
+            + "Ann,Smith,ann@example.com\n"
+            + "\n"
+            + "Bob,Jones,bob@example.com,+447000000002,02/01/1980,3 Low Road,SW1A 1AA,AB123457C\n"
+            + "Cat,Brown,cat@example.com,+447000000003,1980-01-01,4 Mid Way,SW1A 1AA,AB123458C");
+
+        CustomerRecordReader.Row shortRow = reader.next();
+        assertThat(shortRow.getLine()).isEqualTo(2);
+        assertThat(shortRow.getError()).isEqualTo("Expected 8 columns but found 3");
+
+        CustomerRecordReader.Row badDate = reader.next();
+        assertThat(badDate.getLine()).isEqualTo(4);
+        assertThat(badDate.getError()).isEqualTo("Invalid date of birth, expected yyyy-MM-dd: 02/01/1980");
+
+        CustomerRecordReader.Row lastWithoutNewline = reader.next();
+        assertThat(lastWithoutNewline.getLine()).isEqualTo(5);
+        assertThat(lastWithoutNewline.getRequest().getFirstName()).isEqualTo("Cat");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void headerMustNameEveryColumnAndFitTheCap() {
+        assertThatThrownBy(() -> csv("firstName,lastName,email\n"))
+            .isInstanceOf(InvalidCustomerImportException.class)
+            .hasMessage("CSV header is missing column phoneNumber");
+        assertThatThrownBy(() -> csv(""))
+            .isInstanceOf(InvalidCustomerImportException.class)
+            .hasMessage("CSV input has no header row");
+        assertThatThrownBy(() -> CustomerRecordReader.csv(new StringReader(HEADER), 20))
+            .isInstanceOf(InvalidCustomerImportException.class)
+            .hasMessage("CSV header row is longer than 20 characters");
+    }
+
+    @Test
+    void ndjsonReadsOneRequestPerLineAndReportsMalformedOnes() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        CustomerRecordReader reader = CustomerRecordReader.ndjson(new StringReader(
+            "{\"firstName\":\"Ann\",\"lastName\":\"Smith\",\"dateOfBirth\":\"1980-01-01\"}\n"
+                + "\n"
+                + "{\"firstName\":\"Bob\",\n"
+                + "{\"firstName\":\"Cat\"}\n"), objectMapper);
+
+        CustomerRecordReader.Row first = reader.next();
+        assertThat(first.getLine()).isEqualTo(1);
+        assertThat(first.getRequest().getLastName()).isEqualTo("Smith");
+        assertThat(first.getRequest().getDateOfBirth()).isEqualTo(LocalDate.of(1980, 1, 1));
+
+        CustomerRecordReader.Row malformed = reader.next();
+        assertThat(malformed.getLine()).isEqualTo(3);
+        assertThat(malformed.getError()).startsWith("Malformed JSON: ");
+
+        assertThat(reader.next().getRequest().getFirstName()).isEqualTo("Cat");
+        assertThat(reader.next()).isNull();
+    }
+
+    private static CustomerRecordReader csv(String input) throws IOException {
+        return CustomerRecordReader.csv(new StringReader(input), 8192);
+    }
+}
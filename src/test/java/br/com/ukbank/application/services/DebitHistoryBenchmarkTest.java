@@ -0,0 +1,64 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.application.dto.MoneyTransferRequest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+/**
+ * Cost of a debit against the size of the account's history
+ * Postings are appended through the journal without loading the account's transactions, so
+ * the time per debit should not move with the number of rows already there.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "ukbank.velocity.enabled=false")
+class DebitHistoryBenchmarkTest {
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void debitCostAcrossHistorySizes() {
+        int debits = Benchmarks.size("debits", 2000);
+        int largest = Benchmarks.size("history", 1_000_000);
+        CustomerResponse customer = TestFixtures.registerCustomer(customerService);
+
+        for (int history : new int[] {10, largest / 100, largest}) {
+            Long accountId = TestFixtures.openAccount(accountService, customer.getCustomerId(), "100000.00", null)
+                .getAccountId();
+            TestFixtures.seedHistory(jdbcTemplate, accountId, history);
+
+            // The first pass warms the path up, the second is the one reported
+            long[] latencies = new long[debits];
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < debits; i++) {
+                    long began = System.nanoTime();
+                    accountService.transferMoney(MoneyTransferRequest.builder()
+                        .fromAccountId(accountId)
+                        .toSortCode("99-99-99")
+                        .toAccountNumber("12345678")
+                        .amount(new BigDecimal("0.01"))
+                        .payeeName("Outbound")
+                        .reference("BENCH")
+                        .build());
+                    latencies[i] = System.nanoTime() - began;
+                }
+            }
+            Benchmarks.report("debit with history", "%,d past postings: p50 %.3f ms, p99 %.3f ms",
+                history, Benchmarks.percentileMillis(latencies, 50), Benchmarks.percentileMillis(latencies, 99));
+        }
+    }
+}
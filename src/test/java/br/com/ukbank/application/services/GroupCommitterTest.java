@@ -0,0 +1,208 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.MoneyTransferRequest;
+import br.com.ukbank.application.dto.TransferResponse;
+import br.com.ukbank.application.events.DomainEventHandler;
+import br.com.ukbank.domain.events.DomainEvent;
+import br.com.ukbank.domain.events.TransactionProcessedEvent;
+import br.com.ukbank.domain.model.BankAccount;
+import br.com.ukbank.domain.model.TransactionResult;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Group commit of a batch in which one posting fails after its debit was applied
+ * The delay before a batch closes is long enough for everything a test submits to join it.
+ * Transfers go through the account service; the failing posting is work of the test's own,
+ * debiting an account and raising its event, then throwing before its credit, so money would
+ * be lost if any of its debit reached the database.
+ */
+@SpringBootTest(properties = {
+    "ukbank.velocity.enabled=false",
+    "ukbank.ledger.group-commit.enabled=true",
+    "ukbank.ledger.group-commit.max-delay=500ms"
+})
+class GroupCommitterTest {
+
+    @Autowired
+    GroupCommitter groupCommitter;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    BankAccountRepository accountRepository;
+
+    @Autowired
+    DomainEventPublisher eventPublisher;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionRecorder transactions;
+
+    private BankAccountResponse first;
+    private BankAccountResponse second;
+    private BankAccountResponse third;
+
+    @BeforeEach
+    void openAccounts() {
+        Long customerId = TestFixtures.registerCustomer(customerService).getCustomerId();
+        first = TestFixtures.openAccount(accountService, customerId, "100.00", null);
+        second = TestFixtures.openAccount(accountService, customerId, "100.00", null);
+        third = TestFixtures.openAccount(accountService, customerId, "100.00", null);
+    }
+
+    @Test
+    void postingFailingAfterItsDebitIsDroppedAndTheRestCommitTogether() {
+        double batched = batchedPostings();
+        double reruns = counter("ledger.group.commit.reruns");
+        double splits = counter("ledger.group.commit.splits");
+
+        CompletableFuture<TransferResponse> before = transfer(first, second, "10.00");
+        CompletableFuture<TransactionResult> failing = groupCommitter.submit(
+            Arrays.asList(first.getAccountId(), third.getAccountId()), () -> {
+                TransactionResult debit = debit(first, "30.00");
+                eventPublisher.publish(debit.getDomainEvent());
+                throw new IllegalStateException("credit leg failed");
+            });
+        CompletableFuture<TransferResponse> after = transfer(first, third, "5.00");
+
+        LedgerEngine.await(before);
+        LedgerEngine.await(after);
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> LedgerEngine.await(failing));
+        assertEquals("credit leg failed", failure.getMessage());
+
+        assertEquals(2, batchedPostings() - batched, 0.0, "the two transfers committed as one batch");
+        assertEquals(reruns + 1, counter("ledger.group.commit.reruns"), 0.0);
+        assertEquals(splits, counter("ledger.group.commit.splits"), 0.0);
+        assertBalances("85.00", "110.00", "105.00");
+        // Nothing of the failed debit reached the table or the event handlers
+        assertEquals(2, postings(first));
+        assertEquals(Arrays.asList("DEBIT 10.00", "DEBIT 5.00"), released(first));
+    }
+
+    @Test
+    void everyPostingOfTheBatchMayFail() {
+        double batched = batchedPostings();
+
+        List<CompletableFuture<TransactionResult>> failing = new ArrayList<>();
+        for (BankAccountResponse account : Arrays.asList(first, second, third)) {
+            failing.add(groupCommitter.submit(Arrays.asList(account.getAccountId()), () -> {
+                debit(account, "1.00");
+                throw new IllegalStateException("refused " + account.getAccountId());
+            }));
+        }
+
+        for (CompletableFuture<TransactionResult> posting : failing) {
+            assertThrows(IllegalStateException.class, () -> LedgerEngine.await(posting));
+        }
+        assertEquals(batched, batchedPostings(), 0.0);
+        assertBalances("100.00", "100.00", "100.00");
+    }
+
+    private TransactionResult debit(BankAccountResponse account, String amount) {
+        BankAccount loaded = accountRepository.findById(account.getAccountId()).orElseThrow(AssertionError::new);
+        TransactionResult debit = loaded.processDebit(Money.of(new BigDecimal(amount)), "Doomed transfer", "DOOMED");
+        assertTrue(debit.isSuccess());
+        accountRepository.save(loaded);
+        return debit;
+    }
+
+    private CompletableFuture<TransferResponse> transfer(BankAccountResponse from, BankAccountResponse to,
+                                                         String amount) {
+        return accountService.transferMoneyAsync(MoneyTransferRequest.builder()
+            .fromAccountId(from.getAccountId())
+            .toSortCode(to.getSortCode())
+            .toAccountNumber(to.getAccountNumber())
+            .amount(new BigDecimal(amount))
+            .payeeName("Group commit test")
+            .reference("GROUP")
+            .build());
+    }
+
+    private void assertBalances(String... expected) {
+        BankAccountResponse[] accounts = {first, second, third};
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < accounts.length; i++) {
+            BigDecimal balance = jdbcTemplate.queryForObject(
+                "SELECT balance FROM bank_accounts WHERE account_id = ?", BigDecimal.class, accounts[i].getAccountId());
+            assertEquals(new BigDecimal(expected[i]), balance, "account " + accounts[i].getAccountId());
+            total = total.add(balance);
+        }
+        assertEquals(new BigDecimal("300.00"), total);
+    }
+
+    private long postings(BankAccountResponse account) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE account_id = ?",
+            Long.class, account.getAccountId());
+    }
+
+    private double batchedPostings() {
+        return meterRegistry.get("ledger.group.commit.size").summary().totalAmount();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private List<String> released(BankAccountResponse account) {
+        return transactions.events.stream()
+            .filter(event -> event.getAccountId().equals(account.getAccountId()))
+            .map(event -> event.getTransactionType() + " " + event.getAmount().getAmount())
+            .collect(Collectors.toList());
+    }
+
+    @TestConfiguration
+    static class Handlers {
+
+        @Bean
+        TransactionRecorder transactionRecorder() {
+            return new TransactionRecorder();
+        }
+    }
+
+    static class TransactionRecorder implements DomainEventHandler {
+
+        final List<TransactionProcessedEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean supports(DomainEvent event) {
+            return event instanceof TransactionProcessedEvent;
+        }
+
+        @Override
+        public void handle(DomainEvent event) {
+            events.add((TransactionProcessedEvent) event);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.InterestAccrualReport;
+import br.com.ukbank.domain.model.AccountType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Interest accrual run twice over a business date, and rerun after a chunk failed
+ * Chunks are four account ids wide, so a handful of savings accounts spans several of them.
+ * A deposit of 36,500.00 at the savings rate of 1.25% earns exactly 1.25 a day. Each test uses
+ * its own business date, and balances and postings are read back from the database.
+ */
+@SpringBootTest(properties = {
+    "ukbank.velocity.enabled=false",
+    "ukbank.interest.schedule-enabled=false",
+    "ukbank.interest.chunk-size=4",
+    "ukbank.interest.worker-threads=2"
+})
+class InterestAccrualTest {
+
+    private static final BigDecimal DEPOSIT = new BigDecimal("36500.00");
+    private static final BigDecimal DAILY_INTEREST = new BigDecimal("1.25");
+
+    @Autowired
+    InterestAccrualService interestAccrualService;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void runningTheSameBusinessDateTwiceCreditsNothingTheSecondTime() {
+        LocalDate businessDate = LocalDate.of(2030, 1, 10);
+        List<Long> accounts = openSavingsAccounts(6);
+
+        InterestAccrualReport first = interestAccrualService.accrue(businessDate);
+        assertEquals(0, first.getChunksFailed());
+        for (Long accountId : accounts) {
+            assertEquals(DEPOSIT.add(DAILY_INTEREST), balance(accountId));
+            assertEquals(1, interestPostings(accountId, businessDate));
+        }
+
+        InterestAccrualReport second = interestAccrualService.accrue(businessDate);
+        assertEquals(0, second.getChunksProcessed());
+        assertEquals(0, second.getAccountsCredited());
+
+        // Planning again from scratch still credits nothing, the accounts' accrued-through date stops it
+        jdbcTemplate.update("DELETE FROM interest_accrual_chunks WHERE business_date = ?", businessDate);
+        InterestAccrualReport replanned = interestAccrualService.accrue(businessDate);
+        assertEquals(0, replanned.getChunksFailed());
+        assertEquals(0, replanned.getAccountsCredited());
+
+        for (Long accountId : accounts) {
+            assertEquals(DEPOSIT.add(DAILY_INTEREST), balance(accountId));
+            assertEquals(1, interestPostings(accountId, businessDate));
+        }
+    }
+
+    @Test
+    void failedChunkStaysPendingAndIsPickedUpOnTheNextRun() {
+        LocalDate businessDate = LocalDate.of(2030, 2, 10);
+        List<Long> accounts = openSavingsAccounts(10);
+        Long broken = accounts.get(5);
+
+        // An account type Hibernate cannot map makes loading the chunk's accounts throw
+        jdbcTemplate.update("UPDATE bank_accounts SET account_type = 'UNKNOWN' WHERE account_id = ?", broken);
+
+        InterestAccrualReport first = interestAccrualService.accrue(businessDate);
+
+        assertEquals(1, first.getChunksFailed());
+        long[] failedChunk = jdbcTemplate.queryForObject("SELECT first_account_id, last_account_id FROM "
+                + "interest_accrual_chunks WHERE business_date = ? AND status = 'PENDING'",
+            (rs, row) -> new long[] {rs.getLong(1), rs.getLong(2)}, businessDate);
+        assertTrue(failedChunk[0] <= broken && broken <= failedChunk[1]);
+        List<Long> creditedFirst = new ArrayList<>();
+        for (Long accountId : accounts) {
+            boolean inFailedChunk = failedChunk[0] <= accountId && accountId <= failedChunk[1];
+            assertEquals(inFailedChunk ? 0 : 1, interestPostings(accountId, businessDate), "account " + accountId);
+            if (!inFailedChunk) {
+                creditedFirst.add(accountId);
+            }
+        }
+        assertTrue(creditedFirst.size() > 0);
+
+        jdbcTemplate.update("UPDATE bank_accounts SET account_type = 'SAVINGS' WHERE account_id = ?", broken);
+        InterestAccrualReport second = interestAccrualService.accrue(businessDate);
+
+        assertEquals(1, second.getChunksProcessed());
+        assertEquals(0, second.getChunksFailed());
+        assertEquals(accounts.size() - creditedFirst.size(), second.getAccountsCredited());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM interest_accrual_chunks "
+            + "WHERE business_date = ? AND status = 'PENDING'", Integer.class, businessDate));
+        for (Long accountId : accounts) {
+            assertEquals(DEPOSIT.add(DAILY_INTEREST), balance(accountId), "account " + accountId);
+            assertEquals(1, interestPostings(accountId, businessDate), "account " + accountId);
+        }
+    }
+
+    private List<Long> openSavingsAccounts(int count) {
+        List<Long> accounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Long customerId = TestFixtures.registerCustomer(customerService).getCustomerId();
+            accounts.add(TestFixtures.openAccount(accountService, customerId, AccountType.SAVINGS,
+                DEPOSIT.toPlainString(), "0.00").getAccountId());
+        }
+        return accounts;
+    }
+
+    private BigDecimal balance(Long accountId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM bank_accounts WHERE account_id = ?",
+            BigDecimal.class, accountId);
+    }
+
+    private int interestPostings(Long accountId, LocalDate businessDate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions WHERE account_id = ? AND reference = ?",
+            Integer.class, accountId, "INT" + businessDate.toString().replace("-", ""));
+    }
+}
@@ -0,0 +1,133 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.LedgerMismatchResponse;
+import br.com.ukbank.application.dto.LedgerReconciliationReport;
+import br.com.ukbank.application.dto.MoneyTransferRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ledger reconciliation finding balances and postings altered behind the ledger's back
+ * Partitions are four account ids wide on two workers, so the accounts span several of them.
+ * After a clean run, one account's stored balance and another's posting are changed through
+ * JDBC and the next run must record exactly those mismatches.
+ */
+@SpringBootTest(properties = {
+    "ukbank.velocity.enabled=false",
+    "ukbank.reconciliation.schedule-enabled=false",
+    "ukbank.reconciliation.chunk-size=4",
+    "ukbank.reconciliation.worker-threads=2"
+})
+class LedgerReconciliationTest {
+
+    @Autowired
+    LedgerReconciliationService reconciliationService;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void driftedBalanceAndTamperedPostingAreRecorded() {
+        List<BankAccountResponse> accounts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Long customerId = TestFixtures.registerCustomer(customerService).getCustomerId();
+            accounts.add(TestFixtures.openAccount(accountService, customerId, "1000.00", "200.00"));
+        }
+        Random random = new Random(22);
+        for (int i = 0; i < 80; i++) {
+            int from = random.nextInt(accounts.size());
+            int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+            transfer(accounts.get(from), accounts.get(to), BigDecimal.valueOf(1 + random.nextInt(2500), 2));
+        }
+
+        LedgerReconciliationReport clean = reconciliationService.reconcile();
+        assertEquals(0, clean.getChunksFailed());
+        assertEquals(0, clean.getChainBreaks());
+        assertEquals(0, clean.getBalanceMismatches());
+        assertEquals(0, clean.getMismatchesRecorded());
+        assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Long.class),
+            clean.getPostingsChecked());
+
+        BankAccountResponse drifted = accounts.get(3);
+        BigDecimal live = balance(drifted);
+        List<Map<String, Object>> driftedPostings = postings(drifted);
+        jdbcTemplate.update("UPDATE bank_accounts SET balance = balance + 1.00 WHERE account_id = ?",
+            drifted.getAccountId());
+
+        // A posting's balance after is changed, so it and the one after it no longer follow
+        BankAccountResponse tampered = accounts.get(6);
+        List<Map<String, Object>> tamperedPostings = postings(tampered);
+        Map<String, Object> changed = tamperedPostings.get(tamperedPostings.size() / 2);
+        Map<String, Object> next = tamperedPostings.get(tamperedPostings.size() / 2 + 1);
+        BigDecimal changedBalance = (BigDecimal) changed.get("BALANCE_AFTER");
+        jdbcTemplate.update("UPDATE transactions SET balance_after = balance_after + 0.05 WHERE transaction_id = ?",
+            changed.get("TRANSACTION_ID"));
+
+        LedgerReconciliationReport report = reconciliationService.reconcile();
+
+        assertEquals(0, report.getChunksFailed());
+        assertEquals(2, report.getChainBreaks());
+        assertEquals(1, report.getBalanceMismatches());
+        assertEquals(3, report.getMismatchesRecorded());
+
+        List<String> recorded = reconciliationService.getMismatches(report.getRunId(), 0, 50).stream()
+            .map(LedgerReconciliationTest::describe)
+            .collect(Collectors.toList());
+        BigDecimal nextBalance = (BigDecimal) next.get("BALANCE_AFTER");
+        assertEquals(Arrays.asList(
+            drifted.getAccountId() + " BALANCE_MISMATCH at "
+                + driftedPostings.get(driftedPostings.size() - 1).get("TRANSACTION_ID")
+                + ": expected " + live + ", found " + live.add(new BigDecimal("1.00")),
+            tampered.getAccountId() + " CHAIN_BREAK at " + changed.get("TRANSACTION_ID")
+                + ": expected " + changedBalance + ", found " + changedBalance.add(new BigDecimal("0.05")),
+            tampered.getAccountId() + " CHAIN_BREAK at " + next.get("TRANSACTION_ID")
+                + ": expected " + nextBalance.add(new BigDecimal("0.05")) + ", found " + nextBalance), recorded);
+        assertEquals(0, reconciliationService.getMismatches(clean.getRunId(), 0, 50).size());
+    }
+
+    private void transfer(BankAccountResponse from, BankAccountResponse to, BigDecimal amount) {
+        accountService.transferMoney(MoneyTransferRequest.builder()
+            .fromAccountId(from.getAccountId())
+            .toSortCode(to.getSortCode())
+            .toAccountNumber(to.getAccountNumber())
+            .amount(amount)
+            .payeeName("Reconciliation test")
+            .reference("RECONCILE")
+            .build());
+    }
+
+    private BigDecimal balance(BankAccountResponse account) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM bank_accounts WHERE account_id = ?",
+            BigDecimal.class, account.getAccountId());
+    }
+
+    private List<Map<String, Object>> postings(BankAccountResponse account) {
+        return jdbcTemplate.queryForList("SELECT transaction_id, balance_after FROM transactions "
+            + "WHERE account_id = ? ORDER BY processed_at, transaction_id", account.getAccountId());
+    }
+
+    private static String describe(LedgerMismatchResponse mismatch) {
+        return mismatch.getAccountId() + " " + mismatch.getKind() + " at " + mismatch.getTransactionId()
+            + ": expected " + mismatch.getExpectedBalance() + ", found " + mismatch.getActualBalance();
+    }
+}
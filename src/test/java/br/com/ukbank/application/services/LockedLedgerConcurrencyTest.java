@@ -0,0 +1,10 @@
+package br.com.ukbank.application.services;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Ledger invariants with the striped account locks
+ */
+@SpringBootTest(properties = "ukbank.velocity.enabled=false")
+class LockedLedgerConcurrencyTest extends AbstractLedgerConcurrencyTest {
+}
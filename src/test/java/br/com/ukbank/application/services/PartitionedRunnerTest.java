@@ -0,0 +1,122 @@
+package br.com.ukbank.application.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PartitionedRunnerTest {
+
+    @Test
+    void planCoversTheRangeInChunksOfAtMostTheSize() {
+        assertThat(plan(1L, 10L, 4)).containsExactly("1-4", "5-8", "9-10");
+        assertThat(plan(1L, 8L, 4)).containsExactly("1-4", "5-8");
+        assertThat(plan(1L, 9L, 4)).containsExactly("1-4", "5-8", "9-9");
+        assertThat(plan(7L, 7L, 4)).containsExactly("7-7");
+        assertThat(plan(3L, 5L, 10_000)).containsExactly("3-5");
+        assertThat(plan(1L, 3L, 1)).containsExactly("1-1", "2-2", "3-3");
+    }
+
+    @Test
+    void planEndsAtTheLastIdWithoutOverflowing() {
+        long last = Long.MAX_VALUE;
+        List<long[]> chunks = PartitionedRunner.plan(new Object[] {last - 5, last}, 4);
+
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0)).containsExactly(last - 5, last - 2);
+        assertThat(chunks.get(1)).containsExactly(last - 1, last);
+        assertThat(PartitionedRunner.plan(new Object[] {last, last}, Integer.MAX_VALUE)).hasSize(1);
+    }
+
+    @Test
+    void planOfNoIdsIsEmptyAndChunkSizeMustBePositive() {
+        assertThat(PartitionedRunner.plan(new Object[] {null, null}, 4)).isEmpty();
+        assertThatThrownBy(() -> PartitionedRunner.plan(new Object[] {1L, 10L}, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void runHandsEveryChunkToOneWorkerOnce() {
+        List<long[]> chunks = PartitionedRunner.plan(new Object[] {1L, 1_000L}, 7);
+        Map<Long, AtomicInteger> runs = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        int failed = new PartitionedRunner("test-runner", "testing", 4).run(chunks, chunk -> {
+            for (long id = chunk[0]; id <= chunk[1]; id++) {
+                runs.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+            }
+            assertThat(Thread.currentThread().isDaemon()).isTrue();
+            threads.add(Thread.currentThread().getName());
+        }, (chunk, e) -> { });
+
+        assertThat(failed).isZero();
+        assertThat(runs).hasSize(1_000);
+        assertThat(runs.values()).allMatch(count -> count.get() == 1);
+        assertThat(threads).isNotEmpty().allMatch(name -> name.matches("test-runner-[0-3]"));
+    }
+
+    @Test
+    void failedChunksAreCountedAndReportedWithoutStoppingTheOthers() {
+        List<Integer> chunks = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        Set<Integer> completed = ConcurrentHashMap.newKeySet();
+        Map<Integer, RuntimeException> failures = new ConcurrentHashMap<>();
+
+        int failed = new PartitionedRunner("test-runner", "testing", 3).run(chunks, chunk -> {
+            if (chunk % 7 == 0) {
+                throw new IllegalStateException("chunk " + chunk);
+            }
+            completed.add(chunk);
+        }, failures::put);
+
+        assertThat(failed).isEqualTo(15);
+        assertThat(failures.keySet()).containsExactlyInAnyOrderElementsOf(
+            chunks.stream().filter(chunk -> chunk % 7 == 0).collect(Collectors.toList()));
+        assertThat(failures.get(14)).hasMessage("chunk 14");
+        assertThat(completed).hasSize(85);
+    }
+
+    @Test
+    void errorEscapingTheCallbacksEndsTheRun() {
+        List<Integer> chunks = new ArrayList<>(Collections.nCopies(3, 1));
+
+        assertThatThrownBy(() -> new PartitionedRunner("test-runner", "testing", 2).run(chunks, chunk -> {
+            throw new AssertionError("escaped");
+        }, (chunk, e) -> { }))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Worker failed while testing")
+            .hasCauseInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    void emptyRunFailsNothingAndWorkersDefaultToTheCores() {
+        PartitionedRunner runner = new PartitionedRunner("test-runner", "testing", 0);
+
+        assertThat(runner.run(Collections.<long[]>emptyList(), chunk -> { }, (chunk, e) -> { })).isZero();
+        assertThat(runner.workers()).isEqualTo(Runtime.getRuntime().availableProcessors());
+        assertThat(new PartitionedRunner("test-runner", "testing", 3).workers()).isEqualTo(3);
+    }
+
+    @Test
+    void ratesArePerSecondAndPerUsableCore() {
+        assertThat(PartitionedRunner.perSecond(500, TimeUnit.MILLISECONDS.toNanos(250))).isEqualTo(2_000);
+        assertThat(PartitionedRunner.perSecond(5, 0)).isEqualTo(5_000_000_000L);
+        assertThat(new PartitionedRunner("test-runner", "testing", 1).perCore(2_000)).isEqualTo(2_000);
+    }
+
+    private static List<String> plan(long first, long last, int chunkSize) {
+        return PartitionedRunner.plan(new Object[] {first, last}, chunkSize).stream()
+            .map(chunk -> chunk[0] + "-" + chunk[1])
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,184 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.domain.model.BankAccount;
+import br.com.ukbank.domain.model.Transaction;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.config.PostingJournalProperties;
+import br.com.ukbank.infrastructure.journal.JournalOffsetRepository;
+import br.com.ukbank.infrastructure.journal.MappedJournal;
+import br.com.ukbank.infrastructure.journal.PostingRecord;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import br.com.ukbank.infrastructure.repositories.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Append latency of the posting journal, and how long it takes to recover after a crash
+ * Appends copy an encoded posting into the mapped segment; forced appends add the sync that a
+ * committing transfer waits for, on its own and shared by a group. Recovery opens a journal
+ * none of whose postings were projected, most of them from transactions that committed, and
+ * covers reading it back, settling each posting by its account's version and projecting the
+ * committed ones into the transactions table.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "ukbank.velocity.enabled=false")
+class PostingJournalBenchmarkTest {
+
+    private static final int SEGMENT_SIZE = 64 << 20;
+    private static final int GROUP = 32;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    BankAccountRepository accountRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    JournalOffsetRepository offsetRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void appendLatency() throws IOException {
+        int appends = Benchmarks.size("appends", 1_000_000);
+        int syncs = Benchmarks.size("syncs", 2000);
+        BankAccount account = openAccounts(1).get(0);
+        byte[] payload = PostingRecord.of(posting(account, 0)).encode();
+
+        Path directory = Files.createTempDirectory("posting-journal-benchmark");
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < appends / 10; i++) {
+                journal.append(PostingRecord.POSTING, payload);
+            }
+            long began = System.nanoTime();
+            for (int i = 0; i < appends; i++) {
+                journal.append(PostingRecord.POSTING, payload);
+            }
+            long elapsed = System.nanoTime() - began;
+
+            long[] single = new long[syncs];
+            for (int i = 0; i < syncs; i++) {
+                long start = System.nanoTime();
+                journal.append(PostingRecord.POSTING, payload);
+                journal.force();
+                single[i] = System.nanoTime() - start;
+            }
+            long[] grouped = new long[syncs];
+            for (int i = 0; i < syncs; i++) {
+                long start = System.nanoTime();
+                for (int k = 0; k < GROUP; k++) {
+                    journal.append(PostingRecord.POSTING, payload);
+                }
+                journal.force();
+                grouped[i] = System.nanoTime() - start;
+            }
+
+            Benchmarks.report("journal append", "%,d postings of %d bytes: %.0f ns/append, %.0f appends/s",
+                appends, payload.length, (double) elapsed / appends, Benchmarks.perSecond(appends, elapsed));
+            Benchmarks.report("journal append and force", "p50 %.3f ms, p99 %.3f ms",
+                Benchmarks.percentileMillis(single, 50), Benchmarks.percentileMillis(single, 99));
+            Benchmarks.report("journal group of " + GROUP + " and force", "p50 %.3f ms, p99 %.3f ms per group, "
+                    + "%.1f us per posting", Benchmarks.percentileMillis(grouped, 50),
+                Benchmarks.percentileMillis(grouped, 99), Benchmarks.percentileMillis(grouped, 50) * 1000 / GROUP);
+        } finally {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void recoveryTime() throws Exception {
+        int postings = Benchmarks.size("recovered", 500_000);
+        int accounts = 100;
+        int committedAccounts = 90;
+        List<BankAccount> loaded = openAccounts(accounts);
+
+        Path directory = Files.createTempDirectory("posting-journal-recovery");
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < postings; i++) {
+                journal.append(PostingRecord.POSTING,
+                    PostingRecord.of(posting(loaded.get(i % accounts), i)).encode());
+            }
+        }
+        // The node went down once the first accounts' transactions had committed and before the rest did
+        jdbcTemplate.update("UPDATE bank_accounts SET version = version + 1 WHERE account_id IN ("
+            + loaded.subList(0, committedAccounts).stream()
+                .map(account -> String.valueOf(account.getAccountId())).collect(Collectors.joining(",")) + ")");
+        offsetRepository.deleteAll();
+
+        PostingJournalProperties properties = new PostingJournalProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory);
+        properties.setSegmentSize(DataSize.ofBytes(SEGMENT_SIZE));
+        PostingJournal recovering = new PostingJournal(properties, transactionRepository, accountRepository,
+            offsetRepository, transactionManager, new SimpleMeterRegistry());
+        try {
+            long began = System.nanoTime();
+            recovering.start();
+            long elapsed = System.nanoTime() - began;
+
+            int expected = 0;
+            for (int i = 0; i < postings; i++) {
+                expected += i % accounts < committedAccounts ? 1 : 0;
+            }
+            Integer projected = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE reference = 'RECOVERY'", Integer.class);
+            assertEquals(expected, projected.intValue());
+
+            Benchmarks.report("journal recovery", "%,d postings, %,d committed: %d ms, %.0f postings/s",
+                postings, expected, elapsed / 1_000_000, Benchmarks.perSecond(postings, elapsed));
+        } finally {
+            recovering.stop();
+            offsetRepository.deleteAll();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    private List<BankAccount> openAccounts(int count) {
+        CustomerResponse customer = TestFixtures.registerCustomer(customerService);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(TestFixtures.openAccount(accountService, customer.getCustomerId(), "10.00", null).getAccountId());
+        }
+        List<BankAccount> accounts = new TransactionTemplate(transactionManager)
+            .execute(status -> accountRepository.findAllById(ids));
+        accounts.sort(Comparator.comparing(BankAccount::getAccountId));
+        return accounts;
+    }
+
+    private static Transaction posting(BankAccount account, int n) {
+        return Transaction.restore(account, Transaction.TransactionType.CREDIT, Money.ofMinor(1),
+            Money.ofMinor(1001 + n), "Journal benchmark", "RECOVERY", "RECOVERY-" + n, LocalDateTime.now());
+    }
+}
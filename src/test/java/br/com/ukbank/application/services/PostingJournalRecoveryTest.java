@@ -0,0 +1,288 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.domain.model.BankAccount;
+import br.com.ukbank.domain.model.Transaction;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.config.PostingJournalProperties;
+import br.com.ukbank.infrastructure.journal.JournalOffset;
+import br.com.ukbank.infrastructure.journal.JournalOffsetRepository;
+import br.com.ukbank.infrastructure.journal.MappedJournal;
+import br.com.ukbank.infrastructure.journal.PostingRecord;
+import br.com.ukbank.infrastructure.repositories.BankAccountRepository;
+import br.com.ukbank.infrastructure.repositories.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Posting journal recovery after a crash, from journals written record by record
+ * The application's own journal stays off; each test writes a journal into a temporary
+ * directory as a node would have left it, moves account versions to say which transactions
+ * committed, then starts a journal of its own over it and checks what reached the
+ * transactions table and the stored offset.
+ */
+@SpringBootTest(properties = "ukbank.velocity.enabled=false")
+class PostingJournalRecoveryTest {
+
+    private static final int SEGMENT_SIZE = 1 << 20;
+    private static final String OFFSET = "postings";
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    BankAccountRepository accountRepository;
+
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Autowired
+    JournalOffsetRepository offsetRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
+    private final List<PostingJournal> started = new ArrayList<>();
+
+    @BeforeEach
+    @AfterEach
+    void clearOffset() throws Exception {
+        for (PostingJournal journal : started) {
+            journal.stop();
+        }
+        started.clear();
+        offsetRepository.deleteAll();
+    }
+
+    @Test
+    void pendingPostingIsKeptOnlyWhenItsAccountVersionMovedOn() throws Exception {
+        List<BankAccount> accounts = openAccounts(2);
+        BankAccount committed = accounts.get(0);
+        BankAccount rolledBack = accounts.get(1);
+        write(posting("VERSION", committed, 0), posting("VERSION", rolledBack, 1), posting("VERSION", committed, 2));
+        bumpVersion(committed);
+
+        start();
+
+        assertEquals(Arrays.asList("VERSION-0", "VERSION-2"), projected("VERSION"));
+        assertEquals(3L, offset());
+
+        // Replayed from the start, the abort journaled for the undecided posting keeps it out
+        // even once its account has moved on
+        clearOffset();
+        jdbcTemplate.update("DELETE FROM transactions WHERE transaction_reference LIKE 'VERSION-%'");
+        bumpVersion(rolledBack);
+        start();
+        assertEquals(Arrays.asList("VERSION-0", "VERSION-2"), projected("VERSION"));
+        assertEquals(3L, offset());
+    }
+
+    @Test
+    void projectionRestartsAfterTheStoredOffset() throws Exception {
+        BankAccount account = openAccounts(1).get(0);
+        write(posting("OFFSET", account, 1), posting("OFFSET", account, 2), posting("OFFSET", account, 3),
+            posting("OFFSET", account, 4), posting("OFFSET", account, 5));
+        bumpVersion(account);
+        storeOffset(3);
+
+        start();
+        assertEquals(Arrays.asList("OFFSET-4", "OFFSET-5"), projected("OFFSET"));
+        assertEquals(5L, offset());
+
+        // A second restart finds nothing after the offset and inserts nothing twice
+        started.remove(0).stop();
+        start();
+        assertEquals(Arrays.asList("OFFSET-4", "OFFSET-5"), projected("OFFSET"));
+        assertEquals(5L, offset());
+    }
+
+    @Test
+    void journalEndingBeforeTheStoredOffsetIsRefused() throws Exception {
+        BankAccount account = openAccounts(1).get(0);
+        write(posting("SHORT", account, 1), posting("SHORT", account, 2));
+        storeOffset(3);
+
+        IllegalStateException refused = assertThrows(IllegalStateException.class, this::start);
+        assertTrue(refused.getMessage().contains("before the projected offset 3"), refused.getMessage());
+        assertEquals(Collections.emptyList(), projected("SHORT"));
+    }
+
+    @Test
+    void tornTailIsIgnoredAndAppendingResumesWhereItEnds() throws Exception {
+        BankAccount account = openAccounts(1).get(0);
+        write(posting("TORN", account, 1), posting("TORN", account, 2), posting("TORN", account, 3));
+        bumpVersion(account);
+        // A crash in the middle of the next append left its length and part of its body
+        try (RandomAccessFile segment = new RandomAccessFile(segment().toFile(), "rw")) {
+            segment.seek(recordStart(segment, 3));
+            segment.writeInt(120);
+            segment.writeInt(0x5eed);
+            segment.writeLong(4);
+        }
+
+        start();
+        assertEquals(Arrays.asList("TORN-1", "TORN-2", "TORN-3"), projected("TORN"));
+        assertEquals(3L, offset());
+        started.remove(0).stop();
+
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            assertEquals(3L, journal.getLastSequence());
+            assertEquals(4L, journal.append(PostingRecord.ABORT, PostingRecord.encodeAbort(99)));
+            assertEquals(Arrays.asList(4L), sequencesAfter(journal, 3));
+        }
+    }
+
+    @Test
+    void recordWithABadChecksumEndsTheJournal() throws Exception {
+        BankAccount account = openAccounts(1).get(0);
+        write(posting("CRC", account, 1), posting("CRC", account, 2), posting("CRC", account, 3));
+        bumpVersion(account);
+        // One payload byte of the second record changes under its checksum
+        try (RandomAccessFile segment = new RandomAccessFile(segment().toFile(), "rw")) {
+            long flipped = recordStart(segment, 1) + 4 + 4 + 8 + 1 + 20;
+            segment.seek(flipped);
+            int original = segment.read();
+            segment.seek(flipped);
+            segment.write(original ^ 0xff);
+        }
+
+        start();
+
+        // Nothing after the bad record can be trusted to follow it, so the third is not read either
+        assertEquals(Arrays.asList("CRC-1"), projected("CRC"));
+        assertEquals(1L, offset());
+        started.remove(0).stop();
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            assertEquals(1L, journal.getLastSequence());
+        }
+    }
+
+    @Test
+    void intervalSyncIsRefusedWhileTheJournalIsEnabled() {
+        PostingJournalProperties properties = properties();
+        properties.setSyncMode(PostingJournalProperties.SyncMode.INTERVAL);
+
+        IllegalStateException refused = assertThrows(IllegalStateException.class, () -> journal(properties));
+        assertTrue(refused.getMessage().contains("only GROUP is supported"), refused.getMessage());
+
+        properties.setEnabled(false);
+        journal(properties);
+    }
+
+    private void start() throws IOException {
+        PostingJournal journal = journal(properties());
+        journal.start();
+        started.add(journal);
+    }
+
+    private PostingJournal journal(PostingJournalProperties properties) {
+        return new PostingJournal(properties, transactionRepository, accountRepository, offsetRepository,
+            transactionManager, new SimpleMeterRegistry());
+    }
+
+    private PostingJournalProperties properties() {
+        PostingJournalProperties properties = new PostingJournalProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory);
+        properties.setSegmentSize(DataSize.ofBytes(SEGMENT_SIZE));
+        return properties;
+    }
+
+    private void write(Transaction... postings) throws IOException {
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE)) {
+            for (Transaction posting : postings) {
+                journal.append(PostingRecord.POSTING, PostingRecord.of(posting).encode());
+            }
+        }
+    }
+
+    private Path segment() {
+        return directory.resolve(String.format("%020d.journal", 1));
+    }
+
+    // Skips the frames before the record at the index, each its length plus the length and checksum ints
+    private static long recordStart(RandomAccessFile segment, int index) throws IOException {
+        long position = 0;
+        for (int i = 0; i < index; i++) {
+            segment.seek(position);
+            position += 4 + 4 + segment.readInt();
+        }
+        return position;
+    }
+
+    private static List<Long> sequencesAfter(MappedJournal journal, long sequence) {
+        List<Long> sequences = new ArrayList<>();
+        journal.read(sequence, (read, kind, payload) -> sequences.add(read));
+        return sequences;
+    }
+
+    private void storeOffset(long sequence) {
+        JournalOffset offset = new JournalOffset(OFFSET);
+        offset.advanceTo(sequence);
+        offsetRepository.save(offset);
+    }
+
+    private long offset() {
+        return offsetRepository.findById(OFFSET).map(JournalOffset::getLastSequence).orElse(0L);
+    }
+
+    private void bumpVersion(BankAccount account) {
+        jdbcTemplate.update("UPDATE bank_accounts SET version = version + 1 WHERE account_id = ?",
+            account.getAccountId());
+    }
+
+    private List<String> projected(String prefix) {
+        return jdbcTemplate.queryForList("SELECT transaction_reference FROM transactions "
+            + "WHERE transaction_reference LIKE ? ORDER BY transaction_reference", String.class, prefix + "-%");
+    }
+
+    private List<BankAccount> openAccounts(int count) {
+        CustomerResponse customer = TestFixtures.registerCustomer(customerService);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(TestFixtures.openAccount(accountService, customer.getCustomerId(), "10.00", null).getAccountId());
+        }
+        List<BankAccount> accounts = new TransactionTemplate(transactionManager)
+            .execute(status -> accountRepository.findAllById(ids));
+        accounts.sort(Comparator.comparing(BankAccount::getAccountId));
+        return accounts;
+    }
+
+    private static Transaction posting(String prefix, BankAccount account, int n) {
+        return Transaction.restore(account, Transaction.TransactionType.CREDIT, Money.ofMinor(1),
+            Money.ofMinor(1001 + n), "Journal recovery", "RECOVERY", prefix + "-" + n, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.CustomerResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Latency of the account and customer reads with the response cache on and off
+ * Reads cycle over one customer's accounts, so with the cache on every read after the warm-up
+ * is a hit. Each setting runs in a context of its own.
+ */
+@Tag("benchmark")
+class ReadLatencyBenchmarkTest {
+
+    @ParameterizedTest(name = "cache enabled: {0}")
+    @ValueSource(booleans = {true, false})
+    void readLatency(boolean cacheEnabled) {
+        int accounts = Benchmarks.size("accounts", 200);
+        int reads = Benchmarks.size("reads", 200_000);
+        String mode = cacheEnabled ? "on" : "off";
+
+        try (ConfigurableApplicationContext context = Benchmarks.start("ukbank.cache.enabled=" + cacheEnabled)) {
+            CustomerApplicationService customerService = context.getBean(CustomerApplicationService.class);
+            BankingAccountService accountService = context.getBean(BankingAccountService.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+            CustomerResponse customer = TestFixtures.registerCustomer(customerService);
+            List<Long> accountIds = new ArrayList<>(accounts);
+            for (int i = 0; i < accounts; i++) {
+                accountIds.add(TestFixtures.openAccount(accountService, customer.getCustomerId(), "10.00", null).getAccountId());
+            }
+
+            // The first pass warms the path up, the second is the one reported
+            long[] latencies = new long[reads];
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < reads; i++) {
+                    long began = System.nanoTime();
+                    accountService.getAccountById(accountIds.get(i % accounts));
+                    latencies[i] = System.nanoTime() - began;
+                }
+            }
+            Benchmarks.report("getAccountById", "cache %s: p50 %.1f us, p99 %.1f us, hit ratio %.3f",
+                mode, Benchmarks.percentileMillis(latencies, 50) * 1000, Benchmarks.percentileMillis(latencies, 99) * 1000,
+                hitRatio(meterRegistry, "accounts"));
+
+            int lists = reads / 100;
+            long start = System.nanoTime();
+            for (int i = 0; i < lists; i++) {
+                accountService.getAccountsByCustomerId(customer.getCustomerId());
+            }
+            Benchmarks.report("getAccountsByCustomerId", "cache %s, %d accounts: %.1f us per call",
+                mode, accounts, (System.nanoTime() - start) / 1e3 / lists);
+
+            int customers = reads / 4;
+            start = System.nanoTime();
+            for (int i = 0; i < customers; i++) {
+                customerService.getCustomerById(customer.getCustomerId());
+            }
+            Benchmarks.report("getCustomerById", "cache %s: %.2f us per call",
+                mode, (System.nanoTime() - start) / 1e3 / customers);
+        }
+    }
+
+    private static double hitRatio(MeterRegistry meterRegistry, String cache) {
+        double hits = gets(meterRegistry, cache, "hit");
+        double total = hits + gets(meterRegistry, cache, "miss");
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static double gets(MeterRegistry meterRegistry, String cache, String result) {
+        FunctionCounter counter = meterRegistry.find("cache.gets").tag("cache", cache).tag("result", result).functionCounter();
+        return counter != null ? counter.count() : 0;
+    }
+}
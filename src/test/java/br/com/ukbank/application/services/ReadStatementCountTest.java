@@ -0,0 +1,105 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.CustomerResponse;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SQL statements issued per read endpoint, counted by Hibernate statistics
+ * Reads select CustomerView and BankAccountView projections, so each costs a fixed number of
+ * statements however many accounts a customer holds. The cache is off so every read reaches
+ * the database, and the background pollers are slowed right down since the statistics count
+ * their statements too.
+ */
+@SpringBootTest(properties = {
+    "ukbank.cache.enabled=false",
+    "ukbank.balance-summary.flush-interval=1h",
+    "ukbank.balance-index.refresh-interval=1h",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ReadStatementCountTest {
+
+    private static final int ACCOUNTS = 20;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    CustomerNameIndex customerNameIndex;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    CustomerResponse customer;
+    List<Long> accountIds;
+
+    @BeforeEach
+    void openAccounts() throws InterruptedException {
+        customer = TestFixtures.registerCustomer(customerService);
+        accountIds = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds.add(TestFixtures.openAccount(accountService, customer.getCustomerId(), "1.00", null).getAccountId());
+        }
+        while (!customerNameIndex.isReady()) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void accountByIdIsOneStatement() {
+        BankAccountResponse account = countStatements(1, () -> accountService.getAccountById(accountIds.get(0)));
+
+        assertEquals(customer.getFullName(), account.getCustomerName());
+    }
+
+    @Test
+    void accountsOfACustomerAreTwoStatementsWhateverTheirNumber() {
+        List<BankAccountResponse> accounts = countStatements(2,
+            () -> accountService.getAccountsByCustomerId(customer.getCustomerId()));
+
+        assertEquals(ACCOUNTS, accounts.size());
+        accounts.forEach(account -> assertEquals(customer.getFullName(), account.getCustomerName()));
+    }
+
+    @Test
+    void customerByIdIsOneStatement() {
+        countStatements(1, () -> customerService.getCustomerById(customer.getCustomerId()));
+    }
+
+    @Test
+    void customerSearchIsOneStatement() {
+        // From the name index, then through the database for a query too short to index
+        countStatements(1, () -> customerService.searchCustomersByName("Customer", 10));
+        countStatements(1, () -> customerService.searchCustomersByName("Cu", 10));
+    }
+
+    @Test
+    void activeCustomerPageIsOneStatement() {
+        countStatements(1, () -> customerService.getActiveCustomers(null, 10));
+    }
+
+    private <T> T countStatements(long expected, Supplier<T> read) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = read.get();
+        assertEquals(expected, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.ukbank.application.services;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Ledger invariants with single-writer shards, several of them so that transfers cross shards
+ */
+@SpringBootTest(properties = {
+    "ukbank.velocity.enabled=false",
+    "ukbank.ledger.shards.enabled=true",
+    "ukbank.ledger.shards.count=4"
+})
+class ShardedLedgerConcurrencyTest extends AbstractLedgerConcurrencyTest {
+}
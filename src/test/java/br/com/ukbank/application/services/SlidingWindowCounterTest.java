@@ -0,0 +1,212 @@
+package br.com.ukbank.application.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static br.com.ukbank.application.services.SlidingWindowCounter.ACQUIRED;
+import static br.com.ukbank.application.services.SlidingWindowCounter.MAX_AMOUNT;
+import static br.com.ukbank.application.services.SlidingWindowCounter.MAX_IDLE_BUCKETS;
+import static br.com.ukbank.application.services.SlidingWindowCounter.NO_LIMIT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SlidingWindowCounterTest {
+
+    private static final long KEY = 42;
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    void bucketsLeaveTheWindowOneAtATime() {
+        // Ten one-second buckets, three events per window
+        SlidingWindowCounter counter = counter(new SlidingWindowCounter.Limit(10 * SECOND, 10, 3, NO_LIMIT));
+
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        clock.addAndGet(5 * SECOND);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(0);
+
+        // The first bucket is still inside the window until its tenth second is over
+        clock.addAndGet(5 * SECOND - 1);
+        assertThat(acquire(counter, 0)).isEqualTo(0);
+        clock.addAndGet(1);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(0);
+
+        // The bucket at five seconds goes next, and frees both of its events
+        clock.addAndGet(5 * SECOND);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(0);
+    }
+
+    @Test
+    void slotOfAnEarlierTurnOfTheRingIsRestarted() {
+        SlidingWindowCounter counter = counter(new SlidingWindowCounter.Limit(4 * SECOND, 4, 2, NO_LIMIT));
+
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+
+        // Four buckets on, the same slot serves a new bucket and its old count no longer applies
+        clock.addAndGet(4 * SECOND);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(0);
+    }
+
+    @Test
+    void firstLimitRefusedIsReportedAndNothingIsCounted() {
+        SlidingWindowCounter counter = counter(
+            new SlidingWindowCounter.Limit(SECOND, 1, 5, NO_LIMIT),
+            new SlidingWindowCounter.Limit(60 * SECOND, 6, 100, 1_000));
+
+        assertThat(acquire(counter, 600)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 500)).isEqualTo(1);
+        assertThat(acquire(counter, 400)).isEqualTo(ACQUIRED);
+        for (int i = 0; i < 3; i++) {
+            assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        }
+        assertThat(acquire(counter, 0)).isEqualTo(0);
+
+        // The refused attempts left no count behind in either window
+        clock.addAndGet(SECOND);
+        for (int i = 0; i < 5; i++) {
+            assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        }
+    }
+
+    @Test
+    void keyIdlePastItsLongestWindowStartsOverWithFreshSlots() {
+        SlidingWindowCounter counter = counter(new SlidingWindowCounter.Limit(8 * SECOND, 8, 2, 1_000));
+        assertThat(acquire(counter, 1_000)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+
+        // Just past the most buckets a key may span between uses
+        clock.addAndGet((MAX_IDLE_BUCKETS + 1) * SECOND);
+        assertThat(acquire(counter, 1_000)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(0);
+
+        // A full turn of the epoch tags lands on the same slot with the same tag, which only
+        // the fresh slots keep from being read as the bucket of a turn ago
+        clock.addAndGet(8 * MAX_IDLE_BUCKETS * SECOND);
+        assertThat(acquire(counter, 1_000)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(counter.trackedKeys()).isEqualTo(1);
+    }
+
+    @Test
+    void bucketsTooShortBesideTheLongestWindowAreRejected() {
+        long millisecond = TimeUnit.MILLISECONDS.toNanos(1);
+        SlidingWindowCounter.Limit perMillisecond = new SlidingWindowCounter.Limit(millisecond, 1, 1, NO_LIMIT);
+
+        counter(perMillisecond, new SlidingWindowCounter.Limit(MAX_IDLE_BUCKETS * millisecond, 1, 1, NO_LIMIT));
+        assertThatThrownBy(() -> counter(perMillisecond,
+                new SlidingWindowCounter.Limit((MAX_IDLE_BUCKETS + 1) * millisecond, 1, 1, NO_LIMIT)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("too short");
+    }
+
+    @Test
+    void refundTakesBackOnlyWhatIsStillInTheSameBucket() {
+        SlidingWindowCounter counter = counter(
+            new SlidingWindowCounter.Limit(SECOND, 1, 1, NO_LIMIT),
+            new SlidingWindowCounter.Limit(10 * SECOND, 10, 2, 1_000));
+
+        long[] first = new long[2];
+        assertThat(counter.tryAcquire(KEY, 400, first, 0)).isEqualTo(ACQUIRED);
+        clock.addAndGet(SECOND);
+        assertThat(acquire(counter, 400)).isEqualTo(ACQUIRED);
+
+        // The one-bucket window has moved on, so its slot now holds the second acquisition and
+        // keeps it; the ten-second window still has the first bucket and gives its share back
+        counter.refund(KEY, first, 0, 1, 400);
+        assertThat(first).containsOnly(0);
+        assertThat(acquire(counter, 0)).isEqualTo(0);
+
+        clock.addAndGet(SECOND);
+        assertThat(acquire(counter, 600)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(0);
+
+        // Refunding again does nothing, the epochs were cleared
+        counter.refund(KEY, first, 0, 1, 400);
+        clock.addAndGet(SECOND);
+        assertThat(acquire(counter, 0)).isEqualTo(1);
+    }
+
+    @Test
+    void refundAfterTheSlotWasReusedLeavesTheNewBucketAlone() {
+        SlidingWindowCounter counter = counter(new SlidingWindowCounter.Limit(4 * SECOND, 4, 2, NO_LIMIT));
+
+        long[] old = new long[1];
+        assertThat(counter.tryAcquire(KEY, 0, old, 0)).isEqualTo(ACQUIRED);
+        clock.addAndGet(4 * SECOND);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 0)).isEqualTo(ACQUIRED);
+
+        counter.refund(KEY, old, 0, 1, 0);
+
+        assertThat(acquire(counter, 0)).isEqualTo(0);
+    }
+
+    @Test
+    void amountLimitsReachUpToMaxAmount() {
+        SlidingWindowCounter counter = counter(new SlidingWindowCounter.Limit(2 * SECOND, 2, NO_LIMIT, MAX_AMOUNT));
+
+        assertThat(acquire(counter, MAX_AMOUNT - 1)).isEqualTo(ACQUIRED);
+        clock.addAndGet(SECOND);
+        assertThat(acquire(counter, 1)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 1)).isEqualTo(0);
+
+        clock.addAndGet(SECOND);
+        assertThat(acquire(counter, MAX_AMOUNT)).isEqualTo(0);
+        assertThat(acquire(counter, MAX_AMOUNT - 1)).isEqualTo(ACQUIRED);
+
+        clock.addAndGet(2 * SECOND);
+        assertThat(acquire(counter, MAX_AMOUNT)).isEqualTo(ACQUIRED);
+        assertThat(acquire(counter, 1)).isEqualTo(0);
+        assertThat(acquire(counter, MAX_AMOUNT + 1)).isEqualTo(0);
+    }
+
+    @Test
+    void amountLimitIsChecked() {
+        new SlidingWindowCounter.Limit(SECOND, 1, 1, 0);
+        new SlidingWindowCounter.Limit(SECOND, 1, 1, NO_LIMIT);
+        assertThatThrownBy(() -> new SlidingWindowCounter.Limit(SECOND, 1, 1, MAX_AMOUNT + 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Amount limit out of range: " + (MAX_AMOUNT + 1));
+        assertThatThrownBy(() -> new SlidingWindowCounter.Limit(SECOND, 1, 1, -1))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SlidingWindowCounter.Limit(5, 10, 1, NO_LIMIT))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void idleKeysAreDroppedOnceMoreThanTheMaximumAreTracked() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(
+            Collections.singletonList(new SlidingWindowCounter.Limit(SECOND, 1, 1, NO_LIMIT)), 4, clock::get);
+        long[] epochs = new long[1];
+        for (long key = 0; key < 4; key++) {
+            assertThat(counter.tryAcquire(key, 0, epochs, 0)).isEqualTo(ACQUIRED);
+        }
+
+        clock.addAndGet(2 * SECOND);
+        assertThat(counter.tryAcquire(100, 0, epochs, 0)).isEqualTo(ACQUIRED);
+
+        assertThat(counter.trackedKeys()).isEqualTo(1);
+    }
+
+    private SlidingWindowCounter counter(SlidingWindowCounter.Limit... limits) {
+        return new SlidingWindowCounter(Arrays.asList(limits), 1_000, clock::get);
+    }
+
+    private int acquire(SlidingWindowCounter counter, long amount) {
+        return counter.tryAcquire(KEY, amount, new long[2], 0);
+    }
+}
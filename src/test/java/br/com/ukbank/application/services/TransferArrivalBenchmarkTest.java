@@ -0,0 +1,178 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.application.dto.MoneyTransferRequest;
+import br.com.ukbank.application.exceptions.InsufficientFundsException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Transfer throughput and latency at fixed arrival rates, once per commit mode
+ * The modes cross group commit on and off with the posting journal off, where a commit costs
+ * little, and on with every commit waiting for its sync. Transfers arrive on a schedule
+ * regardless of how fast earlier ones finish, and latency is measured from when each was due,
+ * so queueing behind a slow commit counts against it. The last step drops the schedule and keeps
+ * a fixed number in flight to find the saturated rate. Every twentieth transfer is refused, for
+ * lack of funds or a frozen payee, and must not take the others committed with it down.
+ */
+@Tag("benchmark")
+class TransferArrivalBenchmarkTest {
+
+    private static final int[] RATES = {100, 200, 300, 400};
+    private static final int CLIENTS = 128;
+    private static final int SATURATION_IN_FLIGHT = 128;
+
+    @ParameterizedTest(name = "group commit: {0}, journal: {1}")
+    @CsvSource({"true, false", "false, false", "true, true", "false, true"})
+    void transfersAtArrivalRates(boolean groupCommit, boolean journal) throws Exception {
+        int accounts = Benchmarks.size("accounts", 200);
+        int seconds = Benchmarks.size("seconds", 4);
+        int warmUpSeconds = Benchmarks.size("warmUpSeconds", 15);
+        String mode = String.format("group commit %s, %s", groupCommit ? "on" : "off",
+            journal ? "journal synced" : "no journal");
+        File journalDirectory = new File("target/arrival-journal");
+        FileSystemUtils.deleteRecursively(journalDirectory);
+
+        try (ConfigurableApplicationContext context = Benchmarks.start(
+            "ukbank.velocity.enabled=false",
+            "ukbank.ledger.group-commit.enabled=" + groupCommit,
+            "ukbank.journal.enabled=" + journal,
+            "ukbank.journal.directory=" + journalDirectory)) {
+            CustomerApplicationService customerService = context.getBean(CustomerApplicationService.class);
+            BankingAccountService accountService = context.getBean(BankingAccountService.class);
+
+            CustomerResponse customer = TestFixtures.registerCustomer(customerService);
+            List<BankAccountResponse> funded = new ArrayList<>(accounts);
+            for (int i = 0; i < accounts; i++) {
+                funded.add(TestFixtures.openAccount(accountService, customer.getCustomerId(), "100000.00", null));
+            }
+            BankAccountResponse poor = TestFixtures.openAccount(accountService, customer.getCustomerId(), "1.00", null);
+            BankAccountResponse frozen = TestFixtures.openAccount(accountService, customer.getCustomerId(), "1.00", null);
+            accountService.freezeAccount(frozen.getAccountId(), "Benchmark");
+
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+            try {
+                run(accountService, clients, funded, poor, frozen, 0, warmUpSeconds, null);
+                for (int rate : RATES) {
+                    run(accountService, clients, funded, poor, frozen, rate, seconds, mode);
+                }
+                run(accountService, clients, funded, poor, frozen, 0, seconds, mode);
+            } finally {
+                clients.shutdownNow();
+            }
+
+            BigDecimal total = context.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT SUM(balance) FROM bank_accounts WHERE customer_id = ?", BigDecimal.class, customer.getCustomerId());
+            assertEquals(0, new BigDecimal(100000).multiply(BigDecimal.valueOf(accounts)).add(new BigDecimal("2.00"))
+                .compareTo(total));
+        } finally {
+            FileSystemUtils.deleteRecursively(journalDirectory);
+        }
+    }
+
+    // A rate of 0 keeps SATURATION_IN_FLIGHT transfers outstanding instead of following a schedule;
+    // a step without a mode is a warm-up and is not reported
+    private static void run(BankingAccountService accountService, ExecutorService clients,
+                            List<BankAccountResponse> funded, BankAccountResponse poor, BankAccountResponse frozen,
+                            int rate, int seconds, String mode) throws Exception {
+        long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        AtomicInteger wrong = new AtomicInteger();
+        List<Future<Long>> submitted = new ArrayList<>();
+
+        long due = start;
+        while (due < end) {
+            if (rate > 0) {
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                while (submitted.size() - completed.get() >= SATURATION_IN_FLIGHT) {
+                    Thread.yield();
+                }
+                due = System.nanoTime();
+            }
+            long scheduled = due;
+            int n = submitted.size();
+            submitted.add(clients.submit(() -> {
+                boolean poison = n % 20 == 19;
+                try {
+                    transfer(accountService, funded, poison && n % 40 == 39 ? poor : null,
+                        poison && n % 40 != 39 ? frozen : null);
+                    if (poison) {
+                        wrong.incrementAndGet();
+                    }
+                } catch (InsufficientFundsException | IllegalStateException e) {
+                    if (poison) {
+                        refused.incrementAndGet();
+                    } else {
+                        wrong.incrementAndGet();
+                    }
+                } finally {
+                    completed.incrementAndGet();
+                }
+                return System.nanoTime() - scheduled;
+            }));
+            due += interval;
+        }
+
+        long[] latencies = new long[submitted.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = submitted.get(i).get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, wrong.get(), "transfers failed that should have gone through, or the reverse");
+        assertEquals(latencies.length / 20, refused.get());
+        if (mode != null) {
+            Benchmarks.report("transfers " + (rate > 0 ? rate + "/s" : "saturated"),
+                "%s: %.0f transfers/s, p50 %.2f ms, p99 %.2f ms, max %.1f ms", mode,
+                Benchmarks.perSecond(latencies.length, elapsed), Benchmarks.percentileMillis(latencies, 50),
+                Benchmarks.percentileMillis(latencies, 99), Benchmarks.percentileMillis(latencies, 100));
+        }
+    }
+
+    private static void transfer(BankingAccountService accountService, List<BankAccountResponse> funded,
+                                 BankAccountResponse payer, BankAccountResponse payee) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(funded.size());
+        int to = random.nextInt(funded.size() - 1);
+        if (to >= from) {
+            to++;
+        }
+        BankAccountResponse source = payer != null ? payer : funded.get(from);
+        BankAccountResponse target = payee != null ? payee : funded.get(to);
+        accountService.transferMoney(MoneyTransferRequest.builder()
+            .fromAccountId(source.getAccountId())
+            .toSortCode(target.getSortCode())
+            .toAccountNumber(target.getAccountNumber())
+            .amount(new BigDecimal("2.50"))
+            .payeeName("Payee")
+            .reference("ARRIVAL")
+            .build());
+    }
+}
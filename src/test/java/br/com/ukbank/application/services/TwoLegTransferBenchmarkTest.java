@@ -0,0 +1,102 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.dto.BankAccountResponse;
+import br.com.ukbank.application.dto.CustomerResponse;
+import br.com.ukbank.application.dto.MoneyTransferRequest;
+import br.com.ukbank.application.exceptions.InsufficientFundsException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Internal two-leg transfers at high concurrency across a hot set of accounts
+ * Pairs are picked at random, so A to B and B to A run at the same time throughout; a lock
+ * ordering bug shows up as the run not finishing. The smaller the hot set, the more often two
+ * transfers want the same account.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "ukbank.velocity.enabled=false")
+class TwoLegTransferBenchmarkTest {
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @ParameterizedTest(name = "{0} hot accounts")
+    @ValueSource(ints = {2, 8, 64})
+    void hotSetTransfers(int hotAccounts) throws Exception {
+        int threads = Benchmarks.size("threads", 32);
+        int transfers = Benchmarks.size("transfers", 20_000);
+
+        CustomerResponse customer = TestFixtures.registerCustomer(customerService);
+        List<BankAccountResponse> hotSet = new ArrayList<>();
+        for (int i = 0; i < hotAccounts; i++) {
+            hotSet.add(TestFixtures.openAccount(accountService, customer.getCustomerId(), "1000.00", null));
+        }
+
+        long[] latencies = new long[transfers];
+        AtomicInteger refused = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> submitted = new ArrayList<>(transfers);
+        long start = System.nanoTime();
+        for (int i = 0; i < transfers; i++) {
+            int sample = i;
+            submitted.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int from = random.nextInt(hotAccounts);
+                int to = random.nextInt(hotAccounts - 1);
+                if (to >= from) {
+                    to++;
+                }
+                BankAccountResponse destination = hotSet.get(to);
+                long began = System.nanoTime();
+                try {
+                    accountService.transferMoney(MoneyTransferRequest.builder()
+                        .fromAccountId(hotSet.get(from).getAccountId())
+                        .toSortCode(destination.getSortCode())
+                        .toAccountNumber(destination.getAccountNumber())
+                        .amount(new BigDecimal("3.17"))
+                        .payeeName("Hot set")
+                        .reference("BENCH")
+                        .build());
+                } catch (InsufficientFundsException e) {
+                    refused.incrementAndGet();
+                }
+                latencies[sample] = System.nanoTime() - began;
+            }));
+        }
+        for (Future<?> transfer : submitted) {
+            transfer.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (BankAccountResponse account : hotSet) {
+            total = total.add(accountService.getAccountById(account.getAccountId()).getBalance());
+        }
+        assertEquals(0, new BigDecimal("1000.00").multiply(BigDecimal.valueOf(hotAccounts)).compareTo(total));
+
+        Benchmarks.report("two-leg transfers", "%d accounts, %d threads: %.0f transfers/s, p50 %.2f ms, p99 %.2f ms, %d refused",
+            hotAccounts, threads, Benchmarks.perSecond(transfers, elapsed),
+            Benchmarks.percentileMillis(latencies, 50), Benchmarks.percentileMillis(latencies, 99), refused.get());
+    }
+}
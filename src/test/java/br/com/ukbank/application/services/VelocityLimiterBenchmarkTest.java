@@ -0,0 +1,110 @@
+package br.com.ukbank.application.services;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.application.exceptions.VelocityLimitExceededException;
+import br.com.ukbank.domain.valueobjects.Money;
+import br.com.ukbank.infrastructure.config.VelocityLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH cost of the velocity checks a transfer makes before its debit
+ * An accepted transfer reserves its account windows and then its customer's, spread over the
+ * given number of accounts, with the limits raised so that none refuses. A refused one hits an
+ * account already at its per-minute limit under the default limits and gets the exception.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VelocityLimiterBenchmarkTest {
+
+    private static final long HOT_ACCOUNT = -1L;
+
+    @Param({"1000", "100000"})
+    public int accounts;
+
+    private VelocityLimiter open;
+    private VelocityLimiter limited;
+    private Money amount;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        VelocityLimitProperties raised = new VelocityLimitProperties();
+        raised.setMaxTrackedKeys(2 * accounts);
+        raised.getAccountLimits().forEach(limit -> {
+            limit.setMaxCount(1_000_000_000);
+            if (limit.getMaxAmount() != null) {
+                limit.setMaxAmount(new BigDecimal("1000000000.00"));
+            }
+        });
+        raised.getCustomerLimits().forEach(limit -> limit.setMaxCount(1_000_000_000));
+        open = new VelocityLimiter(raised, new SimpleMeterRegistry());
+        amount = Money.of(new BigDecimal("12.34"));
+
+        limited = new VelocityLimiter(new VelocityLimitProperties(), new SimpleMeterRegistry());
+        try {
+            while (true) {
+                limited.reserve(HOT_ACCOUNT, amount);
+            }
+        } catch (VelocityLimitExceededException e) {
+            // The hot account is now at its limit for the rest of the minute
+        }
+    }
+
+    @Benchmark
+    public VelocityLimiter.Reservation accepted() {
+        long account = next++ * 2654435761L % accounts;
+        VelocityLimiter.Reservation reservation = open.reserve(account, amount);
+        open.reserveForCustomer(reservation, account / 3);
+        return reservation;
+    }
+
+    @Benchmark
+    public Object refused() {
+        try {
+            return limited.reserve(HOT_ACCOUNT, amount);
+        } catch (VelocityLimitExceededException e) {
+            return e;
+        }
+    }
+
+    @Tag("benchmark")
+    @Test
+    void transferChecks() throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+            .include(VelocityLimiterBenchmarkTest.class.getName() + "\\.")
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+        for (RunResult result : results) {
+            Benchmarks.report("velocity " + result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                "%s accounts: %.1f ns/transfer, %.0f B/transfer",
+                result.getParams().getParam("accounts"),
+                result.getPrimaryResult().getScore(),
+                result.getSecondaryResults().get("gc.alloc.rate.norm").getScore());
+        }
+    }
+}
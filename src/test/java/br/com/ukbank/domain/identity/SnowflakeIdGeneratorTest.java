@@ -0,0 +1,129 @@
+package br.com.ukbank.domain.identity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + 1_000_000L;
+    private static final long LEASE_MILLIS = 10_000L;
+
+    @Test
+    void millionsOfIdentifiersAcrossThreadsAreUnique() throws Exception {
+        assertUniqueAcrossThreads(new SnowflakeIdGenerator(3), 8, 500_000);
+    }
+
+    @Test
+    void identifiersStayUniqueWhileTheLogicalClockRunsAheadOfTheWallClock() throws Exception {
+        // The wall clock crawls and steps back, so nearly every identifier comes from a logical clock ahead of it
+        AtomicLong calls = new AtomicLong();
+        LongSupplier clock = () -> {
+            long n = calls.incrementAndGet();
+            return NOW + n / 100_000 - (n % 1_000_000 == 0 ? 5_000 : 0);
+        };
+        long[] ids = assertUniqueAcrossThreads(new SnowflakeIdGenerator(3, clock), 8, 500_000);
+
+        long wallClockReached = NOW + calls.get() / 100_000;
+        assertThat(millisOf(ids[ids.length - 1])).isGreaterThan(wallClockReached);
+    }
+
+    @Test
+    void restartContinuesAfterTheReservationEvenWhenTheClockSteppedBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        AtomicLong stored = new AtomicLong();
+        SnowflakeIdGenerator.Reservation reservation = millis -> {
+            stored.accumulateAndGet(millis, Math::max);
+            return stored.get();
+        };
+
+        SnowflakeIdGenerator before = new SnowflakeIdGenerator(7, clock::get, 0, LEASE_MILLIS, reservation);
+        long last = 0;
+        for (int i = 0; i < 100_000; i++) {
+            last = before.nextId();
+        }
+        assertThat(stored.get()).isGreaterThanOrEqualTo(millisOf(last));
+
+        clock.set(NOW - 60_000L);
+        SnowflakeIdGenerator after = new SnowflakeIdGenerator(7, clock::get, stored.get(), LEASE_MILLIS, reservation);
+
+        assertThat(after.nextId()).isGreaterThan(last);
+    }
+
+    @Test
+    void identifiersNeverPassTheReservation() {
+        AtomicLong stored = new AtomicLong();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> NOW, 0, LEASE_MILLIS, millis -> {
+            stored.accumulateAndGet(millis, Math::max);
+            return stored.get();
+        });
+
+        // A burst beyond 4096 per millisecond pushes the logical clock ahead of the frozen wall clock
+        for (int i = 0; i < 50_000; i++) {
+            long id = generator.nextId();
+            assertThat(millisOf(id)).isLessThanOrEqualTo(stored.get());
+        }
+        assertThat(stored.get()).isGreaterThan(NOW);
+    }
+
+    @Test
+    void failedReservationStopsIssuing() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> NOW, 0, LEASE_MILLIS, millis -> 0L);
+
+        assertThatThrownBy(generator::nextId)
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    // Each thread's identifiers must increase, and all of them together must be distinct
+    private static long[] assertUniqueAcrossThreads(SnowflakeIdGenerator generator, int threads, int perThread)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            long[][] issued = new long[threads][perThread];
+            for (int t = 0; t < threads; t++) {
+                long[] mine = issued[t];
+                futures[t] = pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        mine[i] = generator.nextId();
+                        if (i > 0 && mine[i] <= mine[i - 1]) {
+                            throw new AssertionError("Identifier " + mine[i] + " not above " + mine[i - 1]);
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            long[] all = new long[threads * perThread];
+            for (int t = 0; t < threads; t++) {
+                System.arraycopy(issued[t], 0, all, t * perThread, perThread);
+            }
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertThat(all[i]).as("identifier %d", i).isNotEqualTo(all[i - 1]);
+            }
+            return all;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    static long millisOf(long id) {
+        return (id >>> 22) + SnowflakeIdGenerator.EPOCH_MILLIS;
+    }
+}
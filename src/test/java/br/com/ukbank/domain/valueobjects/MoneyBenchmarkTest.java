@@ -0,0 +1,118 @@
+package br.com.ukbank.domain.valueobjects;
+
+import br.com.ukbank.Benchmarks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the long-backed Money against the BigDecimal one it replaced
+ * Each operation is the debit path of BankAccount: an available-balance check, a subtract and
+ * the credit back. The gc profiler reports the bytes allocated per operation alongside the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmarkTest {
+
+    private Money balance;
+    private Money amount;
+    private BigDecimalMoney referenceBalance;
+    private BigDecimalMoney referenceAmount;
+
+    @Setup
+    public void setUp() {
+        balance = Money.of(new BigDecimal("1000000.00"));
+        amount = Money.of(new BigDecimal("1.17"));
+        referenceBalance = new BigDecimalMoney(new BigDecimal("1000000.00"), "GBP");
+        referenceAmount = new BigDecimalMoney(new BigDecimal("1.17"), "GBP");
+    }
+
+    @Benchmark
+    public Money minorUnits() {
+        Money result = balance;
+        if (!amount.isGreaterThan(result)) {
+            result = result.subtract(amount).add(amount);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public BigDecimalMoney bigDecimal() {
+        BigDecimalMoney result = referenceBalance;
+        if (!referenceAmount.isGreaterThan(result)) {
+            result = result.subtract(referenceAmount).add(referenceAmount);
+        }
+        return result;
+    }
+
+    @Tag("benchmark")
+    @Test
+    void compareWithBigDecimal() throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+            .include(MoneyBenchmarkTest.class.getName() + "\\.")
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+        for (RunResult result : results) {
+            Benchmarks.report("money " + result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                "%.1f ns/op, %.0f B/op",
+                result.getPrimaryResult().getScore(),
+                result.getSecondaryResults().get("gc.alloc.rate.norm").getScore());
+        }
+    }
+
+    /**
+     * The BigDecimal Money as it was, kept here as the baseline
+     */
+    public static final class BigDecimalMoney {
+        private final BigDecimal amount;
+        private final String currency;
+
+        BigDecimalMoney(BigDecimal amount, String currency) {
+            this.amount = amount.setScale(2, RoundingMode.HALF_UP);
+            this.currency = currency;
+        }
+
+        BigDecimalMoney add(BigDecimalMoney other) {
+            validateSameCurrency(other);
+            return new BigDecimalMoney(amount.add(other.amount), currency);
+        }
+
+        BigDecimalMoney subtract(BigDecimalMoney other) {
+            validateSameCurrency(other);
+            return new BigDecimalMoney(amount.subtract(other.amount), currency);
+        }
+
+        boolean isGreaterThan(BigDecimalMoney other) {
+            validateSameCurrency(other);
+            return amount.compareTo(other.amount) > 0;
+        }
+
+        private void validateSameCurrency(BigDecimalMoney other) {
+            if (!currency.equals(other.currency)) {
+                throw new IllegalArgumentException("Cannot perform operation on different currencies");
+            }
+        }
+    }
+}
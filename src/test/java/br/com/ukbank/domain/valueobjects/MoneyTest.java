@@ -0,0 +1,105 @@
+package br.com.ukbank.domain.valueobjects;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void amountsAreHeldAsWholeMinorUnits() {
+        assertThat(Money.of(new BigDecimal("12.34")).getMinorUnits()).isEqualTo(1234);
+        assertThat(Money.of(new BigDecimal("-0.07")).getMinorUnits()).isEqualTo(-7);
+        assertThat(Money.of(new BigDecimal("5")).getMinorUnits()).isEqualTo(500);
+        assertThat(Money.ofMinor(1234).getAmount()).isEqualByComparingTo("12.34").hasToString("12.34");
+        assertThat(Money.ofMinor(Long.MAX_VALUE).getAmount()).isEqualTo(new BigDecimal("92233720368547758.07"));
+    }
+
+    @Test
+    void extraDecimalPlacesRoundHalfUp() {
+        assertThat(Money.of(new BigDecimal("1.005")).getMinorUnits()).isEqualTo(101);
+        assertThat(Money.of(new BigDecimal("1.0049")).getMinorUnits()).isEqualTo(100);
+        assertThat(Money.of(new BigDecimal("-1.005")).getMinorUnits()).isEqualTo(-101);
+        assertThat(Money.of(new BigDecimal("2.675")).getMinorUnits()).isEqualTo(268);
+    }
+
+    @Test
+    void amountsBeyondALongOfPenceAreRejected() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("92233720368547758.08")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("out of range");
+    }
+
+    @Test
+    void arithmeticOverflowThrowsInsteadOfWrapping() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+        Money min = Money.ofMinor(Long.MIN_VALUE);
+
+        assertThatThrownBy(() -> max.add(Money.ofMinor(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> min.subtract(Money.ofMinor(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.zero().subtract(min)).isInstanceOf(ArithmeticException.class);
+        assertThat(max.subtract(Money.ofMinor(1)).add(Money.ofMinor(1))).isEqualTo(max);
+    }
+
+    @Test
+    void arithmeticAndComparisonsWorkOnMinorUnits() {
+        Money balance = Money.of(new BigDecimal("100.00"));
+        Money debit = Money.of(new BigDecimal("30.01"));
+
+        assertThat(balance.subtract(debit)).isEqualTo(Money.of(new BigDecimal("69.99")));
+        assertThat(debit.subtract(balance).getAmount()).isEqualByComparingTo("-69.99");
+        assertThat(balance.add(debit)).isEqualTo(Money.ofMinor(13001));
+        assertThat(balance.isGreaterThan(debit)).isTrue();
+        assertThat(balance.isGreaterThan(balance)).isFalse();
+        assertThat(balance.isGreaterThanOrEqual(Money.ofMinor(10000))).isTrue();
+        assertThat(Money.zero().isZero()).isTrue();
+        assertThat(debit.isPositive()).isTrue();
+        assertThatThrownBy(() -> balance.add(Money.of(BigDecimal.ONE, "EUR")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void smallPoundAmountsComeFromTheCache() {
+        assertThat(Money.zero()).isSameAs(Money.ofMinor(0));
+        assertThat(Money.ofMinor(1023)).isSameAs(Money.of(new BigDecimal("10.23")));
+        assertThat(Money.ofMinor(600).subtract(Money.ofMinor(100))).isSameAs(Money.ofMinor(500));
+        assertThat(Money.ofMinor(1023, "GBP")).isSameAs(Money.ofMinor(1023));
+
+        assertThat(Money.ofMinor(1024)).isNotSameAs(Money.ofMinor(1024)).isEqualTo(Money.ofMinor(1024));
+        assertThat(Money.ofMinor(-1)).isNotSameAs(Money.ofMinor(-1));
+        assertThat(Money.ofMinor(5, "EUR")).isNotSameAs(Money.ofMinor(5, "EUR"));
+    }
+
+    @Test
+    void persistedPropertiesRoundTripThroughTheJpaSetters() throws Exception {
+        Money original = Money.of(new BigDecimal("-1234567.89"), "EUR");
+
+        Money loaded = loadAsJpaWould(original.getAmount(), new String(original.getCurrency().toCharArray()));
+
+        assertThat(loaded).isEqualTo(original);
+        assertThat(loaded.getMinorUnits()).isEqualTo(-123456789);
+        assertThat(loaded.getAmount()).isEqualTo(new BigDecimal("-1234567.89"));
+        // The currency read back is interned, so same-currency checks compare references
+        assertThat(loaded.getCurrency()).isSameAs(original.getCurrency());
+        assertThat(loadAsJpaWould(new BigDecimal("0.10"), "GBP").getAmount()).isEqualTo(new BigDecimal("0.10"));
+    }
+
+    // Builds a Money the way Hibernate does with property access: no-arg constructor, then setters
+    private static Money loadAsJpaWould(BigDecimal amount, String currency) throws Exception {
+        Constructor<Money> constructor = Money.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Money money = constructor.newInstance();
+        Method setAmount = Money.class.getDeclaredMethod("setAmount", BigDecimal.class);
+        setAmount.setAccessible(true);
+        setAmount.invoke(money, amount);
+        Method setCurrency = Money.class.getDeclaredMethod("setCurrency", String.class);
+        setCurrency.setAccessible(true);
+        setCurrency.invoke(money, currency);
+        return money;
+    }
+}
@@ -0,0 +1,119 @@
+package br.com.ukbank.presentation.controllers;
+
+import br.com.ukbank.Benchmarks;
+import br.com.ukbank.TestFixtures;
+import br.com.ukbank.application.services.BankingAccountService;
+import br.com.ukbank.application.services.CustomerApplicationService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statement export of a 5M-posting account over HTTP, in CSV and NDJSON
+ * Rows come off a forward-only cursor straight onto the response, so the heap should stay
+ * where it was before the export however long the statement is. While the response is read,
+ * heap use is sampled both as is, garbage included, and as left by the last collection, which
+ * is what the export actually holds on to.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class StatementExportBenchmarkTest {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    CustomerApplicationService customerService;
+
+    @Autowired
+    BankingAccountService accountService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportLargeStatement() {
+        int postings = Benchmarks.size("postings", 5_000_000);
+        Long customerId = TestFixtures.registerCustomer(customerService).getCustomerId();
+        Long accountId = TestFixtures.openAccount(accountService, customerId, "100.00", null).getAccountId();
+        TestFixtures.seedHistory(jdbcTemplate, accountId, postings);
+
+        // Seeded postings are one a second from 2020, so this range covers all of them
+        String url = "/api/accounts/" + accountId + "/statement?from=2020-01-01&to=2021-01-01";
+        for (MediaType type : new MediaType[] {MediaType.parseMediaType("text/csv"), MediaType.APPLICATION_NDJSON}) {
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            long heapBefore = memory.getHeapMemoryUsage().getUsed();
+            long retainedBefore = retainedHeap();
+            AtomicLong peakHeap = new AtomicLong(heapBefore);
+            AtomicLong peakRetained = new AtomicLong(retainedBefore);
+            Thread sampler = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    peakRetained.accumulateAndGet(retainedHeap(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "heap-sampler");
+            sampler.start();
+
+            long start = System.nanoTime();
+            long[] read = restTemplate.execute(url, HttpMethod.GET,
+                request -> request.getHeaders().setAccept(Collections.singletonList(type)),
+                response -> {
+                    long lines = 0;
+                    long bytes = 0;
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lines++;
+                        bytes += line.length() + 1;
+                    }
+                    return new long[] {lines, bytes};
+                });
+            long elapsed = System.nanoTime() - start;
+            sampler.interrupt();
+
+            boolean csv = type.getSubtype().equals("csv");
+            // CSV adds a header row; the opening deposit falls outside the range
+            assertEquals(postings + (csv ? 1 : 0), read[0]);
+            Benchmarks.report("statement export", "%s, %,d postings: %.1f s, %.0f rows/s, %.0f MB; "
+                    + "heap after GC %d MB before, %d MB peak; heap in use %d MB before, %d MB peak",
+                type, postings, elapsed / 1e9, Benchmarks.perSecond(postings, elapsed), read[1] / 1e6,
+                retainedBefore >> 20, peakRetained.get() >> 20, heapBefore >> 20, peakHeap.get() >> 20);
+        }
+    }
+
+    // Heap left in use by the last collection of each pool
+    private static long retainedHeap() {
+        long retained = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterCollection = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if (afterCollection != null) {
+                retained += afterCollection.getUsed();
+            }
+        }
+        return retained;
+    }
+}